@@ -0,0 +1,96 @@
+package org.hua;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes which a benchmark thread allocates per compiled source line.
+ * <br>
+ * It uses the thread allocation counter of HotSpot, and reports 0 on the JVMs which do not have one.
+ * JMH adds up the events of all the iterations and threads, so every iteration reports its share of the average.
+ * For the allocation rate of the whole JVM, run the benchmarks with -prof gc.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class AllocationCounters {
+
+    /**
+     * The allocation counter of HotSpot, or null if the JVM does not have it.
+     */
+    private static final com.sun.management.ThreadMXBean THREADS = threadMXBean();
+
+    /**
+     * The bytes allocated in the current iteration.
+     */
+    private long allocatedBytes;
+
+    /**
+     * The lines compiled in the current iteration.
+     */
+    private long lines;
+
+    /**
+     * The allocation counter of the thread at the start of the current operation.
+     */
+    private long start;
+
+    /**
+     * The number of the values which JMH adds up: the measurement iterations of all the threads.
+     */
+    private int shares;
+
+    @Setup(Level.Trial)
+    public void count(BenchmarkParams params) {
+        shares = params.getMeasurement().getCount() * params.getThreads();
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        allocatedBytes = 0;
+        lines = 0;
+    }
+
+    /**
+     * @return the bytes allocated per compiled line in the current iteration.
+     */
+    public double bytesPerLine() {
+        return lines == 0 ? 0 : (double) allocatedBytes / lines / shares;
+    }
+
+    /**
+     * Marks the start of an operation.
+     */
+    void start() {
+        start = threadAllocatedBytes();
+    }
+
+    /**
+     * Marks the end of an operation and counts its lines, here and in the line counters.
+     *
+     * @param compiledLines the lines compiled by the operation.
+     * @param counters      the line counters of the benchmark.
+     */
+    void stop(int compiledLines, LineCounters counters) {
+        allocatedBytes += threadAllocatedBytes() - start;
+        lines += compiledLines;
+        counters.lines += compiledLines;
+    }
+
+    private static long threadAllocatedBytes() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported())
+            return (com.sun.management.ThreadMXBean) threads;
+        return null;
+    }
+}
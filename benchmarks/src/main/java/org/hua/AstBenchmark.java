@@ -0,0 +1,223 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.ast.ASTUtils;
+import org.hua.symbol.SymTableImplementation;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The heap which a checked AST retains per node, and the throughput of the visitors which set its attributes,
+ * on a generated program of 100k lines.
+ * <br>
+ * The attributes of the nodes are plain fields. With -p attributes=map, every node gets a HashMap of its
+ * attributes as well, which the visitors' attributes are copied into after every pass, the way the nodes
+ * stored them before the fields. The map layout still counts the fields, so it underestimates the difference.
+ * <br>
+ * The heap per node is reported as the bytesPerNode counter. It is measured once per trial,
+ * as the used heap after full collections, so run it with a heap which holds the AST a few times over.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Dlog.level=WARN", "-Xmx4g"})
+public class AstBenchmark {
+
+    /**
+     * The keys of the attributes in the maps of the nodes.
+     */
+    private static final String SYMTABLE_PROPERTY = "SYMTABLE_PROPERTY";
+    private static final String TYPE_PROPERTY = "TYPE_PROPERTY";
+
+    /**
+     * The ways the attributes are stored.
+     */
+    public enum Attributes {
+        /**
+         * In the fields of the nodes.
+         */
+        FIELDS,
+        /**
+         * In a HashMap per node too, as before the fields.
+         */
+        MAP
+    }
+
+    @State(Scope.Thread)
+    public static class CheckedState {
+
+        /**
+         * The kind of the program.
+         */
+        @Param({"MANY_CLASSES", "DEEP_EXPRESSIONS", "LONG_METHODS", "NESTED_BLOCKS"})
+        public Corpus.Shape shape;
+
+        /**
+         * The approximate number of lines of the program.
+         */
+        @Param({"100000"})
+        public int lines;
+
+        @Param({"FIELDS", "MAP"})
+        public Attributes attributes;
+
+        ASTNode compUnit;
+
+        List<ASTNode> nodes;
+
+        /**
+         * The maps of the nodes, in the order of the nodes, or null with the fields.
+         */
+        List<Map<String, Object>> maps;
+
+        /**
+         * The heap retained by the checked AST, per node.
+         */
+        double bytesPerNode;
+
+        @Setup(Level.Trial)
+        public void check() throws Exception {
+            String source = Corpus.generate(shape, lines, "C", true);
+
+            long before = usedHeap();
+            compUnit = Phases.parse(source);
+            Phases.check(compUnit, new Registry(), SymTableImplementation.FLAT);
+            long retained = usedHeap() - before;
+
+            nodes = collect(compUnit);
+            if (attributes == Attributes.MAP) {
+                maps = new ArrayList<Map<String, Object>>(nodes.size());
+                long beforeMaps = usedHeap();
+                for (ASTNode node : nodes)
+                    maps.add(new HashMap<String, Object>());
+                copyAttributes(nodes, maps);
+                retained += usedHeap() - beforeMaps;
+            }
+            bytesPerNode = (double) retained / nodes.size();
+        }
+    }
+
+    /**
+     * Reports the heap retained per node of the trial.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapCounters {
+
+        /**
+         * The heap per node of the trial.
+         */
+        private double trialBytesPerNode;
+
+        /**
+         * The number of the values which JMH adds up: the measurement iterations of all the threads.
+         */
+        private int shares;
+
+        @Setup(Level.Trial)
+        public void count(BenchmarkParams params, CheckedState checked) {
+            shares = params.getMeasurement().getCount() * params.getThreads();
+            trialBytesPerNode = checked.bytesPerNode;
+        }
+
+        /**
+         * @return the heap retained by the checked AST per node.
+         */
+        public double bytesPerNode() {
+            return trialBytesPerNode / shares;
+        }
+    }
+
+    /**
+     * Runs the symbol table and the local index passes again over the checked AST,
+     * which set the attributes of every node.
+     */
+    @Benchmark
+    public ASTNode attributePasses(CheckedState checked, HeapCounters heap) throws Exception {
+        checked.compUnit.accept(new SymTableBuilderASTVisitor(SymTableImplementation.FLAT));
+        checked.compUnit.accept(new LocalIndexBuilderASTVisitor(new Registry()));
+        if (checked.maps != null)
+            copyAttributes(checked.nodes, checked.maps);
+        return checked.compUnit;
+    }
+
+    /**
+     * Copies the attributes which every checked node has into its map.
+     */
+    private static void copyAttributes(List<ASTNode> nodes, List<Map<String, Object>> maps) {
+        for (int i = 0; i < nodes.size(); i++) {
+            ASTNode node = nodes.get(i);
+            Map<String, Object> map = maps.get(i);
+            if (ASTUtils.getEnv(node) != null)
+                map.put(SYMTABLE_PROPERTY, ASTUtils.getEnv(node));
+            if (ASTUtils.getType(node) != null)
+                map.put(TYPE_PROPERTY, ASTUtils.getType(node));
+        }
+    }
+
+    /**
+     * Collects the nodes of an AST, following the fields which hold nodes or lists of nodes.
+     *
+     * @param root the root of the AST.
+     * @return its nodes, each once.
+     */
+    private static List<ASTNode> collect(ASTNode root) throws IllegalAccessException {
+        Map<ASTNode, Boolean> seen = new IdentityHashMap<ASTNode, Boolean>();
+        List<ASTNode> nodes = new ArrayList<ASTNode>();
+        List<ASTNode> pending = new ArrayList<ASTNode>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            ASTNode node = pending.remove(pending.size() - 1);
+            if (seen.put(node, Boolean.TRUE) != null)
+                continue;
+            nodes.add(node);
+            for (Class<?> c = node.getClass(); c != Object.class; c = c.getSuperclass())
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()))
+                        continue;
+                    field.setAccessible(true);
+                    Object value = field.get(node);
+                    if (value instanceof ASTNode)
+                        pending.add((ASTNode) value);
+                    else if (value instanceof List)
+                        for (Object element : (List<?>) value)
+                            if (element instanceof ASTNode)
+                                pending.add((ASTNode) element);
+                }
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the used heap after full collections.
+     */
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,74 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.symbol.SymTableImplementation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.TreeMap;
+
+/**
+ * The throughput of the byte code generator, without writing the classes.
+ * <br>
+ * The generator fills the jump lists of the nodes, so every operation gets a freshly checked AST.
+ * Since the setup runs for every invocation, keep the programs large enough, e.g. thousands of lines,
+ * for its cost to stay out of the measurement.
+ * <br>
+ * The backend parameter compares the tree backend, whose ClassWriter computes the frames of the class files
+ * of Java 8, with the stream backend, which computes them itself.
+ * The peephole parameter measures the cost of the PeepholeOptimizer, which both backends run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class CodegenBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class BackendState {
+
+        /**
+         * The name of the CodegenBackend, which is not public.
+         */
+        @Param({"tree", "stream"})
+        public String backend;
+
+        @Param({"true", "false"})
+        public boolean peephole;
+    }
+
+    @State(Scope.Thread)
+    public static class CheckedState {
+
+        ASTNode compUnit;
+
+        Registry registry;
+
+        @Setup(Level.Invocation)
+        public void check(CorpusState corpus) throws Exception {
+            compUnit = Phases.parse(corpus.source);
+            registry = new Registry();
+            Phases.check(compUnit, registry, SymTableImplementation.FLAT);
+        }
+    }
+
+    @Benchmark
+    public TreeMap<String, byte[]> generate(CorpusState corpus, CheckedState checked, BackendState backend,
+                                           LineCounters counters, AllocationCounters allocation) throws Exception {
+        allocation.start();
+        TreeMap<String, byte[]> classBytes = Phases.generate(checked.compUnit, checked.registry,
+                StringConcatenation.BUILDER, ClassFileTarget.JAVA_8, CodegenBackend.forName(backend.backend),
+                backend.peephole, WriteMode.STRICT);
+        allocation.stop(corpus.lineCount, counters);
+        return classBytes;
+    }
+}
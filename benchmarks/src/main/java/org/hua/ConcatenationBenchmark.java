@@ -0,0 +1,83 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.helpers.ReloadingClassLoader;
+import org.hua.symbol.SymTableImplementation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The run time of the string concatenations generated by the compiler, not the time to compile them.
+ * <br>
+ * The benchmark calls a compiled huava function which concatenates strings, integers and floats,
+ * as the programs which write their results do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class ConcatenationBenchmark {
+
+    /**
+     * The program with the concatenating function.
+     */
+    private static final String SOURCE = "class Concat {\n"
+            + "\tstatic string run(int i, float f, string s) {\n"
+            + "\t\treturn s + \"[\" + i + \"] = \" + f + \", \" + s + \" + \" + i + \" = \" + (f + i) + \"\\n\";\n"
+            + "\t}\n"
+            + "\tstatic void main() {\n"
+            + "\t\twrite(run(1, 2.5, \"x\"));\n"
+            + "\t}\n"
+            + "}\n";
+
+    @State(Scope.Thread)
+    public static class CompiledState {
+
+        /**
+         * The name of the StringConcatenation, which is not public.
+         */
+        @Param({"builder", "indy"})
+        public String concatenation;
+
+        MethodHandle run;
+
+        int i;
+
+        @Setup(Level.Trial)
+        public void compile() throws Throwable {
+            ASTNode compUnit = Phases.parse(SOURCE);
+            Registry registry = new Registry();
+            Phases.check(compUnit, registry, SymTableImplementation.FLAT);
+            TreeMap<String, byte[]> classBytes = Phases.generate(compUnit, registry,
+                    StringConcatenation.forName(concatenation), ClassFileTarget.JAVA_11, CodegenBackend.STREAM, true,
+                    WriteMode.STRICT);
+
+            ReloadingClassLoader loader = new ReloadingClassLoader(ConcatenationBenchmark.class.getClassLoader());
+            for (Map.Entry<String, byte[]> pair : classBytes.entrySet())
+                loader.register(pair.getKey(), pair.getValue());
+            run = MethodHandles.publicLookup().findStatic(loader.loadClass("Concat"), "run",
+                    MethodType.methodType(String.class, int.class, float.class, String.class));
+        }
+    }
+
+    @Benchmark
+    public String concatenate(CompiledState state) throws Throwable {
+        int i = state.i++;
+        return (String) state.run.invokeExact(i, i * 0.5f, "item");
+    }
+}
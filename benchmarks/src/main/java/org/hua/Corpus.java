@@ -0,0 +1,225 @@
+package org.hua;
+
+/**
+ * Generates synthetic huava programs of a given size for the benchmarks.
+ * <br>
+ * Every program type-checks and has exactly one main function, in its last class.
+ */
+public final class Corpus {
+
+    /**
+     * The kinds of programs which stress different parts of the compiler.
+     */
+    public enum Shape {
+        /**
+         * Many small classes with fields and short methods, which stress the symbol tables and the class registry.
+         */
+        MANY_CLASSES,
+        /**
+         * Methods made of deeply nested expressions, which stress the parser's stack and the recursive visitors.
+         */
+        DEEP_EXPRESSIONS,
+        /**
+         * A few classes with very long methods and many locals, which stress the local index pool and the jump lists.
+         */
+        LONG_METHODS,
+        /**
+         * Methods made of deeply nested blocks, each declaring a local, which stress the scopes of the symbol tables.
+         */
+        NESTED_BLOCKS
+    }
+
+    /**
+     * The nesting depth of the expressions of DEEP_EXPRESSIONS.
+     */
+    private static final int EXPRESSION_DEPTH = 40;
+
+    /**
+     * The number of statements in a method of LONG_METHODS.
+     */
+    private static final int METHOD_LENGTH = 2000;
+
+    /**
+     * The nesting depth of the blocks of NESTED_BLOCKS.
+     */
+    private static final int BLOCK_DEPTH = 32;
+
+    private Corpus() {
+    }
+
+    /**
+     * Generates a program of the given shape.
+     *
+     * @param shape       the kind of the program.
+     * @param lines       the approximate number of lines of the program.
+     * @param classPrefix the prefix of the class names, so that several programs can be compiled together.
+     * @param withMain    whether the program has the main function.
+     * @return the source of the program.
+     */
+    static String generate(Shape shape, int lines, String classPrefix, boolean withMain) {
+        Writer out = new Writer();
+        int classes = 0;
+        while (out.lines < lines) {
+            String className = classPrefix + classes++;
+            switch (shape) {
+                case MANY_CLASSES:
+                    manyClasses(out, className);
+                    break;
+                case DEEP_EXPRESSIONS:
+                    deepExpressions(out, className);
+                    break;
+                case LONG_METHODS:
+                    longMethods(out, className, lines - out.lines);
+                    break;
+                case NESTED_BLOCKS:
+                    nestedBlocks(out, className);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown shape " + shape);
+            }
+        }
+
+        if (withMain) {
+            out.line("class " + classPrefix + "Main {");
+            out.line("\tstatic void main() {");
+            out.line("\t\twrite(\"done\\n\");");
+            out.line("\t}");
+            out.line("}");
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Counts the lines of a source.
+     *
+     * @param source the source.
+     * @return the number of its lines.
+     */
+    static int countLines(String source) {
+        int lines = 0;
+        for (int i = 0; i < source.length(); i++)
+            if (source.charAt(i) == '\n')
+                lines++;
+        return lines;
+    }
+
+    private static void manyClasses(Writer out, String className) {
+        out.line("class " + className + " {");
+        out.line("\tint count;");
+        out.line("\tfloat ratio;");
+        out.line("\t" + className + " next;");
+        out.line("\tint get() {");
+        out.line("\t\treturn count;");
+        out.line("\t}");
+        out.line("\tvoid set(int value) {");
+        out.line("\t\tcount = value;");
+        out.line("\t}");
+        out.line("\tfloat scale(float factor) {");
+        out.line("\t\tratio = ratio * factor;");
+        out.line("\t\treturn ratio;");
+        out.line("\t}");
+        out.line("}");
+    }
+
+    private static void deepExpressions(Writer out, String className) {
+        out.line("class " + className + " {");
+        for (int m = 0; m < 4; m++) {
+            out.line("\tint m" + m + "(int a, int b) {");
+            out.line("\t\tint r;");
+            out.line("\t\tr = " + nested(EXPRESSION_DEPTH) + ";");
+            out.line("\t\tif (" + nested(EXPRESSION_DEPTH / 4) + " < b) {");
+            out.line("\t\t\tr = r + 1;");
+            out.line("\t\t}");
+            out.line("\t\treturn r;");
+            out.line("\t}");
+        }
+        out.line("}");
+    }
+
+    private static void longMethods(Writer out, String className, int remaining) {
+        int statements = Math.max(1, Math.min(METHOD_LENGTH, remaining - 8));
+        out.line("class " + className + " {");
+        out.line("\tint total;");
+        out.line("\tint run(int n) {");
+        out.line("\t\tint i;");
+        out.line("\t\tint s;");
+        out.line("\t\tfloat f;");
+        out.line("\t\ti = 0;");
+        out.line("\t\ts = 0;");
+        out.line("\t\tf = 0.5;");
+        for (int k = 0; k < statements; k++) {
+            switch (k % 4) {
+                case 0:
+                    out.line("\t\ts = s + i * " + (k % 7 + 1) + ";");
+                    break;
+                case 1:
+                    out.line("\t\tif (s > " + k + ") { s = s - " + (k % 5 + 1) + "; } else { s = s + 1; }");
+                    break;
+                case 2:
+                    out.line("\t\twhile (i < " + (k % 3) + ") { i = i + 1; }");
+                    break;
+                default:
+                    out.line("\t\tf = f * 1.5 + 2.0;");
+                    break;
+            }
+        }
+        out.line("\t\ttotal = s;");
+        out.line("\t\treturn s;");
+        out.line("\t}");
+        out.line("}");
+    }
+
+    private static void nestedBlocks(Writer out, String className) {
+        out.line("class " + className + " {");
+        out.line("\tint total;");
+        for (int m = 0; m < 2; m++) {
+            out.line("\tint m" + m + "(int n) {");
+            out.line("\t\tint v0;");
+            out.line("\t\tv0 = n;");
+            String indent = "\t\t";
+            for (int d = 1; d <= BLOCK_DEPTH; d++) {
+                out.line(indent + "if (v" + (d - 1) + " > " + d + ") {");
+                indent += "\t";
+                out.line(indent + "int v" + d + ";");
+                out.line(indent + "v" + d + " = v" + (d - 1) + " + n;");
+                out.line(indent + "v0 = v0 + v" + (d / 2) + ";");
+            }
+            out.line(indent + "v0 = v0 + v" + BLOCK_DEPTH + ";");
+            for (int d = BLOCK_DEPTH; d >= 1; d--) {
+                indent = indent.substring(1);
+                out.line(indent + "}");
+            }
+            out.line("\t\ttotal = v0;");
+            out.line("\t\treturn v0;");
+            out.line("\t}");
+        }
+        out.line("}");
+    }
+
+    private static String nested(int depth) {
+        if (depth == 0)
+            return "a";
+        String op = depth % 3 == 0 ? " + " : depth % 3 == 1 ? " * " : " - ";
+        return "(" + nested(depth - 1) + op + (depth % 2 == 0 ? "b" : String.valueOf(depth)) + ")";
+    }
+
+    /**
+     * A StringBuilder which counts its lines.
+     */
+    private static final class Writer {
+
+        private final StringBuilder sb = new StringBuilder();
+        private int lines;
+
+        void line(String line) {
+            sb.append(line).append('\n');
+            lines++;
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.hua;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The synthetic program compiled by the benchmarks of the single phases.
+ * <br>
+ * Its shape and size are parameters, e.g. -p shape=LONG_METHODS -p lines=50000.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+
+    /**
+     * The kind of the program.
+     */
+    @Param({"MANY_CLASSES", "DEEP_EXPRESSIONS", "LONG_METHODS", "NESTED_BLOCKS"})
+    public Corpus.Shape shape;
+
+    /**
+     * The approximate number of lines of the program.
+     */
+    @Param({"10000"})
+    public int lines;
+
+    /**
+     * The source of the program.
+     */
+    String source;
+
+    /**
+     * The exact number of lines of the program.
+     */
+    int lineCount;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        source = Corpus.generate(shape, lines, "C", true);
+        lineCount = Corpus.countLines(source);
+    }
+}
@@ -0,0 +1,156 @@
+package org.hua;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The throughput of the whole compiler, from the input files to the huaclasses on disk.
+ * <br>
+ * Each operation compiles a program of several files in a new session, the way the command line compiler does,
+ * and JMH reports the compiled files and lines per second.
+ * The files are compiled by the threads of a pool, so the allocation is not counted per thread here;
+ * run the benchmark with -prof gc to get the allocation rate of the JVM.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class EndToEndBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ProgramState {
+
+        /**
+         * The kind of the files.
+         */
+        @Param({"MANY_CLASSES", "DEEP_EXPRESSIONS", "LONG_METHODS"})
+        public Corpus.Shape shape;
+
+        /**
+         * The number of the files.
+         */
+        @Param({"8"})
+        public int files;
+
+        /**
+         * The approximate number of lines of every file.
+         */
+        @Param({"2000"})
+        public int lines;
+
+        File directory;
+
+        CompilerOptions options;
+
+        int lineCount;
+
+        ForkJoinPool pool;
+
+        PrintStream stdout;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException, HuavaException {
+            directory = File.createTempFile("huava-benchmark", "");
+            if (!directory.delete() || !directory.mkdir())
+                throw new IOException("Could not create " + directory);
+
+            List<String> args = new ArrayList<String>();
+            args.add("--generate");
+            args.add("--output");
+            args.add(new File(directory, "huaclasses").getPath());
+            for (int i = 0; i < files; i++) {
+                // Only the last file has the main function.
+                String source = Corpus.generate(shape, lines, "F" + i + "C", i == files - 1);
+                lineCount += Corpus.countLines(source);
+
+                File file = new File(directory, "F" + i + ".huava");
+                OutputStream out = new FileOutputStream(file);
+                try {
+                    out.write(source.getBytes("UTF-8"));
+                } finally {
+                    out.close();
+                }
+                args.add(file.getPath());
+            }
+            options = CompilerOptions.parse(args.toArray(new String[args.size()]));
+            pool = new ForkJoinPool();
+
+            // The compiler prints the listing of every file, which is not what we measure.
+            stdout = System.out;
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    // nothing
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    // nothing
+                }
+            }));
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() {
+            System.setOut(stdout);
+            pool.shutdown();
+            delete(directory);
+        }
+
+        private static void delete(File file) {
+            File[] children = file.listFiles();
+            if (children != null)
+                for (File child : children)
+                    delete(child);
+            file.delete();
+        }
+    }
+
+    /**
+     * Counts the compiled files, so that JMH reports them as files per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class FileCounters {
+
+        public long files;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            files = 0;
+        }
+    }
+
+    @Benchmark
+    public List<CompilationContext> compile(ProgramState program, FileCounters fileCounters,
+                                            LineCounters lineCounters) {
+        CompilationPipeline pipeline = new CompilationPipeline(program.pool, program.options, new Registry(), null, null);
+        List<CompilationContext> contexts = pipeline.compile(program.options.getFileNames());
+        for (CompilationContext context : contexts)
+            if (context.isFailed())
+                throw new IllegalStateException(context.getFileName() + ": " + context.getDiagnostics());
+        fileCounters.files += contexts.size();
+        lineCounters.lines += program.lineCount;
+        return contexts;
+    }
+}
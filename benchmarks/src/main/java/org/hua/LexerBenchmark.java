@@ -0,0 +1,26 @@
+package org.hua;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The throughput of the lexer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class LexerBenchmark {
+
+    @Benchmark
+    public int scan(CorpusState corpus, LineCounters counters, AllocationCounters allocation) throws Exception {
+        allocation.start();
+        int tokens = Phases.scan(corpus.source);
+        allocation.stop(corpus.lineCount, counters);
+        return tokens;
+    }
+}
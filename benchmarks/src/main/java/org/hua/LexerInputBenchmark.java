@@ -0,0 +1,118 @@
+package org.hua;
+
+import java_cup.runtime.Symbol;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * The tokens per second of the lexer reading a file through an InputStreamReader over a FileInputStream (STREAM),
+ * through the ByteBufferReader of the compiler over a byte array (NIO) and over a mapped file (MAPPED).
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class LexerInputBenchmark {
+
+    public enum Input {
+        STREAM,
+        NIO,
+        MAPPED
+    }
+
+    @State(Scope.Benchmark)
+    public static class FileState {
+
+        @Param({"STREAM", "NIO", "MAPPED"})
+        public Input input;
+
+        @Param({"LONG_METHODS"})
+        public Corpus.Shape shape;
+
+        @Param({"100000"})
+        public int lines;
+
+        File file;
+
+        Charset charset;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            file = File.createTempFile("huava-benchmark", ".huava");
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write(Corpus.generate(shape, lines, "C", true).getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+            charset = Charset.forName("UTF-8");
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+
+        Reader open() throws IOException {
+            switch (input) {
+                case STREAM:
+                    return new InputStreamReader(new FileInputStream(file), charset);
+                case NIO:
+                    return ByteBufferReader.open(file.getPath(), charset);
+                default:
+                    return ByteBufferReader.map(file.getPath(), charset);
+            }
+        }
+    }
+
+    /**
+     * Counts the scanned tokens, so that JMH reports them as tokens per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class TokenCounters {
+
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+
+    @Benchmark
+    public int scan(FileState file, TokenCounters counters) throws IOException {
+        Reader reader = file.open();
+        try {
+            Lexer lexer = new Lexer(reader);
+            int tokens = 0;
+            for (Symbol s = lexer.next_token(); s.sym != sym.EOF; s = lexer.next_token())
+                tokens++;
+            counters.tokens += tokens;
+            return tokens;
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.hua;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the source lines which a benchmark thread has compiled, so that JMH reports them as lines per second
+ * in throughput mode.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class LineCounters {
+
+    /**
+     * The lines compiled in the current iteration.
+     */
+    public long lines;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        lines = 0;
+    }
+}
@@ -0,0 +1,79 @@
+package org.hua;
+
+import org.hua.symbol.LocalIndexPool;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of the local variable indexes, the way the compiler uses them.
+ * <br>
+ * The declare benchmark gives an index to every local of a method with the given number of locals.
+ * The temporary benchmark takes and frees temporaries, of one and two slots, in a pool which already holds them,
+ * as the byte code generator does for every write and widening.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class LocalIndexPoolBenchmark {
+
+    /**
+     * The number of temporaries taken and freed by an operation of the temporary benchmark.
+     */
+    private static final int TEMPORARIES = 64;
+
+    @State(Scope.Thread)
+    public static class PoolState {
+
+        @Param({"16", "256", "4096"})
+        public int locals;
+
+        Registry registry;
+
+        /**
+         * A pool which holds the locals.
+         */
+        LocalIndexPool declared;
+
+        @Setup(Level.Trial)
+        public void declare() {
+            registry = new Registry();
+            declared = new LocalIndexPool(registry);
+            for (int i = 0; i < locals; i++)
+                declared.getLocalIndex(i % 2 == 0 ? Type.INT_TYPE : Type.FLOAT_TYPE);
+        }
+    }
+
+    @Benchmark
+    public int declare(PoolState state) {
+        LocalIndexPool pool = new LocalIndexPool(state.registry);
+        for (int i = 0; i < state.locals; i++)
+            pool.getLocalIndex(i % 2 == 0 ? Type.INT_TYPE : Type.FLOAT_TYPE);
+        return pool.getMaxLocals();
+    }
+
+    @Benchmark
+    public int temporary(PoolState state) {
+        LocalIndexPool pool = state.declared;
+        int sum = 0;
+        for (int i = 0; i < TEMPORARIES; i++) {
+            int single = pool.getLocalIndex(Type.INT_TYPE);
+            int pair = pool.getLocalIndex(Type.DOUBLE_TYPE);
+            sum += single + pair;
+            pool.freeLocalIndex(pair);
+            pool.freeLocalIndex(pair + 1);
+            pool.freeLocalIndex(single, Type.INT_TYPE);
+        }
+        return sum;
+    }
+}
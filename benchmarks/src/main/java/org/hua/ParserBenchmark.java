@@ -0,0 +1,27 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The throughput of the parser, together with the lexer which feeds it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class ParserBenchmark {
+
+    @Benchmark
+    public ASTNode parse(CorpusState corpus, LineCounters counters, AllocationCounters allocation) throws Exception {
+        allocation.start();
+        ASTNode compUnit = Phases.parse(corpus.source);
+        allocation.stop(corpus.lineCount, counters);
+        return compUnit;
+    }
+}
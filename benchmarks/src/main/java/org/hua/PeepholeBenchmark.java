@@ -0,0 +1,139 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.helpers.ReloadingClassLoader;
+import org.hua.symbol.SymTableImplementation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The run time of the generated code with and without the PeepholeOptimizer.
+ * <br>
+ * The load benchmark loads, verifies and initializes all the classes of the corpus in a new class loader,
+ * whose cost grows with the size of the code. The run benchmark calls a compiled huava function with nested
+ * loops and branches. Once the JIT has compiled it, the shorter byte code makes little difference,
+ * so run it with -jvmArgsAppend -Xint as well, to see the difference in the interpreter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class PeepholeBenchmark {
+
+    /**
+     * The program with the function of the run benchmark.
+     */
+    private static final String SOURCE = "class Work {\n"
+            + "\tstatic int run(int n) {\n"
+            + "\t\tint i;\n"
+            + "\t\tint j;\n"
+            + "\t\tint s;\n"
+            + "\t\ti = 0;\n"
+            + "\t\ts = 0;\n"
+            + "\t\twhile (i < n) {\n"
+            + "\t\t\tj = 0;\n"
+            + "\t\t\twhile (j < 10) {\n"
+            + "\t\t\t\tif (j > 4) {\n"
+            + "\t\t\t\t\ts = s + j * 3;\n"
+            + "\t\t\t\t} else {\n"
+            + "\t\t\t\t\tif (s > 1000) {\n"
+            + "\t\t\t\t\t\ts = s - 1000;\n"
+            + "\t\t\t\t\t}\n"
+            + "\t\t\t\t}\n"
+            + "\t\t\t\tj = j + 1;\n"
+            + "\t\t\t}\n"
+            + "\t\t\ti = i + 1;\n"
+            + "\t\t}\n"
+            + "\t\treturn s;\n"
+            + "\t}\n"
+            + "}\n";
+
+    /**
+     * The number of iterations of the outer loop of the run benchmark.
+     */
+    private static final int ITERATIONS = 1000;
+
+    @State(Scope.Benchmark)
+    public static class PeepholeState {
+
+        @Param({"true", "false"})
+        public boolean peephole;
+    }
+
+    @State(Scope.Benchmark)
+    public static class CorpusClassesState {
+
+        /**
+         * The classes of the corpus, by name.
+         */
+        TreeMap<String, byte[]> classBytes;
+
+        @Setup(Level.Trial)
+        public void compile(CorpusState corpus, PeepholeState peephole) throws Exception {
+            classBytes = compileSource(corpus.source, peephole.peephole);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WorkState {
+
+        MethodHandle run;
+
+        @Setup(Level.Trial)
+        public void compile(PeepholeState peephole) throws Throwable {
+            ReloadingClassLoader loader = new ReloadingClassLoader(PeepholeBenchmark.class.getClassLoader());
+            for (Map.Entry<String, byte[]> pair : compileSource(SOURCE, peephole.peephole).entrySet())
+                loader.register(pair.getKey(), pair.getValue());
+            run = MethodHandles.publicLookup().findStatic(loader.loadClass("Work"), "run",
+                    MethodType.methodType(int.class, int.class));
+        }
+    }
+
+    @Benchmark
+    public int load(CorpusState corpus, CorpusClassesState classes, LineCounters counters) throws Exception {
+        ReloadingClassLoader loader = new ReloadingClassLoader(PeepholeBenchmark.class.getClassLoader());
+        for (Map.Entry<String, byte[]> pair : classes.classBytes.entrySet())
+            loader.register(pair.getKey(), pair.getValue());
+        int methods = 0;
+        for (String name : classes.classBytes.keySet())
+            methods += Class.forName(name, true, loader).getDeclaredMethods().length;
+        counters.lines += corpus.lineCount;
+        return methods;
+    }
+
+    @Benchmark
+    public int run(WorkState work) throws Throwable {
+        return (int) work.run.invokeExact(ITERATIONS);
+    }
+
+    /**
+     * Compiles a source into class files of Java 8.
+     *
+     * @param source   the source.
+     * @param peephole whether the instructions go through the peephole optimizer.
+     * @return the bytes of its classes.
+     * @throws Exception if the source cannot be compiled.
+     */
+    private static TreeMap<String, byte[]> compileSource(String source, boolean peephole) throws Exception {
+        ASTNode compUnit = Phases.parse(source);
+        Registry registry = new Registry();
+        Phases.check(compUnit, registry, SymTableImplementation.FLAT);
+        return Phases.generate(compUnit, registry, StringConcatenation.BUILDER, ClassFileTarget.JAVA_8,
+                CodegenBackend.STREAM, peephole, WriteMode.STRICT);
+    }
+}
@@ -0,0 +1,108 @@
+package org.hua;
+
+import java_cup.runtime.Symbol;
+import org.hua.ast.ASTNode;
+import org.hua.ast.ASTVisitorException;
+import org.hua.symbol.SymTableImplementation;
+
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.TreeMap;
+
+/**
+ * Runs the phases of the compiler on a single source, the way the CompilationPipeline runs them on a file.
+ */
+final class Phases {
+
+    private Phases() {
+    }
+
+    /**
+     * Scans a source.
+     *
+     * @param source the source.
+     * @return the number of its tokens.
+     * @throws Exception if the source cannot be scanned.
+     */
+    static int scan(String source) throws Exception {
+        Lexer lexer = new Lexer(new StringReader(source));
+        int tokens = 0;
+        for (Symbol s = lexer.next_token(); s.sym != sym.EOF; s = lexer.next_token())
+            tokens++;
+        return tokens;
+    }
+
+    /**
+     * Scans and parses a source.
+     *
+     * @param source the source.
+     * @return the root of its AST.
+     * @throws Exception if the source cannot be parsed.
+     */
+    static ASTNode parse(String source) throws Exception {
+        parser p = new parser(new Lexer(new StringReader(source)));
+        return (ASTNode) p.parse().value;
+    }
+
+    /**
+     * Runs the semantic check on a parsed source.
+     *
+     * @param compUnit  the root of the AST.
+     * @param registry  the registry of the session.
+     * @param symTables the implementation of the symbol tables.
+     * @throws ASTVisitorException if the check fails.
+     */
+    static void check(ASTNode compUnit, Registry registry, SymTableImplementation symTables)
+            throws ASTVisitorException {
+        compUnit.accept(new SymTableBuilderASTVisitor(symTables));
+        compUnit.accept(new LocalIndexBuilderASTVisitor(registry));
+        compUnit.accept(new CollectDeclarationsASTVisitor(registry));
+        compUnit.accept(new CollectSymbolsASTVisitor());
+        compUnit.accept(new CollectTypesASTVisitor(registry));
+    }
+
+    /**
+     * Generates the byte code of a checked source.
+     *
+     * @param compUnit      the root of the checked AST.
+     * @param registry      the registry which checked it.
+     * @param concatenation the way the string concatenations are generated.
+     * @param target        the version of the class files.
+     * @param backend       the way the classes are written.
+     * @param peephole      whether the instructions of every method go through the peephole optimizer.
+     * @param writeMode     the way the write statements are generated.
+     * @return the bytes of its classes.
+     * @throws ASTVisitorException if the generation fails.
+     */
+    static TreeMap<String, byte[]> generate(ASTNode compUnit, Registry registry, StringConcatenation concatenation,
+                                            ClassFileTarget target, CodegenBackend backend, boolean peephole,
+                                            WriteMode writeMode)
+            throws ASTVisitorException {
+        ByteCodeGeneratorASTVisitor generator = new ByteCodeGeneratorASTVisitor("Benchmark",
+                new PrintWriter(new NullWriter()), registry, concatenation, target, backend, peephole, writeMode);
+        compUnit.accept(generator);
+        return generator.getClassBytes();
+    }
+
+    /**
+     * A Writer which discards the trace of the byte code.
+     */
+    private static final class NullWriter extends Writer {
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            // nothing
+        }
+
+        @Override
+        public void flush() {
+            // nothing
+        }
+
+        @Override
+        public void close() {
+            // nothing
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.symbol.SymTableImplementation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The throughput of the semantic check: the symbol tables, the local indexes, the declarations,
+ * the symbols and the types.
+ * <br>
+ * The visitors overwrite the attributes of the nodes, so the same AST is checked again by every operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class SemanticBenchmark {
+
+    @State(Scope.Thread)
+    public static class ParsedState {
+
+        ASTNode compUnit;
+
+        @Setup(Level.Trial)
+        public void parse(CorpusState corpus) throws Exception {
+            compUnit = Phases.parse(corpus.source);
+        }
+    }
+
+    @Benchmark
+    public Registry check(CorpusState corpus, ParsedState parsed, LineCounters counters,
+                          AllocationCounters allocation) throws Exception {
+        allocation.start();
+        Registry registry = new Registry();
+        Phases.check(parsed.compUnit, registry, SymTableImplementation.FLAT);
+        allocation.stop(corpus.lineCount, counters);
+        return registry;
+    }
+}
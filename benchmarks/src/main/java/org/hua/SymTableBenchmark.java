@@ -0,0 +1,116 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.symbol.SymTable;
+import org.hua.symbol.SymTableEntry;
+import org.hua.symbol.SymTableImplementation;
+import org.hua.symbol.SymbolKind;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the implementations of the symbol tables on deeply nested blocks.
+ * <br>
+ * The lookup benchmark resolves every variable and field of a method from its innermost block,
+ * which is nested depth blocks deep in a class with many members.
+ * The check benchmark runs the whole semantic check, preferably with -p shape=NESTED_BLOCKS.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class SymTableBenchmark {
+
+    /**
+     * The number of fields of the class of the lookup benchmark.
+     */
+    private static final int FIELDS = 64;
+
+    /**
+     * The number of methods of the class of the lookup benchmark, each with its own nested blocks.
+     */
+    private static final int METHODS = 16;
+
+    @State(Scope.Thread)
+    public static class ScopeState {
+
+        @Param({"HASH", "FLAT"})
+        public SymTableImplementation symTables;
+
+        @Param({"4", "32", "128"})
+        public int depth;
+
+        /**
+         * The innermost block of the last method.
+         */
+        SymTable<SymTableEntry> innermost;
+
+        /**
+         * The names which are looked up, the variables of the blocks followed by the fields.
+         */
+        String[] names;
+
+        @Setup(Level.Trial)
+        public void build() {
+            SymTable<SymTableEntry> file = symTables.newScope(null);
+            file.put("write", SymbolKind.FUNCTION, new SymTableEntry("write", Type.VOID_TYPE, 0));
+            SymTable<SymTableEntry> classSt = symTables.newScope(file);
+
+            names = new String[depth + FIELDS];
+            for (int m = 0; m < METHODS; m++) {
+                SymTable<SymTableEntry> block = classSt;
+                for (int d = 0; d < depth; d++) {
+                    block = symTables.newScope(block);
+                    String name = ("v" + d).intern();
+                    block.put(name, SymbolKind.VARIABLE, new SymTableEntry(name, Type.INT_TYPE, d));
+                    names[d] = name;
+                }
+                innermost = block;
+            }
+            for (int f = 0; f < FIELDS; f++) {
+                String name = ("f" + f).intern();
+                classSt.put(name, SymbolKind.VARIABLE, new SymTableEntry(name, Type.INT_TYPE, f, false));
+                names[depth + f] = name;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CheckState {
+
+        @Param({"HASH", "FLAT"})
+        public SymTableImplementation symTables;
+
+        ASTNode compUnit;
+
+        @Setup(Level.Trial)
+        public void parse(CorpusState corpus) throws Exception {
+            compUnit = Phases.parse(corpus.source);
+        }
+    }
+
+    @Benchmark
+    public void lookup(ScopeState scopes, Blackhole blackhole) {
+        for (String name : scopes.names)
+            blackhole.consume(scopes.innermost.lookup(name, SymbolKind.VARIABLE));
+    }
+
+    @Benchmark
+    public Registry check(CorpusState corpus, CheckState checked, LineCounters counters) throws Exception {
+        Registry registry = new Registry();
+        Phases.check(checked.compUnit, registry, checked.symTables);
+        counters.lines += corpus.lineCount;
+        return registry;
+    }
+}
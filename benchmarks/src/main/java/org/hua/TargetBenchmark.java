@@ -0,0 +1,153 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.helpers.ReloadingClassLoader;
+import org.hua.symbol.SymTableImplementation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The run time of the generated code for every --target of the compiler.
+ * <br>
+ * The load benchmark loads, verifies and initializes all the classes of the corpus in a new class loader,
+ * which is where the class files of Java 5, without frames, and the later ones, with frames, differ the most.
+ * The run benchmark calls a compiled huava function with a loop, once it has been compiled by the JIT.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class TargetBenchmark {
+
+    /**
+     * The program with the function of the run benchmark.
+     */
+    private static final String SOURCE = "class Work {\n"
+            + "\tstatic int run(int n) {\n"
+            + "\t\tint i;\n"
+            + "\t\tint s;\n"
+            + "\t\tint r;\n"
+            + "\t\tfloat f;\n"
+            + "\t\ti = 0;\n"
+            + "\t\ts = 0;\n"
+            + "\t\tf = 0.5;\n"
+            + "\t\twhile (i < n) {\n"
+            + "\t\t\tr = i * 5 + 3;\n"
+            + "\t\t\tif (r > 10000) {\n"
+            + "\t\t\t\tr = r % 10000;\n"
+            + "\t\t\t}\n"
+            + "\t\t\ts = s + i * 3 % 7 + r;\n"
+            + "\t\t\tif (s > 1000) {\n"
+            + "\t\t\t\ts = s - 1000;\n"
+            + "\t\t\t}\n"
+            + "\t\t\tf = f * 0.5 + 1.0;\n"
+            + "\t\t\ti = i + 1;\n"
+            + "\t\t}\n"
+            + "\t\treturn s;\n"
+            + "\t}\n"
+            + "\tstatic void main() {\n"
+            + "\t\twrite(run(1000));\n"
+            + "\t}\n"
+            + "}\n";
+
+    /**
+     * The number of iterations of the loop of the run benchmark.
+     */
+    private static final int ITERATIONS = 1000;
+
+    @State(Scope.Benchmark)
+    public static class TargetState {
+
+        /**
+         * The name of the ClassFileTarget, which is not public.
+         */
+        @Param({"5", "8", "11", "17"})
+        public String target;
+    }
+
+    @State(Scope.Benchmark)
+    public static class CorpusClassesState {
+
+        /**
+         * The classes of the corpus, by name.
+         */
+        TreeMap<String, byte[]> classBytes;
+
+        @Setup(Level.Trial)
+        public void compile(CorpusState corpus, TargetState target) throws Exception {
+            classBytes = compileSource(corpus.source, target.target);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WorkState {
+
+        MethodHandle run;
+
+        @Setup(Level.Trial)
+        public void compile(TargetState target) throws Throwable {
+            ReloadingClassLoader loader = newLoader(compileSource(SOURCE, target.target));
+            run = MethodHandles.publicLookup().findStatic(loader.loadClass("Work"), "run",
+                    MethodType.methodType(int.class, int.class));
+        }
+    }
+
+    @Benchmark
+    public int load(CorpusState corpus, CorpusClassesState classes, LineCounters counters) throws Exception {
+        ReloadingClassLoader loader = newLoader(classes.classBytes);
+        int methods = 0;
+        for (String name : classes.classBytes.keySet())
+            methods += Class.forName(name, true, loader).getDeclaredMethods().length;
+        counters.lines += corpus.lineCount;
+        return methods;
+    }
+
+    @Benchmark
+    public int run(WorkState work) throws Throwable {
+        return (int) work.run.invokeExact(ITERATIONS);
+    }
+
+    /**
+     * Compiles a source for a target.
+     *
+     * @param source the source.
+     * @param target the name of the target.
+     * @return the bytes of its classes.
+     * @throws Exception if the source cannot be compiled.
+     */
+    private static TreeMap<String, byte[]> compileSource(String source, String target) throws Exception {
+        ASTNode compUnit = Phases.parse(source);
+        Registry registry = new Registry();
+        Phases.check(compUnit, registry, SymTableImplementation.FLAT);
+        return Phases.generate(compUnit, registry, StringConcatenation.BUILDER, ClassFileTarget.forName(target),
+                CodegenBackend.STREAM, true, WriteMode.STRICT);
+    }
+
+    /**
+     * Creates a class loader with the generated classes.
+     *
+     * @param classBytes the classes, by name.
+     * @return the loader.
+     */
+    private static ReloadingClassLoader newLoader(Map<String, byte[]> classBytes) {
+        ReloadingClassLoader loader = new ReloadingClassLoader(TargetBenchmark.class.getClassLoader());
+        for (Map.Entry<String, byte[]> pair : classBytes.entrySet())
+            loader.register(pair.getKey(), pair.getValue());
+        return loader;
+    }
+}
@@ -0,0 +1,128 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.helpers.ReloadingClassLoader;
+import org.hua.runtime.Output;
+import org.hua.symbol.SymTableImplementation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The run time of the write statements generated by the compiler, for every --write argument.
+ * <br>
+ * The benchmark calls compiled huava functions which write a table of numbers, either with one write per value
+ * or with one write of a concatenation per row, whose operands are printed one at a time.
+ * System.out is replaced by a stream like it, which flushes on every new line, into the null device,
+ * so that the cost of the locks and of the system calls is measured but nothing is printed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog.level=WARN")
+public class WriteBenchmark {
+
+    /**
+     * The program with the writing functions.
+     */
+    private static final String SOURCE = "class Report {\n"
+            + "\tstatic void run(int n) {\n"
+            + "\t\tint i;\n"
+            + "\t\ti = 0;\n"
+            + "\t\twhile (i < n) {\n"
+            + "\t\t\twrite(\"row \");\n"
+            + "\t\t\twrite(i);\n"
+            + "\t\t\twrite(\" = \");\n"
+            + "\t\t\twrite(i * 2.5);\n"
+            + "\t\t\twrite(\"\\n\");\n"
+            + "\t\t\ti = i + 1;\n"
+            + "\t\t}\n"
+            + "\t}\n"
+            + "\tstatic void concatenate(int n) {\n"
+            + "\t\tint i;\n"
+            + "\t\ti = 0;\n"
+            + "\t\twhile (i < n) {\n"
+            + "\t\t\twrite(\"row \" + i + \" = \" + (i * 2.5) + \"\\n\");\n"
+            + "\t\t\ti = i + 1;\n"
+            + "\t\t}\n"
+            + "\t}\n"
+            + "}\n";
+
+    /**
+     * The number of rows of the table.
+     */
+    private static final int ROWS = 100;
+
+    @State(Scope.Thread)
+    public static class CompiledState {
+
+        /**
+         * The name of the WriteMode, which is not public.
+         */
+        @Param({"strict", "buffered"})
+        public String write;
+
+        MethodHandle run;
+
+        MethodHandle concatenate;
+
+        PrintStream out;
+
+        @Setup(Level.Trial)
+        public void compile() throws Throwable {
+            ASTNode compUnit = Phases.parse(SOURCE);
+            Registry registry = new Registry();
+            Phases.check(compUnit, registry, SymTableImplementation.FLAT);
+            TreeMap<String, byte[]> classBytes = Phases.generate(compUnit, registry, StringConcatenation.BUILDER,
+                    ClassFileTarget.JAVA_8, CodegenBackend.STREAM, true, WriteMode.forName(write));
+
+            ReloadingClassLoader loader = new ReloadingClassLoader(WriteBenchmark.class.getClassLoader());
+            for (Map.Entry<String, byte[]> pair : classBytes.entrySet())
+                loader.register(pair.getKey(), pair.getValue());
+            Class<?> report = loader.loadClass("Report");
+            run = MethodHandles.publicLookup().findStatic(report, "run", MethodType.methodType(void.class, int.class));
+            concatenate = MethodHandles.publicLookup().findStatic(report, "concatenate",
+                    MethodType.methodType(void.class, int.class));
+
+            out = System.out;
+            File sink = new File(File.separatorChar == '/' ? "/dev/null" : "NUL");
+            System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(sink)), true));
+        }
+
+        @TearDown(Level.Trial)
+        public void restore() {
+            Output.flush();
+            System.out.close();
+            System.setOut(out);
+        }
+    }
+
+    @Benchmark
+    public void write(CompiledState state) throws Throwable {
+        state.run.invokeExact(ROWS);
+    }
+
+    @Benchmark
+    public void writeConcatenation(CompiledState state) throws Throwable {
+        state.concatenate.invokeExact(ROWS);
+    }
+}
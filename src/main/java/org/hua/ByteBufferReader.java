@@ -0,0 +1,175 @@
+package org.hua;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the characters of a file which is in memory, either in a byte array or mapped.
+ * <br>
+ * The bytes are decoded straight into the buffer of the reader's caller, the Lexer,
+ * so there is no intermediate byte or char buffer as with an InputStreamReader over a FileInputStream.
+ * The decoders are much faster on byte arrays than on mapped buffers, so only very large files are mapped,
+ * to keep them out of the heap.
+ * The decoders are reused by the files scanned on the same thread, so a thread has to scan one file at a time.
+ */
+class ByteBufferReader extends Reader {
+
+    /**
+     * The files which are smaller than this are read into the heap, the larger ones are mapped.
+     */
+    private static final long MAPPING_THRESHOLD = 64L * 1024 * 1024;
+
+    /**
+     * The decoders of the current thread, by charset.
+     */
+    private static final ThreadLocal<Map<Charset, CharsetDecoder>> DECODERS =
+            new ThreadLocal<Map<Charset, CharsetDecoder>>() {
+                @Override
+                protected Map<Charset, CharsetDecoder> initialValue() {
+                    return new HashMap<Charset, CharsetDecoder>();
+                }
+            };
+
+    /**
+     * The bytes which have not been decoded yet.
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * The decoder of the charset.
+     */
+    private final CharsetDecoder decoder;
+
+    /**
+     * The second half of a surrogate pair which did not fit in the caller's buffer, or 0.
+     */
+    private char pending;
+
+    /**
+     * Flag which shows if the decoder has been flushed, after all the bytes have been decoded.
+     */
+    private boolean flushed;
+
+    ByteBufferReader(ByteBuffer bytes, Charset charset) {
+        this.bytes = bytes;
+        this.decoder = decoder(charset);
+        this.pending = 0;
+        this.flushed = false;
+    }
+
+    /**
+     * Opens a file, reading it in a single byte array or mapping it in memory if it is very large.
+     *
+     * @param fileName the name of the file.
+     * @param charset  the encoding of the file.
+     * @return the reader of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    static ByteBufferReader open(String fileName, Charset charset) throws IOException {
+        return open(fileName, charset, false);
+    }
+
+    /**
+     * Opens a file, mapping it in memory.
+     *
+     * @param fileName the name of the file.
+     * @param charset  the encoding of the file.
+     * @return the reader of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    static ByteBufferReader map(String fileName, Charset charset) throws IOException {
+        return open(fileName, charset, true);
+    }
+
+    private static ByteBufferReader open(String fileName, Charset charset, boolean map) throws IOException {
+        FileInputStream stream = new FileInputStream(fileName);
+        try {
+            FileChannel channel = stream.getChannel();
+            long size = channel.size();
+            if (map || size >= MAPPING_THRESHOLD)
+                // The mapping stays valid after the channel is closed.
+                return new ByteBufferReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), charset);
+
+            ByteBuffer bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // keep reading
+            }
+            bytes.flip();
+            return new ByteBufferReader(bytes, charset);
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0)
+            return 0;
+
+        CharBuffer out = CharBuffer.wrap(buffer, offset, length);
+        if (pending != 0) {
+            out.put(pending);
+            pending = 0;
+        }
+
+        if (!flushed) {
+            CoderResult result = decoder.decode(bytes, out, true);
+            if (result.isError())
+                result.throwException();
+            if (result.isUnderflow()) {
+                result = decoder.flush(out);
+                flushed = result.isUnderflow();
+            }
+
+            // A surrogate pair does not fit in a single char, so it is split.
+            if (result.isOverflow() && out.position() == offset) {
+                CharBuffer pair = CharBuffer.allocate(2);
+                result = decoder.decode(bytes, pair, true);
+                if (result.isError())
+                    result.throwException();
+                pair.flip();
+                out.put(pair.get());
+                if (pair.hasRemaining())
+                    pending = pair.get();
+            }
+        }
+
+        int read = out.position() - offset;
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public void close() {
+        // The bytes are released by the garbage collector.
+    }
+
+    /**
+     * Returns the decoder of a charset for the current thread, ready to decode a new file.
+     * <br>
+     * Malformed input is replaced, as an InputStreamReader does.
+     *
+     * @param charset the charset.
+     * @return the decoder.
+     */
+    private static CharsetDecoder decoder(Charset charset) {
+        Map<Charset, CharsetDecoder> decoders = DECODERS.get();
+        CharsetDecoder decoder = decoders.get(charset);
+        if (decoder == null) {
+            decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            decoders.put(charset, decoder);
+        }
+        return decoder.reset();
+    }
+}
@@ -5,23 +5,54 @@ import java.util.*;
 
 import org.hua.ast.*;
 
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
 import org.objectweb.asm.util.TraceClassVisitor;
+import org.hua.optimizer.LocalSlotAllocator;
+import org.hua.optimizer.PeepholeOptimizer;
+import org.hua.runtime.Output;
 import org.hua.symbol.LocalIndexPool;
 import org.hua.symbol.SymTable;
 import org.hua.symbol.SymTableEntry;
+import org.hua.symbol.SymbolKind;
 import org.hua.types.TypeUtils;
 
 class ByteCodeGeneratorASTVisitor implements ASTVisitor {
 
+    /**
+     * The bootstrap method of the string concatenations which are generated as invokedynamic calls.
+     */
+    private static final Handle MAKE_CONCAT_WITH_CONSTANTS = new Handle(Opcodes.H_INVOKESTATIC,
+            "java/lang/invoke/StringConcatFactory", "makeConcatWithConstants",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;"
+                    + "Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/invoke/CallSite;", false);
+
+    /**
+     * The largest number of arguments that a StringConcatFactory call takes.
+     */
+    private static final int MAX_CONCATENATION_ARGUMENTS = 200;
+
+    /**
+     * The longest recipe of a StringConcatFactory call, so that its modified UTF-8 form
+     * fits in the constant pool even if every character takes three bytes.
+     */
+    private static final int MAX_RECIPE_LENGTH = 65535 / 3;
+
+    /**
+     * The internal name of the class whose buffer the write statements print to, with --write buffered.
+     */
+    private static final String OUTPUT = Type.getInternalName(Output.class);
+
     /**
      * The name of the class which contains the main function.
      */
-    private static String classWithMain;
+    private String classWithMain;
 
     /**
      * Contains all the class bytes with their ids, in the order that they have been parsed.
@@ -30,9 +61,21 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
 
     /**
      * A class node.
+     * <br>
+     * With the stream backend it holds the header and the fields of the class, but not its methods.
      */
     private ClassNode cn;
 
+    /**
+     * The writer of the current class with the stream backend, or null.
+     */
+    private ClassWriter cw;
+
+    /**
+     * The visitor which receives the current class with the stream backend, the writer or a tracer in front of it.
+     */
+    private ClassVisitor cv;
+
     /**
      * An instruction list for the current method.
      */
@@ -98,11 +141,6 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
      */
     private String lastIdentifier;
 
-    /**
-     * Flag which shows if an Identifier Expression is being assigned with a value.
-     */
-    private boolean afterConstructorCall;
-
     /**
      * Flag which shows if a PUT Instruction last happened.
      */
@@ -118,7 +156,50 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
      */
     private boolean interrupted;
 
-    ByteCodeGeneratorASTVisitor(String filenameWithoutExtension) {
+    /**
+     * The writer which receives the disassembled classes, or null if the classes are not disassembled.
+     */
+    private PrintWriter traceWriter;
+
+    /**
+     * The registry of the compilation session.
+     */
+    private final Registry registry;
+
+    /**
+     * The way the string concatenations are generated.
+     */
+    private final StringConcatenation concatenation;
+
+    /**
+     * The version of the generated class files.
+     */
+    private final ClassFileTarget target;
+
+    /**
+     * The way the classes are written.
+     */
+    private final CodegenBackend backend;
+
+    /**
+     * Flag which shows if the instructions of every method go through the PeepholeOptimizer.
+     */
+    private final boolean peephole;
+
+    /**
+     * The way the write statements are generated.
+     */
+    private final WriteMode writeMode;
+
+    ByteCodeGeneratorASTVisitor(String filenameWithoutExtension, PrintWriter traceWriter, Registry registry,
+                                StringConcatenation concatenation, ClassFileTarget target, CodegenBackend backend,
+                                boolean peephole, WriteMode writeMode) {
+        this.registry = registry;
+        this.concatenation = concatenation;
+        this.target = target;
+        this.backend = backend;
+        this.peephole = peephole;
+        this.writeMode = writeMode;
         classBytesWithIds = new TreeMap<String, byte[]>();
         this.cn = new ClassNode();
         this.methodInstructionList = new InsnList();
@@ -130,9 +211,9 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
         this.afterFunctionDefinition = false;
         this.firstDot = false;
         this.firstVisit = true;
-        this.afterConstructorCall = false;
         this.afterPut = false;
         this.interrupted = false;
+        this.traceWriter = traceWriter;
     }
 
     /**
@@ -140,7 +221,7 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
      *
      * @return String
      */
-    static String getClassWithMain() {
+    String getClassWithMain() {
         return classWithMain;
     }
 
@@ -154,14 +235,45 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
     }
 
     /**
-     * Generates the class, prints its content and inserts it in a HashMap with it's identifier as a key.
+     * Starts writing a class with the stream backend: its header and its default constructor.
+     * <br>
+     * The writer computes nothing, since the MethodStreamer gives it the maximum stack sizes and the frames.
+     */
+    private void startClass() {
+        cw = new ClassWriter(0);
+        cv = traceWriter != null ? new TraceClassVisitor(cw, traceWriter) : cw;
+        cv.visit(cn.version, cn.access, cn.name, null, cn.superName, null);
+        cv.visitSource(cn.sourceFile, null);
+
+        MethodVisitor mv = cv.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(1, 1);
+        mv.visitEnd();
+    }
+
+    /**
+     * Generates the class, prints its content if there is a trace writer
+     * and inserts it in a HashMap with it's identifier as a key.
      *
      * @param id the identifier of the class.
      */
     private void generateClass(String id) {
-        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS + ClassWriter.COMPUTE_FRAMES);
-        TraceClassVisitor cv = new TraceClassVisitor(cw, new PrintWriter(System.out));
-        cn.accept(cv);
+        if (backend == CodegenBackend.STREAM) {
+            cv.visitEnd();
+            classBytesWithIds.put(id, cw.toByteArray());
+            cw = null;
+            cv = null;
+            return;
+        }
+
+        ClassWriter cw = new HuavaClassWriter(ClassWriter.COMPUTE_MAXS + ClassWriter.COMPUTE_FRAMES, registry);
+        if (traceWriter != null)
+            cn.accept(new TraceClassVisitor(cw, traceWriter));
+        else
+            cn.accept(cw);
         classBytesWithIds.put(id, cw.toByteArray());
     }
 
@@ -204,7 +316,6 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
         afterFunctionDefinition = false;
         firstDot = false;
         firstVisit = true;
-        afterConstructorCall = false;
         afterPut = false;
         interrupted = false;
     }
@@ -251,150 +362,432 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
     }
 
     /**
-     * Handles a boolean operation.
+     * Assigns a value to the field of an object.
+     * <br>
+     * The object is loaded before the value, so that PUTFIELD finds them in its order.
      *
-     * @param node the expression's node.
-     * @param op   the operator.
-     * @param type the max type of the operands.
+     * @param target the field of the object.
+     * @param value  the expression of the value.
+     * @throws ASTVisitorException if an expression fails to generate.
+     */
+    private void assignField(IdentifierExpression target, Expression value) throws ASTVisitorException {
+        Type objectType = ASTUtils.getSafeType(target.getExpression());
+        SymTableEntry field = fieldEntry(target);
+
+        if (!field.isStatic())
+            loadObject(target.getExpression());
+        value.accept(this);
+        widen(field.getType(), ASTUtils.getSafeType(value));
+
+        int opcode = field.isStatic() ? Opcodes.PUTSTATIC : Opcodes.PUTFIELD;
+        methodInstructionList.add(new FieldInsnNode(opcode, fullyFilter(objectType.toString()),
+                target.getIdentifier(), huaFilter(field.getType().toString())));
+    }
+
+    /**
+     * Loads the object whose field is assigned, getting the fields of the dots before it.
+     *
+     * @param object the expression of the object.
+     * @throws ASTVisitorException if the expression fails to generate.
+     */
+    private void loadObject(Expression object) throws ASTVisitorException {
+        if (!(object instanceof IdentifierExpression)) {
+            object.accept(this);
+            return;
+        }
+
+        IdentifierExpression node = (IdentifierExpression) object;
+        Type objectType = ASTUtils.getSafeType(node.getExpression());
+        SymTableEntry field = fieldEntry(node);
+
+        if (!field.isStatic())
+            loadObject(node.getExpression());
+
+        int opcode = field.isStatic() ? Opcodes.GETSTATIC : Opcodes.GETFIELD;
+        methodInstructionList.add(new FieldInsnNode(opcode, fullyFilter(objectType.toString()),
+                node.getIdentifier(), huaFilter(field.getType().toString())));
+    }
+
+    /**
+     * Finds the field of an identifier expression in the symbol table of the class of its object.
+     *
+     * @param node the identifier expression.
+     * @return the Symbol Table Entry of the field.
+     * @throws ASTVisitorException if the object has no type.
+     */
+    private SymTableEntry fieldEntry(IdentifierExpression node) throws ASTVisitorException {
+        Type objectType = ASTUtils.getSafeType(node.getExpression());
+        return registry.getClasses().get(objectType).lookup(node.getIdentifier(), SymbolKind.VARIABLE);
+    }
+
+    /**
+     * Adds a label for the jumps of a list at the current instruction, if there are any.
+     *
+     * @param list the list containing the Jump Instruction Nodes.
+     */
+    private void backpatchHere(List<JumpInsnNode> list) {
+        if (list.isEmpty())
+            return;
+
+        LabelNode labelNode = new LabelNode(new Label());
+        methodInstructionList.add(labelNode);
+        backpatch(list, labelNode);
+    }
+
+    /**
+     * Checks if an operator is && or ||, whose right operand is only evaluated when the left one does not
+     * decide the result.
+     */
+    private static boolean isLogical(Operator op) {
+        return op.equals(Operator.AND) || op.equals(Operator.OR);
+    }
+
+    /**
+     * Generates a condition as jumps, which leave no value on the stack.
+     * <br>
+     * The jumps which are taken when the condition is true are put in its true list and the jumps which are
+     * taken when it is false in its false list. The code falls through when the condition is false if
+     * jumpIfTrue is set, and when it is true otherwise, so a comparison is a single conditional jump
+     * and the right operand of && and || is skipped when the left one decides the result.
+     *
+     * @param node       the condition.
+     * @param jumpIfTrue true if the condition falls through when it is false.
      * @throws ASTVisitorException
      */
-    private void handleBooleanOperator(Expression node, Operator op, Type type) throws ASTVisitorException {
-        // create a trueList.
+    private void condition(Expression node, boolean jumpIfTrue) throws ASTVisitorException {
         List<JumpInsnNode> trueList = new ArrayList<JumpInsnNode>();
+        List<JumpInsnNode> falseList = new ArrayList<JumpInsnNode>();
+        ASTUtils.setTrueList(node, trueList);
+        ASTUtils.setFalseList(node, falseList);
+
+        Expression folded = ASTUtils.getFolded(node);
+        if (folded != null || node instanceof ParenthesisExpression) {
+            Expression expression = folded != null ? folded : ((ParenthesisExpression) node).getExpression();
+            condition(expression, jumpIfTrue);
+            trueList.addAll(ASTUtils.getTrueList(expression));
+            falseList.addAll(ASTUtils.getFalseList(expression));
+
+        } else if (node instanceof UnaryExpression && ((UnaryExpression) node).getOperator().equals(Operator.NOT)) {
+            // The operand jumps the other way, so its true jumps are the false jumps of the negation.
+            Expression expression = ((UnaryExpression) node).getExpression();
+            condition(expression, !jumpIfTrue);
+            trueList.addAll(ASTUtils.getFalseList(expression));
+            falseList.addAll(ASTUtils.getTrueList(expression));
+
+        } else if (node instanceof BinaryExpression && isLogical(((BinaryExpression) node).getOperator())) {
+            BinaryExpression binaryExpression = (BinaryExpression) node;
+            Expression left = binaryExpression.getExpression1();
+            Expression right = binaryExpression.getExpression2();
+            boolean and = binaryExpression.getOperator().equals(Operator.AND);
+
+            // The left operand falls through to the right one when it does not decide the result.
+            condition(left, !and);
+            backpatchHere(and ? ASTUtils.getTrueList(left) : ASTUtils.getFalseList(left));
+            condition(right, jumpIfTrue);
+
+            trueList.addAll(and ? ASTUtils.getTrueList(right) : ASTUtils.getTrueList(left));
+            falseList.addAll(and ? ASTUtils.getFalseList(left) : ASTUtils.getFalseList(right));
+            if (and)
+                falseList.addAll(ASTUtils.getFalseList(right));
+            else
+                trueList.addAll(ASTUtils.getTrueList(right));
+
+        } else if (node instanceof BinaryExpression && ((BinaryExpression) node).getOperator().isRelational()) {
+            BinaryExpression binaryExpression = (BinaryExpression) node;
+            Type maxType = visitOperands(binaryExpression);
+            handleBooleanOperator(binaryExpression, binaryExpression.getOperator(), maxType, jumpIfTrue);
+
+        } else if (node instanceof IntegerLiteralExpression || node instanceof FloatLiteralExpression) {
+            // A constant condition jumps only if it is the way the condition jumps.
+            boolean value = node instanceof IntegerLiteralExpression
+                    ? ((IntegerLiteralExpression) node).getLiteral() != 0
+                    : ((FloatLiteralExpression) node).getLiteral() != 0;
+            if (value == jumpIfTrue) {
+                JumpInsnNode jmp = new JumpInsnNode(Opcodes.GOTO, null);
+                methodInstructionList.add(jmp);
+                (value ? trueList : falseList).add(jmp);
+            }
+
+        } else {
+            // Any other value is true if it is not zero, or not null.
+            node.accept(this);
+            Type type = ASTUtils.getSafeType(node);
+            int opcode;
+            if (type.equals(Type.FLOAT_TYPE)) {
+                methodInstructionList.add(new InsnNode(Opcodes.FCONST_0));
+                methodInstructionList.add(new InsnNode(Opcodes.FCMPL));
+                opcode = jumpIfTrue ? Opcodes.IFNE : Opcodes.IFEQ;
+            } else if (type.getSort() == Type.OBJECT)
+                opcode = jumpIfTrue ? Opcodes.IFNONNULL : Opcodes.IFNULL;
+            else
+                opcode = jumpIfTrue ? Opcodes.IFNE : Opcodes.IFEQ;
+
+            JumpInsnNode jmp = new JumpInsnNode(opcode, null);
+            methodInstructionList.add(jmp);
+            (jumpIfTrue ? trueList : falseList).add(jmp);
+        }
+    }
+
+    /**
+     * Pushes the value of a condition which is used as an expression, 1 if it is true and 0 otherwise.
+     *
+     * @param node the condition.
+     * @throws ASTVisitorException
+     */
+    private void booleanValue(Expression node) throws ASTVisitorException {
+        condition(node, false);
+        backpatchHere(ASTUtils.getTrueList(node));
+
+        LabelNode falseLabelNode = new LabelNode(new Label());
+        LabelNode endLabelNode = new LabelNode(new Label());
+        methodInstructionList.add(new InsnNode(Opcodes.ICONST_1));
+        methodInstructionList.add(new JumpInsnNode(Opcodes.GOTO, endLabelNode));
+        methodInstructionList.add(falseLabelNode);
+        backpatch(ASTUtils.getFalseList(node), falseLabelNode);
+        methodInstructionList.add(new InsnNode(Opcodes.ICONST_0));
+        methodInstructionList.add(endLabelNode);
+    }
 
+    /**
+     * Handles a comparison, as a single jump.
+     *
+     * @param node       the expression's node.
+     * @param op         the operator.
+     * @param type       the max type of the operands.
+     * @param jumpIfTrue true if the jump is taken when the comparison is true, false if it is taken when it is false.
+     * @throws ASTVisitorException
+     */
+    private void handleBooleanOperator(Expression node, Operator op, Type type, boolean jumpIfTrue) throws ASTVisitorException {
         // add a JumpInsnNode with null label based on the operation.
-        // add the jmp instruction into trueList.
+        // add the jmp instruction into the trueList, or the falseList.
+        JumpInsnNode jmp = null;
         if (type.equals(TypeUtils.STRING_TYPE)) {
             methodInstructionList.add(new InsnNode(Opcodes.SWAP));
-            JumpInsnNode jmp = null;
             methodInstructionList.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z"));
             switch (op) {
                 case EQUAL:
-                    jmp = new JumpInsnNode(Opcodes.IFEQ, null);
+                    jmp = new JumpInsnNode(jumpIfTrue ? Opcodes.IFNE : Opcodes.IFEQ, null);
                     break;
                 case NOT_EQUAL:
-                    jmp = new JumpInsnNode(Opcodes.IFNE, null);
+                    jmp = new JumpInsnNode(jumpIfTrue ? Opcodes.IFEQ : Opcodes.IFNE, null);
                     break;
                 default:
                     ASTUtils.error(node, "Operator not supported on strings!");
                     break;
             }
-            trueList.add(jmp);
+            methodInstructionList.add(jmp);
+        } else
+            jmp = compareAndJump(node, op, type, jumpIfTrue);
+
+        if (jumpIfTrue)
+            ASTUtils.getTrueList(node).add(jmp);
+        else
+            ASTUtils.getFalseList(node).add(jmp);
+    }
+
+    /**
+     * Adds the comparison of the two numbers on the top of the stack, fused with the jump on its result.
+     * <br>
+     * Two floats are compared with FCMPG for < and <=, and with FCMPL otherwise, so that a comparison with NaN
+     * is false whichever way the jump goes.
+     *
+     * @param node       the expression's node.
+     * @param op         the operator.
+     * @param type       the max type of the operands.
+     * @param jumpIfTrue true if the jump is taken when the comparison is true, false if it is taken when it is false.
+     * @return the jump, with a null label.
+     * @throws ASTVisitorException
+     */
+    private JumpInsnNode compareAndJump(ASTNode node, Operator op, Type type, boolean jumpIfTrue) throws ASTVisitorException {
+        int opcode = compareOpcode(node, op, jumpIfTrue);
+        if (type.equals(Type.FLOAT_TYPE)) {
+            boolean less = op.equals(Operator.LESS) || op.equals(Operator.LESS_EQUAL);
+            methodInstructionList.add(new InsnNode(less ? Opcodes.FCMPG : Opcodes.FCMPL));
+            // The result of the comparison is compared with zero instead.
+            opcode += Opcodes.IFEQ - Opcodes.IF_ICMPEQ;
         }
 
-        // add DCMPG instruction.
-        // add a JumpInsnNode with null label based on the operation.
-        // add the jmp instruction into trueList.
-        else if (type.equals(Type.FLOAT_TYPE)) {
-            methodInstructionList.add(new InsnNode(Opcodes.DCMPG));
-            JumpInsnNode jmp = null;
-            switch (op) {
-                case AND:
-                    ASTUtils.error(node, "Operator && cannot be applied to float type!");
-                    break;
-                case OR:
-                    ASTUtils.error(node, "Operator || cannot be applied to float type!");
-                    break;
-                case EQUAL:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPNE, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case NOT_EQUAL:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPEQ, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case GREATER:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPLE, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case GREATER_EQUAL:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPLT, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case LESS:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPGE, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case LESS_EQUAL:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPGT, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                default:
-                    ASTUtils.error(node, "Operator not supported!");
-                    break;
-            }
-            trueList.add(jmp);
+        JumpInsnNode jmp = new JumpInsnNode(opcode, null);
+        methodInstructionList.add(jmp);
+        return jmp;
+    }
+
+    /**
+     * Finds the jump of a comparison of two ints.
+     *
+     * @param node       the expression's node.
+     * @param op         the operator.
+     * @param jumpIfTrue true if the jump is taken when the comparison is true, false if it is taken when it is false.
+     * @return the opcode of the jump.
+     * @throws ASTVisitorException
+     */
+    private static int compareOpcode(ASTNode node, Operator op, boolean jumpIfTrue) throws ASTVisitorException {
+        switch (op) {
+            case EQUAL:
+                return jumpIfTrue ? Opcodes.IF_ICMPEQ : Opcodes.IF_ICMPNE;
+            case NOT_EQUAL:
+                return jumpIfTrue ? Opcodes.IF_ICMPNE : Opcodes.IF_ICMPEQ;
+            case GREATER:
+                return jumpIfTrue ? Opcodes.IF_ICMPGT : Opcodes.IF_ICMPLE;
+            case GREATER_EQUAL:
+                return jumpIfTrue ? Opcodes.IF_ICMPGE : Opcodes.IF_ICMPLT;
+            case LESS:
+                return jumpIfTrue ? Opcodes.IF_ICMPLT : Opcodes.IF_ICMPGE;
+            case LESS_EQUAL:
+                return jumpIfTrue ? Opcodes.IF_ICMPLE : Opcodes.IF_ICMPGT;
+            default:
+                ASTUtils.error(node, "Operator not supported!");
+                return Opcodes.NOP;
         }
+    }
 
-        // add a JumpInsnNode with null label based on the operation.
-        // add the jmp instruction into trueList.
-        else {
-            JumpInsnNode jmp = null;
-            switch (op) {
-                case AND:
-                    jmp = new JumpInsnNode(Opcodes.IAND, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case OR:
-                    jmp = new JumpInsnNode(Opcodes.IOR, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case EQUAL:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPNE, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case NOT_EQUAL:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPEQ, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case GREATER:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPLE, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case GREATER_EQUAL:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPLT, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case LESS:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPGE, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                case LESS_EQUAL:
-                    jmp = new JumpInsnNode(Opcodes.IF_ICMPGT, null);
-                    methodInstructionList.add(jmp);
-                    break;
-                default:
-                    ASTUtils.error(node, "Operator not supported!");
-                    break;
+    /**
+     * Checks if an expression is a string concatenation, which is generated together with the concatenations around it.
+     *
+     * @param node the expression.
+     * @return true if the expression is a string concatenation.
+     */
+    private boolean isConcatenation(Expression node) {
+        if (!(node instanceof BinaryExpression) || ASTUtils.getFolded(node) != null)
+            return false;
+        BinaryExpression binaryExpression = (BinaryExpression) node;
+        return binaryExpression.getOperator().equals(Operator.PLUS)
+                && TypeUtils.STRING_TYPE.equals(ASTUtils.getType(binaryExpression));
+    }
+
+    /**
+     * Collects the operands of a chain of string concatenations, from left to right.
+     * <br>
+     * The concatenation is associative, so the concatenations among the operands, even in parentheses, are flattened.
+     *
+     * @param node     the expression.
+     * @param operands the list which receives the operands.
+     */
+    private void collectConcatenationOperands(Expression node, List<Expression> operands) {
+        if (node instanceof ParenthesisExpression && isConcatenation(((ParenthesisExpression) node).getExpression()))
+            node = ((ParenthesisExpression) node).getExpression();
+
+        if (isConcatenation(node)) {
+            collectConcatenationOperands(((BinaryExpression) node).getExpression1(), operands);
+            collectConcatenationOperands(((BinaryExpression) node).getExpression2(), operands);
+        } else
+            operands.add(node);
+    }
+
+    /**
+     * Returns the type of an operand of a concatenation, as a StringBuilder.append or a StringConcatFactory call takes it.
+     *
+     * @param type the type of the operand.
+     * @return the type of the argument.
+     */
+    private Type concatenationArgumentType(Type type) {
+        if (type.equals(Type.INT_TYPE) || type.equals(Type.FLOAT_TYPE) || type.equals(Type.BOOLEAN_TYPE)
+                || type.equals(TypeUtils.STRING_TYPE))
+            return type;
+        return Type.getType(Object.class);
+    }
+
+    /**
+     * Generates a chain of string concatenations, such as a + b + c,
+     * with a single StringBuilder or a single invokedynamic call.
+     * <br>
+     * The operands are converted to strings by the StringBuilder or the StringConcatFactory,
+     * so the numbers are not converted to intermediate strings first.
+     *
+     * @param node the last concatenation of the chain.
+     * @throws ASTVisitorException
+     */
+    private void handleConcatenation(BinaryExpression node) throws ASTVisitorException {
+        List<Expression> operands = new ArrayList<Expression>();
+        collectConcatenationOperands(node, operands);
+
+        if (concatenation == StringConcatenation.INDY) {
+            handleIndyConcatenation(operands);
+            return;
+        }
+
+        methodInstructionList.add(new TypeInsnNode(Opcodes.NEW, "java/lang/StringBuilder"));
+        methodInstructionList.add(new InsnNode(Opcodes.DUP));
+        maxStack++;
+        methodInstructionList.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V"));
+
+        for (Expression operand : operands) {
+            operand.accept(this);
+            Type argumentType = concatenationArgumentType(ASTUtils.getSafeType(operand));
+            methodInstructionList.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+                    Type.getMethodDescriptor(Type.getType(StringBuilder.class), argumentType)));
+        }
+
+        methodInstructionList.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;"));
+    }
+
+    /**
+     * Generates the operands of a chain of string concatenations as invokedynamic calls to
+     * StringConcatFactory.makeConcatWithConstants.
+     * <br>
+     * The string literals are written in the recipe instead of being pushed, unless they contain the recipe's tags.
+     * A call takes at most {@value #MAX_CONCATENATION_ARGUMENTS} arguments,
+     * so a longer chain is split in calls which take the result of the previous one as their first argument.
+     *
+     * @param operands the operands of the chain.
+     * @throws ASTVisitorException
+     */
+    private void handleIndyConcatenation(List<Expression> operands) throws ASTVisitorException {
+        StringBuilder recipe = new StringBuilder();
+        List<Type> argumentTypes = new ArrayList<Type>();
+
+        for (Expression operand : operands) {
+            if (operand instanceof StringLiteralExpression && !firstDot) {
+                String literal = ((StringLiteralExpression) operand).getLiteral();
+                if (literal.indexOf('\u0001') < 0 && literal.indexOf('\u0002') < 0
+                        && recipe.length() + literal.length() <= MAX_RECIPE_LENGTH) {
+                    recipe.append(literal);
+                    continue;
+                }
+            }
+
+            if (argumentTypes.size() == MAX_CONCATENATION_ARGUMENTS) {
+                addIndyConcatenation(recipe.toString(), argumentTypes);
+                recipe.setLength(0);
+                recipe.append('\u0001');
+                argumentTypes.clear();
+                argumentTypes.add(TypeUtils.STRING_TYPE);
             }
-            trueList.add(jmp);
+
+            operand.accept(this);
+            recipe.append('\u0001');
+            argumentTypes.add(concatenationArgumentType(ASTUtils.getSafeType(operand)));
+            maxStack++;
         }
-        ASTUtils.setTrueList(node, trueList);
+
+        addIndyConcatenation(recipe.toString(), argumentTypes);
+    }
+
+    /**
+     * Adds an invokedynamic call to StringConcatFactory.makeConcatWithConstants.
+     *
+     * @param recipe        the recipe of the concatenation.
+     * @param argumentTypes the types of the arguments on the stack.
+     */
+    private void addIndyConcatenation(String recipe, List<Type> argumentTypes) {
+        String descriptor = Type.getMethodDescriptor(TypeUtils.STRING_TYPE,
+                argumentTypes.toArray(new Type[argumentTypes.size()]));
+        methodInstructionList.add(new InvokeDynamicInsnNode("makeConcatWithConstants", descriptor,
+                MAKE_CONCAT_WITH_CONSTANTS, recipe));
     }
 
     /**
-     * Handles an operation between two strings.
+     * Handles a comparison between two strings.
      * <br>
      * Assumes that the top of the stack contains two strings.
+     * The concatenations are generated by handleConcatenation.
      *
      * @param node the operation node.
      * @param op   the operator.
      * @throws ASTVisitorException
      */
     private void handleStringOperator(ASTNode node, Operator op) throws ASTVisitorException {
-        if (op.equals(Operator.PLUS)) {
-            methodInstructionList.add(new TypeInsnNode(Opcodes.NEW, "java/lang/StringBuilder"));
-
-            methodInstructionList.add(new InsnNode(Opcodes.DUP));
-            maxStack++;
-
-            methodInstructionList.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V"));
-            methodInstructionList.add(new InsnNode(Opcodes.SWAP));
-            methodInstructionList.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append", "(Ljava/lang/String;)Ljava/lang/StringBuilder;"));
-            methodInstructionList.add(new InsnNode(Opcodes.SWAP));
-            methodInstructionList.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append", "(Ljava/lang/String;)Ljava/lang/StringBuilder;"));
-            methodInstructionList.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;"));
-        } else if (op.isRelational()) {
+        if (op.isRelational()) {
             LabelNode trueLabelNode = new LabelNode(new Label());
             switch (op) {
                 case EQUAL:
@@ -441,82 +834,19 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
         else if (op.equals(Operator.MOD))
             methodInstructionList.add(new InsnNode(type.getOpcode(Opcodes.IREM)));
         else if (op.isRelational()) {
-            if (type.equals(Type.FLOAT_TYPE)) {
-                methodInstructionList.add(new InsnNode(Opcodes.DCMPG));
-                JumpInsnNode jmp = null;
-                switch (op) {
-                    case EQUAL:
-                        jmp = new JumpInsnNode(Opcodes.IFEQ, null);
-                        methodInstructionList.add(jmp);
-                        break;
-                    case NOT_EQUAL:
-                        jmp = new JumpInsnNode(Opcodes.IFNE, null);
-                        methodInstructionList.add(jmp);
-                        break;
-                    case GREATER:
-                        jmp = new JumpInsnNode(Opcodes.IFGT, null);
-                        methodInstructionList.add(jmp);
-                        break;
-                    case GREATER_EQUAL:
-                        jmp = new JumpInsnNode(Opcodes.IFGE, null);
-                        methodInstructionList.add(jmp);
-                        break;
-                    case LESS:
-                        jmp = new JumpInsnNode(Opcodes.IFLT, null);
-                        methodInstructionList.add(jmp);
-                        break;
-                    case LESS_EQUAL:
-                        jmp = new JumpInsnNode(Opcodes.IFLE, null);
-                        methodInstructionList.add(jmp);
-                        break;
-                    default:
-                        ASTUtils.error(node, "Operator not supported!");
-                        break;
-                }
-                methodInstructionList.add(new InsnNode(Opcodes.ICONST_0));
-                LabelNode endLabelNode = new LabelNode(new Label());
-                methodInstructionList.add(new JumpInsnNode(Opcodes.GOTO, endLabelNode));
-                LabelNode trueLabelNode = new LabelNode(new Label());
-                jmp.label = trueLabelNode;
-                methodInstructionList.add(trueLabelNode);
-                initializeFlags();
-                methodInstructionList.add(new InsnNode(Opcodes.ICONST_1));
-                methodInstructionList.add(endLabelNode);
-                initializeFlags();
-            } else if (type.equals(Type.INT_TYPE)) {
-                LabelNode trueLabelNode = new LabelNode(new Label());
-                switch (op) {
-                    case EQUAL:
-                        methodInstructionList.add(new JumpInsnNode(Opcodes.IF_ICMPEQ, trueLabelNode));
-                        break;
-                    case NOT_EQUAL:
-                        methodInstructionList.add(new JumpInsnNode(Opcodes.IF_ICMPNE, trueLabelNode));
-                        break;
-                    case GREATER:
-                        methodInstructionList.add(new JumpInsnNode(Opcodes.IF_ICMPGT, trueLabelNode));
-                        break;
-                    case GREATER_EQUAL:
-                        methodInstructionList.add(new JumpInsnNode(Opcodes.IF_ICMPGE, trueLabelNode));
-                        break;
-                    case LESS:
-                        methodInstructionList.add(new JumpInsnNode(Opcodes.IF_ICMPLT, trueLabelNode));
-                        break;
-                    case LESS_EQUAL:
-                        methodInstructionList.add(new JumpInsnNode(Opcodes.IF_ICMPLE, trueLabelNode));
-                        break;
-                    default:
-                        break;
-                }
-                methodInstructionList.add(new InsnNode(Opcodes.ICONST_0));
-                LabelNode endLabelNode = new LabelNode(new Label());
-                methodInstructionList.add(new JumpInsnNode(Opcodes.GOTO, endLabelNode));
-                methodInstructionList.add(trueLabelNode);
-                initializeFlags();
-                methodInstructionList.add(new InsnNode(Opcodes.ICONST_1));
-                methodInstructionList.add(endLabelNode);
-                initializeFlags();
-            } else
+            if (!type.equals(Type.FLOAT_TYPE) && !type.equals(Type.INT_TYPE))
                 ASTUtils.error(node, "Cannot compare such types!");
+
+            LabelNode trueLabelNode = new LabelNode(new Label());
+            compareAndJump(node, op, type, true).label = trueLabelNode;
+            methodInstructionList.add(new InsnNode(Opcodes.ICONST_0));
+            LabelNode endLabelNode = new LabelNode(new Label());
+            methodInstructionList.add(new JumpInsnNode(Opcodes.GOTO, endLabelNode));
+            methodInstructionList.add(trueLabelNode);
+            initializeFlags();
+            methodInstructionList.add(new InsnNode(Opcodes.ICONST_1));
+            methodInstructionList.add(endLabelNode);
+            initializeFlags();
         } else
             ASTUtils.error(node, "Operator not recognized!");
     }
@@ -529,7 +859,11 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
 
     @Override
     public void visit(AssignmentStatement node) throws ASTVisitorException {
-        afterConstructorCall = false;
+        if (node.getExpression1() instanceof IdentifierExpression) {
+            assignField((IdentifierExpression) node.getExpression1(), node.getExpression2());
+            return;
+        }
+
         node.getExpression2().accept(this);
         afterAssignment = true;
 
@@ -546,20 +880,27 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
             methodInstructionList.add(new VarInsnNode(storeOP, assignIndex));
             afterPut = false;
         }
-
-        if (afterConstructorCall) {
-            int loadOP = t2.getOpcode(Opcodes.ILOAD);
-            methodInstructionList.add(new VarInsnNode(loadOP, assignIndex));
-            maxStack++;
-            afterConstructorCall = false;
-        }
     }
 
     @Override
     public void visit(WriteStatement node) throws ASTVisitorException {
+        List<Expression> operands = new ArrayList<Expression>();
+        collectConcatenationOperands(node.getExpression(), operands);
+        if (operands.size() > 1) {
+            writeConcatenation(node, operands);
+            return;
+        }
+
         node.getExpression().accept(this);
 
         Type type = ASTUtils.getSafeType(node.getExpression());
+
+        // The value is already on the stack for the static print of the buffer.
+        if (writeMode == WriteMode.BUFFERED) {
+            addPrint(type);
+            return;
+        }
+
         LocalIndexPool pool = ASTUtils.getSafeLocalIndexPool(node);
         int index = pool.getLocalIndex(type);
 
@@ -584,6 +925,112 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
         pool.freeLocalIndex(index);
     }
 
+    /**
+     * Writes a chain of string concatenations, such as write(i + "st time"), one operand at a time,
+     * with the print of the operand's type, so no StringBuilder and no intermediate string is created.
+     * <br>
+     * The operands up to the last one which may call a function or throw are evaluated into locals first,
+     * so that their effects, e.g. the writes of a called function, happen before anything is printed,
+     * as when the whole string is built first. The constants are not stored, they are pushed when printed.
+     *
+     * @param node     the write statement.
+     * @param operands the operands of the chain, from left to right.
+     * @throws ASTVisitorException
+     */
+    private void writeConcatenation(WriteStatement node, List<Expression> operands) throws ASTVisitorException {
+        int evaluated = 0;
+        for (int i = 0; i < operands.size(); i++)
+            if (!isQuiet(operands.get(i)))
+                evaluated = i + 1;
+
+        LocalIndexPool pool = ASTUtils.getSafeLocalIndexPool(node);
+        int[] indexes = new int[evaluated];
+        for (int i = 0; i < evaluated; i++) {
+            Expression operand = operands.get(i);
+            if (isConstant(operand))
+                continue;
+            operand.accept(this);
+            indexes[i] = pool.getLocalIndex();
+            methodInstructionList.add(new VarInsnNode(ASTUtils.getSafeType(operand).getOpcode(Opcodes.ISTORE), indexes[i]));
+        }
+
+        boolean strict = writeMode == WriteMode.STRICT;
+        if (strict) {
+            methodInstructionList.add(new FieldInsnNode(Opcodes.GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;"));
+            maxStack++;
+        }
+
+        for (int i = 0; i < operands.size(); i++) {
+            Expression operand = operands.get(i);
+            Type type = ASTUtils.getSafeType(operand);
+
+            // System.out stays on the stack under its last print.
+            if (strict && i < operands.size() - 1) {
+                methodInstructionList.add(new InsnNode(Opcodes.DUP));
+                maxStack++;
+            }
+
+            if (i < evaluated && !isConstant(operand)) {
+                methodInstructionList.add(new VarInsnNode(type.getOpcode(Opcodes.ILOAD), indexes[i]));
+                pool.freeLocalIndex(indexes[i]);
+            } else
+                operand.accept(this);
+
+            addPrint(type);
+        }
+    }
+
+    /**
+     * Adds the print of a value on the stack, to System.out, which is under the value,
+     * or to the buffer of org.hua.runtime.Output, as the write mode says.
+     *
+     * @param type the type of the value.
+     */
+    private void addPrint(Type type) {
+        String methodType = Type.getMethodDescriptor(Type.VOID_TYPE, concatenationArgumentType(type));
+        if (writeMode == WriteMode.BUFFERED)
+            methodInstructionList.add(new MethodInsnNode(Opcodes.INVOKESTATIC, OUTPUT, "print", methodType));
+        else
+            methodInstructionList.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "java/io/PrintStream", "print", methodType));
+    }
+
+    /**
+     * Checks if an expression is a constant, whose value is pushed by a single instruction.
+     *
+     * @param node the expression.
+     * @return true if the expression is a literal, null, or folded to a literal.
+     */
+    private boolean isConstant(Expression node) {
+        return ASTUtils.getFolded(node) != null || node instanceof StringLiteralExpression
+                || node instanceof IntegerLiteralExpression || node instanceof FloatLiteralExpression
+                || node instanceof NullExpression;
+    }
+
+    /**
+     * Checks if an expression neither calls a function, nor reads a field of an object, which may be null,
+     * nor divides integers, so its evaluation can neither write anything nor throw.
+     *
+     * @param node the expression.
+     * @return true if the evaluation of the expression has no effect.
+     */
+    private boolean isQuiet(Expression node) {
+        if (isConstant(node) || node instanceof SimpleIdentifierExpression || node instanceof ThisExpression)
+            return true;
+        if (node instanceof ParenthesisExpression)
+            return isQuiet(((ParenthesisExpression) node).getExpression());
+        if (node instanceof UnaryExpression)
+            return isQuiet(((UnaryExpression) node).getExpression());
+        if (node instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) node;
+            Operator op = binaryExpression.getOperator();
+            if ((op.equals(Operator.DIVISION) || op.equals(Operator.MOD))
+                    && !Type.FLOAT_TYPE.equals(ASTUtils.getType(binaryExpression)))
+                return false;
+            return isQuiet(binaryExpression.getExpression1()) && isQuiet(binaryExpression.getExpression2());
+        }
+        return false;
+    }
+
     @Override
     public void visit(CompoundStatement node) throws ASTVisitorException {
         List<JumpInsnNode> breakList = new ArrayList<JumpInsnNode>();
@@ -614,65 +1061,74 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
 
     @Override
     public void visit(BinaryExpression node) throws ASTVisitorException {
-        Type expr1Type = ASTUtils.getSafeType(node.getExpression1());
-        Type expr2Type = ASTUtils.getSafeType(node.getExpression2());
-
-        node.getExpression1().accept(this);
-        node.getExpression2().accept(this);
-
-        Type maxType = TypeUtils.maxType(expr1Type, expr2Type);
+        Expression folded = ASTUtils.getFolded(node);
+        if (folded != null) {
+            folded.accept(this);
+            return;
+        }
 
-        // make maxType the lowest Type.
-        if (!maxType.equals(expr2Type))
-            widen(maxType, expr2Type);
-
-        // cast second from top to max
-        if (!maxType.equals(expr1Type)) {
-            LocalIndexPool pool = ASTUtils.getSafeLocalIndexPool(node);
-            int localIndex = -1;
-            if (expr2Type.equals(Type.FLOAT_TYPE) || expr1Type.equals(Type.FLOAT_TYPE)) {
-                localIndex = pool.getLocalIndex(expr2Type);
-                methodInstructionList.add(new VarInsnNode(expr2Type.getOpcode(Opcodes.ISTORE), localIndex));
-            } else
-                methodInstructionList.add(new InsnNode(Opcodes.SWAP));
+        if (isConcatenation(node)) {
+            handleConcatenation(node);
+            return;
+        }
 
-            widen(maxType, expr1Type);
-            if (expr2Type.equals(Type.FLOAT_TYPE) || expr1Type.equals(Type.FLOAT_TYPE)) {
-                methodInstructionList.add(new VarInsnNode(expr2Type.getOpcode(Opcodes.ILOAD), localIndex));
-                maxStack++;
-                pool.freeLocalIndex(localIndex, expr2Type);
-            } else
-                methodInstructionList.add(new InsnNode(Opcodes.SWAP));
+        // A && or || which is not the condition of a statement is generated as one, for its value.
+        if (isLogical(node.getOperator())) {
+            booleanValue(node);
+            return;
         }
 
+        Type maxType = visitOperands(node);
+
         // handle operator, depending on the type of the expression.
-        if (ASTUtils.isBooleanExpression(node))
-            handleBooleanOperator(node, node.getOperator(), maxType);
-        else if (maxType.equals(TypeUtils.STRING_TYPE)) {
+        if (maxType.equals(TypeUtils.STRING_TYPE)) {
             methodInstructionList.add(new InsnNode(Opcodes.SWAP));
             handleStringOperator(node, node.getOperator());
         } else
             handleNumberOperator(node, node.getOperator(), maxType);
     }
 
+    /**
+     * Pushes the operands of a binary expression, both widened to the max type of the two.
+     *
+     * @param node the expression.
+     * @return the max type of the operands.
+     * @throws ASTVisitorException
+     */
+    private Type visitOperands(BinaryExpression node) throws ASTVisitorException {
+        Type expr1Type = ASTUtils.getSafeType(node.getExpression1());
+        Type expr2Type = ASTUtils.getSafeType(node.getExpression2());
+        Type maxType = TypeUtils.maxType(expr1Type, expr2Type);
+
+        // widen every operand as soon as it is on the top of the stack, so neither has to be moved.
+        node.getExpression1().accept(this);
+        widen(maxType, expr1Type);
+        node.getExpression2().accept(this);
+        widen(maxType, expr2Type);
+        return maxType;
+    }
+
     @Override
     public void visit(UnaryExpression node) throws ASTVisitorException {
+        Expression folded = ASTUtils.getFolded(node);
+        if (folded != null) {
+            folded.accept(this);
+            return;
+        }
+
+        // A negation which is not the condition of a statement is generated as one, for its value.
+        if (node.getOperator().equals(Operator.NOT)) {
+            booleanValue(node);
+            return;
+        }
+
         node.getExpression().accept(this);
 
         Type type = ASTUtils.getSafeType(node.getExpression());
 
         if (node.getOperator().equals(Operator.MINUS))
             methodInstructionList.add(new InsnNode(type.getOpcode(Opcodes.INEG)));
-        else if (node.getOperator().equals(Operator.NOT)) {
-            // Create jump instruction.
-            JumpInsnNode jmp = new JumpInsnNode(Opcodes.IFEQ, null);
-            methodInstructionList.add(jmp);
-
-            // Fix true list.
-            List<JumpInsnNode> trueList = new ArrayList<JumpInsnNode>();
-            trueList.add(jmp);
-            ASTUtils.setTrueList(node, trueList);
-        } else
+        else
             ASTUtils.error(node, "Operator not recognized!");
     }
 
@@ -697,15 +1153,15 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
 
         // Find Symbol Table Entry of the expression.
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node.getExpression());
-        SymTableEntry s = st.lookup(node.getIdentifier() + "var");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.VARIABLE);
 
         // Find var type.
         Type varType;
         if (s != null)
             varType = s.getType();
         else {
-            SymTable<SymTableEntry> classSt = Registry.getInstance().getClasses().get(exprType);
-            SymTableEntry classEntry = classSt.lookup(node.getIdentifier() + "var");
+            SymTable<SymTableEntry> classSt = registry.getClasses().get(exprType);
+            SymTableEntry classEntry = classSt.lookup(node.getIdentifier(), SymbolKind.VARIABLE);
             varType = classEntry.getType();
         }
 
@@ -733,34 +1189,14 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
 
     @Override
     public void visit(FloatLiteralExpression node) throws ASTVisitorException {
-        if (ASTUtils.isBooleanExpression(node)) {
-            JumpInsnNode jumpInsnNode = new JumpInsnNode(Opcodes.GOTO, null);
-            methodInstructionList.add(jumpInsnNode);
-            if (node.getLiteral() != 0)
-                ASTUtils.getTrueList(node).add(jumpInsnNode);
-            else
-                ASTUtils.getFalseList(node).add(jumpInsnNode);
-
-        } else {
-            @SuppressWarnings("BoxingBoxedValue") Float f = Float.valueOf(node.getLiteral());
-            methodInstructionList.add(new LdcInsnNode(f));
-        }
+        @SuppressWarnings("BoxingBoxedValue") Float f = Float.valueOf(node.getLiteral());
+        methodInstructionList.add(new LdcInsnNode(f));
     }
 
     @Override
     public void visit(IntegerLiteralExpression node) throws ASTVisitorException {
-        if (ASTUtils.isBooleanExpression(node)) {
-            JumpInsnNode jumpInsnNode = new JumpInsnNode(Opcodes.GOTO, null);
-            methodInstructionList.add(jumpInsnNode);
-            if (node.getLiteral() != 0)
-                ASTUtils.getTrueList(node).add(jumpInsnNode);
-            else
-                ASTUtils.getFalseList(node).add(jumpInsnNode);
-
-        } else {
-            @SuppressWarnings("BoxingBoxedValue") Integer i = Integer.valueOf(node.getLiteral());
-            methodInstructionList.add(new LdcInsnNode(i));
-        }
+        @SuppressWarnings("BoxingBoxedValue") Integer i = Integer.valueOf(node.getLiteral());
+        methodInstructionList.add(new LdcInsnNode(i));
     }
 
     @Override
@@ -779,17 +1215,16 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
 
     @Override
     public void visit(WhileStatement node) throws ASTVisitorException {
-        ASTUtils.setBooleanExpression(node.getExpression(), true);
-
         LabelNode beginLabelNode = new LabelNode(new Label());
         methodInstructionList.add(beginLabelNode);
         initializeFlags();
 
-        node.getExpression().accept(this);
-
-        LabelNode trueLabelNode = new LabelNode(new Label());
+        // The body starts where the condition falls through when it is true.
+        condition(node.getExpression(), false);
+        backpatchHere(ASTUtils.getTrueList(node.getExpression()));
 
-        backpatch(ASTUtils.getTrueList(node.getExpression()), trueLabelNode);
+        LabelNode falseLabelNode = new LabelNode(new Label());
+        backpatch(ASTUtils.getFalseList(node.getExpression()), falseLabelNode);
 
         Statement statement = node.getStatement();
         if (statement != null) {
@@ -799,23 +1234,21 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
         }
 
         methodInstructionList.add(new JumpInsnNode(Opcodes.GOTO, beginLabelNode));
-        methodInstructionList.add(trueLabelNode);
+        methodInstructionList.add(falseLabelNode);
         initializeFlags();
 
-        ASTUtils.getNextList(node).addAll(ASTUtils.getFalseList(node.getExpression()));
-
         if (statement != null)
             ASTUtils.getNextList(node).addAll(ASTUtils.getBreakList(statement));
     }
 
     @Override
     public void visit(IfStatement node) throws ASTVisitorException {
-        ASTUtils.setBooleanExpression(node.getExpression(), true);
-
-        node.getExpression().accept(this);
+        // The statement starts where the condition falls through when it is true.
+        condition(node.getExpression(), false);
+        backpatchHere(ASTUtils.getTrueList(node.getExpression()));
 
         LabelNode labelNode = new LabelNode(new Label());
-        backpatch(ASTUtils.getTrueList(node.getExpression()), labelNode);
+        backpatch(ASTUtils.getFalseList(node.getExpression()), labelNode);
 
         if (node.getStatement() != null)
             node.getStatement().accept(this);
@@ -828,29 +1261,24 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
             ASTUtils.getContinueList(node).addAll(ASTUtils.getContinueList(node.getStatement()));
         }
 
-        ASTUtils.getNextList(node).addAll(ASTUtils.getFalseList(node.getExpression()));
-
         if (node.getStatement() != null)
             ASTUtils.getNextList(node).addAll(ASTUtils.getNextList(node.getStatement()));
     }
 
     @Override
     public void visit(IfElseStatement node) throws ASTVisitorException {
-        ASTUtils.setBooleanExpression(node.getExpression(), true);
-
-        node.getExpression().accept(this);
+        // The first statement starts where the condition falls through when it is true.
+        condition(node.getExpression(), false);
+        backpatchHere(ASTUtils.getTrueList(node.getExpression()));
 
         LabelNode labelNode1 = new LabelNode(new Label());
         LabelNode labelNode2 = new LabelNode(new Label());
+        backpatch(ASTUtils.getFalseList(node.getExpression()), labelNode1);
 
         if (node.getStatement1() != null)
             node.getStatement1().accept(this);
 
-        List<JumpInsnNode> falseList = new ArrayList<JumpInsnNode>();
-        JumpInsnNode jmp1 = new JumpInsnNode(Opcodes.GOTO, null);
-        methodInstructionList.add(jmp1);
-        falseList.add(jmp1);
-        ASTUtils.setFalseList(node.getExpression(), falseList);
+        methodInstructionList.add(new JumpInsnNode(Opcodes.GOTO, labelNode2));
 
         methodInstructionList.add(labelNode1);
         initializeFlags();
@@ -861,9 +1289,6 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
         methodInstructionList.add(labelNode2);
         initializeFlags();
 
-        backpatch(ASTUtils.getTrueList(node.getExpression()), labelNode1);
-        backpatch(ASTUtils.getFalseList(node.getExpression()), labelNode2);
-
         if (node.getStatement1() != null) {
             ASTUtils.getBreakList(node).addAll(ASTUtils.getBreakList(node.getStatement1()));
             ASTUtils.getContinueList(node).addAll(ASTUtils.getContinueList(node.getStatement1()));
@@ -874,8 +1299,6 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
             ASTUtils.getContinueList(node).addAll(ASTUtils.getContinueList(node.getStatement2()));
             ASTUtils.getNextList(node).addAll(ASTUtils.getNextList(node.getStatement2()));
         }
-
-        ASTUtils.getNextList(node).addAll(ASTUtils.getFalseList(node.getExpression()));
     }
 
     @Override
@@ -942,15 +1365,15 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
 
         // Find method type.
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
-        SymTableEntry s = st.lookup(node.getIdentifier() + "function");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
 
         Type methodType;
         //noinspection Duplicates
         if (s != null)
             methodType = s.getType();
         else {
-            SymTable<SymTableEntry> classSt = Registry.getInstance().getClasses().get(exprType);
-            SymTableEntry classEntry = classSt.lookup(node.getIdentifier() + "function");
+            SymTable<SymTableEntry> classSt = registry.getClasses().get(exprType);
+            SymTableEntry classEntry = classSt.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
             methodType = classEntry.getType();
         }
 
@@ -970,6 +1393,8 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
             FieldNode fn = new FieldNode(Opcodes.ACC_PUBLIC, node.getIdentifier(), filteredType, null, null);
             //noinspection unchecked
             cn.fields.add(fn);
+            if (backend == CodegenBackend.STREAM)
+                fn.accept(cv);
         }
     }
 
@@ -992,7 +1417,7 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
 
         // Find method type.
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
-        SymTableEntry s = st.lookup(node.getIdentifier() + "function");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
 
         Type methodType;
 
@@ -1000,8 +1425,8 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
         if (s != null)
             methodType = s.getType();
         else {
-            SymTable<SymTableEntry> classSt = Registry.getInstance().getClasses().get(exprType);
-            SymTableEntry classEntry = classSt.lookup(node.getIdentifier() + "function");
+            SymTable<SymTableEntry> classSt = registry.getClasses().get(exprType);
+            SymTableEntry classEntry = classSt.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
             methodType = classEntry.getType();
         }
 
@@ -1015,7 +1440,7 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
     public void visit(MethodIdentifier node) throws ASTVisitorException {
         // Find method type.
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
-        SymTableEntry s = st.lookup(node.getIdentifier() + "function");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
         Type methodType = s.getType();
 
         // load this on stack.
@@ -1037,7 +1462,7 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
     public void visit(SimpleMethodIdentifier node) throws ASTVisitorException {
         // Find method type.
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
-        SymTableEntry s = st.lookup(node.getIdentifier() + "function");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
         Type methodType = s.getType();
 
         // load this on stack.
@@ -1054,8 +1479,6 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
 
     @Override
     public void visit(SimpleConstructorIdentifier node) throws ASTVisitorException {
-        afterConstructorCall = true;
-
         methodInstructionList.add(new TypeInsnNode(Opcodes.NEW, node.getIdentifier()));
 
         methodInstructionList.add(new InsnNode(Opcodes.DUP));
@@ -1066,8 +1489,6 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
 
     @Override
     public void visit(ConstructorIdentifier node) throws ASTVisitorException {
-        afterConstructorCall = true;
-
         methodInstructionList.add(new TypeInsnNode(Opcodes.NEW, node.getIdentifier()));
 
         methodInstructionList.add(new InsnNode(Opcodes.DUP));
@@ -1087,7 +1508,7 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
     @Override
     public void visit(SimpleIdentifierExpression node) throws ASTVisitorException {
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
-        SymTableEntry symTableEntry = st.lookup(node.getIdentifier() + "var");
+        SymTableEntry symTableEntry = st.lookup(node.getIdentifier(), SymbolKind.VARIABLE);
         assignIndex = symTableEntry.getIndex();
 
         FieldNode fieldNode;
@@ -1183,29 +1604,57 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
             classWithMain = cn.name;
         }
 
-        // Create method.
-        MethodNode methodNode = new MethodNode(methodAccess, methodName, functionType.toString(), null, null);
-
         if (methodName.equals("<init>"))
             methodInstructionList.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V"));
 
         returnedFlag = false;
 
         // Visit Compound Statement.
-        if (node.getCompoundStatement() != null)
+        if (node.getCompoundStatement() != null) {
             node.getCompoundStatement().accept(this);
 
+            // The jumps out of the last statement, e.g. the breaks of a final while, go to the return.
+            List<JumpInsnNode> nextList = ASTUtils.getNextList(node.getCompoundStatement());
+            if (!nextList.isEmpty()) {
+                backpatchHere(nextList);
+                initializeFlags();
+            }
+        }
+
+        // Return something.
+        if (!returnedFlag)
+            methodInstructionList.add(new InsnNode(Opcodes.RETURN));
+
+        // Print what is left in the buffer of the write statements whenever main returns.
+        if (writeMode == WriteMode.BUFFERED && methodName.equals("main"))
+            for (AbstractInsnNode insn = methodInstructionList.getFirst(); insn != null; insn = insn.getNext())
+                if (insn.getOpcode() == Opcodes.RETURN)
+                    methodInstructionList.insertBefore(insn,
+                            new MethodInsnNode(Opcodes.INVOKESTATIC, OUTPUT, "flush", "()V"));
+
+        // Rewrite the temporaries, the constants and the jumps of the visitor into shorter instructions.
+        if (peephole)
+            PeepholeOptimizer.optimize(methodInstructionList);
+
+        if (backend == CodegenBackend.STREAM) {
+            // Let the variables which are not live at the same time share their slots, and write the method.
+            int maxLocals = LocalSlotAllocator.allocate(methodAccess, functionType.toString(), methodInstructionList);
+            MethodVisitor mv = cv.visitMethod(methodAccess, methodName, functionType.toString(), null, null);
+            MethodStreamer.stream(mv, cn.name, methodAccess, methodName, functionType.toString(),
+                    methodInstructionList, maxLocals, target.hasFrames());
+            return;
+        }
+
+        // Create method. Set max locals and stack. Add method to the class.
+        MethodNode methodNode = new MethodNode(methodAccess, methodName, functionType.toString(), null, null);
         Iterator iterator = methodInstructionList.iterator();
         while (iterator.hasNext()) {
             AbstractInsnNode instruction = (AbstractInsnNode) iterator.next();
             methodNode.instructions.add(instruction);
         }
 
-        // Return something.Set max locals and stack. Add method to the class.
-        if (!returnedFlag)
-            methodNode.instructions.add(new InsnNode(Opcodes.RETURN));
-
-        methodNode.maxLocals = ASTUtils.getSafeLocalIndexPool(node).getMaxLocals() + 1;
+        // Let the variables which are not live at the same time share their slots.
+        methodNode.maxLocals = LocalSlotAllocator.allocate(methodNode);
         methodNode.maxStack = maxStack;
 
         // noinspection unchecked
@@ -1215,7 +1664,7 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
     @Override
     public void visit(ClassDefinition node) throws ASTVisitorException {
         cn.access = Opcodes.ACC_PUBLIC;
-        cn.version = Opcodes.V1_5;
+        cn.version = target.getVersion();
         cn.name = node.getIdentifier();
         cn.sourceFile = filenameWithoutExtension + ".huava";
         cn.superName = "java/lang/Object";
@@ -1226,7 +1675,23 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
         if (cn.fields != null)
             cn.fields.clear();
 
-        // create default constructor
+        classFields = true;
+
+        if (backend == CodegenBackend.STREAM)
+            startClass();
+        else
+            addDefaultConstructor();
+
+        for (FieldOrFunctionDefinition fieldOrFunctionDefinition : node.getFieldOrFunctionDefinitionList())
+            fieldOrFunctionDefinition.accept(this);
+
+        generateClass(node.getIdentifier());
+    }
+
+    /**
+     * Adds the default constructor to the class node of the tree backend.
+     */
+    private void addDefaultConstructor() {
         MethodNode methodNode = new MethodNode(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
         methodNode.instructions.add(new VarInsnNode(Opcodes.ALOAD, 0));
         methodNode.instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V"));
@@ -1235,12 +1700,5 @@ class ByteCodeGeneratorASTVisitor implements ASTVisitor {
         methodNode.maxStack = 1;
         //noinspection unchecked
         cn.methods.add(methodNode);
-
-        classFields = true;
-
-        for (FieldOrFunctionDefinition fieldOrFunctionDefinition : node.getFieldOrFunctionDefinitionList())
-            fieldOrFunctionDefinition.accept(this);
-
-        generateClass(node.getIdentifier());
     }
 }
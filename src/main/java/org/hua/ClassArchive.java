@@ -0,0 +1,169 @@
+package org.hua;
+
+import org.hua.runtime.Output;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Writes the generated classes of all the files into a single JAR archive, instead of a file for every class.
+ * <br>
+ * The classes are stored as ordinary class files, and the manifest names the class with the main function,
+ * so that the archive runs with java -jar. The runtime classes which the classes call, if any, are copied
+ * from the compiler into the archive as well, or into the output folder when the classes are written there.
+ * <br>
+ * The archive is written in a temporary file next to it first, which then replaces it in one atomic move,
+ * so that a reader sees either the old archive or the new one, never a half written or a missing one.
+ */
+final class ClassArchive {
+
+    /**
+     * The size of the buffer of the archive's stream.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The runtime class which the write statements call with --write buffered.
+     */
+    private static final Class<?> OUTPUT = Output.class;
+
+    private ClassArchive() {
+    }
+
+    /**
+     * Writes the classes of the files into an archive, replacing it if it exists.
+     *
+     * @param archive       the archive.
+     * @param contexts      the contexts of the files, whose classes are written in this order.
+     * @param classWithMain the name of the class which contains the main function, or null if there is none.
+     * @param output        whether the classes print to the buffer of the Output runtime class.
+     * @throws IOException if the archive cannot be written.
+     */
+    static void write(File archive, List<CompilationContext> contexts, String classWithMain, boolean output)
+            throws IOException {
+        File directory = archive.getAbsoluteFile().getParentFile();
+        //noinspection ResultOfMethodCallIgnored
+        directory.mkdirs();
+        File tmp = File.createTempFile(archive.getName(), ".tmp", directory);
+
+        try {
+            JarOutputStream out = new JarOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp), BUFFER_SIZE), manifest(classWithMain));
+            try {
+                for (CompilationContext context : contexts)
+                    for (Map.Entry<String, byte[]> pair : context.getClassBytes().entrySet()) {
+                        out.putNextEntry(new JarEntry(pair.getKey() + ".class"));
+                        out.write(pair.getValue());
+                        out.closeEntry();
+                    }
+                if (output)
+                    writeRuntimeClass(out, OUTPUT);
+            } finally {
+                out.close();
+            }
+            Files.move(tmp.toPath(), archive.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the runtime classes which the classes call into a folder, next to the huaclasses,
+     * as class files in the folders of their packages.
+     * <br>
+     * The huaclasses are not class files, so the folder does not run on a class path by itself, as the archive does.
+     * The copies serve a class loader which defines the huaclasses of the folder and has the folder on its class path.
+     *
+     * @param directory the folder.
+     * @param output    whether the classes print to the buffer of the Output runtime class.
+     * @return the paths of the written class files.
+     * @throws IOException if a class file cannot be written.
+     */
+    static List<String> writeRuntimeClasses(File directory, boolean output) throws IOException {
+        List<String> paths = new ArrayList<String>();
+        if (output) {
+            File classFile = new File(directory, classFileName(OUTPUT));
+            //noinspection ResultOfMethodCallIgnored
+            classFile.getParentFile().mkdirs();
+            OutputStream out = new FileOutputStream(classFile);
+            try {
+                copyRuntimeClass(OUTPUT, out);
+            } finally {
+                out.close();
+            }
+            paths.add(classFile.getPath());
+        }
+        return paths;
+    }
+
+    /**
+     * Copies a runtime class from the class path of the compiler into an archive.
+     *
+     * @param out   the stream of the archive.
+     * @param clazz the runtime class.
+     * @throws IOException if the class file cannot be read or written.
+     */
+    private static void writeRuntimeClass(JarOutputStream out, Class<?> clazz) throws IOException {
+        out.putNextEntry(new JarEntry(classFileName(clazz)));
+        copyRuntimeClass(clazz, out);
+        out.closeEntry();
+    }
+
+    /**
+     * Copies the class file of a runtime class from the class path of the compiler into a stream.
+     *
+     * @param clazz the runtime class.
+     * @param out   the stream.
+     * @throws IOException if the class file cannot be read or written.
+     */
+    private static void copyRuntimeClass(Class<?> clazz, OutputStream out) throws IOException {
+        InputStream in = clazz.getClassLoader().getResourceAsStream(classFileName(clazz));
+        if (in == null)
+            throw new IOException("Could not find the runtime class " + clazz.getName());
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int n = in.read(buffer); n != -1; n = in.read(buffer))
+                out.write(buffer, 0, n);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return the path of the class file of a class, relative to the root of its class path.
+     */
+    private static String classFileName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/') + ".class";
+    }
+
+    /**
+     * Creates the manifest of an archive.
+     *
+     * @param classWithMain the name of the class which contains the main function, or null.
+     * @return the manifest.
+     */
+    private static Manifest manifest(String classWithMain) {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (classWithMain != null)
+            attributes.put(Attributes.Name.MAIN_CLASS, classWithMain);
+        return manifest;
+    }
+}
@@ -0,0 +1,86 @@
+package org.hua;
+
+import org.objectweb.asm.Opcodes;
+
+/**
+ * The versions of the generated class files, which are selected with the --target option of the compiler.
+ * <br>
+ * The class files of Java 6 and later carry StackMapTable frames, which the verifier checks instead of inferring
+ * the types itself. They are computed by the ClassWriter, or by the MethodStreamer with the stream backend.
+ */
+enum ClassFileTarget {
+
+    /**
+     * The class files of Java 5, without frames, which every JVM can run.
+     */
+    JAVA_5("5", Opcodes.V1_5),
+
+    /**
+     * The class files of Java 8.
+     */
+    JAVA_8("8", Opcodes.V1_8),
+
+    /**
+     * The class files of Java 11, which may call the StringConcatFactory of Java 9.
+     */
+    JAVA_11("11", Opcodes.V11),
+
+    /**
+     * The class files of Java 17.
+     */
+    JAVA_17("17", Opcodes.V17);
+
+    /**
+     * The name of the target, as given to the --target option.
+     */
+    private final String targetName;
+
+    /**
+     * The class file version.
+     */
+    private final int version;
+
+    ClassFileTarget(String targetName, int version) {
+        this.targetName = targetName;
+        this.version = version;
+    }
+
+    String getTargetName() {
+        return targetName;
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks if the class files of this target carry frames.
+     *
+     * @return true if the methods need StackMapTable frames.
+     */
+    boolean hasFrames() {
+        return version >= Opcodes.V1_6;
+    }
+
+    /**
+     * Checks if the classes of this target run on a JVM which has the StringConcatFactory.
+     *
+     * @return true if the string concatenations can be generated as invokedynamic calls.
+     */
+    boolean hasStringConcatFactory() {
+        return version >= Opcodes.V9;
+    }
+
+    /**
+     * Returns the target with a name, as given to the --target option.
+     *
+     * @param name the name, e.g. 8.
+     * @return the target, or null if there is none with that name.
+     */
+    static ClassFileTarget forName(String name) {
+        for (ClassFileTarget target : values())
+            if (target.targetName.equals(name))
+                return target;
+        return null;
+    }
+}
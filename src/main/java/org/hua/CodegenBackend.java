@@ -0,0 +1,35 @@
+package org.hua;
+
+/**
+ * The ways to write the generated classes, which are selected with the --backend option of the compiler.
+ */
+enum CodegenBackend {
+
+    /**
+     * A ClassNode with a MethodNode for every method, which the ClassWriter visits when the class is complete,
+     * computing the maximum stack sizes and the frames from scratch.
+     * <br>
+     * It is kept for debugging, since the nodes of the whole class can be inspected before they are written.
+     */
+    TREE,
+
+    /**
+     * The header, the fields and the methods are written to the ClassWriter as they are generated.
+     * The instructions of a method are written once the method is complete, with the maximum stack size
+     * and the frames computed by the MethodStreamer, so the ClassWriter computes nothing.
+     */
+    STREAM;
+
+    /**
+     * Returns the backend with a name, as given to the --backend option.
+     *
+     * @param name the name, in any case.
+     * @return the backend, or null if there is none with that name.
+     */
+    static CodegenBackend forName(String name) {
+        for (CodegenBackend backend : values())
+            if (backend.name().equalsIgnoreCase(name))
+                return backend;
+        return null;
+    }
+}
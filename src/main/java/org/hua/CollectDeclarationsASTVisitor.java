@@ -0,0 +1,252 @@
+package org.hua;
+
+import org.objectweb.asm.Type;
+
+import org.hua.ast.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Register the classes of a file in the Registry and collect the class types which the file uses.
+ * <br>
+ * It runs for every file before the semantic check, so that a class can be used before its file is checked.
+ */
+class CollectDeclarationsASTVisitor implements ASTVisitor {
+
+    /**
+     * The types of the classes defined in the file.
+     */
+    private final List<Type> declaredTypes;
+
+    /**
+     * The types used by the file's fields, parameters, return types and constructor calls.
+     */
+    private final Set<Type> referencedTypes;
+
+    /**
+     * The registry of the compilation session.
+     */
+    private final Registry registry;
+
+    CollectDeclarationsASTVisitor(Registry registry) {
+        this.registry = registry;
+        this.declaredTypes = new ArrayList<Type>();
+        this.referencedTypes = new LinkedHashSet<Type>();
+    }
+
+    List<Type> getDeclaredTypes() {
+        return declaredTypes;
+    }
+
+    Set<Type> getReferencedTypes() {
+        return referencedTypes;
+    }
+
+    @Override
+    public void visit(CompUnit node) throws ASTVisitorException {
+        for (ClassDefinition c : node.getClassDefinitionList()) {
+            c.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(AssignmentStatement node) throws ASTVisitorException {
+        node.getExpression1().accept(this);
+        node.getExpression2().accept(this);
+    }
+
+    @Override
+    public void visit(CompoundStatement node) throws ASTVisitorException {
+        for (Statement st : node.getStatementList()) {
+            st.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(BinaryExpression node) throws ASTVisitorException {
+        node.getExpression1().accept(this);
+        node.getExpression2().accept(this);
+    }
+
+    @Override
+    public void visit(UnaryExpression node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(IdentifierExpression node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(IntegerLiteralExpression node) throws ASTVisitorException {
+        // nothing
+    }
+
+    @Override
+    public void visit(FloatLiteralExpression node) throws ASTVisitorException {
+        // nothing
+    }
+
+    @Override
+    public void visit(StringLiteralExpression node) throws ASTVisitorException {
+        // nothing
+    }
+
+    @Override
+    public void visit(ParenthesisExpression node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(WhileStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+        if (node.getStatement() != null)
+            node.getStatement().accept(this);
+    }
+
+    @Override
+    public void visit(BreakStatement node) throws ASTVisitorException {
+        // nothing
+    }
+
+    @Override
+    public void visit(ContinueStatement node) throws ASTVisitorException {
+        // nothing
+    }
+
+    @Override
+    public void visit(IfElseStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+        if (node.getStatement1() != null)
+            node.getStatement1().accept(this);
+        if (node.getStatement2() != null)
+            node.getStatement2().accept(this);
+    }
+
+    @Override
+    public void visit(IfStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+        if (node.getStatement() != null)
+            node.getStatement().accept(this);
+    }
+
+    @Override
+    public void visit(WriteStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(ReturnStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(ThisExpression node) throws ASTVisitorException {
+        // nothing
+    }
+
+    @Override
+    public void visit(NullExpression node) throws ASTVisitorException {
+        // nothing
+    }
+
+    @Override
+    public void visit(FunctionCallExpression node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+
+        for (Expression e : node.getExpressionList()) {
+            e.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(StorageSpecifier node) throws ASTVisitorException {
+        // nothing
+    }
+
+    @Override
+    public void visit(SimpleFunctionCallExpression node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(MethodIdentifier node) throws ASTVisitorException {
+        for (Expression e : node.getExpressionList()) {
+            e.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(SimpleMethodIdentifier node) throws ASTVisitorException {
+        // nothing
+    }
+
+    @Override
+    public void visit(SimpleConstructorIdentifier node) throws ASTVisitorException {
+        referencedTypes.add(Type.getType("Lorg/hua/" + node.getIdentifier() + ";"));
+    }
+
+    @Override
+    public void visit(ConstructorIdentifier node) throws ASTVisitorException {
+        referencedTypes.add(Type.getType("Lorg/hua/" + node.getIdentifier() + ";"));
+
+        for (Expression e : node.getExpressionList()) {
+            e.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(SimpleIdentifierExpression node) throws ASTVisitorException {
+        // nothing here
+    }
+
+    @Override
+    public void visit(SimpleReturnStatement node) throws ASTVisitorException {
+        // nothing here
+    }
+
+    @Override
+    public void visit(SimpleStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(ParameterDeclaration node) throws ASTVisitorException {
+        referencedTypes.add(node.getType());
+    }
+
+    @Override
+    public void visit(FunctionDefinition node) throws ASTVisitorException {
+        referencedTypes.add(node.getReturnType());
+
+        for (ParameterDeclaration p : node.getParameterDeclarationList())
+            p.accept(this);
+
+        if (node.getCompoundStatement() != null)
+            node.getCompoundStatement().accept(this);
+    }
+
+    @Override
+    public void visit(ClassDefinition node) throws ASTVisitorException {
+        // test if class exists
+        Type t = Type.getType("Lorg/hua/" + node.getIdentifier() + ";");
+        if (registry.getClasses().containsKey(t))
+            ASTUtils.error(node, "Redefined Class!");
+
+        registry.getClasses().put(t, ASTUtils.getSafeEnv(node));
+        declaredTypes.add(t);
+
+        for (FieldOrFunctionDefinition f : node.getFieldOrFunctionDefinitionList()) {
+            f.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(FieldDefinition node) throws ASTVisitorException {
+        referencedTypes.add(node.getType());
+    }
+}
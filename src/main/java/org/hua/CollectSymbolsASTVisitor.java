@@ -4,6 +4,7 @@ import org.objectweb.asm.Type;
 import org.hua.symbol.LocalIndexPool;
 import org.hua.symbol.SymTable;
 import org.hua.symbol.SymTableEntry;
+import org.hua.symbol.SymbolKind;
 
 import org.hua.ast.*;
 
@@ -20,7 +21,7 @@ class CollectSymbolsASTVisitor implements ASTVisitor {
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
         LocalIndexPool pool = ASTUtils.getSafeLocalIndexPool(node);
         int index = pool.getLocalIndex();
-        st.put("write" + "function", new SymTableEntry("write", Type.VOID_TYPE, index));
+        st.put("write", SymbolKind.FUNCTION, new SymTableEntry("write", Type.VOID_TYPE, index));
 
         for (ClassDefinition c : node.getClassDefinitionList()) {
             c.accept(this);
@@ -203,7 +204,7 @@ class CollectSymbolsASTVisitor implements ASTVisitor {
             // FIND CS SYMBOL TABLE
             SymTable<SymTableEntry> csST = ASTUtils.getSafeEnv(node.getCompoundStatement());
             for (ParameterDeclaration p : node.getParameterDeclarationList())
-                if (csST.lookupOnlyInTop(p.getIdentifier() + "var") != null)
+                if (csST.lookupOnlyInTop(p.getIdentifier(), SymbolKind.VARIABLE) != null)
                     ASTUtils.error(node, "Redefined variable found inside function!");
         }
         if (!node.isStatic())
@@ -211,7 +212,7 @@ class CollectSymbolsASTVisitor implements ASTVisitor {
         for (ParameterDeclaration p : node.getParameterDeclarationList()) {
             SymTableEntry symbol = new SymTableEntry(p.getIdentifier(), p.getType(), parameterIndex++);
             SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(p);
-            st.put(p.getIdentifier() + "var", symbol);
+            st.put(p.getIdentifier(), SymbolKind.VARIABLE, symbol);
 
             parameterTypes.add(p.getType());
         }
@@ -224,28 +225,19 @@ class CollectSymbolsASTVisitor implements ASTVisitor {
 
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
 
-        if (st.lookupOnlyInTop(node.getIdentifier()) != null)
-            ASTUtils.error(node, "Function redefined!");
-        else {
-            LocalIndexPool pool = ASTUtils.getSafeLocalIndexPool(node);
-            int index = pool.getLocalIndex();
-            SymTableEntry symbol = new SymTableEntry(node.getIdentifier(), index);
-            symbol.setStatic(node.isStatic());
-            symbol.setType(functionType);
-            symbol.setParameterTypes(parameterTypes);
-            st.put(node.getIdentifier() + "function", symbol);
-        }
+        // a function with the same name replaces the previous one
+        LocalIndexPool pool = ASTUtils.getSafeLocalIndexPool(node);
+        int index = pool.getLocalIndex();
+        SymTableEntry symbol = new SymTableEntry(node.getIdentifier(), index);
+        symbol.setStatic(node.isStatic());
+        symbol.setType(functionType);
+        symbol.setParameterTypes(parameterTypes);
+        st.put(node.getIdentifier(), SymbolKind.FUNCTION, symbol);
     }
 
     @Override
     public void visit(ClassDefinition node) throws ASTVisitorException {
-        // test if class exists
-        Type t = Type.getType("Lorg/hua/" + node.getIdentifier() + ";");
-        if (Registry.getInstance().getClasses().containsKey(t))
-            ASTUtils.error(node, "Redefined Class!");
-
-        Registry.getInstance().getClasses().put(t, ASTUtils.getSafeEnv(node));
-
+        // the class has already been registered by CollectDeclarationsASTVisitor
         for (FieldOrFunctionDefinition f : node.getFieldOrFunctionDefinitionList()) {
             f.accept(this);
         }
@@ -255,12 +247,12 @@ class CollectSymbolsASTVisitor implements ASTVisitor {
     public void visit(FieldDefinition node) throws ASTVisitorException {
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
 
-        if (st.lookupOnlyInTop(node.getIdentifier() + "var") != null)
+        if (st.lookupOnlyInTop(node.getIdentifier(), SymbolKind.VARIABLE) != null)
             ASTUtils.error(node, "Redefined variable!");
 
         LocalIndexPool pool = ASTUtils.getSafeLocalIndexPool(node);
         int index = pool.getLocalIndex(node.getType());
         SymTableEntry symbol = new SymTableEntry(node.getIdentifier(), node.getType(), index, node.isStatic());
-        st.put(node.getIdentifier() + "var", symbol);
+        st.put(node.getIdentifier(), SymbolKind.VARIABLE, symbol);
     }
 }
@@ -2,6 +2,7 @@ package org.hua;
 
 import org.hua.symbol.SymTable;
 import org.hua.symbol.SymTableEntry;
+import org.hua.symbol.SymbolKind;
 
 import org.hua.types.TypeUtils;
 
@@ -19,17 +20,17 @@ class CollectTypesASTVisitor implements ASTVisitor {
 
     private int whileCounter;
     private boolean insideMain;
-    private boolean moreFilesExpected;
     private boolean insideStaticFunction;
     private boolean afterNull;
     private Type currentFunctionReturnType;
     private Type currentClass;
+    private final Registry registry;
 
-    CollectTypesASTVisitor(boolean moreFilesExpected) {
+    CollectTypesASTVisitor(Registry registry) {
+        this.registry = registry;
         this.whileCounter = 0;
         this.insideStaticFunction = false;
         this.insideMain = false;
-        this.moreFilesExpected = moreFilesExpected;
         this.afterNull = false;
     }
 
@@ -43,7 +44,7 @@ class CollectTypesASTVisitor implements ASTVisitor {
             typeFound = true;
 
         if (!typeFound)
-            for (Type t : Registry.getInstance().getClasses().keySet())
+            for (Type t : registry.getClasses().keySet())
                 if (type.equals(t)) {
                     typeFound = true;
                     break;
@@ -58,24 +59,6 @@ class CollectTypesASTVisitor implements ASTVisitor {
             c.accept(this);
 
         ASTUtils.setType(node, Type.VOID_TYPE);
-
-        int mainCounter = 0;
-        for (Type t : Registry.getInstance().getClasses().keySet()) {
-            for (SymTableEntry s : Registry.getInstance().getClasses().get(t).getSymbols()) {
-                if (s.getIdentifier().equals("main")) {
-                    mainCounter++;
-                    if (mainCounter > 1)
-                        ASTUtils.error(node, "There has to be strictly one main in your program!");
-                    if (!s.isStatic())
-                        ASTUtils.error(node, "'main' has to be static!");
-                    if (!s.getType().equals(Type.getType("()V")))
-                        ASTUtils.error(node, "'main' must have void return type!");
-                }
-            }
-        }
-
-        if (mainCounter == 0 && !moreFilesExpected)
-            ASTUtils.error(node, "There has to be one main in your program!");
     }
 
     @Override
@@ -139,7 +122,7 @@ class CollectTypesASTVisitor implements ASTVisitor {
 
         Type expressionType = ASTUtils.getSafeType(node.getExpression());
         boolean found = false;
-        for (SymTableEntry symTableEntry : Registry.getInstance().getClasses().get(expressionType).getSymbols()) {
+        for (SymTableEntry symTableEntry : registry.getClasses().get(expressionType).getSymbols()) {
             if (symTableEntry.getIdentifier().equals(node.getIdentifier())) {
                 found = true;
                 ASTUtils.setType(node, symTableEntry.getType());
@@ -149,18 +132,11 @@ class CollectTypesASTVisitor implements ASTVisitor {
         if (!found)
             ASTUtils.error(node, "Undefined reference: identifier " + node.getIdentifier() + "!");
 
-        SymTableEntry s = st.lookup(node.getExpression() + "var");
-        if (s != null) {
-            if (insideStaticFunction && !insideMain)
-                if (!s.isStatic())
-                    ASTUtils.error(node, "Access of non static variable is not allowed inside static function!");
-        } else {
-            SymTable<SymTableEntry> ClassSt = Registry.getInstance().getClasses().get(expressionType);
-            SymTableEntry ClassEntry = ClassSt.lookup(node.getIdentifier() + "var");
-            if (insideStaticFunction && !insideMain)
-                if (!ClassEntry.isStatic())
-                    ASTUtils.error(node, "Access of non static variable is not allowed inside static function!");
-        }
+        SymTable<SymTableEntry> ClassSt = registry.getClasses().get(expressionType);
+        SymTableEntry ClassEntry = ClassSt.lookup(node.getIdentifier(), SymbolKind.VARIABLE);
+        if (insideStaticFunction && !insideMain)
+            if (!ClassEntry.isStatic())
+                ASTUtils.error(node, "Access of non static variable is not allowed inside static function!");
 
     }
 
@@ -288,20 +264,20 @@ class CollectTypesASTVisitor implements ASTVisitor {
         // get type of node.getExpression()
         Type t = ASTUtils.getSafeType(node.getExpression());
         // if class does not exist error
-        if (!Registry.getInstance().getClasses().containsKey(t))
+        if (!registry.getClasses().containsKey(t))
             ASTUtils.error(node, "Type not found!");
 
         // registry - lookup class and symbol table
         // lookup function in symbol table
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
-        SymTableEntry s = st.lookup(node.getIdentifier() + "function");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
 
         Type methodType;
         List<Type> types;
         if (s != null) {
             methodType = s.getType();
 
-            if (!Registry.getInstance().getClasses().get(t).getSymbols().contains(s))
+            if (!registry.getClasses().get(t).contains(s))
                 ASTUtils.error(node, "There is no such method in this class!");
 
 //            if (insideStaticFunction && !insideMain)
@@ -315,11 +291,11 @@ class CollectTypesASTVisitor implements ASTVisitor {
         } else {
             // Find expression type
             Type exprType = ASTUtils.getSafeType(node.getExpression());
-            SymTable<SymTableEntry> classSt = Registry.getInstance().getClasses().get(exprType);
-            SymTableEntry classEntry = classSt.lookup(node.getIdentifier() + "function");
+            SymTable<SymTableEntry> classSt = registry.getClasses().get(exprType);
+            SymTableEntry classEntry = classSt.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
             methodType = classEntry.getType();
 
-            if (!Registry.getInstance().getClasses().get(t).getSymbols().contains(classEntry))
+            if (!registry.getClasses().get(t).contains(classEntry))
                 ASTUtils.error(node, "There is no such method in this class!");
 
 //            if (insideStaticFunction && !insideMain)
@@ -357,18 +333,18 @@ class CollectTypesASTVisitor implements ASTVisitor {
         // get type of node.getExpression()
         Type t = ASTUtils.getSafeType(node.getExpression());
         // if not class error
-        if (!Registry.getInstance().getClasses().containsKey(t))
+        if (!registry.getClasses().containsKey(t))
             ASTUtils.error(node, "There is no class with that name!");
         // registry - lookup class and symbol table
         // lookup function in symbol table
-        SymTable<SymTableEntry> st = Registry.getInstance().getClasses().get(ASTUtils.getSafeType(node.getExpression()));
-        SymTableEntry s = st.lookup(node.getIdentifier() + "function");
+        SymTable<SymTableEntry> st = registry.getClasses().get(ASTUtils.getSafeType(node.getExpression()));
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
 
         Type methodType;
         if (s != null) {
             methodType = s.getType();
 
-            if (!Registry.getInstance().getClasses().get(t).getSymbols().contains(s))
+            if (!registry.getClasses().get(t).contains(s))
                 ASTUtils.error(node, "There is no such method in this class!");
 
 //            if (insideStaticFunction && !insideMain)
@@ -377,11 +353,11 @@ class CollectTypesASTVisitor implements ASTVisitor {
         } else {
             // Find expression type
             Type exprType = ASTUtils.getSafeType(node.getExpression());
-            SymTable<SymTableEntry> classSt = Registry.getInstance().getClasses().get(exprType);
-            SymTableEntry classEntry = classSt.lookup(node.getIdentifier() + "function");
+            SymTable<SymTableEntry> classSt = registry.getClasses().get(exprType);
+            SymTableEntry classEntry = classSt.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
             methodType = classEntry.getType();
 
-            if (!Registry.getInstance().getClasses().get(t).getSymbols().contains(classEntry))
+            if (!registry.getClasses().get(t).contains(classEntry))
                 ASTUtils.error(node, "There is no such method in this class!");
 
 //            if (insideStaticFunction)
@@ -396,7 +372,7 @@ class CollectTypesASTVisitor implements ASTVisitor {
     public void visit(MethodIdentifier node) throws ASTVisitorException {
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
 
-        SymTableEntry s = st.lookup(node.getIdentifier() + "function");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
         if (s == null)
             ASTUtils.error(node, "Undefined reference method call " + node.getIdentifier() + "!");
 
@@ -431,7 +407,7 @@ class CollectTypesASTVisitor implements ASTVisitor {
     public void visit(SimpleMethodIdentifier node) throws ASTVisitorException {
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
 
-        SymTableEntry s = st.lookup(node.getIdentifier() + "function");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
         if (s == null)
             ASTUtils.error(node, "Undefined reference method call " + node.getIdentifier() + "!");
 
@@ -451,7 +427,7 @@ class CollectTypesASTVisitor implements ASTVisitor {
         // construct Type for class
         Type t = Type.getType("Lorg/hua/" + node.getIdentifier() + ";");
         // check exists in Registry
-        if (!Registry.getInstance().getClasses().containsKey(t))
+        if (!registry.getClasses().containsKey(t))
             ASTUtils.error(node, "Constructor does not exist!");
 
         ASTUtils.setType(node, t);
@@ -462,11 +438,11 @@ class CollectTypesASTVisitor implements ASTVisitor {
         // construct Type for class
         Type t = Type.getType("Lorg/hua/" + node.getIdentifier() + ";");
         // check exists in Registry
-        if (!Registry.getInstance().getClasses().containsKey(t))
+        if (!registry.getClasses().containsKey(t))
             ASTUtils.error(node, "Constructor does not exist!");
 
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
-        SymTableEntry s = st.lookup(node.getIdentifier() + "function");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
 
         List<Type> types = s.getParameterTypes();
         if (types.size() != node.getExpressionList().size())
@@ -490,7 +466,7 @@ class CollectTypesASTVisitor implements ASTVisitor {
     public void visit(SimpleIdentifierExpression node) throws ASTVisitorException {
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
 
-        SymTableEntry s = st.lookup(node.getIdentifier() + "var");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.VARIABLE);
         if (s == null)
             ASTUtils.error(node, "Undefined reference identifier " + node.getIdentifier() + "!");
 
@@ -517,7 +493,7 @@ class CollectTypesASTVisitor implements ASTVisitor {
         Type type = node.getType();
 
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
-        SymTableEntry s = st.lookup(node.getIdentifier() + "var");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.VARIABLE);
 
         if (insideStaticFunction)
             s.setStatic(true);
@@ -538,9 +514,17 @@ class CollectTypesASTVisitor implements ASTVisitor {
             ASTUtils.error(node, "Type not found!");
         ASTUtils.setType(node, currentFunctionReturnType);
 
-        if (node.getIdentifier().equals("main"))
+        if (node.getIdentifier().equals("main")) {
             insideMain = true;
 
+            SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
+            SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.FUNCTION);
+            if (!s.isStatic())
+                ASTUtils.error(node, "'main' has to be static!");
+            if (!s.getType().equals(Type.getType("()V")))
+                ASTUtils.error(node, "'main' must have void return type!");
+        }
+
         if (node.getIdentifier().equals("write"))
             ASTUtils.error(node, "Write function already exists!");
 
@@ -577,7 +561,7 @@ class CollectTypesASTVisitor implements ASTVisitor {
             ASTUtils.error(node, "Type not found!");
 
         SymTable<SymTableEntry> st = ASTUtils.getSafeEnv(node);
-        SymTableEntry s = st.lookup(node.getIdentifier() + "var");
+        SymTableEntry s = st.lookup(node.getIdentifier(), SymbolKind.VARIABLE);
 
         if (insideStaticFunction)
             s.setDefinedInStaticFunction(true);
@@ -0,0 +1,236 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.cache.CacheEntry;
+import org.hua.metrics.FileMetrics;
+import org.objectweb.asm.Type;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Holds everything that belongs to a single input file while it travels through the compilation pipeline.
+ * <br>
+ * Every file gets its own context, so files can be scanned, parsed and compiled in parallel without sharing state.
+ */
+class CompilationContext {
+
+    /**
+     * The name of the input file.
+     */
+    private final String fileName;
+
+    /**
+     * The file's name without extension.
+     */
+    private String nameWithoutExtension;
+
+    /**
+     * The Compound Unit of the file.
+     */
+    private ASTNode compUnit;
+
+    /**
+     * All the class bytes of the file with their ids.
+     */
+    private TreeMap<String, byte[]> classBytes;
+
+    /**
+     * The name of the file's class which contains the main function, if any.
+     */
+    private String classWithMain;
+
+    /**
+     * Buffers the formatted program and the generated byte code, so that the output of the files does not interleave.
+     */
+    private final StringWriter output;
+
+    /**
+     * Flag which shows if one of the compilation phases of the file has failed.
+     */
+    private boolean failed;
+
+    /**
+     * The bytes of the file, when it has been read for the cache.
+     */
+    private byte[] source;
+
+    /**
+     * The hash of the file's content and of the compiler options.
+     */
+    private String contentHash;
+
+    /**
+     * The file's cache entry, when the file can be reused from the cache.
+     */
+    private CacheEntry cacheEntry;
+
+    /**
+     * The types of the classes defined in the file.
+     */
+    private List<Type> declaredTypes;
+
+    /**
+     * The class types used by the file's declarations and constructor calls.
+     */
+    private Set<Type> referencedTypes;
+
+    /**
+     * The errors reported for the file.
+     */
+    private final List<String> diagnostics;
+
+    /**
+     * The paths of the class files generated for the file.
+     */
+    private final List<String> outputPaths;
+
+    /**
+     * The metrics of the file, or null if they are disabled.
+     */
+    private FileMetrics metrics;
+
+    CompilationContext(String fileName) {
+        this.fileName = fileName;
+        this.nameWithoutExtension = fileName;
+        this.classBytes = new TreeMap<String, byte[]>();
+        this.output = new StringWriter();
+        this.failed = false;
+        this.diagnostics = new ArrayList<String>();
+        this.outputPaths = new ArrayList<String>();
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    String getNameWithoutExtension() {
+        return nameWithoutExtension;
+    }
+
+    void setNameWithoutExtension(String nameWithoutExtension) {
+        this.nameWithoutExtension = nameWithoutExtension;
+    }
+
+    ASTNode getCompUnit() {
+        return compUnit;
+    }
+
+    void setCompUnit(ASTNode compUnit) {
+        this.compUnit = compUnit;
+    }
+
+    TreeMap<String, byte[]> getClassBytes() {
+        return classBytes;
+    }
+
+    void setClassBytes(TreeMap<String, byte[]> classBytes) {
+        this.classBytes = classBytes;
+    }
+
+    String getClassWithMain() {
+        return classWithMain;
+    }
+
+    void setClassWithMain(String classWithMain) {
+        this.classWithMain = classWithMain;
+    }
+
+    /**
+     * Creates a writer for the file's buffered output.
+     *
+     * @return the PrintWriter.
+     */
+    PrintWriter newOutputWriter() {
+        return new PrintWriter(output);
+    }
+
+    String getOutput() {
+        return output.toString();
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+
+    byte[] getSource() {
+        return source;
+    }
+
+    void setSource(byte[] source) {
+        this.source = source;
+    }
+
+    String getContentHash() {
+        return contentHash;
+    }
+
+    void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    CacheEntry getCacheEntry() {
+        return cacheEntry;
+    }
+
+    void setCacheEntry(CacheEntry cacheEntry) {
+        this.cacheEntry = cacheEntry;
+    }
+
+    /**
+     * Checks if the file is reused from the cache, instead of being compiled.
+     *
+     * @return true if the file has a valid cache entry.
+     */
+    boolean isReused() {
+        return cacheEntry != null;
+    }
+
+    List<Type> getDeclaredTypes() {
+        return declaredTypes;
+    }
+
+    void setDeclaredTypes(List<Type> declaredTypes) {
+        this.declaredTypes = declaredTypes;
+    }
+
+    Set<Type> getReferencedTypes() {
+        return referencedTypes;
+    }
+
+    void setReferencedTypes(Set<Type> referencedTypes) {
+        this.referencedTypes = referencedTypes;
+    }
+
+    List<String> getDiagnostics() {
+        return diagnostics;
+    }
+
+    void addDiagnostic(String diagnostic) {
+        diagnostics.add(diagnostic);
+    }
+
+    List<String> getOutputPaths() {
+        return outputPaths;
+    }
+
+    void addOutputPath(String outputPath) {
+        outputPaths.add(outputPath);
+    }
+
+    FileMetrics getMetrics() {
+        return metrics;
+    }
+
+    void setMetrics(FileMetrics metrics) {
+        this.metrics = metrics;
+    }
+}
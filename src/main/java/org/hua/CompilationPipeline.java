@@ -0,0 +1,921 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.ast.ASTVisitorException;
+import org.hua.ast.ClassDefinition;
+import org.hua.ast.CompUnit;
+import org.hua.cache.CacheEntry;
+import org.hua.cache.ClassSignature;
+import org.hua.cache.CompilationCache;
+import org.hua.cache.IncrementalCache;
+import org.hua.metrics.CompilationMetrics;
+import org.hua.metrics.Phase;
+import org.hua.metrics.Stopwatch;
+import org.hua.symbol.SymTable;
+import org.hua.symbol.SymTableEntry;
+import org.objectweb.asm.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java_cup.runtime.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the compilation of several input files on a fork-join pool.
+ * <br>
+ * All the files are scanned and parsed at the same time.
+ * Then the classes of every file are registered and the files are checked in the order of their dependencies,
+ * so that a file is checked only after the files whose classes it uses.
+ * Independent files are checked at the same time and the byte code of every checked file is generated in parallel.
+ * <br>
+ * When the incremental cache is enabled, the files which have not changed and whose used classes
+ * have kept their signatures are not compiled again; their classes are taken from the cache.
+ * <br>
+ * When the metrics are enabled, every phase of every file is timed.
+ */
+class CompilationPipeline {
+
+    /**
+     * A Logger for our compiler messages.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompilationPipeline.class);
+
+    /**
+     * The pool which runs the compilation tasks.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The options of the compiler.
+     */
+    private final CompilerOptions options;
+
+    /**
+     * The registry of the compilation session.
+     */
+    private final Registry registry;
+
+    /**
+     * The incremental compilation cache, or null if it is disabled.
+     */
+    private final CompilationCache cache;
+
+    /**
+     * The signature hashes of all the classes of the program, used by the cache.
+     */
+    private final Map<Type, String> signatureHashes;
+
+    /**
+     * The metrics of the compilation, or null if they are disabled.
+     */
+    private final CompilationMetrics metrics;
+
+    /**
+     * Whether the classes have been written into the archive of the --jar option.
+     */
+    private boolean archiveWritten;
+
+    /**
+     * The class files of the runtime classes which have been written into the output folder.
+     */
+    private List<String> runtimeClassPaths;
+
+    CompilationPipeline(ForkJoinPool pool, CompilerOptions options, Registry registry, CompilationCache cache,
+                        CompilationMetrics metrics) {
+        this.pool = pool;
+        this.options = options;
+        this.registry = registry;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.signatureHashes = new HashMap<Type, String>();
+        this.runtimeClassPaths = Collections.<String>emptyList();
+    }
+
+    /**
+     * Compiles the given files.
+     *
+     * @param fileNames the names of the input files, in the order given by the user.
+     * @return the contexts of the files, in the same order.
+     */
+    List<CompilationContext> compile(List<String> fileNames) {
+        final List<CompilationContext> contexts = new ArrayList<CompilationContext>();
+        for (String fileName : fileNames) {
+            CompilationContext context = new CompilationContext(fileName);
+            if (metrics != null)
+                context.setMetrics(metrics.addFile(fileName));
+            contexts.add(context);
+        }
+
+        // Find the files whose content has not changed since they were cached.
+        if (cache != null)
+            loadCacheEntries(contexts);
+
+        // Scan and parse every other file at the same time.
+        runFrontEnds(contexts);
+
+        // Recompile the cached files which use a class whose signature has changed.
+        if (cache != null)
+            validateCacheEntries(contexts);
+
+        // Register every class first, so that the files can be given in any order.
+        FileDependencyGraph graph = collectDeclarations(contexts);
+
+        // Check the files in topological order and generate the byte code of each checked file in parallel.
+        Queue<ForkJoinTask<Void>> backEndTasks = new Scheduler(graph.getComponents()).run();
+        for (ForkJoinTask<Void> task : backEndTasks)
+            task.join();
+
+        for (CompilationContext context : contexts)
+            if (context.isReused() && !context.isFailed())
+                reuseCacheEntry(context);
+
+        if (cache != null)
+            storeCacheEntries(contexts);
+
+        // Write the classes of all the files into a single archive, if every file has been compiled.
+        if (options.isProduceClasses() && options.getArchiveFile() != null)
+            writeArchive(contexts);
+        else if (options.isProduceClassFiles())
+            writeRuntimeClasses();
+
+        if (metrics != null) {
+            for (CompilationContext context : contexts) {
+                context.getMetrics().setReused(context.isReused());
+                context.getMetrics().setFailed(context.isFailed());
+            }
+            metrics.finish();
+        }
+
+        // Print the buffered output of the files in order.
+        if (options.getDiagnosticsFile() != null)
+            writeDiagnostics(contexts);
+        else if (!options.isQuiet())
+            for (CompilationContext context : contexts) {
+                String output = context.getOutput();
+                if (!output.isEmpty()) {
+                    LOGGER.info("Output of " + context.getFileName() + ":");
+                    System.out.print(output);
+                    System.out.flush();
+                }
+            }
+
+        return contexts;
+    }
+
+    /**
+     * Writes the classes of all the files into the archive of the --jar option, unless a file has failed.
+     *
+     * @param contexts the contexts of the files.
+     */
+    private void writeArchive(List<CompilationContext> contexts) {
+        String classWithMain = null;
+        for (CompilationContext context : contexts) {
+            if (context.isFailed())
+                return;
+            if (context.getClassWithMain() != null)
+                classWithMain = context.getClassWithMain().replace('/', '.');
+        }
+
+        File archive = new File(options.getArchiveFile());
+        LOGGER.info("Generating archive " + archive.getPath());
+        try {
+            ClassArchive.write(archive, contexts, classWithMain, options.getWriteMode() == WriteMode.BUFFERED);
+            archiveWritten = true;
+        } catch (IOException e) {
+            LOGGER.error("Could not write archive " + archive.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the runtime classes which the generated classes call into the output folder, next to them.
+     */
+    private void writeRuntimeClasses() {
+        try {
+            runtimeClassPaths = ClassArchive.writeRuntimeClasses(new File(options.getOutputDirectory()),
+                    options.getWriteMode() == WriteMode.BUFFERED);
+        } catch (IOException e) {
+            LOGGER.error("Could not write the runtime classes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the runtime classes which the last compilation has written into the output folder.
+     *
+     * @return the paths of their class files.
+     */
+    List<String> getRuntimeClassPaths() {
+        return runtimeClassPaths;
+    }
+
+    /**
+     * Checks if the classes have been written into the archive of the --jar option.
+     *
+     * @return true if the archive has been written by the last compilation.
+     */
+    boolean isArchiveWritten() {
+        return archiveWritten;
+    }
+
+    /**
+     * Writes the buffered output of the files in the diagnostics file, in order.
+     *
+     * @param contexts the contexts of the files.
+     */
+    private void writeDiagnostics(List<CompilationContext> contexts) {
+        try {
+            Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(options.getDiagnosticsFile()), "UTF-8"));
+            try {
+                for (CompilationContext context : contexts) {
+                    String output = context.getOutput();
+                    if (!output.isEmpty()) {
+                        out.write("Output of " + context.getFileName() + ":\n");
+                        out.write(output);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+            LOGGER.info("Diagnostics written to " + options.getDiagnosticsFile());
+        } catch (IOException e) {
+            LOGGER.error("Could not write the diagnostics to " + options.getDiagnosticsFile() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks that the compiled program has exactly one main function.
+     * <br>
+     * It has to run after all the files have been checked, since the main function may be in any of them.
+     *
+     * @throws HuavaException
+     */
+    void checkMainFunction() throws HuavaException {
+        int mainCounter = 0;
+        for (SymTable<SymTableEntry> classSt : registry.getClasses().values())
+            for (SymTableEntry s : classSt.getSymbolsOnlyInTop())
+                if (s.getIdentifier().equals("main") && s.getType().getSort() == Type.METHOD)
+                    mainCounter++;
+
+        if (mainCounter > 1)
+            throw new HuavaException("There has to be strictly one main in your program!");
+        if (mainCounter == 0)
+            throw new HuavaException("There has to be one main in your program!");
+    }
+
+    /**
+     * Registers the classes of every parsed file and finds the dependencies between the files.
+     *
+     * @param contexts the contexts of the files, in the order given by the user.
+     * @return the dependency graph of the files which have been registered successfully.
+     */
+    private FileDependencyGraph collectDeclarations(List<CompilationContext> contexts) {
+        List<CompilationContext> files = new ArrayList<CompilationContext>();
+        Map<CompilationContext, Set<Type>> referencedTypes = new HashMap<CompilationContext, Set<Type>>();
+        Map<Type, CompilationContext> declaringFiles = new HashMap<Type, CompilationContext>();
+
+        // Register the classes in the order given by the user, so that a redefined class is always reported on the same file.
+        for (CompilationContext context : contexts) {
+            if (context.isFailed())
+                continue;
+
+            if (context.isReused()) {
+                try {
+                    registerCachedClasses(context);
+                } catch (HuavaException e) {
+                    fail(context, e);
+                }
+                continue;
+            }
+
+            CollectDeclarationsASTVisitor collectDeclarationsASTVisitor = new CollectDeclarationsASTVisitor(registry);
+            Stopwatch stopwatch = startPhase(context, Phase.COLLECT_DECLARATIONS);
+            try {
+                context.getCompUnit().accept(collectDeclarationsASTVisitor);
+            } catch (Exception e) {
+                fail(context, e);
+                continue;
+            } finally {
+                stopwatch.stop();
+            }
+
+            files.add(context);
+            context.setDeclaredTypes(collectDeclarationsASTVisitor.getDeclaredTypes());
+            context.setReferencedTypes(collectDeclarationsASTVisitor.getReferencedTypes());
+            referencedTypes.put(context, collectDeclarationsASTVisitor.getReferencedTypes());
+            for (Type t : collectDeclarationsASTVisitor.getDeclaredTypes())
+                declaringFiles.put(t, context);
+        }
+
+        FileDependencyGraph graph = new FileDependencyGraph(files);
+        for (CompilationContext file : files)
+            for (Type t : referencedTypes.get(file)) {
+                CompilationContext dependency = declaringFiles.get(t);
+                if (dependency != null)
+                    graph.addDependency(file, dependency);
+            }
+        return graph;
+    }
+
+    /**
+     * Checks the files of a component, which may use each other's classes.
+     * <br>
+     * The symbols of all the files are collected before any of them is type checked.
+     *
+     * @param component the component.
+     */
+    private void checkComponent(FileDependencyGraph.Component component) {
+        for (CompilationContext context : component.getFiles())
+            try {
+                collectSymbols(context);
+            } catch (Exception e) {
+                fail(context, e);
+            }
+
+        for (CompilationContext context : component.getFiles())
+            if (!context.isFailed())
+                try {
+                    collectTypes(context);
+                } catch (Exception e) {
+                    fail(context, e);
+                }
+    }
+
+    /**
+     * Runs the front end of every file which has not failed and is not reused from the cache, at the same time.
+     *
+     * @param contexts the contexts of the files.
+     */
+    private void runFrontEnds(List<CompilationContext> contexts) {
+        List<Callable<Void>> frontEndTasks = new ArrayList<Callable<Void>>();
+        for (final CompilationContext context : contexts)
+            if (!context.isFailed() && !context.isReused() && context.getCompUnit() == null)
+                frontEndTasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        runFrontEnd(context);
+                        return null;
+                    }
+                });
+        pool.invokeAll(frontEndTasks);
+    }
+
+    /**
+     * Reads every file, computes the hash of its content and loads its cache entry, if it has not changed.
+     *
+     * @param contexts the contexts of the files.
+     */
+    private void loadCacheEntries(List<CompilationContext> contexts) {
+        final byte[] fingerprint;
+        try {
+            fingerprint = options.fingerprint().getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final CompilationContext context : contexts)
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        checkFileExtension(context);
+                        context.setSource(IncrementalCache.readFile(context.getFileName()));
+                    } catch (Exception e) {
+                        fail(context, e);
+                        return null;
+                    }
+
+                    context.setContentHash(IncrementalCache.hash(fingerprint, context.getSource()));
+                    CacheEntry entry = cache.load(context.getFileName());
+                    if (entry != null && entry.getContentHash().equals(context.getContentHash()))
+                        context.setCacheEntry(entry);
+                    return null;
+                }
+            });
+        pool.invokeAll(tasks);
+    }
+
+    /**
+     * Computes the signature hashes of all the classes and drops the cache entries
+     * of the files which use a class whose signature has changed. Those files are scanned and parsed again.
+     *
+     * @param contexts the contexts of the files.
+     */
+    private void validateCacheEntries(List<CompilationContext> contexts) {
+        for (CompilationContext context : contexts) {
+            if (context.isFailed())
+                continue;
+
+            if (context.isReused()) {
+                for (ClassSignature c : context.getCacheEntry().getClasses())
+                    if (!signatureHashes.containsKey(c.getType()))
+                        signatureHashes.put(c.getType(), c.getHash());
+            } else
+                for (ClassDefinition c : ((CompUnit) context.getCompUnit()).getClassDefinitionList()) {
+                    Type t = Type.getType("Lorg/hua/" + c.getIdentifier() + ";");
+                    if (!signatureHashes.containsKey(t))
+                        signatureHashes.put(t, ClassSignature.hashOf(c));
+                }
+        }
+
+        boolean invalidated = false;
+        for (CompilationContext context : contexts)
+            if (!context.isFailed() && context.isReused())
+                for (Map.Entry<String, String> used : context.getCacheEntry().getUsedSignatures().entrySet())
+                    if (!used.getValue().equals(signatureHashes.get(Type.getType(used.getKey())))) {
+                        LOGGER.info("Recompiling " + context.getFileName() + ": the signature of "
+                                + Type.getType(used.getKey()).getClassName() + " has changed");
+                        context.setCacheEntry(null);
+                        invalidated = true;
+                        break;
+                    }
+
+        if (invalidated)
+            runFrontEnds(contexts);
+    }
+
+    /**
+     * Registers the classes of a file reused from the cache, using their cached signatures.
+     *
+     * @param context the file's context.
+     * @throws HuavaException if one of the classes has already been defined.
+     */
+    private void registerCachedClasses(CompilationContext context) throws HuavaException {
+        for (ClassSignature c : context.getCacheEntry().getClasses()) {
+            if (registry.getClasses().containsKey(c.getType()))
+                throw new HuavaException("Redefined Class " + c.getType().getClassName() + "!");
+            registry.getClasses().put(c.getType(), c.toSymTable(null));
+        }
+    }
+
+    /**
+     * Takes the classes of a file reused from the cache, instead of generating them.
+     *
+     * @param context the file's context.
+     */
+    private void reuseCacheEntry(CompilationContext context) {
+        LOGGER.info("Reusing the cached classes of " + context.getFileName());
+        context.setClassBytes(context.getCacheEntry().getClassBytes());
+        context.setClassWithMain(context.getCacheEntry().getClassWithMain());
+
+        try {
+            if (options.isProduceClassFiles())
+                for (Map.Entry<String, byte[]> pair : context.getClassBytes().entrySet())
+                    generateClasses(context, pair);
+        } catch (IOException e) {
+            fail(context, e);
+        }
+    }
+
+    /**
+     * Stores the cache entries of the files which have been compiled successfully.
+     *
+     * @param contexts the contexts of the files.
+     */
+    private void storeCacheEntries(List<CompilationContext> contexts) {
+        for (CompilationContext context : contexts) {
+            if (context.isFailed() || context.isReused() || context.getCompUnit() == null)
+                continue;
+
+            List<ClassSignature> classes = new ArrayList<ClassSignature>();
+            for (Type t : context.getDeclaredTypes())
+                classes.add(new ClassSignature(t, signatureHashes.get(t), registry.getClasses().get(t)));
+
+            CacheEntry entry = new CacheEntry(context.getContentHash(), classes, usedSignatures(context),
+                    context.getClassBytes(), context.getClassWithMain());
+            try {
+                cache.store(context.getFileName(), entry);
+            } catch (IOException e) {
+                LOGGER.warn("Could not cache " + context.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Finds the signature hashes of all the classes a file may use.
+     * <br>
+     * These are the classes named in the file and, transitively, the classes of their fields and functions,
+     * since an expression like a.b.f() uses the class of b without naming it.
+     *
+     * @param context the file's context.
+     * @return the signature hashes of the used classes, with their type descriptors.
+     */
+    private Map<String, String> usedSignatures(CompilationContext context) {
+        Map<String, String> used = new TreeMap<String, String>();
+        Deque<Type> pending = new ArrayDeque<Type>(context.getReferencedTypes());
+        pending.addAll(context.getDeclaredTypes());
+
+        while (!pending.isEmpty()) {
+            Type t = pending.pop();
+            SymTable<SymTableEntry> classSt = registry.getClasses().get(t);
+            if (classSt == null || used.containsKey(t.getDescriptor()))
+                continue;
+
+            used.put(t.getDescriptor(), signatureHashes.get(t));
+            for (SymTableEntry s : classSt.getSymbolsOnlyInTop())
+                if (s.getType().getSort() == Type.METHOD) {
+                    pending.push(s.getType().getReturnType());
+                    for (Type parameterType : s.getType().getArgumentTypes())
+                        pending.push(parameterType);
+                } else
+                    pending.push(s.getType());
+        }
+        return used;
+    }
+
+    /**
+     * Scans and parses a file and builds its symbol tables and local variables.
+     *
+     * @param context the file's context.
+     */
+    private void runFrontEnd(CompilationContext context) {
+        try {
+            checkFileExtension(context);
+            Scanner scanner = scanFile(context);
+            parseFile(context, scanner);
+            buildSymbolTableAndLocalVariables(context);
+        } catch (Exception e) {
+            fail(context, e);
+        }
+    }
+
+    /**
+     * Folds the constants of a checked file, unless the folding is disabled,
+     * prints it, unless the listing is disabled, and generates its byte code.
+     *
+     * @param context the file's context.
+     */
+    private void runBackEnd(CompilationContext context) {
+        try {
+            if (options.isFoldConstants())
+                foldConstants(context);
+            if (options.isListingEnabled())
+                printProgram(context);
+            generateByteCode(context);
+        } catch (Exception e) {
+            fail(context, e);
+        }
+    }
+
+    /**
+     * Starts timing a phase of a file.
+     *
+     * @param context the file's context.
+     * @param phase   the phase.
+     * @return the stopwatch of the phase, which measures nothing when the metrics are disabled.
+     */
+    private Stopwatch startPhase(CompilationContext context, Phase phase) {
+        return context.getMetrics() != null ? context.getMetrics().start(phase) : Stopwatch.NONE;
+    }
+
+    /**
+     * Logs the error of a failed file and marks its context as failed.
+     *
+     * @param context the file's context.
+     * @param e       the error.
+     */
+    private void fail(CompilationContext context, Exception e) {
+        context.setFailed(true);
+
+        if (e instanceof FileNotFoundException) {
+            LOGGER.error("File not found : \"" + context.getFileName() + "\"");
+            context.addDiagnostic("File not found : \"" + context.getFileName() + "\"");
+        } else if (e instanceof IOException) {
+            LOGGER.error("IO error scanning file \"" + context.getFileName() + "\"");
+            LOGGER.error(e.toString());
+            context.addDiagnostic("IO error scanning file \"" + context.getFileName() + "\": " + e);
+        } else {
+            LOGGER.error(e.getMessage());
+            context.addDiagnostic(e.getMessage());
+        }
+    }
+
+    /**
+     * Checks the current file's extension. If it is not '.huava', an Exception is being thrown.
+     *
+     * @param context the file's context.
+     * @throws HuavaException
+     */
+    private void checkFileExtension(CompilationContext context) throws HuavaException {
+        // Split filename. Only the last name of the path may have an extension, since the daemon gets absolute paths.
+        String fileName = context.getFileName();
+        int dot = fileName.lastIndexOf('.');
+        if (dot <= fileName.lastIndexOf(File.separatorChar))
+            dot = -1;
+        String argNameWithoutExtension = dot < 0 ? fileName : fileName.substring(0, dot);
+        context.setNameWithoutExtension(argNameWithoutExtension);
+        if (dot >= 0) {
+            String argExtension = fileName.substring(dot + 1);
+
+            // Check file's extension.
+            if (!argExtension.equals("huava"))
+                throw new HuavaException("Unknown extension found in file "
+                        + argNameWithoutExtension + ": Try '.huava' instead.");
+        }
+    }
+
+    /**
+     * Scans the current file.
+     * <br>
+     * If the file has already been read for the cache, its bytes are scanned instead of reading it again.
+     * Otherwise, the file is read through NIO and large files are mapped in memory.
+     * When the metrics are enabled, the whole file is scanned here, so that the scanning is timed apart from the parsing.
+     *
+     * @param context the file's context.
+     * @return the scanner of the file.
+     * @throws IOException
+     */
+    private Scanner scanFile(CompilationContext context) throws IOException {
+        Stopwatch stopwatch = startPhase(context, Phase.SCAN);
+        try {
+            Charset charset = Charset.forName(options.getEncodingName());
+            Reader reader = context.getSource() != null
+                    ? new ByteBufferReader(ByteBuffer.wrap(context.getSource()), charset)
+                    : ByteBufferReader.open(context.getFileName(), charset);
+            LOGGER.info("Scanning file " + context.getFileName());
+            Lexer lexer = new Lexer(reader);
+            return context.getMetrics() != null ? TokenBuffer.scan(lexer) : lexer;
+        } finally {
+            stopwatch.stop();
+        }
+    }
+
+    /**
+     * Parses the current file.
+     *
+     * @param context the file's context.
+     * @param scanner the scanner of the file.
+     * @throws Exception
+     */
+    private void parseFile(CompilationContext context, Scanner scanner) throws Exception {
+        Stopwatch stopwatch = startPhase(context, Phase.PARSE);
+        try {
+            parser p = new parser(scanner);
+            context.setCompUnit((ASTNode) p.parse().value);
+        } finally {
+            stopwatch.stop();
+        }
+        LOGGER.info("Constructed AST");
+
+        if (context.getMetrics() != null) {
+            CountNodesASTVisitor countNodesASTVisitor = new CountNodesASTVisitor();
+            context.getCompUnit().accept(countNodesASTVisitor);
+            context.getMetrics().setCounts(countNodesASTVisitor.getNodes(), countNodesASTVisitor.getClasses(),
+                    countNodesASTVisitor.getMethods());
+        }
+    }
+
+    /**
+     * Builds the symbol table and the local variables.
+     *
+     * @param context the file's context.
+     * @throws ASTVisitorException
+     */
+    private void buildSymbolTableAndLocalVariables(CompilationContext context) throws ASTVisitorException {
+        // Build symbol table.
+        LOGGER.info("Building symbol table");
+        Stopwatch stopwatch = startPhase(context, Phase.SYMBOL_TABLE);
+        try {
+            context.getCompUnit().accept(new SymTableBuilderASTVisitor(options.getSymTables()));
+        } finally {
+            stopwatch.stop();
+        }
+        // Build local variables index.
+        LOGGER.debug("Building local variables index");
+        stopwatch = startPhase(context, Phase.LOCAL_INDEX);
+        try {
+            context.getCompUnit().accept(new LocalIndexBuilderASTVisitor(registry));
+        } finally {
+            stopwatch.stop();
+        }
+    }
+
+    /**
+     * Collects the symbols of the code.
+     *
+     * @param context the file's context.
+     * @throws ASTVisitorException
+     */
+    private void collectSymbols(CompilationContext context) throws ASTVisitorException {
+        LOGGER.info("Semantic check of " + context.getFileName());
+        Stopwatch stopwatch = startPhase(context, Phase.COLLECT_SYMBOLS);
+        try {
+            context.getCompUnit().accept(new CollectSymbolsASTVisitor());
+        } finally {
+            stopwatch.stop();
+        }
+    }
+
+    /**
+     * Collects the types of the code.
+     * <br>
+     * Also makes all the necessary symbol and type checking.
+     *
+     * @param context the file's context.
+     * @throws ASTVisitorException
+     */
+    private void collectTypes(CompilationContext context) throws ASTVisitorException {
+        Stopwatch stopwatch = startPhase(context, Phase.COLLECT_TYPES);
+        try {
+            context.getCompUnit().accept(new CollectTypesASTVisitor(registry));
+        } finally {
+            stopwatch.stop();
+        }
+    }
+
+    /**
+     * Folds the constant expressions of the code, which the byte code generator emits instead of the original ones.
+     *
+     * @param context the file's context.
+     * @throws ASTVisitorException
+     */
+    private void foldConstants(CompilationContext context) throws ASTVisitorException {
+        Stopwatch stopwatch = startPhase(context, Phase.FOLD_CONSTANTS);
+        try {
+            context.getCompUnit().accept(new ConstantFoldingASTVisitor());
+        } finally {
+            stopwatch.stop();
+        }
+    }
+
+    /**
+     * Prints the user's code formatted and with colors in the file's buffered output.
+     *
+     * @param context the file's context.
+     * @throws ASTVisitorException
+     */
+    private void printProgram(CompilationContext context) throws ASTVisitorException {
+        Stopwatch stopwatch = startPhase(context, Phase.PRINT);
+        try {
+            PrintWriter out = context.newOutputWriter();
+            context.getCompUnit().accept(new PrintASTVisitor(out));
+            out.flush();
+        } finally {
+            stopwatch.stop();
+        }
+    }
+
+    /**
+     * Generates the byte code, prints it in the file's buffered output unless the listing is disabled,
+     * and produces the classes.
+     *
+     * @param context the file's context.
+     * @throws IOException
+     * @throws ASTVisitorException
+     */
+    private void generateByteCode(CompilationContext context) throws IOException, ASTVisitorException {
+        LOGGER.info("Generating Byte Code for " + context.getNameWithoutExtension() + ".huava");
+        ByteCodeGeneratorASTVisitor byteCodeGeneratorASTVisitor =
+                new ByteCodeGeneratorASTVisitor(context.getNameWithoutExtension(),
+                        options.isListingEnabled() ? context.newOutputWriter() : null, registry,
+                        options.getConcatenation(), options.getTarget(), options.getBackend(),
+                        options.isPeephole(), options.getWriteMode());
+        Stopwatch stopwatch = startPhase(context, Phase.BYTE_CODE);
+        try {
+            context.getCompUnit().accept(byteCodeGeneratorASTVisitor);
+        } finally {
+            stopwatch.stop();
+        }
+
+        LOGGER.info("Compilation of " + context.getFileName() + " done!");
+
+        // Get all the class' bytes with their names.
+        TreeMap<String, byte[]> classBytesWithIds = byteCodeGeneratorASTVisitor.getClassBytes();
+        context.setClassBytes(classBytesWithIds);
+        context.setClassWithMain(byteCodeGeneratorASTVisitor.getClassWithMain());
+
+        // For each class of the file:
+        if (options.isProduceClassFiles()) {
+            stopwatch = startPhase(context, Phase.WRITE_CLASSES);
+            try {
+                for (Map.Entry<String, byte[]> pair : classBytesWithIds.entrySet())
+                    generateClasses(context, pair);
+            } finally {
+                stopwatch.stop();
+            }
+        }
+    }
+
+    /**
+     * Generates the given class in the output folder, huaclasses by default. If the folder does not exist it creates it.
+     *
+     * @param context the file's context.
+     * @param pair    a pair containing the class name with its bytes.
+     * @throws IOException
+     */
+    private void generateClasses(CompilationContext context, Map.Entry<String, byte[]> pair) throws IOException {
+        LOGGER.info("Generating class " + pair.getKey() + ".huaclass");
+        File f = new File(options.getOutputDirectory());
+        //noinspection ResultOfMethodCallIgnored
+        f.mkdirs();
+        File classFile = new File(f, pair.getKey() + ".huaclass");
+        FileOutputStream fos = new FileOutputStream(classFile);
+        fos.write(pair.getValue());
+        fos.close();
+        context.addOutputPath(classFile.getPath());
+        LOGGER.info(pair.getKey() + ".huaclass successfully generated");
+    }
+
+    /**
+     * Runs the semantic check of the components in topological order.
+     * <br>
+     * A component is submitted to the pool as soon as all of its dependencies have been checked,
+     * so independent components are checked at the same time.
+     * The back end of every checked file is submitted right after its component.
+     */
+    private class Scheduler {
+
+        /**
+         * The components, with their dependencies first.
+         */
+        private final List<FileDependencyGraph.Component> components;
+
+        /**
+         * The number of dependencies of each component which have not been checked yet.
+         */
+        private final Map<FileDependencyGraph.Component, AtomicInteger> pendingDependencies;
+
+        /**
+         * Counts down the components which have not been checked yet.
+         */
+        private final CountDownLatch remainingComponents;
+
+        /**
+         * The back end tasks of the checked files.
+         */
+        private final Queue<ForkJoinTask<Void>> backEndTasks;
+
+        Scheduler(List<FileDependencyGraph.Component> components) {
+            this.components = components;
+            this.pendingDependencies = new HashMap<FileDependencyGraph.Component, AtomicInteger>();
+            for (FileDependencyGraph.Component component : components)
+                pendingDependencies.put(component, new AtomicInteger(component.getDependencies().size()));
+            this.remainingComponents = new CountDownLatch(components.size());
+            this.backEndTasks = new ConcurrentLinkedQueue<ForkJoinTask<Void>>();
+        }
+
+        /**
+         * Checks all the components and waits for them.
+         *
+         * @return the back end tasks of the checked files.
+         */
+        Queue<ForkJoinTask<Void>> run() {
+            for (FileDependencyGraph.Component component : components)
+                if (component.getDependencies().isEmpty())
+                    schedule(component);
+
+            try {
+                remainingComponents.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.error("Interrupted while checking the input files!");
+            }
+            return backEndTasks;
+        }
+
+        private void schedule(final FileDependencyGraph.Component component) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        checkComponent(component);
+
+                        for (final CompilationContext context : component.getFiles())
+                            if (!context.isFailed())
+                                backEndTasks.add(pool.submit(new Callable<Void>() {
+                                    @Override
+                                    public Void call() {
+                                        runBackEnd(context);
+                                        return null;
+                                    }
+                                }));
+
+                        for (FileDependencyGraph.Component dependent : component.getDependents())
+                            if (pendingDependencies.get(dependent).decrementAndGet() == 0)
+                                schedule(dependent);
+                    } finally {
+                        remainingComponents.countDown();
+                    }
+                }
+            });
+        }
+    }
+}
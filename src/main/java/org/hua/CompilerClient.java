@@ -0,0 +1,62 @@
+package org.hua;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * Sends a compilation request to a running compiler daemon and reports its reply.
+ *
+ * @see CompilerDaemon
+ */
+class CompilerClient {
+
+    /**
+     * A Logger for our compiler messages.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompilerClient.class);
+
+    /**
+     * Sends the arguments to the daemon, after the token of its token file, and logs the diagnostics and the
+     * generated classes.
+     *
+     * @param port the daemon's port.
+     * @param args the arguments of the request.
+     * @return true if the compilation succeeded.
+     * @throws IOException if the token cannot be read or the daemon cannot be reached.
+     */
+    static boolean send(int port, List<String> args) throws IOException {
+        String token = CompilerDaemon.readToken(port);
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        try {
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+            out.println(token);
+            for (String arg : args)
+                out.println(arg);
+            out.println();
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("DIAGNOSTIC "))
+                    LOGGER.error(line.substring("DIAGNOSTIC ".length()));
+                else if (line.startsWith("OUTPUT "))
+                    LOGGER.info(line.substring("OUTPUT ".length()) + " successfully generated");
+                else if (line.startsWith("MAIN "))
+                    LOGGER.info("Main function in class " + line.substring("MAIN ".length()));
+                else if (line.equals("OK"))
+                    return true;
+                else if (line.equals("FAILED"))
+                    return false;
+            }
+            throw new IOException("The daemon closed the connection before replying");
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package org.hua;
+
+import org.hua.cache.CompilationCache;
+import org.hua.cache.IncrementalCache;
+import org.hua.cache.MemoryCache;
+import org.hua.metrics.CompilationMetrics;
+import org.hua.metrics.CompilerMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A compiler which stays resident and compiles the requests of its clients, so that they do not pay
+ * for the start up of the JVM and the warm up of the lexer, the parser and the visitors.
+ * <br>
+ * The daemon listens on a local port. When it starts, it writes a random token in a file of the user's home
+ * folder, which only its owner can read, see {@link #tokenFile(int)}. A request is the token, followed by
+ * the list of the compiler's arguments, one per line, and an empty line. A request without the token is
+ * rejected, so that other users of the machine cannot make the daemon write files or stop it. The reply has one line for every diagnostic and generated class, followed by
+ * a line which is either OK or FAILED:
+ * <pre>
+ * DIAGNOSTIC &lt;file&gt;: &lt;message&gt;
+ * OUTPUT &lt;path of a generated huaclass, or of the archive of the --jar option&gt;
+ * MAIN &lt;class with the main function&gt;
+ * OK
+ * </pre>
+ * A request with the single argument --shutdown stops the daemon.
+ * <br>
+ * Every request is a separate compilation session with its own Registry, so concurrent requests are isolated.
+ * The signatures and the class bytes of the compiled files are kept in memory,
+ * so that the files which have not changed are not compiled again by the next requests.
+ * <br>
+ * The metrics of every request are added up in the MBean org.hua:type=CompilerMetrics.
+ * A request with the --metrics option also gets the JSON report of its own metrics.
+ * The listing of the files is only written to the file of the --diagnostics option, if the request has one.
+ */
+class CompilerDaemon {
+
+    /**
+     * A Logger for our compiler messages.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompilerDaemon.class);
+
+    /**
+     * The argument of the request which stops the daemon.
+     */
+    static final String SHUTDOWN = "--shutdown";
+
+    /**
+     * The number of the random bytes of the token.
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * The port where the daemon listens.
+     */
+    private final int port;
+
+    /**
+     * The pool which runs the compilation tasks of all the requests.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The threads which serve the clients.
+     */
+    private final ExecutorService connections;
+
+    /**
+     * The compilation results of the files, shared by all the requests.
+     */
+    private final CompilationCache cache;
+
+    /**
+     * The metrics of all the requests.
+     */
+    private final CompilerMetrics metrics;
+
+    /**
+     * The socket where the daemon listens.
+     */
+    private ServerSocket serverSocket;
+
+    /**
+     * The token which the requests start with.
+     */
+    private byte[] token;
+
+    CompilerDaemon(int port) {
+        this.port = port;
+        this.pool = new ForkJoinPool();
+        this.connections = Executors.newCachedThreadPool();
+        this.cache = new MemoryCache();
+        this.metrics = CompilerMetrics.getInstance();
+    }
+
+    /**
+     * Serves the clients until a shutdown request arrives.
+     *
+     * @throws IOException if the daemon cannot listen on its port.
+     */
+    void run() throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        File tokenFile = tokenFile(serverSocket.getLocalPort());
+        try {
+            token = newToken().getBytes("UTF-8");
+            writeToken(tokenFile, token);
+        } catch (IOException e) {
+            serverSocket.close();
+            throw new IOException("Could not write the token to " + tokenFile + ": " + e.getMessage(), e);
+        }
+        LOGGER.info("Compiler daemon listening on port " + serverSocket.getLocalPort() + ", token in " + tokenFile);
+
+        try {
+            while (!serverSocket.isClosed()) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    if (serverSocket.isClosed())
+                        break;
+                    throw e;
+                }
+
+                connections.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            }
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            tokenFile.delete();
+            connections.shutdown();
+            pool.shutdown();
+            LOGGER.info("Compiler daemon stopped");
+        }
+    }
+
+    /**
+     * Reads the request of a client, compiles it and writes the reply.
+     *
+     * @param socket the client's socket.
+     */
+    private void serve(Socket socket) {
+        try {
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+                PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"));
+
+                String requestToken = in.readLine();
+                if (requestToken == null || !MessageDigest.isEqual(token, requestToken.getBytes("UTF-8"))) {
+                    LOGGER.warn("Rejected a request without the daemon's token");
+                    out.println("DIAGNOSTIC The request does not have the daemon's token");
+                    out.println("FAILED");
+                    out.flush();
+                    return;
+                }
+
+                List<String> args = new ArrayList<String>();
+                String line;
+                while ((line = in.readLine()) != null && !line.isEmpty())
+                    args.add(line);
+
+                if (args.size() == 1 && args.get(0).equals(SHUTDOWN)) {
+                    out.println("OK");
+                    out.flush();
+                    serverSocket.close();
+                    return;
+                }
+
+                compile(args.toArray(new String[args.size()]), out);
+                out.flush();
+            } finally {
+                socket.close();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not serve client: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the file of the token of the daemon which listens on a port.
+     *
+     * @param port the daemon's port.
+     * @return the file, in the folder .huava of the user's home.
+     */
+    static File tokenFile(int port) {
+        return new File(new File(System.getProperty("user.home"), ".huava"), "daemon-" + port + ".token");
+    }
+
+    /**
+     * Reads the token of the daemon which listens on a port.
+     *
+     * @param port the daemon's port.
+     * @return the token.
+     * @throws IOException if the token file cannot be read.
+     */
+    static String readToken(int port) throws IOException {
+        File file = tokenFile(port);
+        try {
+            return new String(Files.readAllBytes(file.toPath()), "UTF-8").trim();
+        } catch (IOException e) {
+            throw new IOException("Could not read the token of the daemon from " + file, e);
+        }
+    }
+
+    /**
+     * Creates a random token.
+     *
+     * @return the token in hexadecimal.
+     */
+    private static String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes)
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+
+    /**
+     * Writes the token in a new file which only its owner can read and write.
+     * <br>
+     * On file systems with POSIX permissions, the file is created with them, so that it is never readable by others.
+     * Elsewhere the permissions are restricted right after the creation.
+     *
+     * @param file  the file of the token.
+     * @param token the token.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void writeToken(File file, byte[] token) throws IOException {
+        Path path = file.toPath();
+        Path directory = path.getParent();
+        Files.deleteIfExists(path);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createDirectories(directory);
+            Files.createFile(path);
+            //noinspection ResultOfMethodCallIgnored
+            file.setReadable(false, false);
+            //noinspection ResultOfMethodCallIgnored
+            file.setReadable(true, true);
+            //noinspection ResultOfMethodCallIgnored
+            file.setWritable(false, false);
+            //noinspection ResultOfMethodCallIgnored
+            file.setWritable(true, true);
+        }
+        Files.write(path, token);
+    }
+
+    /**
+     * Compiles a request in a new session and writes the reply.
+     *
+     * @param args the compiler's arguments.
+     * @param out  the reply.
+     */
+    private void compile(String[] args, PrintWriter out) {
+        CompilerOptions options;
+        try {
+            options = CompilerOptions.parse(args);
+        } catch (HuavaException e) {
+            out.println("DIAGNOSTIC " + e.getMessage());
+            out.println("FAILED");
+            return;
+        }
+        options.generateClasses();
+        // The listing goes to the diagnostics file of the request, never to the daemon's console.
+        options.makeQuiet();
+
+        CompilationCache sessionCache = options.getCacheDirectory() != null
+                ? new IncrementalCache(new File(options.getCacheDirectory())) : cache;
+        CompilationMetrics sessionMetrics = new CompilationMetrics();
+        CompilationPipeline pipeline =
+                new CompilationPipeline(pool, options, new Registry(), sessionCache, sessionMetrics);
+        List<CompilationContext> contexts = pipeline.compile(options.getFileNames());
+        metrics.record(sessionMetrics);
+
+        boolean failed = false;
+        String classWithMain = null;
+        for (CompilationContext context : contexts) {
+            for (String diagnostic : context.getDiagnostics())
+                out.println("DIAGNOSTIC " + context.getFileName() + ": " + diagnostic);
+            for (String outputPath : context.getOutputPaths())
+                out.println("OUTPUT " + outputPath);
+            if (context.getClassWithMain() != null)
+                classWithMain = context.getClassWithMain();
+            failed |= context.isFailed();
+        }
+        if (pipeline.isArchiveWritten())
+            out.println("OUTPUT " + new File(options.getArchiveFile()).getPath());
+        for (String runtimeClassPath : pipeline.getRuntimeClassPaths())
+            out.println("OUTPUT " + runtimeClassPath);
+
+        try {
+            pipeline.checkMainFunction();
+        } catch (HuavaException e) {
+            out.println("DIAGNOSTIC " + e.getMessage());
+            failed = true;
+        }
+
+        if (options.getMetricsFile() != null)
+            try {
+                sessionMetrics.writeJson(new File(options.getMetricsFile()));
+            } catch (IOException e) {
+                out.println("DIAGNOSTIC Could not write the metrics to " + options.getMetricsFile() + ": " + e.getMessage());
+            }
+
+        if (classWithMain != null)
+            out.println("MAIN " + classWithMain);
+        out.println(failed ? "FAILED" : "OK");
+    }
+}
@@ -0,0 +1,433 @@
+package org.hua;
+
+import org.hua.symbol.SymTableImplementation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The options given to the compiler from the command line.
+ */
+class CompilerOptions {
+
+    /**
+     * The usage message of the compiler.
+     */
+    // noinspection SpellCheckingInspection
+    static final String USAGE = "Usage : java Compiler [ --encoding <name> ] [ --generate ] [ --output <dir> ] [ --jar <file> ]"
+            + " [ --cache <dir> ] [ --metrics <file> ] [ --quiet ] [ --diagnostics <file> ] [ --symtable flat|hash ]"
+            + " [ --no-fold ] [ --no-peephole ] [ --concat builder|indy ] [ --target 5|8|11|17 ]"
+            + " [ --backend stream|tree ] [ --write strict|buffered ] [ --client <port> ] <inputfile(s)>\n"
+            + "        java Compiler --daemon <port>\n"
+            + "        java Compiler --client <port> --shutdown";
+
+    /**
+     * The encoding of the input files.
+     */
+    private String encodingName;
+
+    /**
+     * Flag which shows if the user wants to produce the huaclasses in files.
+     */
+    private boolean produceClasses;
+
+    /**
+     * The folder where the huaclasses are generated.
+     */
+    private String outputDirectory;
+
+    /**
+     * The JAR archive where the classes of all the files are written instead of the output folder, or null.
+     */
+    private String archiveFile;
+
+    /**
+     * The folder of the incremental compilation cache, or null if the cache is disabled.
+     */
+    private String cacheDirectory;
+
+    /**
+     * The file where the JSON report of the metrics is written, or null if the metrics are disabled.
+     */
+    private String metricsFile;
+
+    /**
+     * Flag which shows if the user does not want the formatted program and the byte code printed.
+     */
+    private boolean quiet;
+
+    /**
+     * The file where the formatted program and the byte code are written instead of the console, or null.
+     */
+    private String diagnosticsFile;
+
+    /**
+     * The implementation of the symbol tables.
+     */
+    private SymTableImplementation symTables;
+
+    /**
+     * Flag which shows if the constant expressions are folded before the byte code is generated.
+     */
+    private boolean foldConstants;
+
+    /**
+     * Flag which shows if the instructions of every method go through the peephole optimizer.
+     */
+    private boolean peephole;
+
+    /**
+     * The way the string concatenations are generated.
+     */
+    private StringConcatenation concatenation;
+
+    /**
+     * The version of the generated class files.
+     */
+    private ClassFileTarget target;
+
+    /**
+     * The way the classes are written.
+     */
+    private CodegenBackend backend;
+
+    /**
+     * The way the write statements are generated.
+     */
+    private WriteMode writeMode;
+
+    /**
+     * The port where the compiler daemon listens, or -1 if the compiler does not run as a daemon.
+     */
+    private int daemonPort;
+
+    /**
+     * The port of the compiler daemon which compiles the files, or -1 if the files are compiled here.
+     */
+    private int clientPort;
+
+    /**
+     * Flag which shows if the user wants to stop the compiler daemon.
+     */
+    private boolean shutdown;
+
+    /**
+     * The names of the input files.
+     */
+    private final List<String> fileNames;
+
+    private CompilerOptions() {
+        this.encodingName = "UTF-8";
+        this.produceClasses = false;
+        this.outputDirectory = "huaclasses";
+        this.archiveFile = null;
+        this.cacheDirectory = null;
+        this.metricsFile = null;
+        this.quiet = false;
+        this.diagnosticsFile = null;
+        this.symTables = SymTableImplementation.FLAT;
+        this.foldConstants = true;
+        this.peephole = true;
+        this.concatenation = StringConcatenation.BUILDER;
+        this.target = ClassFileTarget.JAVA_5;
+        this.backend = CodegenBackend.STREAM;
+        this.writeMode = WriteMode.STRICT;
+        this.daemonPort = -1;
+        this.clientPort = -1;
+        this.shutdown = false;
+        this.fileNames = new ArrayList<String>();
+    }
+
+    /**
+     * Parses the arguments of the compiler.
+     * <br>
+     * The options come first, in any order, followed by the input files.
+     *
+     * @param args the arguments.
+     * @return the options.
+     * @throws HuavaException if an option is unknown, misses its value or has an invalid value.
+     */
+    static CompilerOptions parse(String[] args) throws HuavaException {
+        CompilerOptions options = new CompilerOptions();
+
+        int i = 0;
+        while (i < args.length && args[i].startsWith("--")) {
+            String option = args[i++];
+
+            if (option.equals("--encoding")) {
+                options.encodingName = value(args, i++, option);
+                try {
+                    java.nio.charset.Charset.forName(options.encodingName); // Side-effect: is encodingName valid?
+                } catch (Exception e) {
+                    throw new HuavaException("Invalid encoding '" + options.encodingName + "'");
+                }
+            } else if (option.equals("--generate"))
+                options.produceClasses = true;
+            else if (option.equals("--output"))
+                options.outputDirectory = value(args, i++, option);
+            else if (option.equals("--jar")) {
+                options.archiveFile = value(args, i++, option);
+                options.produceClasses = true;
+            }
+            else if (option.equals("--cache"))
+                options.cacheDirectory = value(args, i++, option);
+            else if (option.equals("--metrics"))
+                options.metricsFile = value(args, i++, option);
+            else if (option.equals("--quiet"))
+                options.quiet = true;
+            else if (option.equals("--diagnostics"))
+                options.diagnosticsFile = value(args, i++, option);
+            else if (option.equals("--symtable")) {
+                String name = value(args, i++, option);
+                options.symTables = SymTableImplementation.forName(name);
+                if (options.symTables == null)
+                    throw new HuavaException("Invalid symbol table '" + name + "'");
+            } else if (option.equals("--no-fold"))
+                options.foldConstants = false;
+            else if (option.equals("--no-peephole"))
+                options.peephole = false;
+            else if (option.equals("--concat")) {
+                String name = value(args, i++, option);
+                options.concatenation = StringConcatenation.forName(name);
+                if (options.concatenation == null)
+                    throw new HuavaException("Invalid string concatenation '" + name + "'");
+            } else if (option.equals("--target")) {
+                String name = value(args, i++, option);
+                options.target = ClassFileTarget.forName(name);
+                if (options.target == null)
+                    throw new HuavaException("Invalid target '" + name + "'");
+            } else if (option.equals("--backend")) {
+                String name = value(args, i++, option);
+                options.backend = CodegenBackend.forName(name);
+                if (options.backend == null)
+                    throw new HuavaException("Invalid backend '" + name + "'");
+            } else if (option.equals("--write")) {
+                String name = value(args, i++, option);
+                options.writeMode = WriteMode.forName(name);
+                if (options.writeMode == null)
+                    throw new HuavaException("Invalid write mode '" + name + "'");
+            } else if (option.equals("--daemon"))
+                options.daemonPort = port(value(args, i++, option));
+            else if (option.equals("--client"))
+                options.clientPort = port(value(args, i++, option));
+            else if (option.equals(CompilerDaemon.SHUTDOWN))
+                options.shutdown = true;
+            else
+                throw new HuavaException("Unknown option '" + option + "'");
+        }
+
+        if (options.concatenation == StringConcatenation.INDY && !options.target.hasStringConcatFactory())
+            throw new HuavaException("The string concatenation 'indy' needs target 11 or later");
+
+        for (; i < args.length; i++)
+            options.fileNames.add(args[i]);
+
+        return options;
+    }
+
+    /**
+     * Returns the value of an option.
+     *
+     * @param args   the arguments.
+     * @param i      the position of the value.
+     * @param option the option's name.
+     * @return the value.
+     * @throws HuavaException if the value is missing.
+     */
+    private static String value(String[] args, int i, String option) throws HuavaException {
+        if (i >= args.length)
+            throw new HuavaException("Missing value for option '" + option + "'");
+        return args[i];
+    }
+
+    /**
+     * Parses a port number.
+     *
+     * @param value the port number.
+     * @return the port.
+     * @throws HuavaException if the port number is invalid.
+     */
+    private static int port(String value) throws HuavaException {
+        try {
+            int port = Integer.parseInt(value);
+            if (port >= 0 && port <= 65535)
+                return port;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new HuavaException("Invalid port '" + value + "'");
+    }
+
+    /**
+     * Returns the arguments which give the same options and files to a compiler daemon.
+     * <br>
+     * The daemon may run in another folder, so the paths become absolute.
+     * The classes are always generated, since they are the daemon's output.
+     *
+     * @return the arguments.
+     */
+    List<String> toDaemonArguments() {
+        List<String> args = new ArrayList<String>();
+        args.add("--encoding");
+        args.add(encodingName);
+        args.add("--output");
+        args.add(new java.io.File(outputDirectory).getAbsolutePath());
+        if (archiveFile != null) {
+            args.add("--jar");
+            args.add(new java.io.File(archiveFile).getAbsolutePath());
+        }
+        if (cacheDirectory != null) {
+            args.add("--cache");
+            args.add(new java.io.File(cacheDirectory).getAbsolutePath());
+        }
+        if (metricsFile != null) {
+            args.add("--metrics");
+            args.add(new java.io.File(metricsFile).getAbsolutePath());
+        }
+        if (quiet)
+            args.add("--quiet");
+        if (diagnosticsFile != null) {
+            args.add("--diagnostics");
+            args.add(new java.io.File(diagnosticsFile).getAbsolutePath());
+        }
+        args.add("--symtable");
+        args.add(symTables.name().toLowerCase());
+        if (!foldConstants)
+            args.add("--no-fold");
+        if (!peephole)
+            args.add("--no-peephole");
+        args.add("--concat");
+        args.add(concatenation.name().toLowerCase());
+        args.add("--target");
+        args.add(target.getTargetName());
+        args.add("--backend");
+        args.add(backend.name().toLowerCase());
+        args.add("--write");
+        args.add(writeMode.name().toLowerCase());
+        for (String fileName : fileNames)
+            args.add(new java.io.File(fileName).getAbsolutePath());
+        return args;
+    }
+
+    /**
+     * Makes the compiler generate the huaclasses.
+     */
+    void generateClasses() {
+        this.produceClasses = true;
+    }
+
+    /**
+     * Makes the compiler quiet, so that the listing is only written to the diagnostics file, if there is one.
+     */
+    void makeQuiet() {
+        this.quiet = true;
+    }
+
+    /**
+     * Returns the options which change the compiled classes, so that the cache is not reused when they change.
+     *
+     * @return the fingerprint of the options.
+     */
+    String fingerprint() {
+        return "encoding=" + encodingName + ",fold=" + foldConstants + ",peephole=" + peephole
+                + ",concat=" + concatenation
+                + ",target=" + target.getTargetName() + ",backend=" + backend + ",write=" + writeMode;
+    }
+
+    String getEncodingName() {
+        return encodingName;
+    }
+
+    boolean isProduceClasses() {
+        return produceClasses;
+    }
+
+    String getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    String getArchiveFile() {
+        return archiveFile;
+    }
+
+    /**
+     * Returns whether every class is written in its own file in the output folder,
+     * which the archive replaces when there is one.
+     *
+     * @return true if the huaclasses are written in the output folder.
+     */
+    boolean isProduceClassFiles() {
+        return produceClasses && archiveFile == null;
+    }
+
+    String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    String getMetricsFile() {
+        return metricsFile;
+    }
+
+    boolean isQuiet() {
+        return quiet;
+    }
+
+    String getDiagnosticsFile() {
+        return diagnosticsFile;
+    }
+
+    /**
+     * Returns whether the formatted program and the byte code are needed, on the console or in the diagnostics file.
+     * <br>
+     * In quiet mode without a diagnostics file, neither is produced, which saves the printing passes.
+     *
+     * @return true if the listing of the files is produced.
+     */
+    boolean isListingEnabled() {
+        return !quiet || diagnosticsFile != null;
+    }
+
+    SymTableImplementation getSymTables() {
+        return symTables;
+    }
+
+    boolean isFoldConstants() {
+        return foldConstants;
+    }
+
+    boolean isPeephole() {
+        return peephole;
+    }
+
+    StringConcatenation getConcatenation() {
+        return concatenation;
+    }
+
+    ClassFileTarget getTarget() {
+        return target;
+    }
+
+    CodegenBackend getBackend() {
+        return backend;
+    }
+
+    WriteMode getWriteMode() {
+        return writeMode;
+    }
+
+    int getDaemonPort() {
+        return daemonPort;
+    }
+
+    int getClientPort() {
+        return clientPort;
+    }
+
+    boolean isShutdown() {
+        return shutdown;
+    }
+
+    List<String> getFileNames() {
+        return fileNames;
+    }
+}
@@ -0,0 +1,411 @@
+package org.hua;
+
+import org.hua.ast.*;
+import org.hua.types.TypeUtils;
+
+import org.objectweb.asm.Type;
+
+/**
+ * Folds the constant subexpressions and simplifies the arithmetic identities of the code.
+ * <br>
+ * It runs after the types have been collected. The tree is not changed: the simpler expression is kept
+ * in the folded attribute of every expression that can be replaced, and the byte code generator emits it instead.
+ * <br>
+ * The constants are computed with the same widening as the generated code, so the program's output does not change:
+ * <ul>
+ * <li>integer, float and string constants are folded with the +, -, *, / and % operators and the unary minus.</li>
+ * <li>x * 1, 1 * x and x / 1 become x, and so do x + 0, 0 + x and x - 0 for integers and x - 0 for floats,
+ * when x already has the type of the result.</li>
+ * </ul>
+ * The integer divisions by zero are kept, so that they still fail at run time,
+ * and so are the conditions and the relational and logical operators, which are generated as jumps.
+ */
+class ConstantFoldingASTVisitor implements ASTVisitor {
+
+    /**
+     * The longest string constant that can be folded, so that its modified UTF-8 form
+     * fits in the constant pool even if every character takes three bytes.
+     */
+    private static final int MAX_STRING_CONSTANT = 65535 / 3;
+
+    @Override
+    public void visit(CompUnit node) throws ASTVisitorException {
+        for (ClassDefinition c : node.getClassDefinitionList())
+            c.accept(this);
+    }
+
+    @Override
+    public void visit(AssignmentStatement node) throws ASTVisitorException {
+        node.getExpression1().accept(this);
+        node.getExpression2().accept(this);
+    }
+
+    @Override
+    public void visit(CompoundStatement node) throws ASTVisitorException {
+        for (Statement st : node.getStatementList())
+            st.accept(this);
+    }
+
+    @Override
+    public void visit(BinaryExpression node) throws ASTVisitorException {
+        node.getExpression1().accept(this);
+        node.getExpression2().accept(this);
+
+        Operator op = node.getOperator();
+        if (op.isRelational() || op.equals(Operator.AND) || op.equals(Operator.OR))
+            return;
+
+        Expression expression1 = simplest(node.getExpression1());
+        Expression expression2 = simplest(node.getExpression2());
+        Type type = ASTUtils.getSafeType(node);
+
+        Expression folded;
+        if (isConstant(expression1) && isConstant(expression2))
+            folded = fold(op, type, expression1, expression2);
+        else
+            folded = simplify(op, type, expression1, expression2);
+
+        if (folded != null)
+            ASTUtils.setFolded(node, folded);
+    }
+
+    @Override
+    public void visit(UnaryExpression node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+
+        Expression expression = simplest(node.getExpression());
+        Expression folded = null;
+        if (node.getOperator().equals(Operator.MINUS))
+            if (expression instanceof IntegerLiteralExpression)
+                folded = literal(-((IntegerLiteralExpression) expression).getLiteral());
+            else if (expression instanceof FloatLiteralExpression)
+                folded = literal(-((FloatLiteralExpression) expression).getLiteral());
+
+        if (folded != null)
+            ASTUtils.setFolded(node, folded);
+    }
+
+    @Override
+    public void visit(IdentifierExpression node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(IntegerLiteralExpression node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(FloatLiteralExpression node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(StringLiteralExpression node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(ParenthesisExpression node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+
+        // The parentheses only group, so the expression around them can use the constant inside.
+        Expression expression = simplest(node.getExpression());
+        if (isConstant(expression))
+            ASTUtils.setFolded(node, expression);
+    }
+
+    @Override
+    public void visit(WhileStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+        if (node.getStatement() != null)
+            node.getStatement().accept(this);
+    }
+
+    @Override
+    public void visit(BreakStatement node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(ContinueStatement node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(IfElseStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+        if (node.getStatement1() != null)
+            node.getStatement1().accept(this);
+        if (node.getStatement2() != null)
+            node.getStatement2().accept(this);
+    }
+
+    @Override
+    public void visit(IfStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+        if (node.getStatement() != null)
+            node.getStatement().accept(this);
+    }
+
+    @Override
+    public void visit(WriteStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(ReturnStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(ThisExpression node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(NullExpression node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(FunctionCallExpression node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+        for (Expression e : node.getExpressionList())
+            e.accept(this);
+    }
+
+    @Override
+    public void visit(StorageSpecifier node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(SimpleFunctionCallExpression node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(MethodIdentifier node) throws ASTVisitorException {
+        for (Expression e : node.getExpressionList())
+            e.accept(this);
+    }
+
+    @Override
+    public void visit(SimpleMethodIdentifier node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(SimpleConstructorIdentifier node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(ConstructorIdentifier node) throws ASTVisitorException {
+        for (Expression e : node.getExpressionList())
+            e.accept(this);
+    }
+
+    @Override
+    public void visit(SimpleIdentifierExpression node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(SimpleReturnStatement node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(SimpleStatement node) throws ASTVisitorException {
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(ParameterDeclaration node) throws ASTVisitorException {
+    }
+
+    @Override
+    public void visit(FunctionDefinition node) throws ASTVisitorException {
+        if (node.getCompoundStatement() != null)
+            node.getCompoundStatement().accept(this);
+    }
+
+    @Override
+    public void visit(ClassDefinition node) throws ASTVisitorException {
+        for (FieldOrFunctionDefinition f : node.getFieldOrFunctionDefinitionList())
+            f.accept(this);
+    }
+
+    @Override
+    public void visit(FieldDefinition node) throws ASTVisitorException {
+    }
+
+    /**
+     * Returns the expression which is generated for an expression, which is its folded form if it has one.
+     *
+     * @param node the expression.
+     * @return the folded expression, or the expression itself.
+     */
+    private static Expression simplest(Expression node) {
+        Expression folded = ASTUtils.getFolded(node);
+        return folded != null ? folded : node;
+    }
+
+    private static boolean isConstant(Expression node) {
+        return node instanceof IntegerLiteralExpression
+                || node instanceof FloatLiteralExpression
+                || node instanceof StringLiteralExpression;
+    }
+
+    /**
+     * Computes an operation between two constants.
+     *
+     * @param op          the operator.
+     * @param type        the type of the operation.
+     * @param expression1 the first constant.
+     * @param expression2 the second constant.
+     * @return the constant result, or null if the operation is left to the run time.
+     */
+    private static Expression fold(Operator op, Type type, Expression expression1, Expression expression2) {
+        if (type.equals(TypeUtils.STRING_TYPE)) {
+            if (!op.equals(Operator.PLUS))
+                return null;
+            String s = stringValue(expression1) + stringValue(expression2);
+            return s.length() <= MAX_STRING_CONSTANT ? literal(s) : null;
+        } else if (type.equals(Type.FLOAT_TYPE)) {
+            float a = floatValue(expression1);
+            float b = floatValue(expression2);
+            switch (op) {
+                case PLUS:
+                    return literal(a + b);
+                case MINUS:
+                    return literal(a - b);
+                case MULTIPLY:
+                    return literal(a * b);
+                case DIVISION:
+                    return literal(a / b);
+                case MOD:
+                    return literal(a % b);
+                default:
+                    return null;
+            }
+        } else if (type.equals(Type.INT_TYPE)) {
+            int a = ((IntegerLiteralExpression) expression1).getLiteral();
+            int b = ((IntegerLiteralExpression) expression2).getLiteral();
+            switch (op) {
+                case PLUS:
+                    return literal(a + b);
+                case MINUS:
+                    return literal(a - b);
+                case MULTIPLY:
+                    return literal(a * b);
+                case DIVISION:
+                    return b != 0 ? literal(a / b) : null;
+                case MOD:
+                    return b != 0 ? literal(a % b) : null;
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Simplifies an arithmetic identity.
+     * <br>
+     * x + 0 is not simplified for floats, since -0.0 + 0 is 0.0.
+     *
+     * @param op          the operator.
+     * @param type        the type of the operation.
+     * @param expression1 the first operand.
+     * @param expression2 the second operand.
+     * @return the operand which is the result, or null if there is no identity.
+     * @throws ASTVisitorException
+     */
+    private static Expression simplify(Operator op, Type type, Expression expression1, Expression expression2)
+            throws ASTVisitorException {
+        if (!type.equals(Type.INT_TYPE) && !type.equals(Type.FLOAT_TYPE))
+            return null;
+
+        // The operand is the result only if it does not have to be widened.
+        boolean sameType1 = ASTUtils.getSafeType(expression1).equals(type);
+        boolean sameType2 = ASTUtils.getSafeType(expression2).equals(type);
+
+        switch (op) {
+            case MULTIPLY:
+                if (sameType1 && isOne(expression2))
+                    return expression1;
+                if (sameType2 && isOne(expression1))
+                    return expression2;
+                break;
+            case DIVISION:
+                if (sameType1 && isOne(expression2))
+                    return expression1;
+                break;
+            case PLUS:
+                if (type.equals(Type.INT_TYPE)) {
+                    if (sameType1 && isZero(expression2))
+                        return expression1;
+                    if (sameType2 && isZero(expression1))
+                        return expression2;
+                }
+                break;
+            case MINUS:
+                if (sameType1 && isZero(expression2))
+                    return expression1;
+                break;
+            default:
+                break;
+        }
+        return null;
+    }
+
+    private static boolean isOne(Expression node) {
+        if (node instanceof IntegerLiteralExpression)
+            return ((IntegerLiteralExpression) node).getLiteral() == 1;
+        return node instanceof FloatLiteralExpression && ((FloatLiteralExpression) node).getLiteral() == 1;
+    }
+
+    /**
+     * Checks if an expression is the constant zero.
+     * <br>
+     * The float zero has to be positive, since x - -0.0 is not x when x is -0.0.
+     *
+     * @param node the expression.
+     * @return true if the expression is a positive zero.
+     */
+    private static boolean isZero(Expression node) {
+        if (node instanceof IntegerLiteralExpression)
+            return ((IntegerLiteralExpression) node).getLiteral() == 0;
+        return node instanceof FloatLiteralExpression
+                && Float.floatToRawIntBits(((FloatLiteralExpression) node).getLiteral()) == 0;
+    }
+
+    private static float floatValue(Expression node) {
+        if (node instanceof IntegerLiteralExpression)
+            return ((IntegerLiteralExpression) node).getLiteral();
+        return ((FloatLiteralExpression) node).getLiteral();
+    }
+
+    /**
+     * Converts a constant to a string, as the generated code does when it widens it.
+     *
+     * @param node the constant.
+     * @return the string.
+     */
+    private static String stringValue(Expression node) {
+        if (node instanceof IntegerLiteralExpression)
+            return Integer.toString(((IntegerLiteralExpression) node).getLiteral());
+        if (node instanceof FloatLiteralExpression)
+            return Float.toString(((FloatLiteralExpression) node).getLiteral());
+        return ((StringLiteralExpression) node).getLiteral();
+    }
+
+    private static Expression literal(int value) {
+        Expression node = new IntegerLiteralExpression(value);
+        ASTUtils.setType(node, Type.INT_TYPE);
+        return node;
+    }
+
+    private static Expression literal(float value) {
+        Expression node = new FloatLiteralExpression(value);
+        ASTUtils.setType(node, Type.FLOAT_TYPE);
+        return node;
+    }
+
+    private static Expression literal(String value) {
+        Expression node = new StringLiteralExpression(value);
+        ASTUtils.setType(node, TypeUtils.STRING_TYPE);
+        return node;
+    }
+}
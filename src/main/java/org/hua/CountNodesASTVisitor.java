@@ -0,0 +1,246 @@
+package org.hua;
+
+import org.hua.ast.*;
+
+/**
+ * Count the nodes, the classes and the methods of a file, for the compilation metrics.
+ */
+class CountNodesASTVisitor implements ASTVisitor {
+
+    private int nodes;
+    private int classes;
+    private int methods;
+
+    CountNodesASTVisitor() {
+        this.nodes = 0;
+        this.classes = 0;
+        this.methods = 0;
+    }
+
+    int getNodes() {
+        return nodes;
+    }
+
+    int getClasses() {
+        return classes;
+    }
+
+    int getMethods() {
+        return methods;
+    }
+
+    @Override
+    public void visit(CompUnit node) throws ASTVisitorException {
+        nodes++;
+        for (ClassDefinition c : node.getClassDefinitionList()) {
+            c.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(AssignmentStatement node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression1().accept(this);
+        node.getExpression2().accept(this);
+    }
+
+    @Override
+    public void visit(CompoundStatement node) throws ASTVisitorException {
+        nodes++;
+        for (Statement st : node.getStatementList()) {
+            st.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(BinaryExpression node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression1().accept(this);
+        node.getExpression2().accept(this);
+    }
+
+    @Override
+    public void visit(UnaryExpression node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(IdentifierExpression node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(IntegerLiteralExpression node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(FloatLiteralExpression node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(StringLiteralExpression node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(ParenthesisExpression node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(WhileStatement node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression().accept(this);
+        if (node.getStatement() != null)
+            node.getStatement().accept(this);
+    }
+
+    @Override
+    public void visit(BreakStatement node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(ContinueStatement node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(IfElseStatement node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression().accept(this);
+        if (node.getStatement1() != null)
+            node.getStatement1().accept(this);
+        if (node.getStatement2() != null)
+            node.getStatement2().accept(this);
+    }
+
+    @Override
+    public void visit(IfStatement node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression().accept(this);
+        if (node.getStatement() != null)
+            node.getStatement().accept(this);
+    }
+
+    @Override
+    public void visit(WriteStatement node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(ReturnStatement node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(ThisExpression node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(NullExpression node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(FunctionCallExpression node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression().accept(this);
+
+        for (Expression e : node.getExpressionList()) {
+            e.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(StorageSpecifier node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(SimpleFunctionCallExpression node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(MethodIdentifier node) throws ASTVisitorException {
+        nodes++;
+        for (Expression e : node.getExpressionList()) {
+            e.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(SimpleMethodIdentifier node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(SimpleConstructorIdentifier node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(ConstructorIdentifier node) throws ASTVisitorException {
+        nodes++;
+        for (Expression e : node.getExpressionList()) {
+            e.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(SimpleIdentifierExpression node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(SimpleReturnStatement node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(SimpleStatement node) throws ASTVisitorException {
+        nodes++;
+        node.getExpression().accept(this);
+    }
+
+    @Override
+    public void visit(ParameterDeclaration node) throws ASTVisitorException {
+        nodes++;
+    }
+
+    @Override
+    public void visit(FunctionDefinition node) throws ASTVisitorException {
+        nodes++;
+        methods++;
+
+        for (ParameterDeclaration p : node.getParameterDeclarationList())
+            p.accept(this);
+
+        if (node.getCompoundStatement() != null)
+            node.getCompoundStatement().accept(this);
+    }
+
+    @Override
+    public void visit(ClassDefinition node) throws ASTVisitorException {
+        nodes++;
+        classes++;
+        for (FieldOrFunctionDefinition f : node.getFieldOrFunctionDefinitionList()) {
+            f.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(FieldDefinition node) throws ASTVisitorException {
+        nodes++;
+    }
+}
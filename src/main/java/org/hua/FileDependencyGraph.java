@@ -0,0 +1,179 @@
+package org.hua;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The dependencies between the input files.
+ * <br>
+ * A file depends on another file, if it uses one of the classes defined there.
+ * Files which depend on each other form a cycle and are grouped in one component,
+ * so that the components make up a DAG which can be scheduled in topological order.
+ */
+class FileDependencyGraph {
+
+    /**
+     * The files of the graph, in the order given by the user.
+     */
+    private final List<CompilationContext> files;
+
+    /**
+     * The files which every file depends on.
+     */
+    private final Map<CompilationContext, Set<CompilationContext>> dependencies;
+
+    FileDependencyGraph(List<CompilationContext> files) {
+        this.files = files;
+        this.dependencies = new HashMap<CompilationContext, Set<CompilationContext>>();
+        for (CompilationContext file : files)
+            dependencies.put(file, new LinkedHashSet<CompilationContext>());
+    }
+
+    /**
+     * Adds a dependency between two files. A file's dependency on itself is ignored.
+     *
+     * @param file       the file which uses the class.
+     * @param dependency the file which defines the class.
+     */
+    void addDependency(CompilationContext file, CompilationContext dependency) {
+        if (file != dependency)
+            dependencies.get(file).add(dependency);
+    }
+
+    /**
+     * Finds the strongly connected components of the graph, using Tarjan's algorithm.
+     *
+     * @return the components in topological order, the dependencies of a component always come before it.
+     */
+    List<Component> getComponents() {
+        return new Tarjan().run();
+    }
+
+    /**
+     * A group of files which depend on each other.
+     */
+    static class Component {
+
+        /**
+         * The files of the component, in the order given by the user.
+         */
+        private final List<CompilationContext> files;
+
+        /**
+         * The components which this component depends on.
+         */
+        private final Set<Component> dependencies;
+
+        /**
+         * The components which depend on this component.
+         */
+        private final Set<Component> dependents;
+
+        private Component() {
+            this.files = new ArrayList<CompilationContext>();
+            this.dependencies = new LinkedHashSet<Component>();
+            this.dependents = new LinkedHashSet<Component>();
+        }
+
+        List<CompilationContext> getFiles() {
+            return files;
+        }
+
+        Set<Component> getDependencies() {
+            return dependencies;
+        }
+
+        Set<Component> getDependents() {
+            return dependents;
+        }
+    }
+
+    /**
+     * Tarjan's strongly connected components algorithm.
+     * <br>
+     * A component is completed only after all the components reachable from it,
+     * so the components come out with their dependencies first.
+     */
+    private class Tarjan {
+
+        private final Map<CompilationContext, Integer> index;
+        private final Map<CompilationContext, Integer> lowLink;
+        private final Deque<CompilationContext> stack;
+        private final Set<CompilationContext> onStack;
+        private final Map<CompilationContext, Component> componentOf;
+        private final List<Component> components;
+        private int counter;
+
+        Tarjan() {
+            this.index = new HashMap<CompilationContext, Integer>();
+            this.lowLink = new HashMap<CompilationContext, Integer>();
+            this.stack = new ArrayDeque<CompilationContext>();
+            this.onStack = new HashSet<CompilationContext>();
+            this.componentOf = new HashMap<CompilationContext, Component>();
+            this.components = new ArrayList<Component>();
+            this.counter = 0;
+        }
+
+        List<Component> run() {
+            for (CompilationContext file : files)
+                if (!index.containsKey(file))
+                    strongConnect(file);
+
+            for (Component component : components) {
+                // Keep the user's order inside a cycle.
+                List<CompilationContext> ordered = new ArrayList<CompilationContext>();
+                for (CompilationContext file : files)
+                    if (componentOf.get(file) == component)
+                        ordered.add(file);
+                component.files.clear();
+                component.files.addAll(ordered);
+
+                for (CompilationContext file : ordered)
+                    for (CompilationContext dependency : dependencies.get(file)) {
+                        Component other = componentOf.get(dependency);
+                        if (other != component) {
+                            component.dependencies.add(other);
+                            other.dependents.add(component);
+                        }
+                    }
+            }
+
+            return components;
+        }
+
+        private void strongConnect(CompilationContext file) {
+            index.put(file, counter);
+            lowLink.put(file, counter);
+            counter++;
+            stack.push(file);
+            onStack.add(file);
+
+            for (CompilationContext dependency : dependencies.get(file)) {
+                if (!index.containsKey(dependency)) {
+                    strongConnect(dependency);
+                    lowLink.put(file, Math.min(lowLink.get(file), lowLink.get(dependency)));
+                } else if (onStack.contains(dependency))
+                    lowLink.put(file, Math.min(lowLink.get(file), index.get(dependency)));
+            }
+
+            if (lowLink.get(file).equals(index.get(file))) {
+                Component component = new Component();
+                CompilationContext member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    componentOf.put(member, component);
+                    component.files.add(member);
+                } while (member != file);
+                components.add(component);
+            }
+        }
+    }
+}
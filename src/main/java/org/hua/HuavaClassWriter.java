@@ -0,0 +1,106 @@
+package org.hua;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A ClassWriter which finds the common super class of two classes without loading them,
+ * when it computes the frames of the tree backend.
+ * <br>
+ * The classes of the registry extend java/lang/Object. The super class of any other class is read from its
+ * class file, once, into a table which all the writers share, since the classes of the JDK never change.
+ * A class which is neither in the registry nor on the class path is a huava class of another compilation,
+ * so it extends java/lang/Object as well.
+ */
+final class HuavaClassWriter extends ClassWriter {
+
+    /**
+     * The internal name of the root of the class hierarchy.
+     */
+    private static final String OBJECT = "java/lang/Object";
+
+    /**
+     * The super class of every class outside the registry which has been looked up, by internal name.
+     */
+    private static final ConcurrentMap<String, String> SUPER_CLASSES = new ConcurrentHashMap<String, String>();
+
+    /**
+     * The registry of the compilation session.
+     */
+    private final Registry registry;
+
+    HuavaClassWriter(int flags, Registry registry) {
+        super(flags);
+        this.registry = registry;
+    }
+
+    @Override
+    protected String getCommonSuperClass(String type1, String type2) {
+        if (type1.equals(type2))
+            return type1;
+
+        for (String super1 = type1; super1 != null; super1 = superClass(super1))
+            for (String super2 = type2; super2 != null; super2 = superClass(super2))
+                if (super1.equals(super2))
+                    return super1;
+        return OBJECT;
+    }
+
+    /**
+     * Returns the super class of a class.
+     *
+     * @param type the internal name of the class.
+     * @return the internal name of its super class, or null for java/lang/Object.
+     */
+    private String superClass(String type) {
+        if (type.equals(OBJECT))
+            return null;
+        if (isRegistered(type))
+            return OBJECT;
+
+        String superClass = SUPER_CLASSES.get(type);
+        if (superClass == null) {
+            superClass = readSuperClass(type);
+            SUPER_CLASSES.putIfAbsent(type, superClass);
+        }
+        return superClass;
+    }
+
+    /**
+     * Checks if a class is a huava class of the registry, whose internal name may lack the org/hua/ prefix.
+     */
+    private boolean isRegistered(String type) {
+        String name = type.startsWith("org/hua/") ? type : "org/hua/" + type;
+        return registry.getClasses().containsKey(Type.getObjectType(name));
+    }
+
+    /**
+     * Reads the super class of a class from its class file, without loading the class.
+     *
+     * @return the internal name of its super class, which is java/lang/Object for an interface
+     * or a class which is not on the class path.
+     */
+    private static String readSuperClass(String type) {
+        InputStream in = ClassLoader.getSystemResourceAsStream(type + ".class");
+        if (in == null)
+            return OBJECT;
+        try {
+            String superName = new ClassReader(in).getSuperName();
+            return superName != null ? superName : OBJECT;
+        } catch (IOException e) {
+            return OBJECT;
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.hua;
+
+/**
+ * An Exception thrown when the input of the compiler is invalid, for example an unknown file extension or option.
+ */
+class HuavaException extends Exception {
+    HuavaException(String message) { super(message); }
+}
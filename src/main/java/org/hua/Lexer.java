@@ -4,6 +4,7 @@ package org.hua;
 
 import static java.lang.System.out;
 import java_cup.runtime.Symbol;
+import org.hua.symbol.NameTable;
 
 
 /**
@@ -47,137 +48,179 @@ public final class Lexer implements java_cup.runtime.Scanner {
     "\41\7\2\0\4\6\4\0\1\6\2\0\1\7\7\0\1\6\4\0"+
     "\1\6\5\0\27\6\1\0\37\6\1\0\u01ca\6\4\0\14\6\16\0"+
     "\5\6\7\0\1\6\1\0\1\6\21\0\160\7\5\6\1\0\2\6"+
-    "\2\0\4\6\10\0\1\6\1\0\3\6\1\0\1\6\1\0\24\6"+
-    "\1\0\123\6\1\0\213\6\1\0\5\7\2\0\236\6\11\0\46\6"+
-    "\2\0\1\6\7\0\47\6\7\0\1\6\1\0\55\7\1\0\1\7"+
-    "\1\0\2\7\1\0\2\7\1\0\1\7\10\0\33\6\5\0\3\6"+
-    "\15\0\5\7\6\0\1\6\4\0\13\7\5\0\53\6\37\7\4\0"+
-    "\2\6\1\7\143\6\1\0\1\6\10\7\1\0\6\7\2\6\2\7"+
-    "\1\0\4\7\2\6\12\7\3\6\2\0\1\6\17\0\1\7\1\6"+
-    "\1\7\36\6\33\7\2\0\131\6\13\7\1\6\16\0\12\7\41\6"+
-    "\11\7\2\6\4\0\1\6\5\0\26\6\4\7\1\6\11\7\1\6"+
-    "\3\7\1\6\5\7\22\0\31\6\3\7\104\0\1\6\1\0\13\6"+
-    "\67\0\33\7\1\0\4\7\66\6\3\7\1\6\22\7\1\6\7\7"+
-    "\12\6\2\7\2\0\12\7\1\0\7\6\1\0\7\6\1\0\3\7"+
-    "\1\0\10\6\2\0\2\6\2\0\26\6\1\0\7\6\1\0\1\6"+
-    "\3\0\4\6\2\0\1\7\1\6\7\7\2\0\2\7\2\0\3\7"+
-    "\1\6\10\0\1\7\4\0\2\6\1\0\3\6\2\7\2\0\12\7"+
-    "\4\6\7\0\1\6\5\0\3\7\1\0\6\6\4\0\2\6\2\0"+
-    "\26\6\1\0\7\6\1\0\2\6\1\0\2\6\1\0\2\6\2\0"+
-    "\1\7\1\0\5\7\4\0\2\7\2\0\3\7\3\0\1\7\7\0"+
-    "\4\6\1\0\1\6\7\0\14\7\3\6\1\7\13\0\3\7\1\0"+
-    "\11\6\1\0\3\6\1\0\26\6\1\0\7\6\1\0\2\6\1\0"+
-    "\5\6\2\0\1\7\1\6\10\7\1\0\3\7\1\0\3\7\2\0"+
-    "\1\6\17\0\2\6\2\7\2\0\12\7\1\0\1\6\17\0\3\7"+
-    "\1\0\10\6\2\0\2\6\2\0\26\6\1\0\7\6\1\0\2\6"+
-    "\1\0\5\6\2\0\1\7\1\6\7\7\2\0\2\7\2\0\3\7"+
-    "\10\0\2\7\4\0\2\6\1\0\3\6\2\7\2\0\12\7\1\0"+
-    "\1\6\20\0\1\7\1\6\1\0\6\6\3\0\3\6\1\0\4\6"+
-    "\3\0\2\6\1\0\1\6\1\0\2\6\3\0\2\6\3\0\3\6"+
-    "\3\0\14\6\4\0\5\7\3\0\3\7\1\0\4\7\2\0\1\6"+
-    "\6\0\1\7\16\0\12\7\11\0\1\6\7\0\3\7\1\0\10\6"+
-    "\1\0\3\6\1\0\27\6\1\0\12\6\1\0\5\6\3\0\1\6"+
-    "\7\7\1\0\3\7\1\0\4\7\7\0\2\7\1\0\2\6\6\0"+
-    "\2\6\2\7\2\0\12\7\22\0\2\7\1\0\10\6\1\0\3\6"+
-    "\1\0\27\6\1\0\12\6\1\0\5\6\2\0\1\7\1\6\7\7"+
-    "\1\0\3\7\1\0\4\7\7\0\2\7\7\0\1\6\1\0\2\6"+
-    "\2\7\2\0\12\7\1\0\2\6\17\0\2\7\1\0\10\6\1\0"+
-    "\3\6\1\0\51\6\2\0\1\6\7\7\1\0\3\7\1\0\4\7"+
-    "\1\6\10\0\1\7\10\0\2\6\2\7\2\0\12\7\12\0\6\6"+
-    "\2\0\2\7\1\0\22\6\3\0\30\6\1\0\11\6\1\0\1\6"+
-    "\2\0\7\6\3\0\1\7\4\0\6\7\1\0\1\7\1\0\10\7"+
-    "\22\0\2\7\15\0\60\6\1\7\2\6\7\7\4\0\10\6\10\7"+
-    "\1\0\12\7\47\0\2\6\1\0\1\6\2\0\2\6\1\0\1\6"+
-    "\2\0\1\6\6\0\4\6\1\0\7\6\1\0\3\6\1\0\1\6"+
-    "\1\0\1\6\2\0\2\6\1\0\4\6\1\7\2\6\6\7\1\0"+
-    "\2\7\1\6\2\0\5\6\1\0\1\6\1\0\6\7\2\0\12\7"+
-    "\2\0\4\6\40\0\1\6\27\0\2\7\6\0\12\7\13\0\1\7"+
-    "\1\0\1\7\1\0\1\7\4\0\2\7\10\6\1\0\44\6\4\0"+
-    "\24\7\1\0\2\7\5\6\13\7\1\0\44\7\11\0\1\7\71\0"+
-    "\53\6\24\7\1\6\12\7\6\0\6\6\4\7\4\6\3\7\1\6"+
-    "\3\7\2\6\7\7\3\6\4\7\15\6\14\7\1\6\17\7\2\0"+
-    "\46\6\1\0\1\6\5\0\1\6\2\0\53\6\1\0\u014d\6\1\0"+
-    "\4\6\2\0\7\6\1\0\1\6\1\0\4\6\2\0\51\6\1\0"+
-    "\4\6\2\0\41\6\1\0\4\6\2\0\7\6\1\0\1\6\1\0"+
-    "\4\6\2\0\17\6\1\0\71\6\1\0\4\6\2\0\103\6\2\0"+
-    "\3\7\40\0\20\6\20\0\125\6\14\0\u026c\6\2\0\21\6\1\0"+
-    "\32\6\5\0\113\6\3\0\3\6\17\0\15\6\1\0\4\6\3\7"+
-    "\13\0\22\6\3\7\13\0\22\6\2\7\14\0\15\6\1\0\3\6"+
-    "\1\0\2\7\14\0\64\6\40\7\3\0\1\6\3\0\2\6\1\7"+
-    "\2\0\12\7\41\0\3\7\2\0\12\7\6\0\130\6\10\0\51\6"+
-    "\1\7\1\6\5\0\106\6\12\0\35\6\3\0\14\7\4\0\14\7"+
-    "\12\0\12\7\36\6\2\0\5\6\13\0\54\6\4\0\21\7\7\6"+
-    "\2\7\6\0\12\7\46\0\27\6\5\7\4\0\65\6\12\7\1\0"+
-    "\35\7\2\0\13\7\6\0\12\7\15\0\1\6\130\0\5\7\57\6"+
-    "\21\7\7\6\4\0\12\7\21\0\11\7\14\0\3\7\36\6\15\7"+
-    "\2\6\12\7\54\6\16\7\14\0\44\6\24\7\10\0\12\7\3\0"+
-    "\3\6\12\7\44\6\122\0\3\7\1\0\25\7\4\6\1\7\4\6"+
-    "\3\7\2\6\11\0\300\6\47\7\25\0\4\7\u0116\6\2\0\6\6"+
-    "\2\0\46\6\2\0\6\6\2\0\10\6\1\0\1\6\1\0\1\6"+
-    "\1\0\1\6\1\0\37\6\2\0\65\6\1\0\7\6\1\0\1\6"+
-    "\3\0\3\6\1\0\7\6\3\0\4\6\2\0\6\6\4\0\15\6"+
-    "\5\0\3\6\1\0\7\6\16\0\5\7\32\0\5\7\20\0\2\6"+
-    "\23\0\1\6\13\0\5\7\5\0\6\7\1\0\1\6\15\0\1\6"+
-    "\20\0\15\6\3\0\33\6\25\0\15\7\4\0\1\7\3\0\14\7"+
-    "\21\0\1\6\4\0\1\6\2\0\12\6\1\0\1\6\3\0\5\6"+
-    "\6\0\1\6\1\0\1\6\1\0\1\6\1\0\4\6\1\0\13\6"+
-    "\2\0\4\6\5\0\5\6\4\0\1\6\21\0\51\6\u0a77\0\57\6"+
-    "\1\0\57\6\1\0\205\6\6\0\4\6\3\7\2\6\14\0\46\6"+
-    "\1\0\1\6\5\0\1\6\2\0\70\6\7\0\1\6\17\0\1\7"+
-    "\27\6\11\0\7\6\1\0\7\6\1\0\7\6\1\0\7\6\1\0"+
-    "\7\6\1\0\7\6\1\0\7\6\1\0\7\6\1\0\40\7\57\0"+
-    "\1\6\u01d5\0\3\6\31\0\11\6\6\7\1\0\5\6\2\0\5\6"+
-    "\4\0\126\6\2\0\2\7\2\0\3\6\1\0\132\6\1\0\4\6"+
-    "\5\0\51\6\3\0\136\6\21\0\33\6\65\0\20\6\u0200\0\u19b6\6"+
-    "\112\0\u51cd\6\63\0\u048d\6\103\0\56\6\2\0\u010d\6\3\0\20\6"+
-    "\12\7\2\6\24\0\57\6\1\7\4\0\12\7\1\0\31\6\7\0"+
-    "\1\7\120\6\2\7\45\0\11\6\2\0\147\6\2\0\4\6\1\0"+
-    "\4\6\14\0\13\6\115\0\12\6\1\7\3\6\1\7\4\6\1\7"+
-    "\27\6\5\7\20\0\1\6\7\0\64\6\14\0\2\7\62\6\21\7"+
-    "\13\0\12\7\6\0\22\7\6\6\3\0\1\6\4\0\12\7\34\6"+
-    "\10\7\2\0\27\6\15\7\14\0\35\6\3\0\4\7\57\6\16\7"+
-    "\16\0\1\6\12\7\46\0\51\6\16\7\11\0\3\6\1\7\10\6"+
-    "\2\7\2\0\12\7\6\0\27\6\3\0\1\6\1\7\4\0\60\6"+
-    "\1\7\1\6\3\7\2\6\2\7\5\6\2\7\1\6\1\7\1\6"+
-    "\30\0\3\6\2\0\13\6\5\7\2\0\3\6\2\7\12\0\6\6"+
-    "\2\0\6\6\2\0\6\6\11\0\7\6\1\0\7\6\221\0\43\6"+
-    "\10\7\1\0\2\7\2\0\12\7\6\0\u2ba4\6\14\0\27\6\4\0"+
-    "\61\6\u2104\0\u016e\6\2\0\152\6\46\0\7\6\14\0\5\6\5\0"+
-    "\1\6\1\7\12\6\1\0\15\6\1\0\5\6\1\0\1\6\1\0"+
-    "\2\6\1\0\2\6\1\0\154\6\41\0\u016b\6\22\0\100\6\2\0"+
-    "\66\6\50\0\15\6\3\0\20\7\20\0\7\7\14\0\2\6\30\0"+
-    "\3\6\31\0\1\6\6\0\5\6\1\0\207\6\2\0\1\7\4\0"+
-    "\1\6\13\0\12\7\7\0\32\6\4\0\1\6\1\0\32\6\13\0"+
-    "\131\6\3\0\6\6\2\0\6\6\2\0\6\6\2\0\3\6\3\0"+
-    "\2\6\3\0\2\6\22\0\3\7\4\0\14\6\1\0\32\6\1\0"+
-    "\23\6\1\0\2\6\1\0\17\6\2\0\16\6\42\0\173\6\105\0"+
-    "\65\6\210\0\1\7\202\0\35\6\3\0\61\6\57\0\37\6\21\0"+
-    "\33\6\65\0\36\6\2\0\44\6\4\0\10\6\1\0\5\6\52\0"+
-    "\236\6\2\0\12\7\u0356\0\6\6\2\0\1\6\1\0\54\6\1\0"+
-    "\2\6\3\0\1\6\2\0\27\6\252\0\26\6\12\0\32\6\106\0"+
-    "\70\6\6\0\2\6\100\0\1\6\3\7\1\0\2\7\5\0\4\7"+
-    "\4\6\1\0\3\6\1\0\33\6\4\0\3\7\4\0\1\7\40\0"+
-    "\35\6\203\0\66\6\12\0\26\6\12\0\23\6\215\0\111\6\u03b7\0"+
-    "\3\7\65\6\17\7\37\0\12\7\20\0\3\7\55\6\13\7\2\0"+
-    "\1\7\22\0\31\6\7\0\12\7\6\0\3\7\44\6\16\7\1\0"+
-    "\12\7\100\0\3\7\60\6\16\7\4\6\13\0\12\7\u04a6\0\53\6"+
-    "\15\7\10\0\12\7\u0936\0\u036f\6\221\0\143\6\u0b9d\0\u042f\6\u33d1\0"+
-    "\u0239\6\u04c7\0\105\6\13\0\1\6\56\7\20\0\4\7\15\6\u4060\0"+
-    "\2\6\u2163\0\5\7\3\0\26\7\2\0\7\7\36\0\4\7\224\0"+
-    "\3\7\u01bb\0\125\6\1\0\107\6\1\0\2\6\2\0\1\6\2\0"+
-    "\2\6\2\0\4\6\1\0\14\6\1\0\1\6\1\0\7\6\1\0"+
-    "\101\6\1\0\4\6\2\0\10\6\1\0\7\6\1\0\34\6\1\0"+
-    "\4\6\1\0\5\6\1\0\1\6\3\0\7\6\1\0\u0154\6\2\0"+
-    "\31\6\1\0\31\6\1\0\37\6\1\0\31\6\1\0\37\6\1\0"+
-    "\31\6\1\0\37\6\1\0\31\6\1\0\37\6\1\0\31\6\1\0"+
-    "\10\6\2\0\62\7\u1600\0\4\6\1\0\33\6\1\0\2\6\1\0"+
-    "\1\6\2\0\1\6\1\0\12\6\1\0\4\6\1\0\1\6\1\0"+
-    "\1\6\6\0\1\6\4\0\1\6\1\0\1\6\1\0\1\6\1\0"+
-    "\3\6\1\0\2\6\1\0\1\6\2\0\1\6\1\0\1\6\1\0"+
-    "\1\6\1\0\1\6\1\0\1\6\1\0\2\6\1\0\1\6\2\0"+
-    "\4\6\1\0\7\6\1\0\4\6\1\0\4\6\1\0\1\6\1\0"+
-    "\12\6\1\0\21\6\5\0\3\6\1\0\5\6\1\0\21\6\u1144\0"+
-    "\ua6d7\6\51\0\u1035\6\13\0\336\6\u3fe2\0\u021e\6\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\u05ee\0"+
+    "\2\0\4\6\1\0\1\6\6\0\1\6\1\0\3\6\1\0\1\6"+
+    "\1\0\24\6\1\0\123\6\1\0\213\6\1\0\5\7\2\0\246\6"+
+    "\1\0\46\6\2\0\1\6\6\0\51\6\6\0\1\6\1\0\55\7"+
+    "\1\0\1\7\1\0\2\7\1\0\2\7\1\0\1\7\10\0\33\6"+
+    "\4\0\4\6\15\0\6\7\5\0\1\6\4\0\13\7\1\0\1\7"+
+    "\3\0\53\6\37\7\4\0\2\6\1\7\143\6\1\0\1\6\10\7"+
+    "\1\0\6\7\2\6\2\7\1\0\4\7\2\6\12\7\3\6\2\0"+
+    "\1\6\17\0\1\7\1\6\1\7\36\6\33\7\2\0\131\6\13\7"+
+    "\1\6\16\0\12\7\41\6\11\7\2\6\4\0\1\6\2\0\1\7"+
+    "\30\6\4\7\1\6\11\7\1\6\3\7\1\6\5\7\22\0\31\6"+
+    "\3\7\4\0\13\6\65\0\25\6\1\0\22\6\13\0\61\7\66\6"+
+    "\3\7\1\6\22\7\1\6\7\7\12\6\2\7\2\0\12\7\1\0"+
+    "\20\6\3\7\1\0\10\6\2\0\2\6\2\0\26\6\1\0\7\6"+
+    "\1\0\1\6\3\0\4\6\2\0\1\7\1\6\7\7\2\0\2\7"+
+    "\2\0\3\7\1\6\10\0\1\7\4\0\2\6\1\0\3\6\2\7"+
+    "\2\0\12\7\4\6\7\0\2\6\1\0\1\7\2\0\3\7\1\0"+
+    "\6\6\4\0\2\6\2\0\26\6\1\0\7\6\1\0\2\6\1\0"+
+    "\2\6\1\0\2\6\2\0\1\7\1\0\5\7\4\0\2\7\2\0"+
+    "\3\7\3\0\1\7\7\0\4\6\1\0\1\6\7\0\14\7\3\6"+
+    "\1\7\13\0\3\7\1\0\11\6\1\0\3\6\1\0\26\6\1\0"+
+    "\7\6\1\0\2\6\1\0\5\6\2\0\1\7\1\6\10\7\1\0"+
+    "\3\7\1\0\3\7\2\0\1\6\17\0\2\6\2\7\2\0\12\7"+
+    "\1\0\1\6\7\0\1\6\6\7\1\0\3\7\1\0\10\6\2\0"+
+    "\2\6\2\0\26\6\1\0\7\6\1\0\2\6\1\0\5\6\2\0"+
+    "\1\7\1\6\7\7\2\0\2\7\2\0\3\7\7\0\3\7\4\0"+
+    "\2\6\1\0\3\6\2\7\2\0\12\7\1\0\1\6\20\0\1\7"+
+    "\1\6\1\0\6\6\3\0\3\6\1\0\4\6\3\0\2\6\1\0"+
+    "\1\6\1\0\2\6\3\0\2\6\3\0\3\6\3\0\14\6\4\0"+
+    "\5\7\3\0\3\7\1\0\4\7\2\0\1\6\6\0\1\7\16\0"+
+    "\12\7\11\0\1\6\6\0\5\7\10\6\1\0\3\6\1\0\27\6"+
+    "\1\0\20\6\3\0\1\6\7\7\1\0\3\7\1\0\4\7\7\0"+
+    "\2\7\1\0\3\6\5\0\2\6\2\7\2\0\12\7\20\0\1\6"+
+    "\3\7\1\0\10\6\1\0\3\6\1\0\27\6\1\0\12\6\1\0"+
+    "\5\6\2\0\1\7\1\6\7\7\1\0\3\7\1\0\4\7\7\0"+
+    "\2\7\7\0\1\6\1\0\2\6\2\7\2\0\12\7\1\0\2\6"+
+    "\15\0\4\7\11\6\1\0\3\6\1\0\51\6\2\7\1\6\7\7"+
+    "\1\0\3\7\1\0\4\7\1\6\5\0\3\6\1\7\7\0\3\6"+
+    "\2\7\2\0\12\7\12\0\6\6\1\0\3\7\1\0\22\6\3\0"+
+    "\30\6\1\0\11\6\1\0\1\6\2\0\7\6\3\0\1\7\4\0"+
+    "\6\7\1\0\1\7\1\0\10\7\6\0\12\7\2\0\2\7\15\0"+
+    "\60\6\1\7\2\6\7\7\4\0\10\6\10\7\1\0\12\7\47\0"+
+    "\2\6\1\0\1\6\1\0\5\6\1\0\30\6\1\0\1\6\1\0"+
+    "\12\6\1\7\2\6\11\7\1\6\2\0\5\6\1\0\1\6\1\0"+
+    "\6\7\2\0\12\7\2\0\4\6\40\0\1\6\27\0\2\7\6\0"+
+    "\12\7\13\0\1\7\1\0\1\7\1\0\1\7\4\0\2\7\10\6"+
+    "\1\0\44\6\4\0\24\7\1\0\2\7\5\6\13\7\1\0\44\7"+
+    "\11\0\1\7\71\0\53\6\24\7\1\6\12\7\6\0\6\6\4\7"+
+    "\4\6\3\7\1\6\3\7\2\6\7\7\3\6\4\7\15\6\14\7"+
+    "\1\6\17\7\2\0\46\6\1\0\1\6\5\0\1\6\2\0\53\6"+
+    "\1\0\u014d\6\1\0\4\6\2\0\7\6\1\0\1\6\1\0\4\6"+
+    "\2\0\51\6\1\0\4\6\2\0\41\6\1\0\4\6\2\0\7\6"+
+    "\1\0\1\6\1\0\4\6\2\0\17\6\1\0\71\6\1\0\4\6"+
+    "\2\0\103\6\2\0\3\7\40\0\20\6\20\0\126\6\2\0\6\6"+
+    "\3\0\u026c\6\2\0\21\6\1\0\32\6\5\0\113\6\3\0\13\6"+
+    "\7\0\15\6\1\0\4\6\3\7\13\0\22\6\3\7\13\0\22\6"+
+    "\2\7\14\0\15\6\1\0\3\6\1\0\2\7\14\0\64\6\40\7"+
+    "\3\0\1\6\3\0\2\6\1\7\2\0\12\7\41\0\4\7\1\0"+
+    "\12\7\6\0\131\6\7\0\5\6\2\7\42\6\1\7\1\6\5\0"+
+    "\106\6\12\0\37\6\1\0\14\7\4\0\14\7\12\0\12\7\36\6"+
+    "\2\0\5\6\13\0\54\6\4\0\32\6\6\0\12\7\46\0\27\6"+
+    "\5\7\4\0\65\6\12\7\1\0\35\7\2\0\13\7\6\0\12\7"+
+    "\15\0\1\6\10\0\16\7\1\0\2\7\77\0\5\7\57\6\21\7"+
+    "\7\6\4\0\12\7\21\0\11\7\14\0\3\7\36\6\15\7\2\6"+
+    "\12\7\54\6\16\7\14\0\44\6\24\7\10\0\12\7\3\0\3\6"+
+    "\12\7\44\6\2\0\11\6\7\0\53\6\2\0\3\6\20\0\3\7"+
+    "\1\0\25\7\4\6\1\7\6\6\1\7\2\6\3\7\1\6\5\0"+
+    "\300\6\72\7\1\0\5\7\u0116\6\2\0\6\6\2\0\46\6\2\0"+
+    "\6\6\2\0\10\6\1\0\1\6\1\0\1\6\1\0\1\6\1\0"+
+    "\37\6\2\0\65\6\1\0\7\6\1\0\1\6\3\0\3\6\1\0"+
+    "\7\6\3\0\4\6\2\0\6\6\4\0\15\6\5\0\3\6\1\0"+
+    "\7\6\16\0\5\7\32\0\5\7\20\0\2\6\23\0\1\6\13\0"+
+    "\5\7\1\0\12\7\1\0\1\6\15\0\1\6\20\0\15\6\3\0"+
+    "\40\6\20\0\15\7\4\0\1\7\3\0\14\7\21\0\1\6\4\0"+
+    "\1\6\2\0\12\6\1\0\1\6\3\0\5\6\6\0\1\6\1\0"+
+    "\1\6\1\0\1\6\1\0\4\6\1\0\13\6\2\0\4\6\5\0"+
+    "\5\6\4\0\1\6\21\0\51\6\u0a77\0\57\6\1\0\57\6\1\0"+
+    "\205\6\6\0\4\6\3\7\2\6\14\0\46\6\1\0\1\6\5\0"+
+    "\1\6\2\0\70\6\7\0\1\6\17\0\1\7\27\6\11\0\7\6"+
+    "\1\0\7\6\1\0\7\6\1\0\7\6\1\0\7\6\1\0\7\6"+
+    "\1\0\7\6\1\0\7\6\1\0\40\7\57\0\1\6\u01d5\0\3\6"+
+    "\31\0\11\6\6\7\1\0\5\6\2\0\5\6\4\0\126\6\2\0"+
+    "\2\7\2\0\3\6\1\0\132\6\1\0\4\6\5\0\53\6\1\0"+
+    "\136\6\21\0\40\6\60\0\20\6\u0200\0\u19c0\6\100\0\u51fd\6\3\0"+
+    "\u048d\6\103\0\56\6\2\0\u010d\6\3\0\20\6\12\7\2\6\24\0"+
+    "\57\6\1\7\4\0\12\7\1\0\37\6\2\7\120\6\2\7\45\0"+
+    "\11\6\2\0\147\6\2\0\65\6\2\0\11\6\52\0\15\6\1\7"+
+    "\3\6\1\7\4\6\1\7\27\6\5\7\4\0\1\7\13\0\1\6"+
+    "\7\0\64\6\14\0\2\7\62\6\22\7\12\0\12\7\6\0\22\7"+
+    "\6\6\3\0\1\6\1\0\2\6\13\7\34\6\10\7\2\0\27\6"+
+    "\15\7\14\0\35\6\3\0\4\7\57\6\16\7\16\0\1\6\12\7"+
+    "\6\0\5\6\1\7\12\6\12\7\5\6\1\0\51\6\16\7\11\0"+
+    "\3\6\1\7\10\6\2\7\2\0\12\7\6\0\27\6\3\0\1\6"+
+    "\3\7\62\6\1\7\1\6\3\7\2\6\2\7\5\6\2\7\1\6"+
+    "\1\7\1\6\30\0\3\6\2\0\13\6\5\7\2\0\3\6\2\7"+
+    "\12\0\6\6\2\0\6\6\2\0\6\6\11\0\7\6\1\0\7\6"+
+    "\1\0\53\6\1\0\16\6\6\0\163\6\10\7\1\0\2\7\2\0"+
+    "\12\7\6\0\u2ba4\6\14\0\27\6\4\0\61\6\u2104\0\u016e\6\2\0"+
+    "\152\6\46\0\7\6\14\0\5\6\5\0\1\6\1\7\12\6\1\0"+
+    "\15\6\1\0\5\6\1\0\1\6\1\0\2\6\1\0\2\6\1\0"+
+    "\154\6\41\0\u016b\6\22\0\100\6\2\0\66\6\50\0\15\6\3\0"+
+    "\20\7\20\0\20\7\3\0\2\6\30\0\3\6\31\0\1\6\6\0"+
+    "\5\6\1\0\207\6\2\0\1\7\4\0\1\6\13\0\12\7\7\0"+
+    "\32\6\4\0\1\6\1\0\32\6\13\0\131\6\3\0\6\6\2\0"+
+    "\6\6\2\0\6\6\2\0\3\6\3\0\2\6\3\0\2\6\22\0"+
+    "\3\7\4\0\14\6\1\0\32\6\1\0\23\6\1\0\2\6\1\0"+
+    "\17\6\2\0\16\6\42\0\173\6\105\0\65\6\210\0\1\7\202\0"+
+    "\35\6\3\0\61\6\17\0\1\7\37\0\40\6\15\0\36\6\5\0"+
+    "\46\6\5\7\5\0\36\6\2\0\44\6\4\0\10\6\1\0\5\6"+
+    "\52\0\236\6\2\0\12\7\6\0\44\6\4\0\44\6\4\0\50\6"+
+    "\10\0\64\6\234\0\u0137\6\11\0\26\6\12\0\10\6\230\0\6\6"+
+    "\2\0\1\6\1\0\54\6\1\0\2\6\3\0\1\6\2\0\27\6"+
+    "\12\0\27\6\11\0\37\6\101\0\23\6\1\0\2\6\12\0\26\6"+
+    "\12\0\32\6\106\0\70\6\6\0\2\6\100\0\1\6\3\7\1\0"+
+    "\2\7\5\0\4\7\4\6\1\0\3\6\1\0\35\6\2\0\3\7"+
+    "\4\0\1\7\40\0\35\6\3\0\35\6\43\0\10\6\1\0\34\6"+
+    "\2\7\31\0\66\6\12\0\26\6\12\0\23\6\15\0\22\6\156\0"+
+    "\111\6\67\0\63\6\15\0\63\6\15\0\44\6\4\7\10\0\12\7"+
+    "\u0146\0\52\6\1\0\2\7\3\0\2\6\116\0\35\6\12\0\1\6"+
+    "\10\0\26\6\13\7\137\0\25\6\33\0\27\6\11\0\3\7\65\6"+
+    "\17\7\37\0\12\7\17\0\4\7\55\6\13\7\2\0\1\7\17\0"+
+    "\1\7\2\0\31\6\7\0\12\7\6\0\3\7\44\6\16\7\1\0"+
+    "\12\7\4\0\1\6\2\7\1\6\10\0\43\6\1\7\2\0\1\6"+
+    "\11\0\3\7\60\6\16\7\4\6\4\0\4\7\1\0\14\7\1\6"+
+    "\1\0\1\6\43\0\22\6\1\0\31\6\14\7\6\0\1\7\101\0"+
+    "\7\6\1\0\1\6\1\0\4\6\1\0\17\6\1\0\12\6\7\0"+
+    "\57\6\14\7\5\0\12\7\6\0\4\7\1\0\10\6\2\0\2\6"+
+    "\2\0\26\6\1\0\7\6\1\0\2\6\1\0\5\6\1\0\2\7"+
+    "\1\6\7\7\2\0\2\7\2\0\3\7\2\0\1\6\6\0\1\7"+
+    "\5\0\5\6\2\7\2\0\7\7\3\0\5\7\213\0\65\6\22\7"+
+    "\4\6\5\0\12\7\4\0\1\7\3\6\36\0\60\6\24\7\2\6"+
+    "\1\0\1\6\10\0\12\7\246\0\57\6\7\7\2\0\11\7\27\0"+
+    "\4\6\2\7\42\0\60\6\21\7\3\0\1\6\13\0\12\7\46\0"+
+    "\53\6\15\7\1\6\7\0\12\7\66\0\33\6\2\0\17\7\4\0"+
+    "\12\7\306\0\54\6\17\7\145\0\100\6\12\7\25\0\10\6\2\0"+
+    "\1\6\2\0\10\6\1\0\2\6\1\0\30\6\6\7\1\0\2\7"+
+    "\2\0\4\7\1\6\1\7\1\6\2\7\14\0\12\7\106\0\10\6"+
+    "\2\0\47\6\7\7\2\0\7\7\1\6\1\0\1\6\1\7\33\0"+
+    "\1\6\12\7\50\6\7\7\1\6\4\7\10\0\1\7\10\0\1\6"+
+    "\13\7\56\6\20\7\3\0\1\6\42\0\71\6\u0107\0\11\6\1\0"+
+    "\45\6\10\7\1\0\10\7\1\6\17\0\12\7\30\0\36\6\2\0"+
+    "\26\7\1\0\16\7\111\0\7\6\1\0\2\6\1\0\46\6\6\7"+
+    "\3\0\1\7\1\0\2\7\1\0\7\7\1\6\1\7\10\0\12\7"+
+    "\6\0\6\6\1\0\2\6\1\0\40\6\5\7\1\0\2\7\1\0"+
+    "\5\7\1\6\7\0\12\7\u0136\0\23\6\4\7\271\0\1\6\54\0"+
+    "\4\6\37\0\u039a\6\146\0\157\6\21\0\304\6\u0abc\0\u042f\6\1\0"+
+    "\11\7\u0fc7\0\u0247\6\u21b9\0\u0239\6\7\0\37\6\1\0\12\7\146\0"+
+    "\36\6\2\0\5\7\13\0\60\6\7\7\11\0\4\6\14\0\12\7"+
+    "\11\0\25\6\5\0\23\6\u02b0\0\100\6\200\0\113\6\4\0\1\7"+
+    "\1\6\67\7\7\0\4\7\15\6\100\0\2\6\1\0\1\6\1\7"+
+    "\13\0\2\7\16\0\u17f8\6\10\0\u04d6\6\52\0\11\6\u22f7\0\u011f\6"+
+    "\61\0\3\6\21\0\4\6\10\0\u018c\6\u0904\0\153\6\5\0\15\6"+
+    "\3\0\11\6\7\0\12\6\3\0\2\7\1\0\4\7\u14c1\0\5\7"+
+    "\3\0\26\7\2\0\7\7\36\0\4\7\224\0\3\7\u01bb\0\125\6"+
+    "\1\0\107\6\1\0\2\6\2\0\1\6\2\0\2\6\2\0\4\6"+
+    "\1\0\14\6\1\0\1\6\1\0\7\6\1\0\101\6\1\0\4\6"+
+    "\2\0\10\6\1\0\7\6\1\0\34\6\1\0\4\6\1\0\5\6"+
+    "\1\0\1\6\3\0\7\6\1\0\u0154\6\2\0\31\6\1\0\31\6"+
+    "\1\0\37\6\1\0\31\6\1\0\37\6\1\0\31\6\1\0\37\6"+
+    "\1\0\31\6\1\0\37\6\1\0\31\6\1\0\10\6\2\0\62\7"+
+    "\u0200\0\67\7\4\0\62\7\10\0\1\7\16\0\1\7\26\0\5\7"+
+    "\1\0\17\7\u0550\0\7\7\1\0\21\7\2\0\7\7\1\0\2\7"+
+    "\1\0\5\7\325\0\55\6\3\0\7\7\7\6\2\0\12\7\4\0"+
+    "\1\6\u0171\0\54\6\16\7\5\0\1\6\u0500\0\305\6\13\0\7\7"+
+    "\51\0\104\6\7\7\1\6\4\0\12\7\u0356\0\1\6\u014f\0\4\6"+
+    "\1\0\33\6\1\0\2\6\1\0\1\6\2\0\1\6\1\0\12\6"+
+    "\1\0\4\6\1\0\1\6\1\0\1\6\6\0\1\6\4\0\1\6"+
+    "\1\0\1\6\1\0\1\6\1\0\3\6\1\0\2\6\1\0\1\6"+
+    "\2\0\1\6\1\0\1\6\1\0\1\6\1\0\1\6\1\0\1\6"+
+    "\1\0\2\6\1\0\1\6\2\0\4\6\1\0\7\6\1\0\4\6"+
+    "\1\0\4\6\1\0\1\6\1\0\12\6\1\0\21\6\5\0\3\6"+
+    "\1\0\5\6\1\0\21\6\u0d34\0\12\7\u0406\0\ua6de\6\42\0\u1035\6"+
+    "\13\0\336\6\2\0\u1682\6\16\0\u1d31\6\u0c1f\0\u021e\6\u05e2\0\u134b\6"+
+    "\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uffff\0\uecc0\0"+
     "\1\7\36\0\140\7\200\0\360\7\uffff\0\uffff\0\ufe12\0";
 
   /** 
@@ -446,7 +489,10 @@ public final class Lexer implements java_cup.runtime.Scanner {
   private int zzFinalHighSurrogate = 0;
 
   /* user code: */
-    private StringBuffer sb = new StringBuffer();
+    private StringBuilder sb = new StringBuilder();
+
+    /* The identifiers scanned so far, so that a name which appears again does not create a new String. */
+    private final NameTable names = new NameTable();
 
     private Symbol createSymbol(int type) {
         return new Symbol(type, yyline+1, yycolumn+1);
@@ -456,6 +502,17 @@ public final class Lexer implements java_cup.runtime.Scanner {
         return new Symbol(type, yyline+1, yycolumn+1, value);
     }
 
+    /* Parses the matched integer literal straight from the buffer, without creating its text. */
+    private Integer integerValue() {
+        int length = yylength();
+        if (length > 9)
+            return Integer.valueOf(yytext()); // may overflow, let Integer report it
+        int value = 0;
+        for (int i = zzStartRead; i < zzMarkedPos; i++)
+            value = value * 10 + (zzBuffer[i] - '0');
+        return Integer.valueOf(value);
+    }
+
 
   /**
    * Creates a new scanner
@@ -477,7 +534,7 @@ public final class Lexer implements java_cup.runtime.Scanner {
     char [] map = new char[0x110000];
     int i = 0;  /* index in packed string  */
     int j = 0;  /* index in unpacked array */
-    while (i < 2854) {
+    while (i < 3678) {
       int  count = packed.charAt(i++);
       char value = packed.charAt(i++);
       do map[j++] = value; while (--count > 0);
@@ -858,11 +915,11 @@ public final class Lexer implements java_cup.runtime.Scanner {
             }
           case 55: break;
           case 5: 
-            { return createSymbol(sym.IDENTIFIER, yytext());
+            { return createSymbol(sym.IDENTIFIER, names.intern(zzBuffer, zzStartRead, yylength()));
             }
           case 56: break;
           case 6: 
-            { return createSymbol(sym.INTEGER_LITERAL, Integer.valueOf(yytext()));
+            { return createSymbol(sym.INTEGER_LITERAL, integerValue());
             }
           case 57: break;
           case 7: 
@@ -926,7 +983,7 @@ public final class Lexer implements java_cup.runtime.Scanner {
             }
           case 72: break;
           case 22: 
-            { sb.append(yytext());
+            { sb.append(zzBuffer, zzStartRead, yylength());
             }
           case 73: break;
           case 23: 
@@ -13,14 +13,16 @@ import org.hua.symbol.LocalIndexPool;
 class LocalIndexBuilderASTVisitor implements ASTVisitor {
 
     private final Deque<LocalIndexPool> env;
+    private final Registry registry;
 
-    LocalIndexBuilderASTVisitor() {
+    LocalIndexBuilderASTVisitor(Registry registry) {
         env = new ArrayDeque<LocalIndexPool>();
+        this.registry = registry;
     }
 
     @Override
     public void visit(CompUnit node) throws ASTVisitorException {
-        env.push(new LocalIndexPool());
+        env.push(new LocalIndexPool(registry));
         ASTUtils.setLocalIndexPool(node, env.element());
         for (ClassDefinition c : node.getClassDefinitionList()) {
             c.accept(this);
@@ -0,0 +1,702 @@
+package org.hua;
+
+import org.objectweb.asm.ConstantDynamic;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the instructions of a complete method to a MethodVisitor, with the maximum stack size and the
+ * StackMapTable frames that it computes itself, for the stream backend.
+ * <br>
+ * The types of the values in the local variables and on the stack are tracked slot by slot, as the JVM does,
+ * over the basic blocks of the method. Two different references merge to java/lang/Object, which is exact
+ * since every huava class extends it directly, so unlike the ClassWriter no class is ever loaded.
+ * <br>
+ * The instructions which are never reached are not written, so that they need no frames.
+ */
+final class MethodStreamer {
+
+    /**
+     * The internal name of the common super class of two different references.
+     */
+    private static final String OBJECT = "java/lang/Object";
+
+    /**
+     * The class of the method.
+     */
+    private final String owner;
+
+    /**
+     * The instructions of the method.
+     */
+    private final AbstractInsnNode[] instructions;
+
+    /**
+     * The basic block which starts at every instruction, or null if none does.
+     */
+    private final Block[] blocks;
+
+    /**
+     * The number of slots of the local variables.
+     */
+    private final int maxLocals;
+
+    /**
+     * The position of every label.
+     */
+    private final Map<LabelNode, Integer> labelPositions;
+
+    /**
+     * The labels of the NEW instructions, since a frame refers to an uninitialized object
+     * by the position of the instruction which created it.
+     */
+    private final Map<TypeInsnNode, Label> newLabels;
+
+    /**
+     * The class created by each of the NEW instructions of newLabels, by its label.
+     */
+    private final Map<Label, String> newTypes;
+
+    /**
+     * The largest number of slots on the stack.
+     */
+    private int maxStack;
+
+    private MethodStreamer(String owner, AbstractInsnNode[] instructions, int maxLocals) {
+        this.owner = owner;
+        this.instructions = instructions;
+        this.blocks = new Block[instructions.length];
+        this.maxLocals = maxLocals;
+        this.labelPositions = new IdentityHashMap<LabelNode, Integer>();
+        this.newLabels = new IdentityHashMap<TypeInsnNode, Label>();
+        this.newTypes = new HashMap<Label, String>();
+        this.maxStack = 0;
+    }
+
+    /**
+     * Writes the instructions of a method, from its code to its end.
+     *
+     * @param mv           the visitor of the method.
+     * @param owner        the internal name of the class of the method.
+     * @param access       the access flags of the method.
+     * @param name         the name of the method.
+     * @param desc         the descriptor of the method.
+     * @param instructions the instructions of the method, whose jumps all have their labels.
+     * @param maxLocals    the number of slots of the local variables, including the parameters.
+     * @param frames       true if the frames are written, i.e. the class file is of Java 6 or later.
+     * @throws IllegalStateException if the stack of an instruction underflows or is inconsistent.
+     */
+    static void stream(MethodVisitor mv, String owner, int access, String name, String desc,
+                       InsnList instructions, int maxLocals, boolean frames) {
+        MethodStreamer streamer = new MethodStreamer(owner, instructions.toArray(), maxLocals);
+        streamer.findBlocks();
+        streamer.analyze(streamer.entryState(access, name, desc));
+        streamer.write(mv, frames);
+    }
+
+    /**
+     * Splits the instructions into basic blocks, which start at the first instruction,
+     * at the targets of the jumps and after the instructions which never continue to the next one.
+     */
+    private void findBlocks() {
+        for (int i = 0; i < instructions.length; i++)
+            if (instructions[i] instanceof LabelNode)
+                labelPositions.put((LabelNode) instructions[i], i);
+
+        if (instructions.length > 0)
+            blocks[0] = new Block(0);
+        for (int i = 0; i < instructions.length; i++) {
+            AbstractInsnNode insn = instructions[i];
+            if (insn instanceof JumpInsnNode) {
+                Integer target = labelPositions.get(((JumpInsnNode) insn).label);
+                if (target == null)
+                    throw new IllegalStateException("A jump of the method has no target");
+                if (blocks[target] == null)
+                    blocks[target] = new Block(target);
+                blocks[target].target = true;
+            }
+            if (endsFlow(insn.getOpcode()) && i + 1 < instructions.length && blocks[i + 1] == null)
+                blocks[i + 1] = new Block(i + 1);
+        }
+    }
+
+    /**
+     * Computes the state at the start of every reachable basic block.
+     *
+     * @param entry the state at the start of the method.
+     */
+    private void analyze(State entry) {
+        if (instructions.length == 0)
+            return;
+
+        ArrayDeque<Block> worklist = new ArrayDeque<Block>();
+        merge(entry, blocks[0], worklist);
+        while (!worklist.isEmpty()) {
+            Block block = worklist.poll();
+            block.queued = false;
+
+            State state = block.entry.copy();
+            for (int i = block.start; i < instructions.length; i++) {
+                if (i > block.start && blocks[i] != null) {
+                    merge(state, blocks[i], worklist);
+                    break;
+                }
+                AbstractInsnNode insn = instructions[i];
+                execute(insn, state);
+                if (insn instanceof JumpInsnNode)
+                    merge(state, blocks[labelPositions.get(((JumpInsnNode) insn).label)], worklist);
+                if (endsFlow(insn.getOpcode()))
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Merges a state into the state at the start of a block, which is analyzed again if it changes.
+     */
+    private void merge(State state, Block block, ArrayDeque<Block> worklist) {
+        boolean changed;
+        if (block.entry == null) {
+            block.entry = state.copy();
+            changed = true;
+        } else
+            changed = block.entry.merge(state);
+
+        if (changed && !block.queued) {
+            block.queued = true;
+            worklist.add(block);
+        }
+    }
+
+    /**
+     * Writes the code of the method, with a frame at the start of every reachable block which a jump targets.
+     */
+    private void write(MethodVisitor mv, boolean frames) {
+        Set<Label> framedNews = frames ? framedNews() : Collections.<Label>emptySet();
+
+        mv.visitCode();
+        State frame = null;
+        boolean reachable = false;
+        for (int i = 0; i < instructions.length; i++) {
+            Block block = blocks[i];
+            if (block != null) {
+                reachable = block.entry != null;
+                if (frames && reachable && block.target)
+                    frame = block.entry;
+            }
+
+            AbstractInsnNode insn = instructions[i];
+            if (insn instanceof LabelNode) {
+                insn.accept(mv);
+                continue;
+            }
+            if (!reachable || insn.getType() == AbstractInsnNode.FRAME)
+                continue;
+
+            Label newLabel = insn.getOpcode() == Opcodes.NEW ? newLabels.get(insn) : null;
+            if (newLabel != null && framedNews.contains(newLabel))
+                mv.visitLabel(newLabel);
+            if (frame != null && insn.getOpcode() >= 0) {
+                visitFrame(mv, frame);
+                frame = null;
+            }
+            insn.accept(mv);
+        }
+        mv.visitMaxs(maxStack, maxLocals);
+        mv.visitEnd();
+    }
+
+    /**
+     * Returns the labels of the NEW instructions whose objects are in a frame before they are initialized.
+     */
+    private Set<Label> framedNews() {
+        Set<Label> labels = new HashSet<Label>();
+        for (Block block : blocks)
+            if (block != null && block.target && block.entry != null) {
+                for (Object value : block.entry.locals)
+                    if (value instanceof Label)
+                        labels.add((Label) value);
+                for (int i = 0; i < block.entry.top; i++)
+                    if (block.entry.stack[i] instanceof Label)
+                        labels.add((Label) block.entry.stack[i]);
+            }
+        return labels;
+    }
+
+    /**
+     * Writes a frame in its expanded form, which the MethodWriter compresses.
+     */
+    private static void visitFrame(MethodVisitor mv, State state) {
+        int localCount = state.locals.length;
+        while (localCount > 0 && state.locals[localCount - 1] == Opcodes.TOP
+                && !(localCount > 1 && isWide(state.locals[localCount - 2])))
+            localCount--;
+
+        Object[] locals = frameValues(state.locals, localCount);
+        Object[] stack = frameValues(state.stack, state.top);
+        mv.visitFrame(Opcodes.F_NEW, locals.length, locals, stack.length, stack);
+    }
+
+    /**
+     * Converts slots to the values of a frame, where a long or a double takes a single value.
+     */
+    private static Object[] frameValues(Object[] slots, int count) {
+        Object[] values = new Object[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            values[length++] = slots[i];
+            if (isWide(slots[i]))
+                i++;
+        }
+        return length == count ? values : Arrays.copyOf(values, length);
+    }
+
+    /**
+     * Returns the state at the start of the method, with this and the parameters in their slots.
+     */
+    private State entryState(int access, String name, String desc) {
+        State state = new State(new Object[maxLocals], new Object[4], 0);
+        Arrays.fill(state.locals, Opcodes.TOP);
+
+        int slot = 0;
+        if ((access & Opcodes.ACC_STATIC) == 0)
+            state.locals[slot++] = name.equals("<init>") ? Opcodes.UNINITIALIZED_THIS : owner;
+        for (Type type : Type.getArgumentTypes(desc)) {
+            state.locals[slot] = value(type);
+            slot += type.getSize();
+        }
+        return state;
+    }
+
+    /**
+     * Changes the state as an instruction does.
+     */
+    private void execute(AbstractInsnNode insn, State state) {
+        int opcode = insn.getOpcode();
+        switch (opcode) {
+            case -1:
+            case Opcodes.NOP:
+            case Opcodes.IINC:
+            case Opcodes.I2B:
+            case Opcodes.I2C:
+            case Opcodes.I2S:
+            case Opcodes.INEG:
+            case Opcodes.FNEG:
+            case Opcodes.GOTO:
+            case Opcodes.RETURN:
+                break;
+            case Opcodes.ACONST_NULL:
+                push(state, Opcodes.NULL);
+                break;
+            case Opcodes.ICONST_M1:
+            case Opcodes.ICONST_0:
+            case Opcodes.ICONST_1:
+            case Opcodes.ICONST_2:
+            case Opcodes.ICONST_3:
+            case Opcodes.ICONST_4:
+            case Opcodes.ICONST_5:
+            case Opcodes.BIPUSH:
+            case Opcodes.SIPUSH:
+            case Opcodes.ILOAD:
+                push(state, Opcodes.INTEGER);
+                break;
+            case Opcodes.FCONST_0:
+            case Opcodes.FCONST_1:
+            case Opcodes.FCONST_2:
+            case Opcodes.FLOAD:
+                push(state, Opcodes.FLOAT);
+                break;
+            case Opcodes.LLOAD:
+                push(state, Opcodes.LONG);
+                break;
+            case Opcodes.DLOAD:
+                push(state, Opcodes.DOUBLE);
+                break;
+            case Opcodes.ALOAD:
+                push(state, state.locals[((VarInsnNode) insn).var]);
+                break;
+            case Opcodes.LDC:
+                push(state, constant(((LdcInsnNode) insn).cst));
+                break;
+            case Opcodes.ISTORE:
+            case Opcodes.FSTORE:
+            case Opcodes.ASTORE:
+                store(state, ((VarInsnNode) insn).var, pop(state, 1));
+                break;
+            case Opcodes.LSTORE:
+            case Opcodes.DSTORE:
+                store(state, ((VarInsnNode) insn).var, pop(state, 2));
+                break;
+            case Opcodes.IADD:
+            case Opcodes.ISUB:
+            case Opcodes.IMUL:
+            case Opcodes.IDIV:
+            case Opcodes.IREM:
+            case Opcodes.IAND:
+            case Opcodes.IOR:
+            case Opcodes.IXOR:
+            case Opcodes.ISHL:
+            case Opcodes.ISHR:
+            case Opcodes.IUSHR:
+            case Opcodes.FCMPL:
+            case Opcodes.FCMPG:
+                pop(state, 2);
+                push(state, Opcodes.INTEGER);
+                break;
+            case Opcodes.FADD:
+            case Opcodes.FSUB:
+            case Opcodes.FMUL:
+            case Opcodes.FDIV:
+            case Opcodes.FREM:
+                pop(state, 2);
+                push(state, Opcodes.FLOAT);
+                break;
+            case Opcodes.LCMP:
+            case Opcodes.DCMPL:
+            case Opcodes.DCMPG:
+                pop(state, 4);
+                push(state, Opcodes.INTEGER);
+                break;
+            case Opcodes.I2F:
+                pop(state, 1);
+                push(state, Opcodes.FLOAT);
+                break;
+            case Opcodes.F2I:
+            case Opcodes.ARRAYLENGTH:
+            case Opcodes.INSTANCEOF:
+                pop(state, 1);
+                push(state, Opcodes.INTEGER);
+                break;
+            case Opcodes.POP:
+            case Opcodes.IFEQ:
+            case Opcodes.IFNE:
+            case Opcodes.IFLT:
+            case Opcodes.IFGE:
+            case Opcodes.IFGT:
+            case Opcodes.IFLE:
+            case Opcodes.IFNULL:
+            case Opcodes.IFNONNULL:
+            case Opcodes.IRETURN:
+            case Opcodes.FRETURN:
+            case Opcodes.ARETURN:
+            case Opcodes.ATHROW:
+                pop(state, 1);
+                break;
+            case Opcodes.POP2:
+            case Opcodes.IF_ICMPEQ:
+            case Opcodes.IF_ICMPNE:
+            case Opcodes.IF_ICMPLT:
+            case Opcodes.IF_ICMPGE:
+            case Opcodes.IF_ICMPGT:
+            case Opcodes.IF_ICMPLE:
+            case Opcodes.IF_ACMPEQ:
+            case Opcodes.IF_ACMPNE:
+            case Opcodes.LRETURN:
+            case Opcodes.DRETURN:
+                pop(state, 2);
+                break;
+            case Opcodes.DUP: {
+                Object value = pop(state, 1);
+                push(state, value);
+                push(state, value);
+                break;
+            }
+            case Opcodes.DUP_X1: {
+                Object value1 = pop(state, 1);
+                Object value2 = pop(state, 1);
+                push(state, value1);
+                push(state, value2);
+                push(state, value1);
+                break;
+            }
+            case Opcodes.SWAP: {
+                Object value1 = pop(state, 1);
+                Object value2 = pop(state, 1);
+                push(state, value1);
+                push(state, value2);
+                break;
+            }
+            case Opcodes.GETSTATIC:
+                push(state, value(Type.getType(((FieldInsnNode) insn).desc)));
+                break;
+            case Opcodes.PUTSTATIC:
+                pop(state, Type.getType(((FieldInsnNode) insn).desc).getSize());
+                break;
+            case Opcodes.GETFIELD:
+                pop(state, 1);
+                push(state, value(Type.getType(((FieldInsnNode) insn).desc)));
+                break;
+            case Opcodes.PUTFIELD:
+                pop(state, Type.getType(((FieldInsnNode) insn).desc).getSize() + 1);
+                break;
+            case Opcodes.INVOKEVIRTUAL:
+            case Opcodes.INVOKESPECIAL:
+            case Opcodes.INVOKESTATIC:
+            case Opcodes.INVOKEINTERFACE:
+                invoke((MethodInsnNode) insn, state);
+                break;
+            case Opcodes.INVOKEDYNAMIC: {
+                String desc = ((InvokeDynamicInsnNode) insn).desc;
+                pop(state, (Type.getArgumentsAndReturnSizes(desc) >> 2) - 1);
+                pushResult(state, Type.getReturnType(desc));
+                break;
+            }
+            case Opcodes.NEW: {
+                Label label = newLabels.get(insn);
+                if (label == null) {
+                    label = new Label();
+                    newLabels.put((TypeInsnNode) insn, label);
+                    newTypes.put(label, ((TypeInsnNode) insn).desc);
+                }
+                push(state, label);
+                break;
+            }
+            case Opcodes.CHECKCAST:
+                pop(state, 1);
+                push(state, ((TypeInsnNode) insn).desc);
+                break;
+            default:
+                throw new IllegalStateException("The instruction " + opcode + " is not supported by the stream backend");
+        }
+    }
+
+    /**
+     * Changes the state as a method call does, initializing the object of a constructor call.
+     */
+    private void invoke(MethodInsnNode insn, State state) {
+        pop(state, (Type.getArgumentsAndReturnSizes(insn.desc) >> 2) - 1);
+        if (insn.getOpcode() != Opcodes.INVOKESTATIC) {
+            Object receiver = pop(state, 1);
+            if (insn.name.equals("<init>"))
+                initialize(state, receiver);
+        }
+        pushResult(state, Type.getReturnType(insn.desc));
+    }
+
+    /**
+     * Replaces every copy of an uninitialized object with its class.
+     */
+    private void initialize(State state, Object uninitialized) {
+        String type;
+        if (uninitialized == Opcodes.UNINITIALIZED_THIS)
+            type = owner;
+        else if (uninitialized instanceof Label)
+            type = newTypes.get(uninitialized);
+        else
+            return;
+
+        for (int i = 0; i < state.locals.length; i++)
+            if (state.locals[i] == uninitialized)
+                state.locals[i] = type;
+        for (int i = 0; i < state.top; i++)
+            if (state.stack[i] == uninitialized)
+                state.stack[i] = type;
+    }
+
+    private void push(State state, Object value) {
+        if (state.top + 2 > state.stack.length)
+            state.stack = Arrays.copyOf(state.stack, state.stack.length * 2);
+        state.stack[state.top++] = value;
+        if (isWide(value))
+            state.stack[state.top++] = Opcodes.TOP;
+        if (state.top > maxStack)
+            maxStack = state.top;
+    }
+
+    private void pushResult(State state, Type type) {
+        if (type.getSort() != Type.VOID)
+            push(state, value(type));
+    }
+
+    /**
+     * Pops slots off the stack.
+     *
+     * @return the value in the lowest of the popped slots.
+     */
+    private static Object pop(State state, int slots) {
+        if (slots > state.top)
+            throw new IllegalStateException("The stack of the method underflows");
+        state.top -= slots;
+        return slots > 0 ? state.stack[state.top] : null;
+    }
+
+    private static void store(State state, int var, Object value) {
+        if (var > 0 && isWide(state.locals[var - 1]))
+            state.locals[var - 1] = Opcodes.TOP;
+        state.locals[var] = value;
+        if (isWide(value))
+            state.locals[var + 1] = Opcodes.TOP;
+    }
+
+    /**
+     * Returns the value of a constant which is loaded with LDC.
+     */
+    private static Object constant(Object cst) {
+        if (cst instanceof Integer)
+            return Opcodes.INTEGER;
+        if (cst instanceof Float)
+            return Opcodes.FLOAT;
+        if (cst instanceof Long)
+            return Opcodes.LONG;
+        if (cst instanceof Double)
+            return Opcodes.DOUBLE;
+        if (cst instanceof String)
+            return "java/lang/String";
+        if (cst instanceof Type)
+            return ((Type) cst).getSort() == Type.METHOD ? "java/lang/invoke/MethodType" : "java/lang/Class";
+        if (cst instanceof Handle)
+            return "java/lang/invoke/MethodHandle";
+        return value(Type.getType(((ConstantDynamic) cst).getDescriptor()));
+    }
+
+    /**
+     * Returns the value of a type in a frame.
+     */
+    private static Object value(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+            case Type.CHAR:
+            case Type.BYTE:
+            case Type.SHORT:
+            case Type.INT:
+                return Opcodes.INTEGER;
+            case Type.FLOAT:
+                return Opcodes.FLOAT;
+            case Type.LONG:
+                return Opcodes.LONG;
+            case Type.DOUBLE:
+                return Opcodes.DOUBLE;
+            case Type.ARRAY:
+                return type.getDescriptor();
+            default:
+                return type.getInternalName();
+        }
+    }
+
+    private static boolean isWide(Object value) {
+        return value == Opcodes.LONG || value == Opcodes.DOUBLE;
+    }
+
+    /**
+     * Merges two values, which become java/lang/Object if they are different references
+     * and unusable if they are of different kinds.
+     */
+    private static Object mergeValues(Object value1, Object value2) {
+        if (value1.equals(value2))
+            return value1;
+        if (value1 == Opcodes.NULL && value2 instanceof String)
+            return value2;
+        if (value2 == Opcodes.NULL && value1 instanceof String)
+            return value1;
+        if (value1 instanceof String && value2 instanceof String)
+            return OBJECT;
+        return Opcodes.TOP;
+    }
+
+    private static boolean endsFlow(int opcode) {
+        return opcode == Opcodes.GOTO || opcode == Opcodes.ATHROW
+                || (opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN);
+    }
+
+    /**
+     * A basic block, with the state at its start.
+     */
+    private static final class Block {
+
+        /**
+         * The position of the first instruction of the block.
+         */
+        final int start;
+
+        /**
+         * Flag which shows if a jump targets the block, which then needs a frame.
+         */
+        boolean target;
+
+        /**
+         * The state at the start of the block, or null if the block is not reachable.
+         */
+        State entry;
+
+        /**
+         * Flag which shows if the block is waiting to be analyzed.
+         */
+        boolean queued;
+
+        Block(int start) {
+            this.start = start;
+        }
+    }
+
+    /**
+     * The values in the slots of the local variables and of the stack.
+     */
+    private static final class State {
+
+        final Object[] locals;
+
+        Object[] stack;
+
+        int top;
+
+        State(Object[] locals, Object[] stack, int top) {
+            this.locals = locals;
+            this.stack = stack;
+            this.top = top;
+        }
+
+        State copy() {
+            return new State(locals.clone(), Arrays.copyOf(stack, Math.max(stack.length, 4)), top);
+        }
+
+        /**
+         * Merges another state into this one.
+         *
+         * @return true if this state changed.
+         * @throws IllegalStateException if the stacks have different sizes.
+         */
+        boolean merge(State other) {
+            if (top != other.top)
+                throw new IllegalStateException("The stack of the method has different sizes at a jump target");
+
+            boolean changed = false;
+            for (int i = 0; i < locals.length; i++) {
+                Object value = mergeValues(locals[i], other.locals[i]);
+                if (value != locals[i]) {
+                    locals[i] = value;
+                    changed = true;
+                }
+            }
+            for (int i = 0; i < top; i++) {
+                Object value = mergeValues(stack[i], other.stack[i]);
+                if (value != stack[i]) {
+                    stack[i] = value;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+    }
+}
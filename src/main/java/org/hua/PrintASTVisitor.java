@@ -7,8 +7,15 @@ import org.hua.helpers.TerminalColors;
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.objectweb.asm.Type;
 
+import java.io.PrintWriter;
+
 class PrintASTVisitor implements ASTVisitor {
 
+    /**
+     * The writer which receives the formatted program.
+     */
+    private final PrintWriter out;
+
     /**
      * The tabs needed for the code formation.
      */
@@ -24,6 +31,10 @@ class PrintASTVisitor implements ASTVisitor {
      */
     private boolean insideWrite = false;
 
+    PrintASTVisitor(PrintWriter out) {
+        this.out = out;
+    }
+
     /**
      * Prints the given String with a color depending on its category.
      *
@@ -33,34 +44,34 @@ class PrintASTVisitor implements ASTVisitor {
     private void ColourfulPrint(String s, Category category) {
         switch (category) {
             case TYPE:
-                System.out.print(TerminalColors.ANSI_YELLOW + s + TerminalColors.ANSI_RESET);
+                out.print(TerminalColors.ANSI_YELLOW + s + TerminalColors.ANSI_RESET);
                 break;
             case STATEMENT:
-                System.out.print(TerminalColors.ANSI_BLUE + s + TerminalColors.ANSI_RESET);
+                out.print(TerminalColors.ANSI_BLUE + s + TerminalColors.ANSI_RESET);
                 break;
             case METHOD:
-                System.out.print(TerminalColors.ANSI_GREEN + s + TerminalColors.ANSI_RESET);
+                out.print(TerminalColors.ANSI_GREEN + s + TerminalColors.ANSI_RESET);
                 break;
             case KEYWORD:
-                System.out.print(TerminalColors.ANSI_BLUE + s + TerminalColors.ANSI_RESET);
+                out.print(TerminalColors.ANSI_BLUE + s + TerminalColors.ANSI_RESET);
                 break;
             case IDENTIFIER:
-                System.out.print(TerminalColors.ANSI_WHITE + s + TerminalColors.ANSI_RESET);
+                out.print(TerminalColors.ANSI_WHITE + s + TerminalColors.ANSI_RESET);
                 break;
             case NUMBER:
-                System.out.print(TerminalColors.ANSI_CYAN + s + TerminalColors.ANSI_RESET);
+                out.print(TerminalColors.ANSI_CYAN + s + TerminalColors.ANSI_RESET);
                 break;
             case STRING:
-                System.out.print(TerminalColors.ANSI_RED + s + TerminalColors.ANSI_RESET);
+                out.print(TerminalColors.ANSI_RED + s + TerminalColors.ANSI_RESET);
                 break;
             case OPERATOR:
-                System.out.print(TerminalColors.ANSI_PURPLE + s + TerminalColors.ANSI_RESET);
+                out.print(TerminalColors.ANSI_PURPLE + s + TerminalColors.ANSI_RESET);
                 break;
             case AFTERDOT:
-                System.out.print(TerminalColors.ANSI_WHITE + s + TerminalColors.ANSI_RESET);
+                out.print(TerminalColors.ANSI_WHITE + s + TerminalColors.ANSI_RESET);
                 break;
             default:
-                System.out.print(s);
+                out.print(s);
         }
     }
 
@@ -69,7 +80,7 @@ class PrintASTVisitor implements ASTVisitor {
      */
     private void printTabs() {
         for (int i = 0; i < tabs; i++)
-            System.out.print("    ");
+            out.print("    ");
     }
 
     /**
@@ -114,7 +125,7 @@ class PrintASTVisitor implements ASTVisitor {
         node.getExpression2().accept(this);
 
         if (needsSemicolon)
-            System.out.println(";");
+            out.println(";");
     }
 
     @Override
@@ -122,9 +133,9 @@ class PrintASTVisitor implements ASTVisitor {
         insideWrite = true;
         printTabs();
         ColourfulPrint("write", Category.METHOD);
-        System.out.print("(");
+        out.print("(");
         node.getExpression().accept(this);
-        System.out.println(");");
+        out.println(");");
         needsSemicolon = false;
         insideWrite = false;
     }
@@ -133,9 +144,9 @@ class PrintASTVisitor implements ASTVisitor {
     public void visit(WhileStatement node) throws ASTVisitorException {
         printTabs();
         ColourfulPrint("while", Category.STATEMENT);
-        System.out.print("(");
+        out.print("(");
         node.getExpression().accept(this);
-        System.out.print(") ");
+        out.print(") ");
         if (node.getStatement() != null)
             node.getStatement().accept(this);
     }
@@ -143,16 +154,16 @@ class PrintASTVisitor implements ASTVisitor {
     @Override
     public void visit(BinaryExpression node) throws ASTVisitorException {
         node.getExpression1().accept(this);
-        System.out.print(" ");
+        out.print(" ");
         ColourfulPrint(node.getOperator().toString(), Category.OPERATOR);
-        System.out.print(" ");
+        out.print(" ");
         node.getExpression2().accept(this);
     }
 
     @Override
     public void visit(UnaryExpression node) throws ASTVisitorException {
         ColourfulPrint(node.getOperator().toString(), Category.OPERATOR);
-        System.out.print(" ");
+        out.print(" ");
         node.getExpression().accept(this);
     }
 
@@ -160,7 +171,7 @@ class PrintASTVisitor implements ASTVisitor {
     public void visit(IdentifierExpression node) throws ASTVisitorException {
         node.getExpression().accept(this);
         ColourfulPrint(".", Category.OPERATOR);
-        System.out.print(node.getIdentifier());
+        out.print(node.getIdentifier());
     }
 
     @Override
@@ -178,22 +189,22 @@ class PrintASTVisitor implements ASTVisitor {
     @Override
     public void visit(StringLiteralExpression node) throws ASTVisitorException {
         needsSemicolon = true;
-        System.out.print("\"");
+        out.print("\"");
         ColourfulPrint(StringEscapeUtils.escapeJava(node.getLiteral()), Category.STRING);
-        System.out.print("\"");
+        out.print("\"");
     }
 
     @Override
     public void visit(ParenthesisExpression node) throws ASTVisitorException {
-        System.out.print("( ");
+        out.print("( ");
         node.getExpression().accept(this);
-        System.out.print(" )");
+        out.print(" )");
     }
 
     @Override
     public void visit(CompoundStatement node) throws ASTVisitorException {
         tabs++;
-        System.out.println("{");
+        out.println("{");
 
         for (Statement st : node.getStatementList()) {
             st.accept(this);
@@ -201,31 +212,31 @@ class PrintASTVisitor implements ASTVisitor {
 
         tabs--;
         printTabs();
-        System.out.println("}");
+        out.println("}");
     }
 
     @Override
     public void visit(IfElseStatement node) throws ASTVisitorException {
         printTabs();
         ColourfulPrint("if", Category.STATEMENT);
-        System.out.print("(");
+        out.print("(");
         node.getExpression().accept(this);
-        System.out.print(") ");
+        out.print(") ");
         if (node.getStatement1() != null)
             node.getStatement1().accept(this);
         else {
-            System.out.println("{");
+            out.println("{");
             printTabs();
-            System.out.println("}");
+            out.println("}");
         }
         printTabs();
         ColourfulPrint("else ", Category.STATEMENT);
         if (node.getStatement2() != null)
             node.getStatement2().accept(this);
         else {
-            System.out.println("{");
+            out.println("{");
             printTabs();
-            System.out.println("}");
+            out.println("}");
         }
     }
 
@@ -233,15 +244,15 @@ class PrintASTVisitor implements ASTVisitor {
     public void visit(IfStatement node) throws ASTVisitorException {
         printTabs();
         ColourfulPrint("if", Category.STATEMENT);
-        System.out.print("(");
+        out.print("(");
         node.getExpression().accept(this);
-        System.out.print(") ");
+        out.print(") ");
         if (node.getStatement() != null)
             node.getStatement().accept(this);
         else {
-            System.out.print("{");
+            out.print("{");
             printTabs();
-            System.out.print("}");
+            out.print("}");
         }
     }
 
@@ -249,14 +260,14 @@ class PrintASTVisitor implements ASTVisitor {
     public void visit(BreakStatement node) throws ASTVisitorException {
         printTabs();
         ColourfulPrint("break", Category.KEYWORD);
-        System.out.println(";");
+        out.println(";");
     }
 
     @Override
     public void visit(ContinueStatement node) throws ASTVisitorException {
         printTabs();
         ColourfulPrint("continue", Category.KEYWORD);
-        System.out.println(";");
+        out.println(";");
     }
 
     @Override
@@ -268,13 +279,13 @@ class PrintASTVisitor implements ASTVisitor {
         node.getExpression().accept(this);
 
         if (needsSemicolon)
-            System.out.println(";");
+            out.println(";");
     }
 
     @Override
     public void visit(ThisExpression node) throws ASTVisitorException {
         ColourfulPrint("this", Category.KEYWORD);
-        System.out.println(";");
+        out.println(";");
     }
 
     @Override
@@ -287,7 +298,7 @@ class PrintASTVisitor implements ASTVisitor {
         node.getExpression().accept(this);
         ColourfulPrint(".", Category.OPERATOR);
         ColourfulPrint(node.getIdentifier(), Category.METHOD);
-        System.out.print("(");
+        out.print("(");
 
         boolean firstVisitDone = false;
         //noinspection Duplicates
@@ -301,7 +312,7 @@ class PrintASTVisitor implements ASTVisitor {
         }
 
         if (needsSemicolon && !insideWrite)
-            System.out.println(");");
+            out.println(");");
         needsSemicolon = false;
     }
 
@@ -315,14 +326,14 @@ class PrintASTVisitor implements ASTVisitor {
         node.getExpression().accept(this);
         ColourfulPrint(".", Category.OPERATOR);
         ColourfulPrint(node.getIdentifier(), Category.METHOD);
-        System.out.println("();");
+        out.println("();");
         needsSemicolon = false;
     }
 
     @Override
     public void visit(MethodIdentifier node) throws ASTVisitorException {
         ColourfulPrint(node.getIdentifier(), Category.METHOD);
-        System.out.print("(");
+        out.print("(");
 
         boolean firstVisitDone = false;
         //noinspection Duplicates
@@ -336,21 +347,21 @@ class PrintASTVisitor implements ASTVisitor {
         }
 
         if (needsSemicolon)
-            System.out.println(");");
+            out.println(");");
         needsSemicolon = false;
     }
 
     @Override
     public void visit(SimpleMethodIdentifier node) throws ASTVisitorException {
         ColourfulPrint(node.getIdentifier(), Category.METHOD);
-        System.out.print("() ");
+        out.print("() ");
     }
 
     @Override
     public void visit(SimpleConstructorIdentifier node) throws ASTVisitorException {
         ColourfulPrint("new ", Category.KEYWORD);
         ColourfulPrint(node.getIdentifier(), Category.METHOD);
-        System.out.println("();");
+        out.println("();");
         needsSemicolon = false;
     }
 
@@ -358,20 +369,20 @@ class PrintASTVisitor implements ASTVisitor {
     public void visit(ConstructorIdentifier node) throws ASTVisitorException {
         ColourfulPrint("new ", Category.KEYWORD);
         ColourfulPrint(node.getIdentifier(), Category.METHOD);
-        System.out.print("(");
+        out.print("(");
 
         boolean firstVisitDone = false;
         for (Expression e : node.getExpressionList()) {
 
             if (firstVisitDone)
-                System.out.print(", ");
+                out.print(", ");
 
             e.accept(this);
             firstVisitDone = true;
         }
 
         if (needsSemicolon)
-            System.out.println(");");
+            out.println(");");
         needsSemicolon = false;
     }
 
@@ -385,7 +396,7 @@ class PrintASTVisitor implements ASTVisitor {
     public void visit(SimpleReturnStatement node) throws ASTVisitorException {
         printTabs();
         ColourfulPrint("return", Category.KEYWORD);
-        System.out.println(";");
+        out.println(";");
     }
 
     @Override
@@ -399,7 +410,7 @@ class PrintASTVisitor implements ASTVisitor {
         Type exprType = node.getType();
         String finalType = beautifyType(exprType);
         ColourfulPrint(finalType, Category.TYPE);
-        System.out.print(" ");
+        out.print(" ");
         ColourfulPrint(node.getIdentifier(), Category.IDENTIFIER);
     }
 
@@ -412,26 +423,26 @@ class PrintASTVisitor implements ASTVisitor {
         Type exprType = node.getReturnType();
         String finalType = beautifyType(exprType);
         ColourfulPrint(finalType, Category.TYPE);
-        System.out.print(" ");
+        out.print(" ");
         ColourfulPrint(node.getIdentifier(), Category.METHOD);
-        System.out.print("(");
+        out.print("(");
 
         boolean firstVisitDone = false;
         for (ParameterDeclaration p : node.getParameterDeclarationList()) {
 
             if (firstVisitDone)
-                System.out.print(", ");
+                out.print(", ");
 
             p.accept(this);
             firstVisitDone = true;
         }
 
-        System.out.print(") ");
+        out.print(") ");
 
         if (node.getCompoundStatement() != null)
             node.getCompoundStatement().accept(this);
         else {
-            System.out.println("{}");
+            out.println("{}");
         }
     }
 
@@ -440,14 +451,14 @@ class PrintASTVisitor implements ASTVisitor {
         ColourfulPrint("class ", Category.KEYWORD);
 
         ColourfulPrint(node.getIdentifier(), Category.IDENTIFIER);
-        System.out.println(" {");
+        out.println(" {");
 
         tabs++;
         for (FieldOrFunctionDefinition f : node.getFieldOrFunctionDefinitionList())
             f.accept(this);
         tabs--;
 
-        System.out.println("}\n");
+        out.println("}\n");
     }
 
     @Override
@@ -460,8 +471,8 @@ class PrintASTVisitor implements ASTVisitor {
         Type exprType = node.getType();
         String finalType = beautifyType(exprType);
         ColourfulPrint(finalType, Category.TYPE);
-        System.out.print(" ");
+        out.print(" ");
         ColourfulPrint(node.getIdentifier(), Category.IDENTIFIER);
-        System.out.println(";");
+        out.println(";");
     }
 }
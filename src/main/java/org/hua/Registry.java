@@ -1,41 +1,24 @@
 package org.hua;
 
-import org.hua.ast.ASTNode;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.objectweb.asm.Type;
 import org.hua.symbol.SymTable;
 import org.hua.symbol.SymTableEntry;
 
 /**
- * Global registry (Singleton pattern)
+ * Registry of the classes of a compilation session.
+ * <br>
+ * Every session has its own registry, so that the compilations running in the same compiler daemon are isolated.
+ * The classes are kept in a concurrent map, because the files of a program are checked and compiled in parallel.
  */
 public class Registry {
 
-    private ASTNode root;
     private Map<Type, SymTable<SymTableEntry>> classes;
 
-    private Registry() {
-        root = null;
-        classes = new HashMap<Type, SymTable<SymTableEntry>>();
-    }
-
-    private static class SingletonHolder {
-
-        static final Registry instance = new Registry();
-
-    }
-
-    public static Registry getInstance() {
-        return SingletonHolder.instance;
-    }
-
-    public ASTNode getRoot() {
-        return root;
-    }
-
-    void setRoot(ASTNode root) {
-        this.root = root;
+    public Registry() {
+        classes = new ConcurrentHashMap<Type, SymTable<SymTableEntry>>();
     }
 
     public Map<Type, SymTable<SymTableEntry>> getClasses() {
@@ -0,0 +1,30 @@
+package org.hua;
+
+/**
+ * The ways to generate the string concatenations, which are selected with the --concat option of the compiler.
+ */
+enum StringConcatenation {
+
+    /**
+     * A single StringBuilder for every chain of concatenations, with an append call for every operand.
+     */
+    BUILDER,
+
+    /**
+     * A single invokedynamic call to the StringConcatFactory of Java 9 and later for every chain of concatenations.
+     */
+    INDY;
+
+    /**
+     * Returns the way with a name, as given to the --concat option.
+     *
+     * @param name the name, in any case.
+     * @return the way, or null if there is none with that name.
+     */
+    static StringConcatenation forName(String name) {
+        for (StringConcatenation concatenation : values())
+            if (concatenation.name().equalsIgnoreCase(name))
+                return concatenation;
+        return null;
+    }
+}
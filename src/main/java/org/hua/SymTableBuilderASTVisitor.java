@@ -3,9 +3,9 @@ package org.hua;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
-import org.hua.symbol.HashSymTable;
 import org.hua.symbol.SymTable;
 import org.hua.symbol.SymTableEntry;
+import org.hua.symbol.SymTableImplementation;
 import org.hua.ast.*;
 
 /**
@@ -14,15 +14,16 @@ import org.hua.ast.*;
 class SymTableBuilderASTVisitor implements ASTVisitor {
 
     private final Deque<SymTable<SymTableEntry>> env;
+    private final SymTableImplementation symTables;
 
-    SymTableBuilderASTVisitor() {
+    SymTableBuilderASTVisitor(SymTableImplementation symTables) {
         env = new ArrayDeque<SymTable<SymTableEntry>>();
+        this.symTables = symTables;
     }
 
     private void pushEnvironment() {
         SymTable<SymTableEntry> oldSymTable = env.peek();
-        SymTable<SymTableEntry> symTable = new HashSymTable<SymTableEntry>(
-                oldSymTable);
+        SymTable<SymTableEntry> symTable = symTables.newScope(oldSymTable);
         env.push(symTable);
     }
 
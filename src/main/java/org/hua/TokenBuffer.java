@@ -0,0 +1,59 @@
+package org.hua;
+
+import java_cup.runtime.Scanner;
+import java_cup.runtime.Symbol;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The tokens of a whole file, scanned before the file is parsed.
+ * <br>
+ * The parser normally pulls the tokens from the Lexer while it parses, so the two phases cannot be timed apart.
+ * The pipeline scans the file into a buffer first, only when it collects metrics.
+ */
+class TokenBuffer implements Scanner {
+
+    /**
+     * The tokens of the file, ending with EOF.
+     */
+    private final List<Symbol> tokens;
+
+    /**
+     * The position of the next token.
+     */
+    private int next;
+
+    private TokenBuffer(List<Symbol> tokens) {
+        this.tokens = tokens;
+        this.next = 0;
+    }
+
+    /**
+     * Scans all the tokens of a file.
+     *
+     * @param lexer the Lexer of the file.
+     * @return the buffer of the tokens.
+     * @throws IOException if the file cannot be read.
+     */
+    static TokenBuffer scan(Lexer lexer) throws IOException {
+        List<Symbol> tokens = new ArrayList<Symbol>();
+        Symbol token;
+        do {
+            token = lexer.next_token();
+            tokens.add(token);
+        } while (token.sym != sym.EOF);
+        return new TokenBuffer(tokens);
+    }
+
+    @Override
+    public Symbol next_token() {
+        if (next < tokens.size())
+            return tokens.get(next++);
+
+        // The parser may ask again after EOF, and it does not accept the same symbol twice.
+        Symbol eof = tokens.get(tokens.size() - 1);
+        return new Symbol(sym.EOF, eof.left, eof.right);
+    }
+}
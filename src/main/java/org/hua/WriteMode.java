@@ -0,0 +1,31 @@
+package org.hua;
+
+/**
+ * The ways to generate the write statements, which are selected with the --write option of the compiler.
+ */
+enum WriteMode {
+
+    /**
+     * Every write statement prints to System.out, which is synchronized and flushes on every new line.
+     */
+    STRICT,
+
+    /**
+     * Every write statement appends to the unsynchronized buffer of org.hua.runtime.Output,
+     * which is flushed when it is full, when main returns and when the program ends.
+     */
+    BUFFERED;
+
+    /**
+     * Returns the mode with a name, as given to the --write option.
+     *
+     * @param name the name, in any case.
+     * @return the mode, or null if there is none with that name.
+     */
+    static WriteMode forName(String name) {
+        for (WriteMode mode : values())
+            if (mode.name().equalsIgnoreCase(name))
+                return mode;
+        return null;
+    }
+}
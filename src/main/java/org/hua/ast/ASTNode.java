@@ -1,7 +1,9 @@
 package org.hua.ast;
 
-import java.util.HashMap;
-import java.util.Map;
+import org.hua.symbol.LocalIndexPool;
+import org.hua.symbol.SymTable;
+import org.hua.symbol.SymTableEntry;
+import org.objectweb.asm.Type;
 
 /**
  * Abstract syntax tree node.
@@ -11,13 +13,17 @@ import java.util.Map;
  * <p>
  * <p>
  * This node has a method in order to be able to accept an abstract syntax tree
- * visitor. Moreover it contains a map in order to store properties at the
- * nodes.
+ * visitor. Moreover it contains the attributes which the visitors compute for
+ * every node. They are plain fields instead of a map of properties, so a node
+ * does not allocate a map and the visitors do not pay for a lookup on every access.
+ * The attributes of the expressions and the statements are kept in their own classes.
  * </p>
  */
 public abstract class ASTNode {
 
-    private final Map<String, Object> properties;
+    private SymTable<SymTableEntry> env;
+    private LocalIndexPool localIndexPool;
+    private Type nodeType;
     private int line;
     private int column;
 
@@ -25,27 +31,30 @@ public abstract class ASTNode {
      * Default Constructor
      */
     public ASTNode() {
-        properties = new HashMap<String, Object>();
     }
 
-    /**
-     * Get a node property by name
-     *
-     * @param propertyName The property name
-     * @return The value of the property
-     */
-    Object getProperty(String propertyName) {
-        return properties.get(propertyName);
+    SymTable<SymTableEntry> getEnv() {
+        return env;
     }
 
-    /**
-     * Set a property at the node by name
-     *
-     * @param propertyName The property name
-     * @param data         The value of the property
-     */
-    void setProperty(String propertyName, Object data) {
-        properties.put(propertyName, data);
+    void setEnv(SymTable<SymTableEntry> env) {
+        this.env = env;
+    }
+
+    LocalIndexPool getLocalIndexPool() {
+        return localIndexPool;
+    }
+
+    void setLocalIndexPool(LocalIndexPool localIndexPool) {
+        this.localIndexPool = localIndexPool;
+    }
+
+    Type getNodeType() {
+        return nodeType;
+    }
+
+    void setNodeType(Type nodeType) {
+        this.nodeType = nodeType;
     }
 
     int getLine() {
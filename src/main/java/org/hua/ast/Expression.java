@@ -1,4 +1,46 @@
 package org.hua.ast;
 
+import org.objectweb.asm.tree.JumpInsnNode;
+
+import java.util.List;
+
 public abstract class Expression extends ASTNode {
+
+    private boolean booleanExpression;
+    private List<JumpInsnNode> trueList;
+    private List<JumpInsnNode> falseList;
+    private Expression folded;
+
+    boolean isBooleanExpression() {
+        return booleanExpression;
+    }
+
+    void setBooleanExpression(boolean booleanExpression) {
+        this.booleanExpression = booleanExpression;
+    }
+
+    List<JumpInsnNode> getTrueList() {
+        return trueList;
+    }
+
+    void setTrueList(List<JumpInsnNode> trueList) {
+        this.trueList = trueList;
+    }
+
+    List<JumpInsnNode> getFalseList() {
+        return falseList;
+    }
+
+    void setFalseList(List<JumpInsnNode> falseList) {
+        this.falseList = falseList;
+    }
+
+    Expression getFolded() {
+        return folded;
+    }
+
+    void setFolded(Expression folded) {
+        this.folded = folded;
+    }
+
 }
@@ -1,4 +1,37 @@
 package org.hua.ast;
 
+import org.objectweb.asm.tree.JumpInsnNode;
+
+import java.util.List;
+
 public abstract class Statement extends ASTNode {
+
+    private List<JumpInsnNode> nextList;
+    private List<JumpInsnNode> breakList;
+    private List<JumpInsnNode> continueList;
+
+    List<JumpInsnNode> getNextList() {
+        return nextList;
+    }
+
+    void setNextList(List<JumpInsnNode> nextList) {
+        this.nextList = nextList;
+    }
+
+    List<JumpInsnNode> getBreakList() {
+        return breakList;
+    }
+
+    void setBreakList(List<JumpInsnNode> breakList) {
+        this.breakList = breakList;
+    }
+
+    List<JumpInsnNode> getContinueList() {
+        return continueList;
+    }
+
+    void setContinueList(List<JumpInsnNode> continueList) {
+        this.continueList = continueList;
+    }
+
 }
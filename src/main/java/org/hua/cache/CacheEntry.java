@@ -0,0 +1,121 @@
+package org.hua.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The cached result of the compilation of a single input file.
+ */
+public class CacheEntry {
+
+    /**
+     * The hash of the file's content and of the compiler options.
+     */
+    private final String contentHash;
+
+    /**
+     * The signatures of the classes defined in the file.
+     */
+    private final List<ClassSignature> classes;
+
+    /**
+     * The signature hashes of the classes which the file uses, with their type descriptors.
+     */
+    private final Map<String, String> usedSignatures;
+
+    /**
+     * All the class bytes of the file with their ids.
+     */
+    private final TreeMap<String, byte[]> classBytes;
+
+    /**
+     * The name of the file's class which contains the main function, or null.
+     */
+    private final String classWithMain;
+
+    public CacheEntry(String contentHash, List<ClassSignature> classes, Map<String, String> usedSignatures,
+                      TreeMap<String, byte[]> classBytes, String classWithMain) {
+        this.contentHash = contentHash;
+        this.classes = classes;
+        this.usedSignatures = usedSignatures;
+        this.classBytes = classBytes;
+        this.classWithMain = classWithMain;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public List<ClassSignature> getClasses() {
+        return classes;
+    }
+
+    public Map<String, String> getUsedSignatures() {
+        return usedSignatures;
+    }
+
+    public TreeMap<String, byte[]> getClassBytes() {
+        return classBytes;
+    }
+
+    public String getClassWithMain() {
+        return classWithMain;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(contentHash);
+
+        out.writeInt(classes.size());
+        for (ClassSignature c : classes)
+            c.write(out);
+
+        out.writeInt(usedSignatures.size());
+        for (Map.Entry<String, String> used : usedSignatures.entrySet()) {
+            out.writeUTF(used.getKey());
+            out.writeUTF(used.getValue());
+        }
+
+        out.writeInt(classBytes.size());
+        for (Map.Entry<String, byte[]> pair : classBytes.entrySet()) {
+            out.writeUTF(pair.getKey());
+            out.writeInt(pair.getValue().length);
+            out.write(pair.getValue());
+        }
+
+        out.writeBoolean(classWithMain != null);
+        if (classWithMain != null)
+            out.writeUTF(classWithMain);
+    }
+
+    static CacheEntry read(DataInput in) throws IOException {
+        String contentHash = in.readUTF();
+
+        int size = in.readInt();
+        List<ClassSignature> classes = new ArrayList<ClassSignature>(size);
+        for (int i = 0; i < size; i++)
+            classes.add(ClassSignature.read(in));
+
+        size = in.readInt();
+        Map<String, String> usedSignatures = new TreeMap<String, String>();
+        for (int i = 0; i < size; i++)
+            usedSignatures.put(in.readUTF(), in.readUTF());
+
+        size = in.readInt();
+        TreeMap<String, byte[]> classBytes = new TreeMap<String, byte[]>();
+        for (int i = 0; i < size; i++) {
+            String name = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            classBytes.put(name, bytes);
+        }
+
+        String classWithMain = in.readBoolean() ? in.readUTF() : null;
+
+        return new CacheEntry(contentHash, classes, usedSignatures, classBytes, classWithMain);
+    }
+}
@@ -0,0 +1,127 @@
+package org.hua.cache;
+
+import org.hua.ast.ClassDefinition;
+import org.hua.ast.FieldDefinition;
+import org.hua.ast.FieldOrFunctionDefinition;
+import org.hua.ast.FunctionDefinition;
+import org.hua.ast.ParameterDeclaration;
+import org.hua.symbol.HashSymTable;
+import org.hua.symbol.SymTable;
+import org.hua.symbol.SymTableEntry;
+import org.objectweb.asm.Type;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The public signature of a class: its fields and functions, which the other files may use.
+ */
+public class ClassSignature {
+
+    /**
+     * The class' type.
+     */
+    private final Type type;
+
+    /**
+     * The hash of the class' signature, as computed by {@link #hashOf(ClassDefinition)}.
+     */
+    private final String hash;
+
+    /**
+     * The members of the class.
+     */
+    private final List<MemberSignature> members;
+
+    public ClassSignature(Type type, String hash, SymTable<SymTableEntry> classSt) {
+        this.type = type;
+        this.hash = hash;
+        this.members = new ArrayList<MemberSignature>();
+        for (SymTableEntry entry : classSt.getSymbolsOnlyInTop())
+            members.add(MemberSignature.of(entry));
+    }
+
+    private ClassSignature(Type type, String hash, List<MemberSignature> members) {
+        this.type = type;
+        this.hash = hash;
+        this.members = members;
+    }
+
+    /**
+     * Computes the hash of a class' signature from its definition, before the class is checked.
+     * <br>
+     * The hash changes only when a field or function is added, removed or changes its type or modifier,
+     * so changing the body of a function does not change it.
+     *
+     * @param node the class definition.
+     * @return the hash.
+     */
+    public static String hashOf(ClassDefinition node) {
+        StringBuilder signature = new StringBuilder("class " + node.getIdentifier() + "\n");
+        for (FieldOrFunctionDefinition f : node.getFieldOrFunctionDefinitionList()) {
+            if (f instanceof FieldDefinition) {
+                FieldDefinition field = (FieldDefinition) f;
+                signature.append("field ").append(field.isStatic()).append(' ')
+                        .append(field.getType().getDescriptor()).append(' ')
+                        .append(field.getIdentifier()).append('\n');
+            } else if (f instanceof FunctionDefinition) {
+                FunctionDefinition function = (FunctionDefinition) f;
+                List<ParameterDeclaration> parameters = function.getParameterDeclarationList();
+                Type[] parameterTypes = new Type[parameters.size()];
+                int i = 0;
+                for (ParameterDeclaration p : parameters)
+                    parameterTypes[i++] = p.getType();
+                signature.append("function ").append(function.isStatic()).append(' ')
+                        .append(Type.getMethodDescriptor(function.getReturnType(), parameterTypes)).append(' ')
+                        .append(function.getIdentifier()).append('\n');
+            }
+        }
+        return IncrementalCache.hash(signature.toString());
+    }
+
+    /**
+     * Builds a symbol table with the members of the class, like the one built when the class is checked.
+     *
+     * @param parent the symbol table of the class' file.
+     * @return the class' symbol table.
+     */
+    public SymTable<SymTableEntry> toSymTable(SymTable<SymTableEntry> parent) {
+        SymTable<SymTableEntry> classSt = new HashSymTable<SymTableEntry>(parent);
+        for (MemberSignature member : members)
+            classSt.put(member.getIdentifier(), member.getKind(), member.toEntry());
+        return classSt;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public List<MemberSignature> getMembers() {
+        return members;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(type.getDescriptor());
+        out.writeUTF(hash);
+        out.writeInt(members.size());
+        for (MemberSignature member : members)
+            member.write(out);
+    }
+
+    static ClassSignature read(DataInput in) throws IOException {
+        Type type = Type.getType(in.readUTF());
+        String hash = in.readUTF();
+        int size = in.readInt();
+        List<MemberSignature> members = new ArrayList<MemberSignature>(size);
+        for (int i = 0; i < size; i++)
+            members.add(MemberSignature.read(in));
+        return new ClassSignature(type, hash, members);
+    }
+}
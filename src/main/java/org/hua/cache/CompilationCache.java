@@ -0,0 +1,26 @@
+package org.hua.cache;
+
+import java.io.IOException;
+
+/**
+ * A cache with the compilation results of the input files.
+ */
+public interface CompilationCache {
+
+    /**
+     * Loads the entry of a file.
+     *
+     * @param fileName the file's name.
+     * @return the entry, or null if there is no valid entry for the file.
+     */
+    CacheEntry load(String fileName);
+
+    /**
+     * Stores the entry of a file.
+     *
+     * @param fileName the file's name.
+     * @param entry    the entry.
+     * @throws IOException
+     */
+    void store(String fileName, CacheEntry entry) throws IOException;
+}
@@ -0,0 +1,174 @@
+package org.hua.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * An on-disk cache with the compilation results of the input files.
+ * <br>
+ * Every input file has its own entry, named after the hash of the file's absolute path.
+ * An entry can be reused when the file's content has not changed
+ * and the classes which the file uses still have the same signatures.
+ */
+public class IncrementalCache implements CompilationCache {
+
+    /**
+     * A Logger for our compiler messages.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalCache.class);
+
+    /**
+     * The version of the entries' format. Entries of another version are ignored.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The folder of the cache.
+     */
+    private final File directory;
+
+    public IncrementalCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the entry of a file.
+     *
+     * @param fileName the file's name.
+     * @return the entry, or null if there is no valid entry for the file.
+     */
+    @Override
+    public CacheEntry load(String fileName) {
+        File f = entryFile(fileName);
+        if (!f.isFile())
+            return null;
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+            if (in.readInt() != FORMAT_VERSION)
+                return null;
+            return CacheEntry.read(in);
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring corrupted cache entry of " + fileName + ": " + e);
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Stores the entry of a file.
+     * <br>
+     * The entry is written in a temporary file first, which then replaces the old entry in one atomic move,
+     * so that a cache entry is never left half written or missing.
+     *
+     * @param fileName the file's name.
+     * @param entry    the entry.
+     * @throws IOException
+     */
+    @Override
+    public void store(String fileName, CacheEntry entry) throws IOException {
+        //noinspection ResultOfMethodCallIgnored
+        directory.mkdirs();
+        File f = entryFile(fileName);
+        File tmp = File.createTempFile(f.getName(), ".tmp", directory);
+
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                out.writeInt(FORMAT_VERSION);
+                entry.write(out);
+            } finally {
+                out.close();
+            }
+            Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the file of an input file's entry.
+     *
+     * @param fileName the input file's name.
+     * @return the entry's file.
+     */
+    private File entryFile(String fileName) {
+        return new File(directory, hash(new File(fileName).getAbsolutePath()) + ".entry");
+    }
+
+    /**
+     * Reads all the bytes of a file.
+     *
+     * @param fileName the file's name.
+     * @return the bytes.
+     * @throws IOException
+     */
+    public static byte[] readFile(String fileName) throws IOException {
+        InputStream in = new FileInputStream(fileName);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+                bytes.write(buffer, 0, n);
+            return bytes.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Computes the SHA-256 hash of a text.
+     *
+     * @param text the text.
+     * @return the hash in hexadecimal.
+     */
+    public static String hash(String text) {
+        try {
+            return hash(text.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Computes the SHA-256 hash of some bytes.
+     *
+     * @param parts the bytes.
+     * @return the hash in hexadecimal.
+     */
+    public static String hash(byte[]... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (byte[] part : parts)
+            digest.update(part);
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest())
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+
+    private static void close(Closeable c) {
+        if (c != null)
+            try {
+                c.close();
+            } catch (IOException e) {
+                // nothing
+            }
+    }
+}
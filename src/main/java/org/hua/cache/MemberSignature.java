@@ -0,0 +1,128 @@
+package org.hua.cache;
+
+import org.hua.symbol.SymTableEntry;
+import org.hua.symbol.SymbolKind;
+import org.objectweb.asm.Type;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The signature of a field or function of a class, as it is exported to the other files through the Registry.
+ */
+public class MemberSignature {
+
+    /**
+     * The member's name.
+     */
+    private final String identifier;
+
+    /**
+     * The field's type or the function's method type.
+     */
+    private final Type type;
+
+    /**
+     * The member's index in its class.
+     */
+    private final int index;
+
+    /**
+     * Flag which shows if the member is static.
+     */
+    private final boolean isStatic;
+
+    /**
+     * The types of the function's parameters. It is empty for a field.
+     */
+    private final List<Type> parameterTypes;
+
+    private MemberSignature(String identifier, Type type, int index, boolean isStatic, List<Type> parameterTypes) {
+        this.identifier = identifier;
+        this.type = type;
+        this.index = index;
+        this.isStatic = isStatic;
+        this.parameterTypes = parameterTypes;
+    }
+
+    /**
+     * Creates the signature of a symbol table entry of a class.
+     *
+     * @param entry the entry.
+     * @return the signature.
+     */
+    public static MemberSignature of(SymTableEntry entry) {
+        int index = entry.getIndex() != null ? entry.getIndex() : -1;
+        return new MemberSignature(entry.getIdentifier(), entry.getType(), index, entry.isStatic(),
+                new ArrayList<Type>(entry.getParameterTypes()));
+    }
+
+    /**
+     * Checks if the member is a function.
+     *
+     * @return true if it is a function, false if it is a field.
+     */
+    public boolean isFunction() {
+        return type.getSort() == Type.METHOD;
+    }
+
+    /**
+     * Returns the name of the member in its class' symbol table.
+     *
+     * @return the name.
+     */
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Returns the kind of the member in its class' symbol table.
+     *
+     * @return the kind.
+     */
+    public SymbolKind getKind() {
+        return isFunction() ? SymbolKind.FUNCTION : SymbolKind.VARIABLE;
+    }
+
+    /**
+     * Creates a symbol table entry equal to the one the signature was created from.
+     *
+     * @return the entry.
+     */
+    public SymTableEntry toEntry() {
+        SymTableEntry entry;
+        if (isFunction()) {
+            entry = new SymTableEntry(identifier, index);
+            entry.setStatic(isStatic);
+            entry.setType(type);
+            entry.setParameterTypes(new ArrayList<Type>(parameterTypes));
+        } else
+            entry = new SymTableEntry(identifier, type, index, isStatic);
+        return entry;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(identifier);
+        out.writeUTF(type.getDescriptor());
+        out.writeInt(index);
+        out.writeBoolean(isStatic);
+        out.writeInt(parameterTypes.size());
+        for (Type t : parameterTypes)
+            out.writeUTF(t.getDescriptor());
+    }
+
+    static MemberSignature read(DataInput in) throws IOException {
+        String identifier = in.readUTF().intern(); // canonical, like the names of the Lexer
+        Type type = Type.getType(in.readUTF());
+        int index = in.readInt();
+        boolean isStatic = in.readBoolean();
+        int parameters = in.readInt();
+        List<Type> parameterTypes = new ArrayList<Type>(parameters);
+        for (int i = 0; i < parameters; i++)
+            parameterTypes.add(Type.getType(in.readUTF()));
+        return new MemberSignature(identifier, type, index, isStatic, parameterTypes);
+    }
+}
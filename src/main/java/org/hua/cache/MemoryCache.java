@@ -0,0 +1,32 @@
+package org.hua.cache;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache which keeps the entries in memory, for a compiler which serves many compilations.
+ * <br>
+ * The entries are shared by all the compilations, so it is safe to use it from many threads.
+ */
+public class MemoryCache implements CompilationCache {
+
+    /**
+     * The entries of the files, with the files' absolute paths.
+     */
+    private final Map<String, CacheEntry> entries;
+
+    public MemoryCache() {
+        this.entries = new ConcurrentHashMap<String, CacheEntry>();
+    }
+
+    @Override
+    public CacheEntry load(String fileName) {
+        return entries.get(new File(fileName).getAbsolutePath());
+    }
+
+    @Override
+    public void store(String fileName, CacheEntry entry) {
+        entries.put(new File(fileName).getAbsolutePath(), entry);
+    }
+}
@@ -1,20 +1,56 @@
 package org.hua.helpers;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * A class loader which will re-read all class data on each invocation.
+ * A class loader for the compiled huava classes, which defines every registered class once, when it is first
+ * requested, and then drops its bytes.
+ * <br>
+ * The registered classes are looked up before the parent, since huava classes have no package and may share
+ * their names with classes on the class path. A defined class is found again through findLoadedClass, so any
+ * later request for it, e.g. when another huava class resolves it, returns the same Class.
+ * <br>
+ * A class cannot be defined twice by a loader, so classes are reloaded in a new generation, i.e. a new loader
+ * in which the new bytes of all the classes are registered. The classes of the old generation are unloaded
+ * once nothing refers to them.
+ * <br>
+ * The loader is parallel capable, so that classes are registered and loaded from several threads.
  */
 public class ReloadingClassLoader extends ClassLoader {
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    /**
+     * The bytes of the registered classes which have not been defined yet, by binary name.
+     */
     private final Map<String, byte[]> m;
 
+    /**
+     * The generation of the loader, starting at 0 and increasing with every reload.
+     */
+    private final int generation;
+
     public ReloadingClassLoader(ClassLoader parent) {
+        this(parent, 0);
+    }
+
+    private ReloadingClassLoader(ClassLoader parent, int generation) {
         super(parent);
-        m = new HashMap<String, byte[]>();
+        this.m = new ConcurrentHashMap<String, byte[]>();
+        this.generation = generation;
     }
 
+    /**
+     * Registers the bytes of a class, which is defined when it is first requested.
+     *
+     * @param name  the name of the class, either binary or as a path to its class file.
+     * @param bytes the bytes of the class.
+     * @throws IllegalStateException if the class has already been defined by this loader,
+     *                               in which case it must be registered in the next generation.
+     */
     public void register(String name, byte[] bytes) {
         if (name.startsWith("/")) {
             name = name.substring(1);
@@ -23,16 +59,41 @@ public class ReloadingClassLoader extends ClassLoader {
             name = name.substring(0, name.length() - 6);
         }
         name = name.replace('/', '.');
-        m.put(name, bytes);
+        synchronized (getClassLoadingLock(name)) {
+            if (findLoadedClass(name) != null)
+                throw new IllegalStateException("Class " + name + " is already defined in generation " + generation);
+            m.put(name, bytes);
+        }
+    }
+
+    /**
+     * Returns a new, empty loader with the same parent, for the reloaded classes.
+     *
+     * @return the loader of the next generation.
+     */
+    public ReloadingClassLoader nextGeneration() {
+        return new ReloadingClassLoader(getParent(), generation + 1);
+    }
+
+    public int getGeneration() {
+        return generation;
     }
 
     @Override
-    public Class<?> loadClass(String s) throws ClassNotFoundException {
-        if (!m.containsKey(s)) {
-            return super.loadClass(s);
-        } else {
-            byte[] bytes = m.get(s);
-            return defineClass(s, bytes, 0, bytes.length);
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> c = findLoadedClass(name);
+            if (c == null) {
+                byte[] bytes = m.get(name);
+                if (bytes == null)
+                    return super.loadClass(name, resolve);
+                c = defineClass(name, bytes, 0, bytes.length);
+                m.remove(name);
+            }
+            if (resolve) {
+                resolveClass(c);
+            }
+            return c;
         }
     }
 }
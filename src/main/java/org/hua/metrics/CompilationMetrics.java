@@ -0,0 +1,158 @@
+package org.hua.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The metrics of a compilation session: the phases of every file and their totals.
+ * <br>
+ * The report is a JSON document:
+ * <pre>
+ * {"wallNanos": 1234,
+ *  "totals": {"scan": {"wallNanos": 1, "cpuNanos": 1, "allocatedBytes": 1}, ...},
+ *  "files": [{"file": "a.huava", "reused": false, "failed": false,
+ *             "nodes": 10, "classes": 1, "methods": 2, "phases": {"scan": {...}, ...}}, ...]}
+ * </pre>
+ * The CPU time and the allocated bytes of the totals add up the work of all the threads,
+ * so they may be larger than the elapsed time of the compilation.
+ */
+public class CompilationMetrics {
+
+    /**
+     * The metrics of the files, in the order given by the user.
+     */
+    private final List<FileMetrics> files;
+
+    /**
+     * The start of the compilation.
+     */
+    private final long startNanos;
+
+    /**
+     * The elapsed time of the compilation, when it has finished.
+     */
+    private long wallNanos;
+
+    public CompilationMetrics() {
+        this.files = new ArrayList<FileMetrics>();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Adds a file to the compilation.
+     *
+     * @param fileName the name of the file.
+     * @return the metrics of the file.
+     */
+    public synchronized FileMetrics addFile(String fileName) {
+        FileMetrics file = new FileMetrics(fileName);
+        files.add(file);
+        return file;
+    }
+
+    /**
+     * Marks the end of the compilation.
+     */
+    public synchronized void finish() {
+        wallNanos = System.nanoTime() - startNanos;
+    }
+
+    public synchronized List<FileMetrics> getFiles() {
+        return new ArrayList<FileMetrics>(files);
+    }
+
+    public synchronized long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Adds up the phases of all the files.
+     *
+     * @return the totals of the phases which have run.
+     */
+    public synchronized Map<Phase, PhaseMetrics> getTotals() {
+        Map<Phase, PhaseMetrics> totals = new EnumMap<Phase, PhaseMetrics>(Phase.class);
+        for (FileMetrics file : files)
+            for (Map.Entry<Phase, PhaseMetrics> entry : file.getPhases().entrySet()) {
+                PhaseMetrics total = totals.get(entry.getKey());
+                if (total == null) {
+                    total = new PhaseMetrics();
+                    totals.put(entry.getKey(), total);
+                }
+                total.add(entry.getValue());
+            }
+        return totals;
+    }
+
+    /**
+     * Creates the JSON report of the compilation.
+     *
+     * @return the report.
+     */
+    public synchronized String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"wallNanos\": ").append(wallNanos).append(",\n \"totals\": {");
+        boolean first = true;
+        for (Map.Entry<Phase, PhaseMetrics> entry : getTotals().entrySet()) {
+            if (!first)
+                json.append(", ");
+            first = false;
+            appendString(json, entry.getKey().getReportName());
+            json.append(": ");
+            entry.getValue().appendJson(json);
+        }
+        json.append("},\n \"files\": [");
+        for (int i = 0; i < files.size(); i++) {
+            json.append(i == 0 ? "\n  " : ",\n  ");
+            files.get(i).appendJson(json);
+        }
+        json.append("]}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the JSON report of the compilation.
+     *
+     * @param file the file of the report.
+     * @throws IOException if the report cannot be written.
+     */
+    public void writeJson(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null)
+            //noinspection ResultOfMethodCallIgnored
+            parent.mkdirs();
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write(toJson());
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Appends a JSON string.
+     *
+     * @param json  the report.
+     * @param value the value of the string.
+     */
+    static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                json.append('\\').append(c);
+            else if (c < 0x20)
+                json.append(String.format("\\u%04x", (int) c));
+            else
+                json.append(c);
+        }
+        json.append('"');
+    }
+}
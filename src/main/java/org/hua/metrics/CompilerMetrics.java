@@ -0,0 +1,150 @@
+package org.hua.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Adds up the metrics of all the compilations of the JVM and publishes them as the MBean org.hua:type=CompilerMetrics.
+ */
+public class CompilerMetrics implements CompilerMetricsMBean {
+
+    /**
+     * A Logger for our compiler messages.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompilerMetrics.class);
+
+    /**
+     * The name of the MBean.
+     */
+    public static final String OBJECT_NAME = "org.hua:type=CompilerMetrics";
+
+    /**
+     * The metrics of the JVM, created when they are first used.
+     */
+    private static CompilerMetrics instance;
+
+    private long compilations;
+    private long filesCompiled;
+    private long filesReused;
+    private long nodesCompiled;
+    private Map<Phase, PhaseMetrics> phases;
+    private String lastReport;
+
+    private CompilerMetrics() {
+        reset();
+    }
+
+    /**
+     * Returns the metrics of the JVM and registers their MBean, the first time.
+     *
+     * @return the metrics.
+     */
+    public static synchronized CompilerMetrics getInstance() {
+        if (instance == null) {
+            instance = new CompilerMetrics();
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(instance, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                LOGGER.error("Could not register the compiler metrics: " + e.getMessage());
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a finished compilation.
+     *
+     * @param compilation the metrics of the compilation.
+     */
+    public synchronized void record(CompilationMetrics compilation) {
+        compilations++;
+        for (FileMetrics file : compilation.getFiles()) {
+            if (file.isReused())
+                filesReused++;
+            else
+                filesCompiled++;
+            nodesCompiled += file.getNodes();
+        }
+        for (Map.Entry<Phase, PhaseMetrics> entry : compilation.getTotals().entrySet())
+            phases.get(entry.getKey()).add(entry.getValue());
+        lastReport = compilation.toJson();
+    }
+
+    @Override
+    public synchronized long getCompilations() {
+        return compilations;
+    }
+
+    @Override
+    public synchronized long getFilesCompiled() {
+        return filesCompiled;
+    }
+
+    @Override
+    public synchronized long getFilesReused() {
+        return filesReused;
+    }
+
+    @Override
+    public synchronized long getNodesCompiled() {
+        return nodesCompiled;
+    }
+
+    @Override
+    public String[] getPhases() {
+        Phase[] values = Phase.values();
+        String[] names = new String[values.length];
+        for (int i = 0; i < values.length; i++)
+            names[i] = values[i].getReportName();
+        return names;
+    }
+
+    @Override
+    public synchronized long[] getPhaseWallNanos() {
+        long[] values = new long[phases.size()];
+        for (Phase phase : Phase.values())
+            values[phase.ordinal()] = phases.get(phase).getWallNanos();
+        return values;
+    }
+
+    @Override
+    public synchronized long[] getPhaseCpuNanos() {
+        long[] values = new long[phases.size()];
+        for (Phase phase : Phase.values())
+            values[phase.ordinal()] = phases.get(phase).getCpuNanos();
+        return values;
+    }
+
+    @Override
+    public synchronized long[] getPhaseAllocatedBytes() {
+        long[] values = new long[phases.size()];
+        for (Phase phase : Phase.values())
+            values[phase.ordinal()] = phases.get(phase).getAllocatedBytes();
+        return values;
+    }
+
+    @Override
+    public synchronized String getLastReport() {
+        return lastReport;
+    }
+
+    @Override
+    public synchronized void reset() {
+        compilations = 0;
+        filesCompiled = 0;
+        filesReused = 0;
+        nodesCompiled = 0;
+        phases = new EnumMap<Phase, PhaseMetrics>(Phase.class);
+        for (Phase phase : Phase.values())
+            phases.put(phase, new PhaseMetrics());
+        lastReport = null;
+    }
+}
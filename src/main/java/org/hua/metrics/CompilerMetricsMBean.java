@@ -0,0 +1,32 @@
+package org.hua.metrics;
+
+/**
+ * The metrics of the compiler over JMX, added up since the compiler started or since the last reset.
+ * <br>
+ * The arrays of the phases are in the order of getPhases().
+ */
+public interface CompilerMetricsMBean {
+
+    long getCompilations();
+
+    long getFilesCompiled();
+
+    long getFilesReused();
+
+    long getNodesCompiled();
+
+    String[] getPhases();
+
+    long[] getPhaseWallNanos();
+
+    long[] getPhaseCpuNanos();
+
+    long[] getPhaseAllocatedBytes();
+
+    /**
+     * @return the JSON report of the last compilation.
+     */
+    String getLastReport();
+
+    void reset();
+}
@@ -0,0 +1,140 @@
+package org.hua.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The metrics of the compilation of a file.
+ */
+public class FileMetrics {
+
+    /**
+     * The name of the file.
+     */
+    private final String fileName;
+
+    /**
+     * The phases which have run for the file.
+     */
+    private final Map<Phase, PhaseMetrics> phases;
+
+    /**
+     * The number of the nodes of the file's AST.
+     */
+    private int nodes;
+
+    /**
+     * The number of the classes of the file.
+     */
+    private int classes;
+
+    /**
+     * The number of the methods of the file.
+     */
+    private int methods;
+
+    /**
+     * Flag which shows if the file was reused from the cache.
+     */
+    private boolean reused;
+
+    /**
+     * Flag which shows if one of the file's phases has failed.
+     */
+    private boolean failed;
+
+    FileMetrics(String fileName) {
+        this.fileName = fileName;
+        this.phases = new EnumMap<Phase, PhaseMetrics>(Phase.class);
+    }
+
+    /**
+     * Starts a run of a phase on the current thread.
+     *
+     * @param phase the phase.
+     * @return the stopwatch of the run.
+     */
+    public synchronized Stopwatch start(Phase phase) {
+        PhaseMetrics metrics = phases.get(phase);
+        if (metrics == null) {
+            metrics = new PhaseMetrics();
+            phases.put(phase, metrics);
+        }
+        return new Stopwatch(metrics);
+    }
+
+    /**
+     * Sets the size of the file's AST.
+     *
+     * @param nodes   the number of the nodes.
+     * @param classes the number of the classes.
+     * @param methods the number of the methods.
+     */
+    public synchronized void setCounts(int nodes, int classes, int methods) {
+        this.nodes = nodes;
+        this.classes = classes;
+        this.methods = methods;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public synchronized Map<Phase, PhaseMetrics> getPhases() {
+        return new EnumMap<Phase, PhaseMetrics>(phases);
+    }
+
+    public synchronized int getNodes() {
+        return nodes;
+    }
+
+    public synchronized int getClasses() {
+        return classes;
+    }
+
+    public synchronized int getMethods() {
+        return methods;
+    }
+
+    public synchronized boolean isReused() {
+        return reused;
+    }
+
+    public synchronized void setReused(boolean reused) {
+        this.reused = reused;
+    }
+
+    public synchronized boolean isFailed() {
+        return failed;
+    }
+
+    public synchronized void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Appends the file to a JSON report.
+     *
+     * @param json the report.
+     */
+    synchronized void appendJson(StringBuilder json) {
+        json.append("{\"file\": ");
+        CompilationMetrics.appendString(json, fileName);
+        json.append(", \"reused\": ").append(reused)
+                .append(", \"failed\": ").append(failed)
+                .append(", \"nodes\": ").append(nodes)
+                .append(", \"classes\": ").append(classes)
+                .append(", \"methods\": ").append(methods)
+                .append(", \"phases\": {");
+        boolean first = true;
+        for (Map.Entry<Phase, PhaseMetrics> entry : phases.entrySet()) {
+            if (!first)
+                json.append(", ");
+            first = false;
+            CompilationMetrics.appendString(json, entry.getKey().getReportName());
+            json.append(": ");
+            entry.getValue().appendJson(json);
+        }
+        json.append("}}");
+    }
+}
@@ -0,0 +1,32 @@
+package org.hua.metrics;
+
+/**
+ * The phases of the compilation of a file, in the order they run.
+ */
+public enum Phase {
+
+    SCAN("scan"),
+    PARSE("parse"),
+    SYMBOL_TABLE("symbolTable"),
+    LOCAL_INDEX("localIndex"),
+    COLLECT_DECLARATIONS("collectDeclarations"),
+    COLLECT_SYMBOLS("collectSymbols"),
+    COLLECT_TYPES("collectTypes"),
+    FOLD_CONSTANTS("foldConstants"),
+    PRINT("print"),
+    BYTE_CODE("byteCode"),
+    WRITE_CLASSES("writeClasses");
+
+    /**
+     * The name of the phase in the reports.
+     */
+    private final String reportName;
+
+    Phase(String reportName) {
+        this.reportName = reportName;
+    }
+
+    public String getReportName() {
+        return reportName;
+    }
+}
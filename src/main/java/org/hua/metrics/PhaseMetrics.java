@@ -0,0 +1,78 @@
+package org.hua.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The time and the memory which a phase has spent.
+ * <br>
+ * The counters are atomic, so that the totals of several files can be added from many threads.
+ */
+public class PhaseMetrics {
+
+    /**
+     * The elapsed time, in nanoseconds.
+     */
+    private final AtomicLong wallNanos;
+
+    /**
+     * The CPU time of the threads which ran the phase, in nanoseconds.
+     */
+    private final AtomicLong cpuNanos;
+
+    /**
+     * The bytes allocated by the threads which ran the phase.
+     */
+    private final AtomicLong allocatedBytes;
+
+    public PhaseMetrics() {
+        this.wallNanos = new AtomicLong();
+        this.cpuNanos = new AtomicLong();
+        this.allocatedBytes = new AtomicLong();
+    }
+
+    /**
+     * Adds a run of the phase.
+     *
+     * @param wallNanos      the elapsed time of the run.
+     * @param cpuNanos       the CPU time of the run.
+     * @param allocatedBytes the bytes allocated by the run.
+     */
+    public void add(long wallNanos, long cpuNanos, long allocatedBytes) {
+        this.wallNanos.addAndGet(wallNanos);
+        this.cpuNanos.addAndGet(cpuNanos);
+        this.allocatedBytes.addAndGet(allocatedBytes);
+    }
+
+    /**
+     * Adds the runs of another phase.
+     *
+     * @param other the other phase.
+     */
+    public void add(PhaseMetrics other) {
+        add(other.getWallNanos(), other.getCpuNanos(), other.getAllocatedBytes());
+    }
+
+    public long getWallNanos() {
+        return wallNanos.get();
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos.get();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * Appends the phase to a JSON report.
+     *
+     * @param json the report.
+     */
+    void appendJson(StringBuilder json) {
+        json.append("{\"wallNanos\": ").append(getWallNanos())
+                .append(", \"cpuNanos\": ").append(getCpuNanos())
+                .append(", \"allocatedBytes\": ").append(getAllocatedBytes())
+                .append('}');
+    }
+}
@@ -0,0 +1,75 @@
+package org.hua.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures a single run of a phase on the current thread.
+ * <br>
+ * The CPU time and the allocated bytes are those of the current thread, so a phase has to start and stop
+ * on the same thread. The allocated bytes are measured only on the JVMs which count them, like HotSpot.
+ */
+public class Stopwatch {
+
+    /**
+     * A stopwatch which measures nothing, for the compilations without metrics.
+     */
+    public static final Stopwatch NONE = new Stopwatch(null);
+
+    /**
+     * The threads of the JVM.
+     */
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * The allocation counter of HotSpot, or null if the JVM does not have one.
+     */
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationCounter();
+
+    /**
+     * The metrics where the run is added, or null if nothing is measured.
+     */
+    private final PhaseMetrics metrics;
+
+    private long startWallNanos;
+    private long startCpuNanos;
+    private long startAllocatedBytes;
+
+    Stopwatch(PhaseMetrics metrics) {
+        this.metrics = metrics;
+        if (metrics != null) {
+            this.startWallNanos = System.nanoTime();
+            this.startCpuNanos = cpuNanos();
+            this.startAllocatedBytes = allocatedBytes();
+        }
+    }
+
+    /**
+     * Stops the stopwatch and adds the run to the metrics of its phase.
+     */
+    public void stop() {
+        if (metrics != null)
+            metrics.add(System.nanoTime() - startWallNanos,
+                    cpuNanos() - startCpuNanos,
+                    allocatedBytes() - startAllocatedBytes);
+    }
+
+    private static long cpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATIONS != null ? ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            if (THREADS instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported())
+                return (com.sun.management.ThreadMXBean) THREADS;
+        } catch (NoClassDefFoundError e) {
+            // not a HotSpot JVM
+        }
+        return null;
+    }
+}
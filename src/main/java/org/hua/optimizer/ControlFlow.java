@@ -0,0 +1,64 @@
+package org.hua.optimizer;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+
+import java.util.List;
+
+/**
+ * The control flow between the instructions of a method, which the passes of the optimizer share.
+ */
+final class ControlFlow {
+
+    private static final LabelNode[] NO_TARGETS = new LabelNode[0];
+
+    private ControlFlow() {
+    }
+
+    /**
+     * Returns the labels an instruction may jump to.
+     *
+     * @param insn the instruction.
+     * @return the labels, which are none if the instruction is neither a jump nor a switch.
+     */
+    static LabelNode[] targets(AbstractInsnNode insn) {
+        if (insn instanceof JumpInsnNode)
+            return new LabelNode[]{((JumpInsnNode) insn).label};
+        if (insn instanceof TableSwitchInsnNode) {
+            TableSwitchInsnNode s = (TableSwitchInsnNode) insn;
+            return withDefault(s.dflt, s.labels);
+        }
+        if (insn instanceof LookupSwitchInsnNode) {
+            LookupSwitchInsnNode s = (LookupSwitchInsnNode) insn;
+            return withDefault(s.dflt, s.labels);
+        }
+        return NO_TARGETS;
+    }
+
+    private static LabelNode[] withDefault(LabelNode dflt, List<?> labels) {
+        LabelNode[] targets = new LabelNode[labels.size() + 1];
+        targets[0] = dflt;
+        for (int i = 0; i < labels.size(); i++)
+            targets[i + 1] = (LabelNode) labels.get(i);
+        return targets;
+    }
+
+    /**
+     * Checks if an opcode returns from the method or throws.
+     */
+    static boolean endsFlow(int opcode) {
+        return (opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) || opcode == Opcodes.ATHROW;
+    }
+
+    /**
+     * Checks if the instruction which follows an instruction may run after it.
+     */
+    static boolean fallsThrough(AbstractInsnNode insn) {
+        return !endsFlow(insn.getOpcode()) && insn.getOpcode() != Opcodes.GOTO
+                && !(insn instanceof TableSwitchInsnNode) && !(insn instanceof LookupSwitchInsnNode);
+    }
+}
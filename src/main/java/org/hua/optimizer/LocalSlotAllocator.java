@@ -0,0 +1,492 @@
+package org.hua.optimizer;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.IincInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Reassigns the slots of the local variables of a method, so that the variables which are never live
+ * at the same time share a slot.
+ * <br>
+ * The LocalIndexPool gives every variable of a file its own index, so a method's frame grows with the file.
+ * This pass computes the liveness of the variables over the basic blocks of the method's instructions,
+ * builds their interference graph and colors it greedily, in the order the variables first appear.
+ * The slots of the parameters, and of this, are never moved or reused.
+ * <br>
+ * Two reference variables share a slot only if the type of every value stored in them is known to be
+ * the same class, so that the frames of the method keep the exact class of every slot.
+ * <br>
+ * A method with exception handlers, debug information about its variables or subroutines is left as it is.
+ */
+public final class LocalSlotAllocator {
+
+    /**
+     * The type of a reference variable whose values are not all known to be of the same class.
+     */
+    private static final String UNKNOWN = "?";
+
+    private LocalSlotAllocator() {
+    }
+
+    /**
+     * Reassigns the slots of the variables of a method.
+     *
+     * @param method the method, whose instructions are changed in place.
+     * @return the number of slots the method needs for its variables.
+     */
+    public static int allocate(MethodNode method) {
+        if ((method.tryCatchBlocks != null && !method.tryCatchBlocks.isEmpty())
+                || (method.localVariables != null && !method.localVariables.isEmpty()))
+            return maxLocals(method.instructions, parameterSlots(method.access, method.desc));
+
+        return allocate(method.access, method.desc, method.instructions);
+    }
+
+    /**
+     * Reassigns the slots of the variables of a method which has neither exception handlers
+     * nor debug information about its variables.
+     *
+     * @param access       the access flags of the method.
+     * @param desc         the descriptor of the method.
+     * @param instructions the instructions of the method, which are changed in place.
+     * @return the number of slots the method needs for its variables.
+     */
+    public static int allocate(int access, String desc, InsnList instructions) {
+        int parameterSlots = parameterSlots(access, desc);
+
+        Variables variables = Variables.collect(instructions, parameterSlots);
+        if (variables == null)
+            return maxLocals(instructions, parameterSlots);
+
+        if (variables.count > 0) {
+            BitSet[] interference = new Liveness(instructions, variables).interference();
+            variables.separateReferences(interference);
+            variables.rewrite(instructions, color(variables, interference, parameterSlots));
+        }
+        return maxLocals(instructions, parameterSlots);
+    }
+
+    /**
+     * Returns the number of slots of the parameters of a method, including this.
+     */
+    private static int parameterSlots(int access, String desc) {
+        int parameterSlots = Type.getArgumentsAndReturnSizes(desc) >> 2;
+        if ((access & Opcodes.ACC_STATIC) != 0)
+            parameterSlots--;
+        return parameterSlots;
+    }
+
+    /**
+     * Colors the interference graph, giving every variable the lowest slots which none of its colored
+     * neighbours holds.
+     *
+     * @return the new slot of every variable.
+     */
+    private static int[] color(Variables variables, BitSet[] interference, int parameterSlots) {
+        int[] slots = new int[variables.count];
+        Arrays.fill(slots, -1);
+        BitSet taken = new BitSet();
+        for (int v = 0; v < variables.count; v++) {
+            taken.clear();
+            for (int u = interference[v].nextSetBit(0); u >= 0; u = interference[v].nextSetBit(u + 1))
+                if (slots[u] >= 0)
+                    taken.set(slots[u], slots[u] + variables.sizes[u]);
+
+            int slot = taken.nextClearBit(parameterSlots);
+            while (variables.sizes[v] == 2 && taken.get(slot + 1))
+                slot = taken.nextClearBit(slot + 2);
+            slots[v] = slot;
+        }
+        return slots;
+    }
+
+    private static int maxLocals(InsnList instructions, int parameterSlots) {
+        int max = parameterSlots;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn instanceof VarInsnNode) {
+                VarInsnNode var = (VarInsnNode) insn;
+                max = Math.max(max, var.var + size(var.getOpcode()));
+            } else if (insn instanceof IincInsnNode)
+                max = Math.max(max, ((IincInsnNode) insn).var + 1);
+        }
+        return max;
+    }
+
+    private static int size(int opcode) {
+        switch (opcode) {
+            case Opcodes.LLOAD:
+            case Opcodes.DLOAD:
+            case Opcodes.LSTORE:
+            case Opcodes.DSTORE:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    private static boolean isStore(int opcode) {
+        return opcode >= Opcodes.ISTORE && opcode <= Opcodes.ASTORE;
+    }
+
+    /**
+     * The variables of a method which are not parameters, numbered in the order they first appear.
+     */
+    private static final class Variables {
+
+        /**
+         * The lowest slot of a variable.
+         */
+        private final int minSlot;
+
+        /**
+         * The number of the variable of every slot from minSlot on, or -1.
+         */
+        private final int[] slotToVariable;
+
+        /**
+         * The number of slots of every variable.
+         */
+        private final int[] sizes;
+
+        /**
+         * The class of the values of every reference variable, as an internal name, empty if none is known,
+         * UNKNOWN if they may be of different classes, or null if the variable is not a reference.
+         */
+        private final String[] references;
+
+        private final int count;
+
+        private Variables(int minSlot, int[] slotToVariable, int[] sizes, String[] references, int count) {
+            this.minSlot = minSlot;
+            this.slotToVariable = slotToVariable;
+            this.sizes = sizes;
+            this.references = references;
+            this.count = count;
+        }
+
+        /**
+         * Collects the variables of a method.
+         *
+         * @return the variables, or null if the method cannot be changed.
+         */
+        static Variables collect(InsnList instructions, int parameterSlots) {
+            // the variables of a method are usually close together, far from the parameters
+            int minSlot = Integer.MAX_VALUE;
+            int maxSlot = -1;
+            for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+                int opcode = insn.getOpcode();
+                if (opcode == Opcodes.JSR || opcode == Opcodes.RET)
+                    return null;
+                int slot = slot(insn);
+                if (slot < 0)
+                    continue;
+                if (slot < parameterSlots) {
+                    if (slot + size(opcode) > parameterSlots)
+                        return null;
+                    continue;
+                }
+                minSlot = Math.min(minSlot, slot);
+                maxSlot = Math.max(maxSlot, slot + size(opcode));
+            }
+            if (maxSlot < 0)
+                minSlot = maxSlot = parameterSlots;
+
+            int[] slotToVariable = new int[maxSlot - minSlot + 1];
+            Arrays.fill(slotToVariable, -1);
+            int[] slotSizes = new int[slotToVariable.length];
+            int[] order = new int[slotToVariable.length];
+            int count = 0;
+            for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+                int slot = slot(insn);
+                if (slot < parameterSlots)
+                    continue;
+                int size = size(insn.getOpcode());
+                int i = slot - minSlot;
+                if (slotSizes[i] == 0) {
+                    slotSizes[i] = size;
+                    slotToVariable[i] = count;
+                    order[count++] = i;
+                } else if (slotSizes[i] != size)
+                    return null;
+            }
+
+            // the second slot of a long or a double cannot be a variable of its own
+            for (int i = 0; i < slotSizes.length - 1; i++)
+                if (slotSizes[i] == 2 && slotSizes[i + 1] != 0)
+                    return null;
+
+            int[] sizes = new int[count];
+            for (int v = 0; v < count; v++)
+                sizes[v] = slotSizes[order[v]];
+
+            String[] references = new String[count];
+            for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+                int opcode = insn.getOpcode();
+                if (opcode != Opcodes.ASTORE && opcode != Opcodes.ALOAD)
+                    continue;
+                int slot = ((VarInsnNode) insn).var;
+                if (slot < parameterSlots)
+                    continue;
+                int v = slotToVariable[slot - minSlot];
+                if (references[v] == null)
+                    references[v] = "";
+                if (opcode == Opcodes.ASTORE) {
+                    String type = storedClass(insn.getPrevious());
+                    if (type == null)
+                        continue; // null fits any class
+                    if (references[v].isEmpty())
+                        references[v] = type;
+                    else if (!references[v].equals(type))
+                        references[v] = UNKNOWN;
+                }
+            }
+            return new Variables(minSlot, slotToVariable, sizes, references, count);
+        }
+
+        /**
+         * Returns the slot of a variable instruction, or -1.
+         */
+        private static int slot(AbstractInsnNode insn) {
+            if (insn instanceof VarInsnNode)
+                return ((VarInsnNode) insn).var;
+            if (insn instanceof IincInsnNode)
+                return ((IincInsnNode) insn).var;
+            return -1;
+        }
+
+        /**
+         * Returns the variable of an instruction which uses or defines one, or -1.
+         */
+        int variable(AbstractInsnNode insn) {
+            int i = slot(insn) - minSlot;
+            return i < 0 || i >= slotToVariable.length ? -1 : slotToVariable[i];
+        }
+
+        /**
+         * Returns the class of the reference pushed by an instruction, as an internal name,
+         * null for null, or UNKNOWN.
+         */
+        private static String storedClass(AbstractInsnNode insn) {
+            if (insn == null)
+                return UNKNOWN;
+            switch (insn.getOpcode()) {
+                case Opcodes.ACONST_NULL:
+                    return null;
+                case Opcodes.DUP:
+                    return storedClass(insn.getPrevious());
+                case Opcodes.LDC:
+                    return ((LdcInsnNode) insn).cst instanceof String ? "java/lang/String" : UNKNOWN;
+                case Opcodes.NEW:
+                case Opcodes.CHECKCAST:
+                    return ((TypeInsnNode) insn).desc;
+                case Opcodes.GETFIELD:
+                case Opcodes.GETSTATIC:
+                    return internalName(Type.getType(((FieldInsnNode) insn).desc));
+                case Opcodes.INVOKEVIRTUAL:
+                case Opcodes.INVOKESPECIAL:
+                case Opcodes.INVOKESTATIC:
+                case Opcodes.INVOKEINTERFACE:
+                    MethodInsnNode call = (MethodInsnNode) insn;
+                    if (call.name.equals("<init>"))
+                        return call.owner;
+                    return internalName(Type.getReturnType(call.desc));
+                default:
+                    return UNKNOWN;
+            }
+        }
+
+        private static String internalName(Type type) {
+            return type.getSort() == Type.OBJECT ? type.getInternalName() : UNKNOWN;
+        }
+
+        /**
+         * Makes the reference variables interfere, unless all their values are of the same class.
+         */
+        void separateReferences(BitSet[] interference) {
+            for (int v = 0; v < count; v++) {
+                if (references[v] == null)
+                    continue;
+                for (int u = v + 1; u < count; u++) {
+                    if (references[u] == null)
+                        continue;
+                    boolean same = references[v].equals(references[u])
+                            && !references[v].equals(UNKNOWN) && !references[v].isEmpty();
+                    if (!same) {
+                        interference[v].set(u);
+                        interference[u].set(v);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Moves the variables to their new slots.
+         */
+        void rewrite(InsnList instructions, int[] slots) {
+            for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+                int v = variable(insn);
+                if (v < 0)
+                    continue;
+                if (insn instanceof VarInsnNode)
+                    ((VarInsnNode) insn).var = slots[v];
+                else
+                    ((IincInsnNode) insn).var = slots[v];
+            }
+        }
+    }
+
+    /**
+     * The liveness of the variables over the basic blocks of a method.
+     */
+    private static final class Liveness {
+
+        private final AbstractInsnNode[] instructions;
+        private final Variables variables;
+
+        /**
+         * The index of the first instruction of every block, and the end of the last one.
+         */
+        private final int[] starts;
+
+        /**
+         * The blocks which follow every block.
+         */
+        private final int[][] successors;
+
+        Liveness(InsnList list, Variables variables) {
+            this.instructions = list.toArray();
+            this.variables = variables;
+
+            int n = instructions.length;
+            boolean[] leaders = new boolean[n + 1];
+            leaders[0] = true;
+            leaders[n] = true;
+            for (int i = 0; i < n; i++) {
+                AbstractInsnNode insn = instructions[i];
+                for (LabelNode label : ControlFlow.targets(insn))
+                    leaders[list.indexOf(label)] = true;
+                if (ControlFlow.targets(insn).length > 0 || ControlFlow.endsFlow(insn.getOpcode()))
+                    leaders[i + 1] = true;
+            }
+
+            int blocks = 0;
+            int[] blockOf = new int[n + 1];
+            int[] starts = new int[n + 1];
+            for (int i = 0; i <= n; i++) {
+                if (leaders[i])
+                    starts[blocks++] = i;
+                blockOf[i] = blocks - 1;
+            }
+            this.starts = Arrays.copyOf(starts, blocks);
+
+            this.successors = new int[blocks - 1][];
+            for (int b = 0; b < blocks - 1; b++) {
+                AbstractInsnNode last = instructions[this.starts[b + 1] - 1];
+                LabelNode[] targets = ControlFlow.targets(last);
+                boolean fallsThrough = ControlFlow.fallsThrough(last);
+                int[] next = new int[targets.length + (fallsThrough && b + 1 < blocks - 1 ? 1 : 0)];
+                int k = 0;
+                for (LabelNode label : targets)
+                    next[k++] = blockOf[list.indexOf(label)];
+                if (k < next.length)
+                    next[k] = b + 1;
+                successors[b] = next;
+            }
+        }
+
+        /**
+         * Computes which variables are live at the same time as every variable.
+         *
+         * @return the neighbours of every variable in the interference graph.
+         */
+        BitSet[] interference() {
+            int blocks = successors.length;
+            BitSet[] gen = new BitSet[blocks];
+            BitSet[] kill = new BitSet[blocks];
+            for (int b = 0; b < blocks; b++) {
+                gen[b] = new BitSet();
+                kill[b] = new BitSet();
+                for (int i = starts[b]; i < starts[b + 1]; i++) {
+                    int v = variables.variable(instructions[i]);
+                    if (v < 0)
+                        continue;
+                    int opcode = instructions[i].getOpcode();
+                    if (!isStore(opcode) && !kill[b].get(v))
+                        gen[b].set(v);
+                    if (isStore(opcode) || opcode == Opcodes.IINC)
+                        kill[b].set(v);
+                }
+            }
+
+            BitSet[] liveIn = new BitSet[blocks];
+            BitSet[] liveOut = new BitSet[blocks];
+            for (int b = 0; b < blocks; b++) {
+                liveIn[b] = (BitSet) gen[b].clone();
+                liveOut[b] = new BitSet();
+            }
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int b = blocks - 1; b >= 0; b--) {
+                    BitSet out = liveOut[b];
+                    for (int s : successors[b])
+                        out.or(liveIn[s]);
+                    BitSet in = (BitSet) out.clone();
+                    in.andNot(kill[b]);
+                    in.or(gen[b]);
+                    if (!in.equals(liveIn[b])) {
+                        liveIn[b] = in;
+                        changed = true;
+                    }
+                }
+            }
+
+            BitSet[] interference = new BitSet[variables.count];
+            for (int v = 0; v < variables.count; v++)
+                interference[v] = new BitSet();
+
+            for (int b = 0; b < blocks; b++) {
+                BitSet live = (BitSet) liveOut[b].clone();
+                for (int i = starts[b + 1] - 1; i >= starts[b]; i--) {
+                    int v = variables.variable(instructions[i]);
+                    if (v < 0)
+                        continue;
+                    int opcode = instructions[i].getOpcode();
+                    if (isStore(opcode) || opcode == Opcodes.IINC) {
+                        for (int u = live.nextSetBit(0); u >= 0; u = live.nextSetBit(u + 1))
+                            if (u != v) {
+                                interference[v].set(u);
+                                interference[u].set(v);
+                            }
+                        live.clear(v);
+                    }
+                    if (!isStore(opcode))
+                        live.set(v);
+                }
+            }
+
+            // the variables which are read before they are written live together from the start
+            if (blocks > 0) {
+                BitSet entry = liveIn[0];
+                for (int v = entry.nextSetBit(0); v >= 0; v = entry.nextSetBit(v + 1))
+                    for (int u = entry.nextSetBit(v + 1); u >= 0; u = entry.nextSetBit(u + 1)) {
+                        interference[v].set(u);
+                        interference[u].set(v);
+                    }
+            }
+            return interference;
+        }
+    }
+}
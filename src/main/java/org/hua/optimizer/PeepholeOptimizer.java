@@ -0,0 +1,407 @@
+package org.hua.optimizer;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.IincInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Rewrites the instructions of a method which the byte code generator emits in a fixed, wasteful way,
+ * repeating its passes until none of them changes anything:
+ * <ul>
+ * <li>an integer or float constant is pushed with ICONST, BIPUSH, SIPUSH or FCONST instead of LDC.</li>
+ * <li>a value which is stored to a variable and loaded right back is kept on the stack instead,
+ * e.g. the temporary of a write statement.</li>
+ * <li>a jump to a GOTO jumps to its target, a GOTO to a return or a throw returns or throws, a GOTO to
+ * the next instruction is removed, and a conditional jump over a GOTO is inverted to jump to its target.</li>
+ * <li>the instructions which no path from the start of the method reaches, and the labels which nothing
+ * refers to, are removed.</li>
+ * </ul>
+ * It runs before the LocalSlotAllocator, so the variables which are no longer used do not take a slot.
+ * <br>
+ * The method must have no exception handlers, since their ranges and handlers are not in the instructions.
+ */
+public final class PeepholeOptimizer {
+
+    private PeepholeOptimizer() {
+    }
+
+    /**
+     * Optimizes the instructions of a method which has no exception handlers.
+     *
+     * @param instructions the instructions of the method, which are changed in place.
+     */
+    public static void optimize(InsnList instructions) {
+        selectConstants(instructions);
+        boolean changed = true;
+        while (changed) {
+            changed = eliminateStoreLoads(instructions);
+            changed |= threadJumps(instructions);
+            changed |= removeUnreachableCode(instructions);
+        }
+    }
+
+    /**
+     * Replaces the LDC of every small integer, and of the floats 0, 1 and 2, with its shorter instruction.
+     */
+    private static void selectConstants(InsnList instructions) {
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn.getOpcode() != Opcodes.LDC)
+                continue;
+            AbstractInsnNode constant = constant(((LdcInsnNode) insn).cst);
+            if (constant != null) {
+                instructions.set(insn, constant);
+                insn = constant;
+            }
+        }
+    }
+
+    /**
+     * Returns the instruction which pushes a constant without the constant pool, or null if there is none.
+     */
+    private static AbstractInsnNode constant(Object cst) {
+        if (cst instanceof Integer) {
+            int value = (Integer) cst;
+            if (value >= -1 && value <= 5)
+                return new InsnNode(Opcodes.ICONST_0 + value);
+            if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+                return new IntInsnNode(Opcodes.BIPUSH, value);
+            if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+                return new IntInsnNode(Opcodes.SIPUSH, value);
+        } else if (cst instanceof Float) {
+            // compare the bits, so that -0.0 stays in the constant pool
+            int bits = Float.floatToRawIntBits((Float) cst);
+            for (int value = 0; value <= 2; value++)
+                if (bits == Float.floatToRawIntBits(value))
+                    return new InsnNode(Opcodes.FCONST_0 + value);
+        }
+        return null;
+    }
+
+    /**
+     * Keeps on the stack the values which are stored to a variable and loaded right back:
+     * <pre>
+     * xSTORE n, xLOAD n                   becomes nothing if n is a temporary, DUP, xSTORE n otherwise
+     * push, xSTORE n, GETSTATIC, xLOAD n  becomes GETSTATIC, push, if n is a temporary and push is a constant
+     *                                     or a load
+     * xSTORE n, GETSTATIC, xLOAD n        becomes GETSTATIC, SWAP, if n is a temporary
+     * </pre>
+     * A temporary is a variable which is only ever read right after such a store, so no other instruction
+     * reads the value of the store, as for the temporaries of the write statements. A variable which is
+     * stored again before any read or jump is not read after the load either. The last two apply only
+     * to a value which is neither a long nor a double.
+     *
+     * @return true if an instruction has changed.
+     */
+    private static boolean eliminateStoreLoads(InsnList instructions) {
+        // the slots are not allocated yet and spread over the whole file, so only the paired ones are counted
+        int[] slots = new int[8];
+        int count = 0;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext())
+            if (isPairedStore(insn)) {
+                if (count == slots.length)
+                    slots = Arrays.copyOf(slots, 2 * count);
+                slots[count++] = ((VarInsnNode) insn).var;
+            }
+        if (count == 0)
+            return false;
+
+        Arrays.sort(slots, 0, count);
+        int distinct = 1;
+        for (int i = 1; i < count; i++)
+            if (slots[i] != slots[distinct - 1])
+                slots[distinct++] = slots[i];
+        slots = Arrays.copyOf(slots, distinct);
+
+        // count the reads of every paired slot, and the ones right after a store
+        int[] reads = new int[distinct];
+        int[] pairedReads = new int[distinct];
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            int opcode = insn.getOpcode();
+            if ((opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD) || opcode == Opcodes.IINC) {
+                count(reads, slots, slot(insn));
+                if (opcode == Opcodes.LLOAD || opcode == Opcodes.DLOAD)
+                    count(reads, slots, slot(insn) + 1);
+            } else if (isPairedStore(insn))
+                count(pairedReads, slots, slot(insn));
+        }
+
+        boolean changed = false;
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (!isStore(insn.getOpcode())) {
+                insn = next;
+                continue;
+            }
+
+            VarInsnNode store = (VarInsnNode) insn;
+            int i = Arrays.binarySearch(slots, store.var);
+            // a pair which appears after a rewrite has a read which was not counted as paired
+            boolean temporary = i >= 0 && reads[i] == pairedReads[i];
+            if (isLoadOf(next, store)) {
+                if (temporary || isOverwrittenAfter(next, store.var))
+                    instructions.remove(store);
+                else
+                    instructions.insertBefore(store, new InsnNode(
+                            store.getOpcode() == Opcodes.LSTORE || store.getOpcode() == Opcodes.DSTORE
+                                    ? Opcodes.DUP2 : Opcodes.DUP));
+                insn = next.getNext();
+                instructions.remove(next);
+                changed = true;
+            } else if (isStoreLoadAroundGetStatic(store)
+                    && (temporary || isOverwrittenAfter(next.getNext(), store.var))) {
+                AbstractInsnNode load = next.getNext();
+                AbstractInsnNode push = store.getPrevious();
+                insn = load.getNext();
+                if (push != null && isPush(push.getOpcode())) {
+                    instructions.remove(push);
+                    instructions.insert(next, push);
+                    instructions.remove(load);
+                } else
+                    instructions.set(load, new InsnNode(Opcodes.SWAP));
+                instructions.remove(store);
+                changed = true;
+            } else
+                insn = next;
+        }
+        return changed;
+    }
+
+    /**
+     * Checks if a variable is stored again, or the method ends, before any read or jump after an instruction.
+     */
+    private static boolean isOverwrittenAfter(AbstractInsnNode insn, int var) {
+        for (AbstractInsnNode i = insn.getNext(); i != null; i = i.getNext()) {
+            int opcode = i.getOpcode();
+            if (i instanceof VarInsnNode && ((VarInsnNode) i).var == var)
+                return isStore(opcode);
+            if ((i instanceof VarInsnNode && ((VarInsnNode) i).var == var - 1
+                    && (opcode == Opcodes.LLOAD || opcode == Opcodes.DLOAD))
+                    || (i instanceof IincInsnNode && ((IincInsnNode) i).var == var))
+                return false;
+            if (ControlFlow.endsFlow(opcode))
+                return true;
+            if (ControlFlow.targets(i).length > 0)
+                return false;
+        }
+        return false;
+    }
+
+    private static void count(int[] counts, int[] slots, int slot) {
+        int i = Arrays.binarySearch(slots, slot);
+        if (i >= 0)
+            counts[i]++;
+    }
+
+    /**
+     * Checks if an instruction stores a variable which is loaded right back.
+     */
+    private static boolean isPairedStore(AbstractInsnNode insn) {
+        return isStore(insn.getOpcode())
+                && (isLoadOf(insn.getNext(), (VarInsnNode) insn) || isStoreLoadAroundGetStatic((VarInsnNode) insn));
+    }
+
+    private static int slot(AbstractInsnNode insn) {
+        return insn instanceof IincInsnNode ? ((IincInsnNode) insn).var : ((VarInsnNode) insn).var;
+    }
+
+    private static boolean isStore(int opcode) {
+        return opcode >= Opcodes.ISTORE && opcode <= Opcodes.ASTORE;
+    }
+
+    /**
+     * Checks if a store is followed by a GETSTATIC and a load of its variable, as the same type of one slot.
+     */
+    private static boolean isStoreLoadAroundGetStatic(VarInsnNode store) {
+        AbstractInsnNode next = store.getNext();
+        return store.getOpcode() != Opcodes.LSTORE && store.getOpcode() != Opcodes.DSTORE
+                && next != null && next.getOpcode() == Opcodes.GETSTATIC && isLoadOf(next.getNext(), store);
+    }
+
+    /**
+     * Checks if an instruction loads the variable of a store, as the same type.
+     */
+    private static boolean isLoadOf(AbstractInsnNode insn, VarInsnNode store) {
+        return insn instanceof VarInsnNode && ((VarInsnNode) insn).var == store.var
+                && insn.getOpcode() == store.getOpcode() - (Opcodes.ISTORE - Opcodes.ILOAD);
+    }
+
+    /**
+     * Checks if an opcode pushes a value without side effects and without popping anything,
+     * so that it can run later.
+     */
+    private static boolean isPush(int opcode) {
+        return (opcode >= Opcodes.ACONST_NULL && opcode <= Opcodes.LDC)
+                || (opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD);
+    }
+
+    /**
+     * Shortens the jumps:
+     * <pre>
+     * a jump to GOTO L           jumps to L
+     * GOTO to xRETURN or ATHROW  becomes xRETURN or ATHROW
+     * GOTO L, L:                 becomes L:
+     * IFxx L, GOTO M, L:         becomes IFnotxx M, L:
+     * </pre>
+     *
+     * @return true if an instruction has changed.
+     */
+    private static boolean threadJumps(InsnList instructions) {
+        boolean changed = false;
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (!(insn instanceof JumpInsnNode)) {
+                insn = next;
+                continue;
+            }
+
+            JumpInsnNode jump = (JumpInsnNode) insn;
+            LabelNode target = finalTarget(jump.label, instructions.size());
+            if (target != jump.label) {
+                jump.label = target;
+                changed = true;
+            }
+
+            if (jump.getOpcode() == Opcodes.GOTO) {
+                AbstractInsnNode destination = real(target);
+                if (isLabelBefore(target, next)) {
+                    instructions.remove(jump);
+                    changed = true;
+                } else if (destination != null && ControlFlow.endsFlow(destination.getOpcode())) {
+                    instructions.set(jump, new InsnNode(destination.getOpcode()));
+                    changed = true;
+                }
+            } else if (isConditional(jump.getOpcode()) && next != null && next.getOpcode() == Opcodes.GOTO
+                    && isLabelBefore(jump.label, next.getNext())) {
+                jump.setOpcode(inverse(jump.getOpcode()));
+                jump.label = ((JumpInsnNode) next).label;
+                next = next.getNext();
+                instructions.remove(jump.getNext());
+                changed = true;
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    /**
+     * Follows the GOTOs from a label to the label where they end.
+     */
+    private static LabelNode finalTarget(LabelNode label, int maxHops) {
+        AbstractInsnNode destination = real(label);
+        // a loop of GOTOs never ends, so stop after as many hops as there are instructions
+        for (int hops = 0; destination != null && destination.getOpcode() == Opcodes.GOTO && hops < maxHops; hops++) {
+            label = ((JumpInsnNode) destination).label;
+            destination = real(label);
+        }
+        return label;
+    }
+
+    /**
+     * Returns the first instruction which runs from a node on, skipping the labels and the line numbers.
+     */
+    private static AbstractInsnNode real(AbstractInsnNode insn) {
+        while (insn != null && insn.getOpcode() < 0)
+            insn = insn.getNext();
+        return insn;
+    }
+
+    /**
+     * Checks if a label is among the labels and line numbers from a node up to the next instruction.
+     */
+    private static boolean isLabelBefore(LabelNode label, AbstractInsnNode insn) {
+        for (; insn != null && insn.getOpcode() < 0; insn = insn.getNext())
+            if (insn == label)
+                return true;
+        return false;
+    }
+
+    private static boolean isConditional(int opcode) {
+        return (opcode >= Opcodes.IFEQ && opcode <= Opcodes.IF_ACMPNE)
+                || opcode == Opcodes.IFNULL || opcode == Opcodes.IFNONNULL;
+    }
+
+    /**
+     * Returns the conditional jump which is taken exactly when a conditional jump is not.
+     */
+    private static int inverse(int opcode) {
+        if (opcode == Opcodes.IFNULL)
+            return Opcodes.IFNONNULL;
+        if (opcode == Opcodes.IFNONNULL)
+            return Opcodes.IFNULL;
+        // the opcodes come in pairs, from IFEQ and IFNE on
+        return ((opcode - Opcodes.IFEQ) ^ 1) + Opcodes.IFEQ;
+    }
+
+    /**
+     * Removes the instructions which no path from the start of the method reaches,
+     * and the labels which no reached jump nor line number refers to.
+     * <br>
+     * The reached labels are found by sweeping the instructions in order, again while a sweep reaches
+     * new labels, since a backward jump may reach a label which the sweep has already passed.
+     *
+     * @return true if a node has been removed.
+     */
+    private static boolean removeUnreachableCode(InsnList instructions) {
+        Set<LabelNode> reached = Collections.newSetFromMap(new IdentityHashMap<LabelNode, Boolean>());
+        Set<LabelNode> lines = null;
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            boolean reachable = true;
+            for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+                if (insn instanceof LabelNode && reached.contains(insn))
+                    reachable = true;
+                else if (insn instanceof LineNumberNode) {
+                    if (lines == null)
+                        lines = Collections.newSetFromMap(new IdentityHashMap<LabelNode, Boolean>());
+                    lines.add(((LineNumberNode) insn).start);
+                }
+                if (!reachable)
+                    continue;
+                if (insn instanceof JumpInsnNode)
+                    grown |= reached.add(((JumpInsnNode) insn).label);
+                else
+                    for (LabelNode target : ControlFlow.targets(insn))
+                        grown |= reached.add(target);
+                if (!ControlFlow.fallsThrough(insn))
+                    reachable = false;
+            }
+        }
+
+        boolean changed = false;
+        boolean reachable = true;
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (insn instanceof LabelNode) {
+                if (reached.contains(insn))
+                    reachable = true;
+                else if (lines == null || !lines.contains(insn)) {
+                    instructions.remove(insn);
+                    changed = true;
+                }
+            } else if (!reachable && insn.getOpcode() >= 0) {
+                instructions.remove(insn);
+                changed = true;
+            } else if (!ControlFlow.fallsThrough(insn))
+                reachable = false;
+            insn = next;
+        }
+        return changed;
+    }
+}
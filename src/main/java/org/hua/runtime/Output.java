@@ -0,0 +1,142 @@
+package org.hua.runtime;
+
+/**
+ * The output of the write statements of the huava programs which are compiled with --write buffered.
+ * <br>
+ * The text is collected in a large buffer, without a lock, and printed to System.out in a single call
+ * when the buffer is full, when main returns, and when the program ends in any other way,
+ * e.g. because of an uncaught exception. The huava programs have a single thread, so the buffer
+ * needs no synchronization.
+ * <br>
+ * The class is bundled with the compiler, and copied into the archive of the --jar option, which runs with java -jar,
+ * or next to the huaclasses in the output folder, for a class loader which defines them and has the folder on its
+ * class path.
+ */
+public final class Output implements Runnable {
+
+    /**
+     * The size of the buffer, in characters.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The text which has not been printed yet.
+     */
+    private static final char[] BUFFER = new char[BUFFER_SIZE];
+
+    /**
+     * The number of characters in the buffer.
+     */
+    private static int count;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Output(), "huava-output"));
+    }
+
+    private Output() {
+    }
+
+    /**
+     * Prints the buffer when the program ends.
+     */
+    @Override
+    public void run() {
+        flush();
+    }
+
+    /**
+     * Prints a string.
+     *
+     * @param s the string, which is printed as null if it is null.
+     */
+    public static void print(String s) {
+        if (s == null)
+            s = "null";
+
+        int length = s.length();
+        if (length > BUFFER_SIZE - count) {
+            flush();
+            if (length > BUFFER_SIZE) {
+                System.out.print(s);
+                return;
+            }
+        }
+        s.getChars(0, length, BUFFER, count);
+        count += length;
+    }
+
+    /**
+     * Prints an int, without creating a string.
+     *
+     * @param i the int.
+     */
+    public static void print(int i) {
+        if (i == Integer.MIN_VALUE) {
+            print("-2147483648");
+            return;
+        }
+        // the sign and the ten digits of the longest int.
+        if (BUFFER_SIZE - count < 11)
+            flush();
+
+        if (i < 0) {
+            BUFFER[count++] = '-';
+            i = -i;
+        }
+        int end = count + digits(i);
+        for (int position = end; position > count; i /= 10)
+            BUFFER[--position] = (char) ('0' + i % 10);
+        count = end;
+    }
+
+    /**
+     * Prints a float, as Float.toString does.
+     *
+     * @param f the float.
+     */
+    public static void print(float f) {
+        print(Float.toString(f));
+    }
+
+    /**
+     * Prints a boolean, as true or false.
+     *
+     * @param b the boolean.
+     */
+    public static void print(boolean b) {
+        print(b ? "true" : "false");
+    }
+
+    /**
+     * Prints an object, as String.valueOf does.
+     *
+     * @param o the object.
+     */
+    public static void print(Object o) {
+        print(String.valueOf(o));
+    }
+
+    /**
+     * Prints the text of the buffer to System.out, and flushes it.
+     */
+    public static void flush() {
+        if (count > 0) {
+            System.out.print(new String(BUFFER, 0, count));
+            count = 0;
+        }
+        System.out.flush();
+    }
+
+    /**
+     * Counts the decimal digits of a number.
+     *
+     * @param i the number, which is not negative.
+     * @return the number of its digits, at least one.
+     */
+    private static int digits(int i) {
+        int digits = 1;
+        for (; i >= 10; i /= 10)
+            digits++;
+        return digits;
+    }
+}
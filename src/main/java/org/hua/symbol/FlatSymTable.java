@@ -0,0 +1,445 @@
+package org.hua.symbol;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A symbol table which shares a single open addressing table with all the scopes nested in it.
+ * <br>
+ * A name is hashed once, and its entries in all the scopes are found in the same slot, sorted by scope,
+ * so a lookup does not walk the enclosing scopes, no matter how deep the scope is.
+ * Every scope is numbered when it is created and remembers the number of its last nested scope,
+ * so whether a scope encloses another is a comparison. The entry of a lookup is the last one of a scope
+ * numbered up to the scope of the lookup, or else the nearest entry with the same name which encloses it,
+ * which is linked to it. The scopes of a table have to be created in depth first order,
+ * as the SymTableBuilderASTVisitor creates them.
+ * <br>
+ * The symbols are enumerated by iterators over the scopes, without being copied.
+ *
+ * @param <E> The type of objects that can be stored in the symbol table.
+ */
+public class FlatSymTable<E> implements SymTable<E> {
+
+    /**
+     * The table shared by the scopes.
+     */
+    private final Table<E> table;
+
+    /**
+     * The enclosing scope in the same table, or null.
+     */
+    private final FlatSymTable<E> parent;
+
+    /**
+     * The symbol table which encloses the outermost scope, if it is not a FlatSymTable, or null.
+     */
+    private final SymTable<E> nextSymTable;
+
+    /**
+     * The number of the scope, in the order the scopes were created.
+     */
+    private final int number;
+
+    /**
+     * The number of the last scope nested in this one, or its own number.
+     */
+    private int lastNested;
+
+    /**
+     * The first and the last entries of the scope, in the order they were added.
+     */
+    private Entry<E> first;
+    private Entry<E> last;
+
+    /**
+     * The number of entries of the scope.
+     */
+    private int size;
+
+    public FlatSymTable(SymTable<E> nextSymTable) {
+        if (nextSymTable instanceof FlatSymTable) {
+            this.parent = (FlatSymTable<E>) nextSymTable;
+            this.table = parent.table;
+            this.nextSymTable = null;
+            if (parent.lastNested != table.scopes - 1)
+                throw new IllegalStateException("The scopes of a FlatSymTable have to be created in depth first order");
+        } else {
+            this.parent = null;
+            this.table = new Table<E>();
+            this.nextSymTable = nextSymTable;
+        }
+        this.number = table.scopes++;
+        this.lastNested = number;
+        for (FlatSymTable<E> scope = parent; scope != null; scope = scope.parent)
+            scope.lastNested = number;
+    }
+
+    /**
+     * Checks if a scope is this one or nested in it.
+     *
+     * @param scope the scope.
+     * @return true if this scope encloses it.
+     */
+    private boolean encloses(FlatSymTable<E> scope) {
+        return number <= scope.number && scope.number <= lastNested;
+    }
+
+    /**
+     * Returns the outermost scope of the table.
+     */
+    private FlatSymTable<E> outermost() {
+        FlatSymTable<E> scope = this;
+        while (scope.parent != null)
+            scope = scope.parent;
+        return scope;
+    }
+
+    @Override
+    public E lookup(String s, SymbolKind kind) {
+        Name<E> name = table.get(s, kind);
+        if (name != null) {
+            Entry<E> e = name.visibleFrom(this);
+            if (e != null) {
+                return e.symbol;
+            }
+        }
+        SymTable<E> outer = outermost().nextSymTable;
+        if (outer != null) {
+            return outer.lookup(s, kind);
+        }
+        return null;
+    }
+
+    @Override
+    public E lookupOnlyInTop(String s, SymbolKind kind) {
+        Name<E> name = table.get(s, kind);
+        if (name == null) {
+            return null;
+        }
+        int i = name.indexOf(number);
+        return i < 0 ? null : name.entries[i].symbol;
+    }
+
+    @Override
+    public void put(String s, SymbolKind kind, E symbol) {
+        Name<E> name = table.getOrAdd(s, kind);
+        int i = name.indexOf(number);
+        if (i >= 0) {
+            name.entries[i].symbol = symbol;
+            return;
+        }
+        Entry<E> e = new Entry<E>(this, symbol);
+        name.insert(-i - 1, e);
+        if (last == null)
+            first = e;
+        else
+            last.nextInScope = e;
+        last = e;
+        e.name = name;
+        size++;
+    }
+
+    @Override
+    public boolean contains(E symbol) {
+        for (FlatSymTable<E> scope = this; scope != null; scope = scope.parent) {
+            for (Entry<E> e = scope.first; e != null; e = e.nextInScope)
+                if (e.symbol.equals(symbol))
+                    return true;
+            if (scope.nextSymTable != null)
+                return scope.nextSymTable.contains(symbol);
+        }
+        return false;
+    }
+
+    @Override
+    public Collection<E> getSymbols() {
+        return new AbstractCollection<E>() {
+            @Override
+            public Iterator<E> iterator() {
+                return new SymbolIterator<E>(FlatSymTable.this, true);
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (FlatSymTable<E> scope = FlatSymTable.this; scope != null; scope = scope.parent)
+                    size += scope.size;
+                SymTable<E> outer = outermost().nextSymTable;
+                return outer == null ? size : size + outer.getSymbols().size();
+            }
+        };
+    }
+
+    @Override
+    public Collection<E> getSymbolsOnlyInTop() {
+        return new AbstractCollection<E>() {
+            @Override
+            public Iterator<E> iterator() {
+                return new SymbolIterator<E>(FlatSymTable.this, false);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public void clearOnlyInTop() {
+        for (Entry<E> e = first; e != null; e = e.nextInScope)
+            e.name.remove(e.name.indexOf(number));
+        first = null;
+        last = null;
+        size = 0;
+    }
+
+    /**
+     * An entry of a scope.
+     */
+    private static final class Entry<E> {
+
+        private final FlatSymTable<E> scope;
+        private E symbol;
+        private Name<E> name;
+
+        /**
+         * The nearest entry with the same name and kind in a scope which encloses this one, or null.
+         */
+        private Entry<E> enclosing;
+
+        /**
+         * The next entry of the scope.
+         */
+        private Entry<E> nextInScope;
+
+        Entry(FlatSymTable<E> scope, E symbol) {
+            this.scope = scope;
+            this.symbol = symbol;
+        }
+    }
+
+    /**
+     * A name and a kind, with their entries in all the scopes of the table, sorted by the number of their scope.
+     */
+    private static final class Name<E> {
+
+        private final String name;
+        private final SymbolKind kind;
+        private final int hash;
+        private Entry<E>[] entries;
+        private int count;
+
+        Name(String name, SymbolKind kind, int hash) {
+            this.name = name;
+            this.kind = kind;
+            this.hash = hash;
+            this.entries = newArray(2);
+            this.count = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <E> Entry<E>[] newArray(int capacity) {
+            return (Entry<E>[]) new Entry<?>[capacity];
+        }
+
+        /**
+         * Finds the entry of a scope.
+         *
+         * @param number the number of the scope.
+         * @return the index of the entry, or (-(insertion point) - 1) if the scope has no entry.
+         */
+        int indexOf(int number) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int n = entries[middle].scope.number;
+                if (n < number)
+                    low = middle + 1;
+                else if (n > number)
+                    high = middle - 1;
+                else
+                    return middle;
+            }
+            return -(low + 1);
+        }
+
+        /**
+         * Finds the entry of the innermost scope which encloses a scope.
+         *
+         * @param scope the scope.
+         * @return the entry, or null.
+         */
+        Entry<E> visibleFrom(FlatSymTable<E> scope) {
+            int i = indexOf(scope.number);
+            if (i < 0)
+                i = -i - 2;
+            Entry<E> e = i < 0 ? null : entries[i];
+            while (e != null && !e.scope.encloses(scope))
+                e = e.enclosing;
+            return e;
+        }
+
+        void insert(int i, Entry<E> e) {
+            if (count == entries.length)
+                entries = Arrays.copyOf(entries, count * 2);
+            System.arraycopy(entries, i, entries, i + 1, count - i);
+            entries[i] = e;
+            count++;
+            link(i);
+        }
+
+        void remove(int i) {
+            System.arraycopy(entries, i + 1, entries, i, count - i - 1);
+            entries[--count] = null;
+            link(i);
+        }
+
+        /**
+         * Links the entries from an index on to their enclosing entries.
+         * The entries are usually added in the order of their scopes, so there is nothing after them to link.
+         */
+        private void link(int from) {
+            for (int i = from; i < count; i++) {
+                Entry<E> e = entries[i];
+                Entry<E> enclosing = i == 0 ? null : entries[i - 1];
+                while (enclosing != null && !enclosing.scope.encloses(e.scope))
+                    enclosing = enclosing.enclosing;
+                e.enclosing = enclosing;
+            }
+        }
+    }
+
+    /**
+     * An open addressing table with linear probing, from a name and a kind to their entries.
+     */
+    private static final class Table<E> {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private Name<E>[] names;
+        private int size;
+
+        /**
+         * The number of scopes created in the table.
+         */
+        private int scopes;
+
+        Table() {
+            this.names = newArray(INITIAL_CAPACITY);
+            this.size = 0;
+            this.scopes = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <E> Name<E>[] newArray(int capacity) {
+            return (Name<E>[]) new Name<?>[capacity];
+        }
+
+        private static int hash(String name, SymbolKind kind) {
+            int h = name.hashCode() * 31 + kind.ordinal();
+            return h ^ (h >>> 16);
+        }
+
+        /**
+         * Returns the slot of a name and a kind, either the one they are in or the empty one where they go.
+         */
+        private static <E> int slot(Name<E>[] names, String name, SymbolKind kind, int hash) {
+            int mask = names.length - 1;
+            int i = hash & mask;
+            Name<E> n;
+            while ((n = names[i]) != null) {
+                if (n.hash == hash && n.kind == kind && n.name.equals(name))
+                    return i;
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        Name<E> get(String name, SymbolKind kind) {
+            return names[slot(names, name, kind, hash(name, kind))];
+        }
+
+        Name<E> getOrAdd(String name, SymbolKind kind) {
+            int hash = hash(name, kind);
+            int i = slot(names, name, kind, hash);
+            Name<E> n = names[i];
+            if (n == null) {
+                n = new Name<E>(name, kind, hash);
+                names[i] = n;
+                if (++size * 2 > names.length)
+                    grow();
+            }
+            return n;
+        }
+
+        private void grow() {
+            Name<E>[] oldNames = names;
+            names = newArray(oldNames.length * 2);
+            for (Name<E> n : oldNames)
+                if (n != null)
+                    names[slot(names, n.name, n.kind, n.hash)] = n;
+        }
+    }
+
+    /**
+     * Iterates over the entries of a scope and, optionally, of the scopes which enclose it.
+     */
+    private static final class SymbolIterator<E> implements Iterator<E> {
+
+        private final boolean enclosing;
+        private FlatSymTable<E> scope;
+        private Entry<E> next;
+        private Iterator<E> outer;
+
+        SymbolIterator(FlatSymTable<E> scope, boolean enclosing) {
+            this.enclosing = enclosing;
+            this.scope = scope;
+            this.next = scope.first;
+            advance();
+        }
+
+        /**
+         * Moves to the enclosing scopes while the current one has no more entries.
+         */
+        private void advance() {
+            while (next == null && enclosing && scope != null) {
+                if (scope.parent == null) {
+                    if (scope.nextSymTable != null)
+                        outer = scope.nextSymTable.getSymbols().iterator();
+                    scope = null;
+                } else {
+                    scope = scope.parent;
+                    next = scope.first;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null || (outer != null && outer.hasNext());
+        }
+
+        @Override
+        public E next() {
+            if (next != null) {
+                E symbol = next.symbol;
+                next = next.nextInScope;
+                advance();
+                return symbol;
+            }
+            if (outer != null)
+                return outer.next();
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
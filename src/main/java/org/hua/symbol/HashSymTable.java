@@ -8,39 +8,53 @@ import java.util.Map;
 
 public class HashSymTable<E> implements SymTable<E> {
 
-    private final Map<String, E> table = new HashMap<String, E>();
+    private final Map<String, E> variables = new HashMap<String, E>();
+    private final Map<String, E> functions = new HashMap<String, E>();
     private SymTable<E> nextSymTable;
 
     public HashSymTable(SymTable<E> nextSymTable) {
         this.nextSymTable = nextSymTable;
     }
 
+    private Map<String, E> table(SymbolKind kind) {
+        return kind == SymbolKind.FUNCTION ? functions : variables;
+    }
+
     @Override
-    public E lookup(String s) {
-        E r = table.get(s);
+    public E lookup(String s, SymbolKind kind) {
+        E r = table(kind).get(s);
         if (r != null) {
             return r;
         }
         if (nextSymTable != null) {
-            return nextSymTable.lookup(s);
+            return nextSymTable.lookup(s, kind);
         }
         return null;
     }
 
     @Override
-    public E lookupOnlyInTop(String s) {
-        return table.get(s);
+    public E lookupOnlyInTop(String s, SymbolKind kind) {
+        return table(kind).get(s);
+    }
+
+    @Override
+    public void put(String s, SymbolKind kind, E symbol) {
+        table(kind).put(s, symbol);
     }
 
     @Override
-    public void put(String s, E symbol) {
-        table.put(s, symbol);
+    public boolean contains(E symbol) {
+        if (variables.containsValue(symbol) || functions.containsValue(symbol)) {
+            return true;
+        }
+        return nextSymTable != null && nextSymTable.contains(symbol);
     }
 
     @Override
     public Collection<E> getSymbols() {
         List<E> symbols = new ArrayList<E>();
-        symbols.addAll(table.values());
+        symbols.addAll(variables.values());
+        symbols.addAll(functions.values());
         if (nextSymTable != null) {
             symbols.addAll(nextSymTable.getSymbols());
         }
@@ -50,13 +64,15 @@ public class HashSymTable<E> implements SymTable<E> {
     @Override
     public Collection<E> getSymbolsOnlyInTop() {
         List<E> symbols = new ArrayList<E>();
-        symbols.addAll(table.values());
+        symbols.addAll(variables.values());
+        symbols.addAll(functions.values());
         return symbols;
     }
 
     @Override
     public void clearOnlyInTop() {
-        table.clear();
+        variables.clear();
+        functions.clear();
     }
 
 }
@@ -4,52 +4,67 @@ import org.hua.Registry;
 import org.hua.types.TypeUtils;
 import org.objectweb.asm.Type;
 
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Arrays;
 
 /**
  * Helper class to maintain a pool of used-free local variables.
+ * <br>
+ * The used indexes are the bits of a bitset, and the pool remembers the lowest index which may be free,
+ * so an index is found without scanning the ones below it, and without boxing.
+ * The lowest free index is always returned, as a double gets the lowest two free consecutive indexes.
  */
 public class LocalIndexPool {
 
-    private final SortedSet<Integer> used;
+    /**
+     * The bits of the used indexes, 64 indexes per word.
+     */
+    private long[] used;
+
+    /**
+     * No index below this one is free.
+     */
+    private int lowestFree;
+
+    private final Registry registry;
     private int max;
     private int maxUsed;
 
-    public LocalIndexPool() {
-        this(Integer.MAX_VALUE);
+    public LocalIndexPool(Registry registry) {
+        this(registry, Integer.MAX_VALUE);
     }
 
-    private LocalIndexPool(int max) {
-        this.used = new TreeSet<Integer>();
+    private LocalIndexPool(Registry registry, int max) {
+        this.used = new long[4];
+        this.lowestFree = 0;
+        this.registry = registry;
         this.max = max;
         this.maxUsed = 0;
     }
 
-    public int getLocalIndex(Type type) {
-        boolean classTypeFound = false;
-        if (Registry.getInstance().getClasses().containsKey(type))
-            classTypeFound = true;
+    /**
+     * Checks if a type is a reference the pool can hold, a string or a registered class.
+     * Only the classes need the registry, the primitive types are told apart by their sort.
+     */
+    private boolean isReference(Type type) {
+        return type.getSort() == Type.OBJECT
+                && (type.equals(TypeUtils.STRING_TYPE) || registry.getClasses().containsKey(type));
+    }
 
-        if (type.equals(Type.DOUBLE_TYPE))
+    public int getLocalIndex(Type type) {
+        int sort = type.getSort();
+        if (sort == Type.DOUBLE)
             return getDoubleLocalIndex();
-        else if (type.equals(Type.INT_TYPE)
-                || type.equals(Type.FLOAT_TYPE)
-                || type.equals(TypeUtils.STRING_TYPE)
-                || classTypeFound)
+        else if (sort == Type.INT || sort == Type.FLOAT || isReference(type))
             return getLocalIndex();
         else
             throw new IllegalArgumentException("Not supported type " + type);
     }
 
     public void freeLocalIndex(int i, Type type) {
-        boolean classTypeFound = false;
-        if (Registry.getInstance().getClasses().containsKey(type))
-            classTypeFound = true;
-
-        if (type.equals(Type.FLOAT_TYPE)) {
+        int sort = type.getSort();
+        if (sort == Type.DOUBLE) {
             freeDoubleLocalIndex(i);
-        } else if (type.equals(Type.INT_TYPE) || type.equals(TypeUtils.STRING_TYPE) || classTypeFound) {
+        } else if (sort == Type.INT || sort == Type.FLOAT || isReference(type)) {
             freeLocalIndex(i);
         } else {
             throw new IllegalArgumentException("Not supported type " + type);
@@ -57,43 +72,86 @@ public class LocalIndexPool {
     }
 
     public int getLocalIndex() {
-        for (int i = 0; i < max; i++) {
-            if (!used.contains(i)) {
-                used.add(i);
-                if (i > maxUsed) {
-                    maxUsed = i;
-                }
-                return i;
-            }
+        int i = nextFree(lowestFree);
+        checkCapacity(i);
+        set(i);
+        lowestFree = i + 1;
+        if (i > maxUsed) {
+            maxUsed = i;
         }
-        throw new RuntimeException("Pool cannot contain more temporaries.");
+        return i;
     }
 
     public void freeLocalIndex(int t) {
-        used.remove(t);
+        clear(t);
     }
 
     private int getDoubleLocalIndex() {
-        for (int i = 0; i < max; i++) {
-            if (!used.contains(i) && !used.contains(i + 1)) {
-                used.add(i);
-                used.add(i + 1);
-                if (i + 1 > maxUsed) {
-                    maxUsed = i + 1;
-                }
-                return i;
-            }
+        int i = nextFree(lowestFree);
+        while (isUsed(i + 1))
+            i = nextFree(i + 2);
+        checkCapacity(i);
+        checkCapacity(i + 1);
+        set(i);
+        set(i + 1);
+        if (i == lowestFree)
+            lowestFree = i + 2;
+        if (i + 1 > maxUsed) {
+            maxUsed = i + 1;
         }
-        throw new RuntimeException("Pool cannot contain more temporaries.");
+        return i;
     }
 
     private void freeDoubleLocalIndex(int t) {
-        used.remove(t);
-        used.remove(t + 1);
+        clear(t);
+        clear(t + 1);
     }
 
     public int getMaxLocals() {
         return maxUsed;
     }
 
+    private void checkCapacity(int i) {
+        if (i < 0 || i >= max)
+            throw new RuntimeException("Pool cannot contain more temporaries.");
+    }
+
+    private boolean isUsed(int i) {
+        int word = i >>> 6;
+        return word < used.length && (used[word] & (1L << i)) != 0;
+    }
+
+    private void set(int i) {
+        int word = i >>> 6;
+        if (word >= used.length)
+            used = Arrays.copyOf(used, Math.max(used.length * 2, word + 1));
+        used[word] |= 1L << i;
+    }
+
+    private void clear(int i) {
+        if (i < 0)
+            return;
+        int word = i >>> 6;
+        if (word < used.length)
+            used[word] &= ~(1L << i);
+        if (i < lowestFree)
+            lowestFree = i;
+    }
+
+    /**
+     * Finds the lowest free index from an index on, skipping the full words.
+     */
+    private int nextFree(int from) {
+        int word = from >>> 6;
+        if (word >= used.length)
+            return from;
+        long free = ~used[word] & (-1L << from);
+        while (free == 0) {
+            if (++word == used.length)
+                return word << 6;
+            free = ~used[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(free);
+    }
+
 }
@@ -0,0 +1,102 @@
+package org.hua.symbol;
+
+/**
+ * Interns the identifiers of a source as they are scanned, so that every occurrence of a name
+ * is the same String instance.
+ * <br>
+ * The Lexer looks up the characters of an identifier straight in its buffer, so a name which has been
+ * seen before does not create a new String. The first occurrence of a name in a file is interned
+ * in the JVM's string pool, so the names are canonical across all the files and threads of a compilation
+ * and the symbol tables compare and hash the same instances.
+ * <br>
+ * A table belongs to a single Lexer and is not thread safe.
+ */
+public final class NameTable {
+
+    /**
+     * The initial capacity of the table, a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The names, in an open addressing table with linear probing.
+     */
+    private String[] names;
+
+    /**
+     * The hash codes of the names.
+     */
+    private int[] hashes;
+
+    /**
+     * The number of names in the table.
+     */
+    private int size;
+
+    public NameTable() {
+        this.names = new String[INITIAL_CAPACITY];
+        this.hashes = new int[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the canonical instance of a name.
+     *
+     * @param buffer the characters.
+     * @param offset the index of the first character of the name.
+     * @param length the length of the name.
+     * @return the name.
+     */
+    public String intern(char[] buffer, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++)
+            hash = 31 * hash + buffer[i];
+
+        int mask = names.length - 1;
+        int slot = spread(hash) & mask;
+        String name;
+        while ((name = names[slot]) != null) {
+            if (hashes[slot] == hash && matches(name, buffer, offset, length))
+                return name;
+            slot = (slot + 1) & mask;
+        }
+
+        name = new String(buffer, offset, length).intern();
+        names[slot] = name;
+        hashes[slot] = hash;
+        if (++size * 2 > names.length)
+            grow();
+        return name;
+    }
+
+    private static boolean matches(String name, char[] buffer, int offset, int length) {
+        if (name.length() != length)
+            return false;
+        for (int i = 0; i < length; i++)
+            if (name.charAt(i) != buffer[offset + i])
+                return false;
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void grow() {
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+        names = new String[oldNames.length * 2];
+        hashes = new int[oldNames.length * 2];
+
+        int mask = names.length - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] == null)
+                continue;
+            int slot = spread(oldHashes[i]) & mask;
+            while (names[slot] != null)
+                slot = (slot + 1) & mask;
+            names[slot] = oldNames[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+}
@@ -4,6 +4,9 @@ import java.util.Collection;
 
 /**
  * Symbol table
+ * <br>
+ * The symbols are keyed by their name and their kind, so a variable and a function with the same name
+ * are different symbols.
  *
  * @param <E> The type of objects that can be stored in the symbol table.
  */
@@ -13,25 +16,36 @@ public interface SymTable<E> {
      * Lookup a symbol in the symbol table.
      *
      * @param s The name of the symbol
+     * @param kind The kind of the symbol
      * @return The entry for the symbol or null if not found.
      */
-    E lookup(String s);
+    E lookup(String s, SymbolKind kind);
 
     /**
      * Lookup a symbol in the symbol table.
      *
      * @param s The name of the symbol
+     * @param kind The kind of the symbol
      * @return The entry for the symbol or null if not found.
      */
-    E lookupOnlyInTop(String s);
+    E lookupOnlyInTop(String s, SymbolKind kind);
 
     /**
      * Add a new symbol table entry.
      *
      * @param s The name of the new entry
+     * @param kind The kind of the new entry
      * @param symbol The actual entry
      */
-    void put(String s, E symbol);
+    void put(String s, SymbolKind kind, E symbol);
+
+    /**
+     * Check if a symbol is available in this symbol table, without collecting all the symbols.
+     *
+     * @param symbol The entry
+     * @return true if the entry is in this table or in the tables it is nested in.
+     */
+    boolean contains(E symbol);
 
     /**
      * Get all the symbols available in this symbol table.
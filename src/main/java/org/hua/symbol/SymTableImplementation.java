@@ -0,0 +1,46 @@
+package org.hua.symbol;
+
+/**
+ * The implementations of the symbol tables, which are selected with the --symtable option of the compiler.
+ */
+public enum SymTableImplementation {
+
+    /**
+     * A HashMap for every scope, chained to the enclosing scope.
+     */
+    HASH,
+
+    /**
+     * A single table for all the scopes of a file.
+     */
+    FLAT;
+
+    /**
+     * Creates a new scope.
+     *
+     * @param nextSymTable the enclosing scope, or null.
+     * @param <E> The type of objects that can be stored in the symbol table.
+     * @return the new scope.
+     */
+    public <E> SymTable<E> newScope(SymTable<E> nextSymTable) {
+        switch (this) {
+            case FLAT:
+                return new FlatSymTable<E>(nextSymTable);
+            default:
+                return new HashSymTable<E>(nextSymTable);
+        }
+    }
+
+    /**
+     * Returns the implementation with a name, as given to the --symtable option.
+     *
+     * @param name the name, in any case.
+     * @return the implementation, or null if there is none with that name.
+     */
+    public static SymTableImplementation forName(String name) {
+        for (SymTableImplementation implementation : values())
+            if (implementation.name().equalsIgnoreCase(name))
+                return implementation;
+        return null;
+    }
+}
@@ -0,0 +1,19 @@
+package org.hua.symbol;
+
+/**
+ * The kinds of symbols, which have separate namespaces in a symbol table,
+ * so a field and a function of a class may have the same name.
+ */
+public enum SymbolKind {
+
+    /**
+     * A field, a local variable or a parameter.
+     */
+    VARIABLE,
+
+    /**
+     * A function.
+     */
+    FUNCTION
+
+}
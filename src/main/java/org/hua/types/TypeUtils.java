@@ -90,7 +90,7 @@ public class TypeUtils {
             case MINUS:
                 return isNumber(type);
             case NOT:
-                return isNumber(type);
+                return isNumber(type) || type.equals(Type.BOOLEAN_TYPE);
             default:
                 return false;
         }
@@ -0,0 +1,128 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.helpers.ReloadingClassLoader;
+import org.hua.symbol.SymTableImplementation;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class ByteCodeGeneratorTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void assignsConstructedObjectsInALoop() throws Exception {
+        String source = "class P {\n"
+                + "\tint v;\n"
+                + "}\n"
+                + "class L {\n"
+                + "\tstatic void main() {\n"
+                + "\t\tint i;\n"
+                + "\t\tP p;\n"
+                + "\t\tP q;\n"
+                + "\t\ti = 0;\n"
+                + "\t\twhile (i < 3) {\n"
+                + "\t\t\tp = new P();\n"
+                + "\t\t\tq = new P();\n"
+                + "\t\t\ti = i + 1;\n"
+                + "\t\t}\n"
+                + "\t\twrite(\"done \" + i + \"\\n\");\n"
+                + "\t}\n"
+                + "}\n";
+        for (CodegenBackend backend : CodegenBackend.values())
+            for (boolean peephole : new boolean[]{true, false})
+                assertEquals(backend + ", peephole " + peephole, "done 3\n",
+                        run(compile(source, backend, peephole), "L"));
+    }
+
+    @Test
+    public void assignsFieldsOfObjectsAndOfTheirFields() throws Exception {
+        String source = "class Q {\n"
+                + "\tint v;\n"
+                + "\tfloat f;\n"
+                + "\tQ next;\n"
+                + "\tvoid show() {\n"
+                + "\t\twrite(v);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(f);\n"
+                + "\t\twrite(\"\\n\");\n"
+                + "\t}\n"
+                + "\tvoid showNext() {\n"
+                + "\t\tnext.show();\n"
+                + "\t}\n"
+                + "}\n"
+                + "class D {\n"
+                + "\tstatic void main() {\n"
+                + "\t\tQ p;\n"
+                + "\t\tQ q;\n"
+                + "\t\tp = new Q();\n"
+                + "\t\tq = new Q();\n"
+                + "\t\tp.v = 5;\n"
+                + "\t\tp.f = 2;\n"
+                + "\t\tp.next = q;\n"
+                + "\t\tp.next.v = 7;\n"
+                + "\t\tp.next.next = new Q();\n"
+                + "\t\tp.next.next.f = 1.5;\n"
+                + "\t\tp.show();\n"
+                + "\t\tq.show();\n"
+                + "\t\tq.showNext();\n"
+                + "\t}\n"
+                + "}\n";
+        for (CodegenBackend backend : CodegenBackend.values())
+            for (boolean peephole : new boolean[]{true, false})
+                assertEquals(backend + ", peephole " + peephole, "5 2.0\n7 0.0\n0 1.5\n",
+                        run(compile(source, backend, peephole), "D"));
+    }
+
+    /**
+     * Compiles a source as the pipeline does, with a backend and with or without the peephole optimizer.
+     */
+    private static TreeMap<String, byte[]> compile(String source, CodegenBackend backend, boolean peephole)
+            throws Exception {
+        parser p = new parser(new Lexer(new StringReader(source)));
+        ASTNode compUnit = (ASTNode) p.parse().value;
+
+        Registry registry = new Registry();
+        compUnit.accept(new SymTableBuilderASTVisitor(SymTableImplementation.FLAT));
+        compUnit.accept(new LocalIndexBuilderASTVisitor(registry));
+        compUnit.accept(new CollectDeclarationsASTVisitor(registry));
+        compUnit.accept(new CollectSymbolsASTVisitor());
+        compUnit.accept(new CollectTypesASTVisitor(registry));
+
+        ByteCodeGeneratorASTVisitor generator = new ByteCodeGeneratorASTVisitor("Test", null, registry,
+                StringConcatenation.BUILDER, ClassFileTarget.JAVA_8, backend, peephole, WriteMode.STRICT);
+        compUnit.accept(generator);
+        return generator.getClassBytes();
+    }
+
+    /**
+     * Loads compiled classes, which the JVM verifies, and runs the main function of one of them.
+     *
+     * @return what it wrote.
+     */
+    private static String run(TreeMap<String, byte[]> classBytes, String mainClass) throws Exception {
+        ReloadingClassLoader loader = new ReloadingClassLoader(ByteCodeGeneratorTest.class.getClassLoader());
+        for (Map.Entry<String, byte[]> pair : classBytes.entrySet())
+            loader.register(pair.getKey(), pair.getValue());
+        Class<?> c = loader.loadClass(mainClass);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(bytes, true, "UTF-8"));
+        try {
+            c.getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+        } finally {
+            System.out.flush();
+            System.setOut(out);
+        }
+        return new String(bytes.toByteArray(), UTF_8);
+    }
+}
@@ -0,0 +1,265 @@
+package org.hua;
+
+import org.hua.ast.ASTNode;
+import org.hua.helpers.ReloadingClassLoader;
+import org.hua.symbol.SymTableImplementation;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConstantFoldingTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void samplesWriteTheSameWithAndWithoutFolding() throws Exception {
+        for (String file : new String[]{"sample1.huava", "sample2.huava", "sample3.huava"}) {
+            String source = read(file);
+            assertEquals(file, run(compile(source, false)), run(compile(source, true)));
+        }
+    }
+
+    @Test
+    public void finalTestFilesWriteTheSameWithAndWithoutFolding() throws Exception {
+        String source = read("FinalTestFiles/test1.huava") + read("FinalTestFiles/test2.huava")
+                + read("FinalTestFiles/test3.huava");
+        String output = run(compile(source, true));
+        assertTrue(output.startsWith("1.0st time in the loop.\n"));
+        assertEquals(run(compile(source, false)), output);
+    }
+
+    @Test
+    public void widensIntegerConstantsToFloat() throws Exception {
+        String source = "class Widen {\n"
+                + "\tstatic void main() {\n"
+                + "\t\tfloat f;\n"
+                + "\t\tf = 3 / 2 + 0.5;\n"
+                + "\t\twrite(f);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(1 + 2.25);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(7 * 0.5 - 1);\n"
+                + "\t}\n"
+                + "}\n";
+        TreeMap<String, byte[]> folded = compile(source, true);
+        assertEquals("1.5 3.25 2.5", run(folded));
+        assertEquals("1.5 3.25 2.5", run(compile(source, false)));
+
+        MethodNode main = main(folded);
+        List<Object> constants = constants(main);
+        assertTrue(constants.contains(1.5f));
+        assertTrue(constants.contains(3.25f));
+        assertTrue(constants.contains(2.5f));
+        for (int opcode : new int[]{Opcodes.IDIV, Opcodes.I2F, Opcodes.FADD, Opcodes.FSUB, Opcodes.FMUL})
+            assertEquals(0, count(main, opcode));
+    }
+
+    @Test
+    public void formatsFloatsInStringConstantsAsTheRunTime() throws Exception {
+        String source = "class StrFloat {\n"
+                + "\tstatic void main() {\n"
+                + "\t\twrite(\"a\" + 0.1 + \" \" + 1.0E10 + \" \" + (1 + 0.5) + \" \" + 2 + 3 + \" \" + (2 + 3));\n"
+                + "\t}\n"
+                + "}\n";
+        TreeMap<String, byte[]> folded = compile(source, true);
+        assertEquals("a0.1 1.0E10 1.5 23 5", run(folded));
+        assertEquals("a0.1 1.0E10 1.5 23 5", run(compile(source, false)));
+
+        MethodNode main = main(folded);
+        assertTrue(constants(main).contains("a0.1 1.0E10 1.5 23 5"));
+        assertEquals(0, count(main, Opcodes.NEW));
+    }
+
+    @Test
+    public void simplifiesIdentitiesButKeepsNegativeZero() throws Exception {
+        String source = "class Ident {\n"
+                + "\tstatic void main() {\n"
+                + "\t\tint i;\n"
+                + "\t\tfloat f;\n"
+                + "\t\tfloat z;\n"
+                + "\t\ti = 5;\n"
+                + "\t\tf = 2.5;\n"
+                + "\t\tz = -0.0;\n"
+                + "\t\twrite(i * 1);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(1 * i + 0);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(0 + i - 0);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(f * 1);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(f - 0.0);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(z * 1);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(z - 0.0);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(z + 0.0);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(z - -0.0);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(i * 1.0);\n"
+                + "\t}\n"
+                + "}\n";
+        String expected = "5 5 5 2.5 2.5 -0.0 -0.0 0.0 0.0 5.0";
+        TreeMap<String, byte[]> folded = compile(source, true);
+        assertEquals(expected, run(folded));
+        assertEquals(expected, run(compile(source, false)));
+
+        MethodNode main = main(folded);
+        assertEquals(0, count(main, Opcodes.IMUL));
+        assertEquals(0, count(main, Opcodes.IADD));
+        assertEquals(0, count(main, Opcodes.ISUB));
+        // i * 1.0 widens i, z + 0.0 and z - -0.0 are not z.
+        assertEquals(1, count(main, Opcodes.FMUL));
+        assertEquals(1, count(main, Opcodes.FADD));
+        assertEquals(1, count(main, Opcodes.FSUB));
+    }
+
+    @Test
+    public void leavesIntegerDivisionByZeroToTheRunTime() throws Exception {
+        String source = "class DivZero {\n"
+                + "\tstatic void main() {\n"
+                + "\t\twrite(1.0 / 0);\n"
+                + "\t\twrite(\" \");\n"
+                + "\t\twrite(7 % 0);\n"
+                + "\t\twrite(1 / 0);\n"
+                + "\t}\n"
+                + "}\n";
+        TreeMap<String, byte[]> folded = compile(source, true);
+        assertEquals("Infinity ", runToArithmeticException(folded));
+        assertEquals("Infinity ", runToArithmeticException(compile(source, false)));
+
+        MethodNode main = main(folded);
+        assertTrue(constants(main).contains(Float.POSITIVE_INFINITY));
+        assertEquals(0, count(main, Opcodes.FDIV));
+        assertEquals(1, count(main, Opcodes.IREM));
+        assertEquals(1, count(main, Opcodes.IDIV));
+    }
+
+    /**
+     * Compiles a source as the pipeline does, with or without the constant folding.
+     */
+    private static TreeMap<String, byte[]> compile(String source, boolean fold) throws Exception {
+        parser p = new parser(new Lexer(new StringReader(source)));
+        ASTNode compUnit = (ASTNode) p.parse().value;
+
+        Registry registry = new Registry();
+        compUnit.accept(new SymTableBuilderASTVisitor(SymTableImplementation.FLAT));
+        compUnit.accept(new LocalIndexBuilderASTVisitor(registry));
+        compUnit.accept(new CollectDeclarationsASTVisitor(registry));
+        compUnit.accept(new CollectSymbolsASTVisitor());
+        compUnit.accept(new CollectTypesASTVisitor(registry));
+        if (fold)
+            compUnit.accept(new ConstantFoldingASTVisitor());
+
+        ByteCodeGeneratorASTVisitor generator = new ByteCodeGeneratorASTVisitor("Test", null, registry,
+                StringConcatenation.BUILDER, ClassFileTarget.JAVA_8, CodegenBackend.STREAM, false, WriteMode.STRICT);
+        compUnit.accept(generator);
+        return generator.getClassBytes();
+    }
+
+    /**
+     * Runs the main function of compiled classes.
+     *
+     * @return what it wrote.
+     */
+    private static String run(TreeMap<String, byte[]> classBytes) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(bytes, true, "UTF-8"));
+        try {
+            mainClass(classBytes).getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+        } finally {
+            System.out.flush();
+            System.setOut(out);
+        }
+        return new String(bytes.toByteArray(), UTF_8);
+    }
+
+    /**
+     * Runs the main function of compiled classes, which has to throw an ArithmeticException.
+     *
+     * @return what it wrote before the exception.
+     */
+    private static String runToArithmeticException(TreeMap<String, byte[]> classBytes) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(bytes, true, "UTF-8"));
+        try {
+            mainClass(classBytes).getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+            fail("The division by zero did not throw");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof ArithmeticException);
+        } finally {
+            System.out.flush();
+            System.setOut(out);
+        }
+        return new String(bytes.toByteArray(), UTF_8);
+    }
+
+    private static Class<?> mainClass(TreeMap<String, byte[]> classBytes) throws ClassNotFoundException {
+        ReloadingClassLoader loader = new ReloadingClassLoader(ConstantFoldingTest.class.getClassLoader());
+        for (Map.Entry<String, byte[]> pair : classBytes.entrySet())
+            loader.register(pair.getKey(), pair.getValue());
+        for (String name : classBytes.keySet()) {
+            Class<?> c = loader.loadClass(name);
+            for (java.lang.reflect.Method method : c.getDeclaredMethods())
+                if (method.getName().equals("main"))
+                    return c;
+        }
+        throw new AssertionError("No main function");
+    }
+
+    private static MethodNode main(TreeMap<String, byte[]> classBytes) {
+        for (byte[] bytes : classBytes.values()) {
+            ClassNode classNode = new ClassNode();
+            new ClassReader(bytes).accept(classNode, 0);
+            for (MethodNode method : classNode.methods)
+                if (method.name.equals("main"))
+                    return method;
+        }
+        throw new AssertionError("No main function");
+    }
+
+    private static int count(MethodNode method, int opcode) {
+        int count = 0;
+        for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext())
+            if (insn.getOpcode() == opcode)
+                count++;
+        return count;
+    }
+
+    private static List<Object> constants(MethodNode method) {
+        List<Object> constants = new ArrayList<Object>();
+        for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext())
+            if (insn instanceof LdcInsnNode)
+                constants.add(((LdcInsnNode) insn).cst);
+        return constants;
+    }
+
+    private static String read(String file) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(file)), UTF_8);
+    }
+}
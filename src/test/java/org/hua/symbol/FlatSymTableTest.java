@@ -0,0 +1,209 @@
+package org.hua.symbol;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FlatSymTableTest {
+
+    /**
+     * The names which every comparison looks up.
+     */
+    private static final String[] NAMES = {"x", "y", "z", "f", "g"};
+
+    private Scope root;
+
+    @Before
+    public void setUp() {
+        root = new Scope(null, null);
+    }
+
+    @Test
+    public void innerEntryShadowsOuterEntry() {
+        root.put("x", SymbolKind.VARIABLE, "root x");
+        root.put("x", SymbolKind.FUNCTION, "root x()");
+        Scope child = root.newScope();
+        child.put("x", SymbolKind.VARIABLE, "child x");
+        Scope grandchild = child.newScope();
+
+        assertEquals("child x", grandchild.lookup("x", SymbolKind.VARIABLE));
+        assertEquals("root x()", grandchild.lookup("x", SymbolKind.FUNCTION));
+        assertNull(grandchild.lookupOnlyInTop("x", SymbolKind.VARIABLE));
+        assertEquals("root x", root.lookup("x", SymbolKind.VARIABLE));
+        compare(root, child, grandchild);
+    }
+
+    @Test
+    public void siblingScopesDoNotSeeEachOther() {
+        root.put("x", SymbolKind.VARIABLE, "root x");
+        Scope first = root.newScope();
+        first.put("x", SymbolKind.VARIABLE, "first x");
+        first.put("y", SymbolKind.VARIABLE, "first y");
+        Scope second = root.newScope();
+        second.put("z", SymbolKind.VARIABLE, "second z");
+        Scope nested = second.newScope();
+        nested.put("y", SymbolKind.VARIABLE, "nested y");
+
+        assertEquals("root x", second.lookup("x", SymbolKind.VARIABLE));
+        assertNull(second.lookup("y", SymbolKind.VARIABLE));
+        assertEquals("nested y", nested.lookup("y", SymbolKind.VARIABLE));
+        assertNull(first.lookup("z", SymbolKind.VARIABLE));
+        compare(root, first, second, nested);
+    }
+
+    @Test
+    public void laterScopeWithoutEntrySkipsEarlierScopes() {
+        Scope first = root.newScope();
+        first.put("x", SymbolKind.VARIABLE, "first x");
+        Scope firstNested = first.newScope();
+        firstNested.put("x", SymbolKind.VARIABLE, "first nested x");
+        Scope second = root.newScope();
+        Scope secondNested = second.newScope();
+
+        assertNull(secondNested.lookup("x", SymbolKind.VARIABLE));
+
+        root.put("x", SymbolKind.VARIABLE, "root x");
+        assertEquals("root x", secondNested.lookup("x", SymbolKind.VARIABLE));
+        assertEquals("first nested x", firstNested.lookup("x", SymbolKind.VARIABLE));
+        compare(root, first, firstNested, second, secondNested);
+    }
+
+    @Test
+    public void putOverwritesTheEntryOfTheScope() {
+        root.put("x", SymbolKind.VARIABLE, "old x");
+        Scope child = root.newScope();
+        child.put("y", SymbolKind.VARIABLE, "old y");
+        child.put("y", SymbolKind.VARIABLE, "new y");
+        root.put("x", SymbolKind.VARIABLE, "new x");
+
+        assertEquals("new x", child.lookup("x", SymbolKind.VARIABLE));
+        assertEquals("new y", child.lookupOnlyInTop("y", SymbolKind.VARIABLE));
+        assertEquals(1, child.flat.getSymbolsOnlyInTop().size());
+        assertEquals(2, child.flat.getSymbols().size());
+        compare(root, child);
+    }
+
+    @Test
+    public void clearOnlyInTopUncoversTheEnclosingEntries() {
+        root.put("x", SymbolKind.VARIABLE, "root x");
+        Scope child = root.newScope();
+        child.put("x", SymbolKind.VARIABLE, "child x");
+        child.put("y", SymbolKind.VARIABLE, "child y");
+        Scope grandchild = child.newScope();
+        grandchild.put("y", SymbolKind.VARIABLE, "grandchild y");
+
+        child.clearOnlyInTop();
+        assertEquals("root x", child.lookup("x", SymbolKind.VARIABLE));
+        assertEquals("root x", grandchild.lookup("x", SymbolKind.VARIABLE));
+        assertNull(child.lookup("y", SymbolKind.VARIABLE));
+        assertEquals("grandchild y", grandchild.lookup("y", SymbolKind.VARIABLE));
+        assertEquals(0, child.flat.getSymbolsOnlyInTop().size());
+        compare(root, child, grandchild);
+
+        child.put("y", SymbolKind.VARIABLE, "child y again");
+        assertEquals("child y again", child.lookup("y", SymbolKind.VARIABLE));
+        compare(root, child, grandchild);
+    }
+
+    @Test
+    public void lookupFallsBackToNextSymTable() {
+        SymTable<String> global = new HashSymTable<String>(null);
+        global.put("g", SymbolKind.FUNCTION, "global g()");
+        global.put("x", SymbolKind.VARIABLE, "global x");
+        root = new Scope(global, global);
+        root.put("f", SymbolKind.FUNCTION, "root f()");
+        Scope child = root.newScope();
+        child.put("x", SymbolKind.VARIABLE, "child x");
+
+        assertEquals("global g()", child.lookup("g", SymbolKind.FUNCTION));
+        assertEquals("global x", root.lookup("x", SymbolKind.VARIABLE));
+        assertEquals("child x", child.lookup("x", SymbolKind.VARIABLE));
+        assertNull(child.lookup("g", SymbolKind.VARIABLE));
+        assertEquals(4, child.flat.getSymbols().size());
+        compare(root, child);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void scopesOutOfDepthFirstOrderAreRejected() {
+        SymTable<String> flat = new FlatSymTable<String>(null);
+        SymTable<String> first = new FlatSymTable<String>(flat);
+        new FlatSymTable<String>(first);
+        new FlatSymTable<String>(first);
+        new FlatSymTable<String>(flat);
+        // first is closed once a later sibling exists.
+        new FlatSymTable<String>(first);
+    }
+
+    /**
+     * Checks that every scope finds the same entries and holds the same symbols in both implementations.
+     */
+    private static void compare(Scope... scopes) {
+        for (Scope scope : scopes) {
+            for (String name : NAMES)
+                for (SymbolKind kind : SymbolKind.values()) {
+                    assertEquals(name + " " + kind, scope.hash.lookup(name, kind), scope.flat.lookup(name, kind));
+                    assertEquals(name + " " + kind, scope.hash.lookupOnlyInTop(name, kind),
+                            scope.flat.lookupOnlyInTop(name, kind));
+                }
+            assertEquals(sorted(scope.hash.getSymbols()), sorted(scope.flat.getSymbols()));
+            assertEquals(sorted(scope.hash.getSymbolsOnlyInTop()), sorted(scope.flat.getSymbolsOnlyInTop()));
+            for (Scope other : scopes)
+                for (String symbol : other.hash.getSymbolsOnlyInTop())
+                    assertEquals(symbol, scope.hash.contains(symbol), scope.flat.contains(symbol));
+        }
+    }
+
+    private static List<String> sorted(Collection<String> symbols) {
+        List<String> list = new ArrayList<String>(symbols);
+        assertEquals(list.size(), symbols.size());
+        Collections.sort(list);
+        return list;
+    }
+
+    /**
+     * A scope in both implementations, which gets the same entries.
+     */
+    private static final class Scope {
+
+        final SymTable<String> flat;
+        final SymTable<String> hash;
+
+        Scope(SymTable<String> nextFlat, SymTable<String> nextHash) {
+            this.flat = SymTableImplementation.FLAT.newScope(nextFlat);
+            this.hash = SymTableImplementation.HASH.newScope(nextHash);
+        }
+
+        Scope newScope() {
+            return new Scope(flat, hash);
+        }
+
+        void put(String name, SymbolKind kind, String symbol) {
+            flat.put(name, kind, symbol);
+            hash.put(name, kind, symbol);
+        }
+
+        void clearOnlyInTop() {
+            flat.clearOnlyInTop();
+            hash.clearOnlyInTop();
+        }
+
+        String lookup(String name, SymbolKind kind) {
+            String symbol = flat.lookup(name, kind);
+            assertEquals(hash.lookup(name, kind), symbol);
+            return symbol;
+        }
+
+        String lookupOnlyInTop(String name, SymbolKind kind) {
+            String symbol = flat.lookupOnlyInTop(name, kind);
+            assertEquals(hash.lookupOnlyInTop(name, kind), symbol);
+            return symbol;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.hua.symbol;
+
+import org.hua.Registry;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.Type;
+
+import static org.junit.Assert.assertEquals;
+
+public class LocalIndexPoolTest {
+
+    private LocalIndexPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new LocalIndexPool(new Registry());
+    }
+
+    @Test
+    public void singleIndexesAreConsecutive() {
+        assertEquals(0, pool.getLocalIndex(Type.INT_TYPE));
+        assertEquals(1, pool.getLocalIndex(Type.FLOAT_TYPE));
+        assertEquals(2, pool.getLocalIndex());
+        assertEquals(2, pool.getMaxLocals());
+    }
+
+    @Test
+    public void doubleTakesTwoIndexes() {
+        assertEquals(0, pool.getLocalIndex());
+        assertEquals(1, pool.getLocalIndex(Type.DOUBLE_TYPE));
+        assertEquals(3, pool.getLocalIndex());
+        assertEquals(3, pool.getMaxLocals());
+    }
+
+    @Test
+    public void lowestFreeIndexIsReused() {
+        pool.getLocalIndex();
+        pool.getLocalIndex();
+        pool.getLocalIndex();
+        pool.freeLocalIndex(1);
+        assertEquals(1, pool.getLocalIndex());
+        assertEquals(3, pool.getLocalIndex());
+    }
+
+    @Test
+    public void doubleSkipsHoleOfOneIndex() {
+        pool.getLocalIndex();
+        pool.getLocalIndex();
+        pool.getLocalIndex();
+        pool.freeLocalIndex(1);
+        assertEquals(3, pool.getLocalIndex(Type.DOUBLE_TYPE));
+        assertEquals(1, pool.getLocalIndex());
+        assertEquals(5, pool.getLocalIndex());
+    }
+
+    @Test
+    public void freedDoubleIsReusedByTwoSingles() {
+        int d = pool.getLocalIndex(Type.DOUBLE_TYPE);
+        pool.getLocalIndex();
+        pool.freeLocalIndex(d, Type.DOUBLE_TYPE);
+        assertEquals(0, pool.getLocalIndex());
+        assertEquals(1, pool.getLocalIndex());
+        assertEquals(3, pool.getLocalIndex());
+    }
+
+    @Test
+    public void growsAcrossWordBoundary() {
+        for (int i = 0; i < 63; i++)
+            assertEquals(i, pool.getLocalIndex());
+        assertEquals(63, pool.getLocalIndex(Type.DOUBLE_TYPE));
+        assertEquals(65, pool.getLocalIndex());
+        for (int i = 66; i < 300; i++)
+            assertEquals(i, pool.getLocalIndex());
+
+        pool.freeLocalIndex(63, Type.DOUBLE_TYPE);
+        pool.freeLocalIndex(200);
+        assertEquals(63, pool.getLocalIndex());
+        assertEquals(64, pool.getLocalIndex());
+        assertEquals(200, pool.getLocalIndex());
+        assertEquals(300, pool.getLocalIndex());
+    }
+
+    @Test
+    public void freeingFloatFreesOneIndex() {
+        int f = pool.getLocalIndex(Type.FLOAT_TYPE);
+        int live = pool.getLocalIndex(Type.INT_TYPE);
+        assertEquals(0, f);
+        assertEquals(1, live);
+
+        pool.freeLocalIndex(f, Type.FLOAT_TYPE);
+        assertEquals(0, pool.getLocalIndex());
+        assertEquals(2, pool.getLocalIndex());
+    }
+}